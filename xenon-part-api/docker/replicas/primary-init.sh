@@ -0,0 +1,4 @@
+#!/bin/bash
+# Разрешает подключение реплики к основной базе по протоколу репликации.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Собирает приложение для быстрого старта:
+#   1. AOT-обработка контекста Spring с профилем fast-start (mvn -Pfast-start);
+#   2. распаковка исполняемого jar (классификатор exec, см. pom.xml), чтобы классы
+#      грузились из обычных jar-файлов;
+#   3. обучающий запуск с прогревом и построение архива классов: AOT-кэш Leyden
+#      (JEP 483) на JDK 24 и новее, AppCDS на более старых.
+#
+# Обучающий запуск выполняет точка входа WarmUpTraining: она поднимает приложение,
+# ждет прогрева и завершает процесс. Путь к классам тот же, что у обычного запуска
+# (один распакованный jar), иначе JVM не примет архив. База из spring.datasource.*
+# должна быть доступна и содержать схему. Запуск собранного приложения:
+#   java -XX:AOTCache=target/fast-start/app.aot -Dspring.aot.enabled=true \
+#        -Dspring.profiles.active=fast-start -jar target/fast-start/xenon-part-api-*-exec.jar
+# (с AppCDS вместо -XX:AOTCache указывается -XX:SharedArchiveFile=target/fast-start/app.jsa).
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+OUT=target/fast-start
+TRAINING_MAIN=ru.fiarr4ik.xenonpartapi.startup.WarmUpTraining
+RUN_OPTS=(-Dspring.aot.enabled=true -Dspring.profiles.active=fast-start -Dserver.port=0)
+
+./mvnw -B -q -Pfast-start -DskipTests package
+rm -rf "$OUT"
+java -Djarmode=tools -jar target/xenon-part-api-*-exec.jar extract --destination "$OUT"
+JAR=$(ls "$OUT"/xenon-part-api-*-exec.jar)
+
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 \
+    | awk -F'= ' '/java.specification.version/ {print $2}' | cut -d. -f1)
+if [ "$JAVA_MAJOR" -ge 24 ]; then
+    echo "Обучающий запуск, JDK $JAVA_MAJOR: AOT-кэш"
+    java -XX:AOTMode=record -XX:AOTConfiguration="$OUT/app.aotconf" "${RUN_OPTS[@]}" -cp "$JAR" "$TRAINING_MAIN"
+    java -XX:AOTMode=create -XX:AOTConfiguration="$OUT/app.aotconf" -XX:AOTCache="$OUT/app.aot" \
+        "${RUN_OPTS[@]}" -cp "$JAR" "$TRAINING_MAIN"
+    echo "Готово: $JAR, кэш $OUT/app.aot"
+else
+    echo "Обучающий запуск, JDK $JAVA_MAJOR: AppCDS"
+    java -XX:ArchiveClassesAtExit="$OUT/app.jsa" "${RUN_OPTS[@]}" -cp "$JAR" "$TRAINING_MAIN"
+    echo "Готово: $JAR, архив $OUT/app.jsa"
+fi
@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Замеряет холодный старт: время до первого успешного ответа API, время до перехода
+# readiness в UP и RSS процесса в момент готовности. Печатает каждый запуск и медианы.
+#
+#   scripts/startup-benchmark.sh [jar|fast-start] [число запусков]
+#
+# jar        - обычный исполняемый jar из target (./mvnw package);
+# fast-start - результат scripts/fast-start-build.sh.
+# Время отсчитывается от запуска процесса java, база из spring.datasource.* должна быть доступна.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+MODE=${1:-jar}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+TIMEOUT_MS=${TIMEOUT_MS:-120000}
+LOG=target/startup-benchmark.log
+
+case "$MODE" in
+    jar)
+        CMD=(java -jar "$(ls target/xenon-part-api-*-exec.jar)")
+        ;;
+    fast-start)
+        CACHE=()
+        if [ -f target/fast-start/app.aot ]; then
+            CACHE=(-XX:AOTCache=target/fast-start/app.aot)
+        elif [ -f target/fast-start/app.jsa ]; then
+            CACHE=(-XX:SharedArchiveFile=target/fast-start/app.jsa)
+        fi
+        CMD=(java "${CACHE[@]}" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-start
+             -jar "$(ls target/fast-start/xenon-part-api-*-exec.jar)")
+        ;;
+    *)
+        echo "Неизвестный режим: $MODE" >&2
+        exit 2
+        ;;
+esac
+
+now_ms() { date +%s%3N; }
+median() { printf '%s\n' "$@" | sort -n | awk '{v[NR] = $1} END {print v[int((NR + 1) / 2)]}'; }
+
+FIRST=()
+READY=()
+RSS=()
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    "${CMD[@]}" --server.port="$PORT" >"$LOG" 2>&1 &
+    pid=$!
+    first=""
+    ready=""
+    while kill -0 "$pid" 2>/dev/null; do
+        elapsed=$(( $(now_ms) - start ))
+        if [ "$elapsed" -gt "$TIMEOUT_MS" ]; then
+            break
+        fi
+        if [ -z "$first" ] && curl -sf -o /dev/null "http://localhost:$PORT/api/categories"; then
+            first=$elapsed
+        fi
+        if curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/readiness"; then
+            ready=$elapsed
+            break
+        fi
+        sleep 0.05
+    done
+    if [ -z "$ready" ]; then
+        kill "$pid" 2>/dev/null || true
+        echo "Запуск $run: приложение не стало готовым, журнал в $LOG" >&2
+        exit 1
+    fi
+    rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+
+    FIRST+=("$first")
+    READY+=("$ready")
+    RSS+=("$rss_kb")
+    printf 'запуск %d: первый ответ %d мс, готовность %d мс, RSS %d МБ\n' \
+        "$run" "$first" "$ready" $((rss_kb / 1024))
+done
+
+printf '%s, медиана из %d: первый ответ %d мс, готовность %d мс, RSS %d МБ\n' "$MODE" "$RUNS" \
+    "$(median "${FIRST[@]}")" "$(median "${READY[@]}")" $(( $(median "${RSS[@]}") / 1024 ))
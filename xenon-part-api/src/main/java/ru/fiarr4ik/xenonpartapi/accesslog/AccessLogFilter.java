@@ -0,0 +1,183 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Присваивает запросу идентификатор корреляции и пишет его в журнал доступа.
+ *
+ * <p>Идентификатор берется из заголовка {@code X-Request-Id}, если клиент или прокси
+ * его передал, иначе создается. Он возвращается в ответе и доступен журналу
+ * приложения как {@code requestId} в MDC, поэтому записи приложения и журнала доступа
+ * об одном запросе связываются между собой.
+ *
+ * <p>Фильтр выполняется первым, чтобы учесть время всех остальных фильтров. Запись
+ * делается после завершения запроса, для асинхронных запросов - по завершении
+ * асинхронной обработки.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String REQUEST_ID_ATTRIBUTE = AccessLogFilter.class.getName() + ".requestId";
+    static final String MDC_KEY = "requestId";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final AccessLogWriter writer;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final Counter sampledOutRecords;
+
+    public AccessLogFilter(ObjectProvider<AccessLogWriter> writer, AccessLogProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.writer = writer.getIfAvailable();
+        this.sampleRate = properties.getSampleRate();
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowThresholdMs());
+        this.sampledOutRecords = this.writer != null
+                ? AccessLogWriter.recordCounter(meterRegistry, "sampled-out")
+                : null;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            // Продолжение асинхронного запроса: идентификатор уже присвоен, запись сделает слушатель
+            MDC.put(MDC_KEY, (String) request.getAttribute(REQUEST_ID_ATTRIBUTE));
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                MDC.remove(MDC_KEY);
+            }
+            return;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (!isValidRequestId(requestId)) {
+            requestId = newRequestId();
+        }
+        request.setAttribute(REQUEST_ID_ATTRIBUTE, requestId);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(MDC_KEY, requestId);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            MDC.remove(MDC_KEY);
+            if (writer != null) {
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new Completion(requestId, startMillis, startNanos));
+                } else {
+                    // Исключение дойдет до контейнера, и клиент получит 500
+                    record(request, failed ? 500 : response.getStatus(), requestId, startMillis, startNanos);
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, String requestId, long startMillis, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (status < 400 && elapsedNanos < slowThresholdNanos && !sampled()) {
+            sampledOutRecords.increment();
+            return;
+        }
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Object userId = request.getAttribute("userId");
+        writer.append(startMillis, requestId, request.getMethod(), request.getRequestURI(),
+                route instanceof String pattern ? pattern : null, status,
+                TimeUnit.NANOSECONDS.toMicros(elapsedNanos),
+                userId instanceof Long id ? id : null, request.getRemoteAddr());
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static boolean isValidRequestId(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            boolean allowed = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.' || c == ':';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String newRequestId() {
+        long bits = ThreadLocalRandom.current().nextLong();
+        char[] chars = new char[16];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = HEX[(int) (bits & 0xF)];
+            bits >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Запись асинхронного запроса после отправки ответа.
+     */
+    private final class Completion implements AsyncListener {
+
+        private final String requestId;
+        private final long startMillis;
+        private final long startNanos;
+
+        private Completion(String requestId, long startMillis, long startNanos) {
+            this.requestId = requestId;
+            this.startMillis = startMillis;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record((HttpServletRequest) event.getSuppliedRequest(),
+                    ((HttpServletResponse) event.getSuppliedResponse()).getStatus(),
+                    requestId, startMillis, startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
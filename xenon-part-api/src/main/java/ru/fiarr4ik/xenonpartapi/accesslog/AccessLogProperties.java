@@ -0,0 +1,43 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки журнала доступа.
+ *
+ * <p>Журнал пишется строками JSON, по одной на HTTP-запрос. Успешные запросы
+ * записываются выборочно, ошибки и медленные запросы - всегда.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "access-log")
+public class AccessLogProperties {
+
+    /**
+     * Файл журнала. Значение {@code -} направляет журнал в стандартный вывод.
+     */
+    private String path = "logs/access.log";
+
+    /**
+     * Доля успешных запросов, попадающих в журнал, от 0 до 1.
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * Запросы не быстрее этого времени записываются независимо от выборки.
+     */
+    private long slowThresholdMs = 1000;
+
+    /**
+     * Число записей в кольцевом буфере, округляется вверх до степени двойки.
+     * Записи, не поместившиеся в заполненный буфер, отбрасываются.
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * Наибольший размер одной записи в байтах, длинные строки в ней обрезаются.
+     */
+    private int maxRecordBytes = 1024;
+}
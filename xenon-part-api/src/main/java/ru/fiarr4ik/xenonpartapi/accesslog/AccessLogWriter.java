@@ -0,0 +1,196 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная запись журнала доступа через кольцевой буфер.
+ *
+ * <p>Поток запроса занимает очередную ячейку буфера, кодирует запись прямо в ее
+ * массив байт и публикует ячейку, не выделяя память и не ожидая ввода-вывода.
+ * Отдельный поток забирает опубликованные записи по порядку и пишет их пачками.
+ * Если буфер заполнен, запись отбрасывается и учитывается в метрике: медленный диск
+ * не должен задерживать ответы.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true", matchIfMissing = true)
+class AccessLogWriter {
+
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final JsonLineBuffer[] slots;
+    /**
+     * Для каждой ячейки - номер опубликованной в ней записи плюс один.
+     */
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BUFFER_BYTES);
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private boolean writeFailed;
+
+    private final Counter writtenRecords;
+    private final Counter droppedRecords;
+
+    AccessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) throws IOException {
+        int capacity = Math.max(2, Integer.highestOneBit(properties.getBufferSize() - 1) << 1);
+        int recordBytes = Math.min(OUTPUT_BUFFER_BYTES, Math.max(256, properties.getMaxRecordBytes()));
+        this.slots = new JsonLineBuffer[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new JsonLineBuffer(recordBytes);
+        }
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        if ("-".equals(properties.getPath())) {
+            this.channel = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+            this.closeChannel = false;
+        } else {
+            Path path = Path.of(properties.getPath()).toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            this.closeChannel = true;
+        }
+
+        this.writtenRecords = recordCounter(meterRegistry, "written");
+        this.droppedRecords = recordCounter(meterRegistry, "dropped");
+        Gauge.builder("xenon.access-log.buffer.used", this, writer -> writer.claimed.get() - writer.consumed)
+                .description("Записи журнала доступа, ожидающие записи")
+                .register(meterRegistry);
+
+        this.writerThread = new Thread(this::drain, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Ставит запись в очередь на запись.
+     *
+     * @return {@code false}, если буфер заполнен и запись отброшена
+     */
+    boolean append(long timestampMillis, String requestId, String method, String path, String route,
+                   int status, long durationMicros, Long userId, String clientIp) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                droppedRecords.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        JsonLineBuffer line = slots[index];
+        line.begin();
+        // Поля постоянной длины идут первыми, чтобы обрезка строк их не затронула
+        line.timestampField("ts", timestampMillis);
+        line.field("status", status);
+        line.field("durationMicros", durationMicros);
+        if (userId != null) {
+            line.field("userId", userId);
+        }
+        line.field("requestId", requestId);
+        line.field("method", method);
+        line.field("route", route);
+        line.field("clientIp", clientIp);
+        line.field("path", path);
+        line.end();
+        published.set(index, sequence + 1);
+        return true;
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (closeChannel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Не удалось закрыть журнал доступа: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            long sequence = consumed;
+            int index = (int) (sequence & mask);
+            if (published.get(index) == sequence + 1) {
+                JsonLineBuffer line = slots[index];
+                if (output.remaining() < line.length()) {
+                    flush();
+                }
+                output.put(line.data(), 0, line.length());
+                // Ячейка освобождается только после копирования записи
+                consumed = sequence + 1;
+                writtenRecords.increment();
+            } else if (running || sequence != claimed.get()) {
+                flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else {
+                flush();
+                return;
+            }
+        }
+    }
+
+    private void flush() {
+        if (output.position() == 0) {
+            return;
+        }
+        output.flip();
+        try {
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+            writeFailed = false;
+        } catch (IOException e) {
+            if (!writeFailed) {
+                log.warn("Не удалось записать журнал доступа: {}", e.getMessage());
+            }
+            writeFailed = true;
+        }
+        output.clear();
+    }
+
+    static Counter recordCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("xenon.access-log.records")
+                .description("Записи журнала доступа")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
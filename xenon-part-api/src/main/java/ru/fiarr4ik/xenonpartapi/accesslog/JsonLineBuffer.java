@@ -0,0 +1,203 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+/**
+ * Строка JSON, собираемая в заранее выделенный массив байт.
+ *
+ * <p>Кодирование не создает объектов: строки переводятся в UTF-8 посимвольно,
+ * числа и время пишутся цифрами прямо в массив. Запись не выходит за размер массива:
+ * длинная строка обрезается, а поля, для которых не осталось места, пропускаются,
+ * поэтому результат всегда остается корректным JSON.
+ */
+final class JsonLineBuffer {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final byte[] data;
+    /**
+     * Граница для полей: после нее остается место для {@code }\n}.
+     */
+    private final int end;
+    private int length;
+    private boolean full;
+
+    JsonLineBuffer(int capacity) {
+        this.data = new byte[capacity];
+        this.end = capacity - 2;
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void begin() {
+        length = 0;
+        full = false;
+        data[length++] = '{';
+    }
+
+    void end() {
+        data[length++] = '}';
+        data[length++] = '\n';
+    }
+
+    void field(String name, long value) {
+        if (startField(name, 20)) {
+            writeLong(value);
+        }
+    }
+
+    void field(String name, String value) {
+        if (value != null && startField(name, 2)) {
+            data[length++] = '"';
+            writeEscaped(value);
+            data[length++] = '"';
+        }
+    }
+
+    /**
+     * Пишет момент времени в UTC в виде {@code 2024-05-01T12:00:00.000Z}.
+     */
+    void timestampField(String name, long epochMillis) {
+        if (!startField(name, 26)) {
+            return;
+        }
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        long millisOfDay = Math.floorMod(epochMillis, MILLIS_PER_DAY);
+        // Перевод номера дня в дату по алгоритму civil_from_days Говарда Хиннанта
+        long shifted = days + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        data[length++] = '"';
+        writeDigits(year, 4);
+        data[length++] = '-';
+        writeDigits(month, 2);
+        data[length++] = '-';
+        writeDigits(day, 2);
+        data[length++] = 'T';
+        writeDigits(millisOfDay / 3_600_000, 2);
+        data[length++] = ':';
+        writeDigits(millisOfDay / 60_000 % 60, 2);
+        data[length++] = ':';
+        writeDigits(millisOfDay / 1000 % 60, 2);
+        data[length++] = '.';
+        writeDigits(millisOfDay % 1000, 3);
+        data[length++] = 'Z';
+        data[length++] = '"';
+    }
+
+    /**
+     * Пишет имя поля, если после него останется не меньше {@code minValueBytes} байт для значения.
+     */
+    private boolean startField(String name, int minValueBytes) {
+        int needed = 1 + name.length() + 3 + minValueBytes;
+        if (full || length + needed > end) {
+            full = true;
+            return false;
+        }
+        if (length > 1) {
+            data[length++] = ',';
+        }
+        data[length++] = '"';
+        for (int i = 0; i < name.length(); i++) {
+            data[length++] = (byte) name.charAt(i);
+        }
+        data[length++] = '"';
+        data[length++] = ':';
+        return true;
+    }
+
+    private void writeEscaped(String value) {
+        // Место для закрывающей кавычки
+        int limit = end - 1;
+        int count = value.length();
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                if (length + 2 > limit) {
+                    break;
+                }
+                data[length++] = '\\';
+                data[length++] = (byte) c;
+            } else if (c < 0x20) {
+                if (length + 6 > limit) {
+                    break;
+                }
+                data[length++] = '\\';
+                data[length++] = 'u';
+                writeDigits(0, 2);
+                data[length++] = (byte) Character.forDigit(c >> 4, 16);
+                data[length++] = (byte) Character.forDigit(c & 0xF, 16);
+            } else if (c < 0x80) {
+                if (length + 1 > limit) {
+                    break;
+                }
+                data[length++] = (byte) c;
+            } else if (c < 0x800) {
+                if (length + 2 > limit) {
+                    break;
+                }
+                data[length++] = (byte) (0xC0 | c >> 6);
+                data[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(value.charAt(i + 1))) {
+                if (length + 4 > limit) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                data[length++] = (byte) (0xF0 | codePoint >> 18);
+                data[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                data[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                data[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // Непарный суррогат не кодируется в UTF-8
+                if (length + 1 > limit) {
+                    break;
+                }
+                data[length++] = '?';
+            } else {
+                if (length + 3 > limit) {
+                    break;
+                }
+                data[length++] = (byte) (0xE0 | c >> 12);
+                data[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                data[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value < 0) {
+            data[length++] = '-';
+            // Long.MIN_VALUE не имеет положительной пары, его последняя цифра пишется отдельно
+            if (value == Long.MIN_VALUE) {
+                writeLong(-(value / 10));
+                data[length++] = '8';
+                return;
+            }
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value; rest >= 10; rest /= 10) {
+            digits++;
+        }
+        writeDigits(value, digits);
+    }
+
+    private void writeDigits(long value, int digits) {
+        for (int i = length + digits - 1; i >= length; i--) {
+            data[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+}
@@ -0,0 +1,380 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Колоночный снимок запчастей и инвентаря в памяти.
+ *
+ * <p>Каждый атрибут хранится в отдельном примитивном массиве, категории и поставщики
+ * закодированы порядковыми номерами словаря. Агрегации выполняются параллельно
+ * по блокам строк с последующим сложением частичных результатов.
+ * Удаленные строки остаются в массивах с пометкой и пропускаются при агрегации.
+ *
+ * <p>Класс не потокобезопасен: изменения и чтения синхронизирует владелец.
+ */
+public class ColumnStore {
+
+    private static final int DELETED = -1;
+    private static final int PENDING = -2;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final String[] STOCK_LEVELS = {
+        "Нет в наличии", "Низкий запас", "Средний запас", "Высокий запас"
+    };
+
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary suppliers = new Dictionary();
+
+    private final LongIntHashMap partIndex;
+    private int partRows;
+    private long[] partIds;
+    private double[] unitPrices;
+    private int[] partCategories;
+    private int[] partSuppliers;
+    private int[] partInventoryRefs;
+
+    private final LongIntHashMap inventoryIndex;
+    private int inventoryRows;
+    private long[] inventoryIds;
+    private int[] inventoryParts;
+    private int[] quantities;
+
+    private int deletedRows;
+
+    public ColumnStore(int expectedParts, int expectedInventory) {
+        int partCapacity = Math.max(16, expectedParts);
+        int inventoryCapacity = Math.max(16, expectedInventory);
+        partIndex = new LongIntHashMap(partCapacity);
+        partIds = new long[partCapacity];
+        unitPrices = new double[partCapacity];
+        partCategories = new int[partCapacity];
+        partSuppliers = new int[partCapacity];
+        partInventoryRefs = new int[partCapacity];
+        inventoryIndex = new LongIntHashMap(inventoryCapacity);
+        inventoryIds = new long[inventoryCapacity];
+        inventoryParts = new int[inventoryCapacity];
+        quantities = new int[inventoryCapacity];
+    }
+
+    public void putCategoryName(long categoryId, String name) {
+        categories.put(categoryId, name);
+    }
+
+    public void putSupplierName(long supplierId, String name) {
+        suppliers.put(supplierId, name);
+    }
+
+    /**
+     * Добавляет или обновляет запчасть.
+     */
+    public void upsertPart(long partId, long categoryId, long supplierId, double unitPrice) {
+        int row = partRow(partId);
+        if (partCategories[row] == DELETED) {
+            deletedRows--;
+        }
+        unitPrices[row] = unitPrice;
+        partCategories[row] = categories.code(categoryId);
+        partSuppliers[row] = suppliers.code(supplierId);
+    }
+
+    /**
+     * Помечает запчасть удаленной.
+     */
+    public void deletePart(long partId) {
+        int row = partIndex.get(partId);
+        if (row != LongIntHashMap.NO_VALUE && partCategories[row] >= 0) {
+            partCategories[row] = DELETED;
+            partSuppliers[row] = DELETED;
+            deletedRows++;
+        }
+    }
+
+    /**
+     * Добавляет или обновляет запись инвентаря.
+     */
+    public void upsertInventory(long inventoryId, long partId, int quantity) {
+        int partRow = partRow(partId);
+        int row = inventoryIndex.get(inventoryId);
+        if (row == LongIntHashMap.NO_VALUE) {
+            row = inventoryRows++;
+            ensureInventoryCapacity(inventoryRows);
+            inventoryIds[row] = inventoryId;
+            inventoryIndex.put(inventoryId, row);
+            inventoryParts[row] = partRow;
+            partInventoryRefs[partRow]++;
+        } else if (inventoryParts[row] != partRow) {
+            if (inventoryParts[row] == DELETED) {
+                deletedRows--;
+            } else {
+                partInventoryRefs[inventoryParts[row]]--;
+            }
+            inventoryParts[row] = partRow;
+            partInventoryRefs[partRow]++;
+        }
+        quantities[row] = quantity;
+    }
+
+    /**
+     * Помечает запись инвентаря удаленной.
+     */
+    public void deleteInventory(long inventoryId) {
+        int row = inventoryIndex.get(inventoryId);
+        if (row != LongIntHashMap.NO_VALUE && inventoryParts[row] != DELETED) {
+            partInventoryRefs[inventoryParts[row]]--;
+            inventoryParts[row] = DELETED;
+            deletedRows++;
+        }
+    }
+
+    /**
+     * Доля удаленных строк, по которой владелец решает, пора ли перестроить снимок.
+     */
+    public double deletedRatio() {
+        int rows = partRows + inventoryRows;
+        return rows == 0 ? 0 : (double) deletedRows / rows;
+    }
+
+    public int partCount() {
+        return partRows;
+    }
+
+    public int inventoryCount() {
+        return inventoryRows;
+    }
+
+    /**
+     * Суммарная стоимость запчастей по категориям.
+     */
+    public List<CategoryValue> valueByCategory() {
+        return groupByName(partTotalsBy(partCategories, categories.size()), categories, CategoryValue::new);
+    }
+
+    /**
+     * Суммарная стоимость запчастей по поставщикам.
+     */
+    public List<SupplierValue> valueBySupplier() {
+        return groupByName(partTotalsBy(partSuppliers, suppliers.size()), suppliers, SupplierValue::new);
+    }
+
+    /**
+     * Общее количество, стоимость и средняя цена запчастей.
+     */
+    public OverallMetrics overallMetrics() {
+        GroupTotals totals = partTotalsBy(partCategories, categories.size());
+        long count = Arrays.stream(totals.counts).sum();
+        double sum = Arrays.stream(totals.sums).sum();
+        return new OverallMetrics(count, count == 0 ? null : sum, count == 0 ? null : sum / count);
+    }
+
+    /**
+     * Распределение записей инвентаря по уровням запаса.
+     */
+    public List<StockLevelCount> stockLevelDistribution(int lowThreshold, int mediumThreshold) {
+        int rows = inventoryRows;
+        long[] counts = IntStream.range(0, chunkCount(rows)).parallel()
+                .mapToObj(chunk -> {
+                    long[] local = new long[STOCK_LEVELS.length];
+                    int end = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                        if (inventoryParts[i] == DELETED) {
+                            continue;
+                        }
+                        int quantity = quantities[i];
+                        int level = quantity == 0 ? 0
+                                : quantity < lowThreshold ? 1
+                                : quantity < mediumThreshold ? 2
+                                : 3;
+                        local[level]++;
+                    }
+                    return local;
+                })
+                .reduce(new long[STOCK_LEVELS.length], ColumnStore::addInto);
+
+        List<StockLevelCount> result = new ArrayList<>(STOCK_LEVELS.length);
+        for (int level = 0; level < STOCK_LEVELS.length; level++) {
+            if (counts[level] > 0) {
+                result.add(new StockLevelCount(STOCK_LEVELS[level], counts[level]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Общий остаток, количество уникальных запчастей на складе и средний остаток.
+     */
+    public InventoryOverview inventoryOverview() {
+        int rows = inventoryRows;
+        long[] totals = IntStream.range(0, chunkCount(rows)).parallel()
+                .mapToObj(chunk -> {
+                    long[] local = new long[2];
+                    int end = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                        if (inventoryParts[i] != DELETED) {
+                            local[0] += quantities[i];
+                            local[1]++;
+                        }
+                    }
+                    return local;
+                })
+                .reduce(new long[2], ColumnStore::addInto);
+        int parts = partRows;
+        long uniqueParts = IntStream.range(0, chunkCount(parts)).parallel()
+                .mapToLong(chunk -> {
+                    long local = 0;
+                    int end = Math.min(parts, (chunk + 1) * CHUNK_SIZE);
+                    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                        if (partInventoryRefs[i] > 0) {
+                            local++;
+                        }
+                    }
+                    return local;
+                })
+                .sum();
+
+        return new InventoryOverview(totals[1] == 0 ? null : totals[0], uniqueParts,
+                totals[1] == 0 ? null : (double) totals[0] / totals[1]);
+    }
+
+    private GroupTotals partTotalsBy(int[] groupColumn, int groups) {
+        int rows = partRows;
+        return IntStream.range(0, chunkCount(rows)).parallel()
+                .mapToObj(chunk -> {
+                    GroupTotals local = new GroupTotals(groups);
+                    int end = Math.min(rows, (chunk + 1) * CHUNK_SIZE);
+                    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+                        int group = groupColumn[i];
+                        if (group >= 0) {
+                            local.sums[group] += unitPrices[i];
+                            local.counts[group]++;
+                        }
+                    }
+                    return local;
+                })
+                .reduce(new GroupTotals(groups), GroupTotals::merge);
+    }
+
+    private static <T> List<T> groupByName(GroupTotals totals, Dictionary dictionary,
+                                           BiFunction<String, Double, T> row) {
+        // Как и в JPQL-запросах, группы с одинаковым названием объединяются, а пустые не выводятся
+        Map<String, Double> byName = new LinkedHashMap<>();
+        for (int code = 0; code < totals.counts.length; code++) {
+            if (totals.counts[code] > 0) {
+                byName.merge(dictionary.name(code), totals.sums[code], Double::sum);
+            }
+        }
+        List<T> result = new ArrayList<>(byName.size());
+        byName.forEach((name, value) -> result.add(row.apply(name, value)));
+        return result;
+    }
+
+    private int partRow(long partId) {
+        int row = partIndex.get(partId);
+        if (row == LongIntHashMap.NO_VALUE) {
+            // Строка может появиться раньше самой запчасти, если инвентарь пришел первым;
+            // до прихода запчасти она не участвует в агрегациях
+            row = partRows++;
+            ensurePartCapacity(partRows);
+            partIds[row] = partId;
+            partCategories[row] = PENDING;
+            partSuppliers[row] = PENDING;
+            partIndex.put(partId, row);
+        }
+        return row;
+    }
+
+    private void ensurePartCapacity(int required) {
+        if (required > partIds.length) {
+            int capacity = Math.max(required, partIds.length + (partIds.length >> 1));
+            partIds = Arrays.copyOf(partIds, capacity);
+            unitPrices = Arrays.copyOf(unitPrices, capacity);
+            partCategories = Arrays.copyOf(partCategories, capacity);
+            partSuppliers = Arrays.copyOf(partSuppliers, capacity);
+            partInventoryRefs = Arrays.copyOf(partInventoryRefs, capacity);
+        }
+    }
+
+    private void ensureInventoryCapacity(int required) {
+        if (required > inventoryIds.length) {
+            int capacity = Math.max(required, inventoryIds.length + (inventoryIds.length >> 1));
+            inventoryIds = Arrays.copyOf(inventoryIds, capacity);
+            inventoryParts = Arrays.copyOf(inventoryParts, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+    }
+
+    private static int chunkCount(int rows) {
+        return (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static long[] addInto(long[] target, long[] source) {
+        long[] result = target.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] += source[i];
+        }
+        return result;
+    }
+
+    /**
+     * Частичные суммы и количества по группам одного блока строк.
+     */
+    private static final class GroupTotals {
+        private final double[] sums;
+        private final long[] counts;
+
+        private GroupTotals(int groups) {
+            sums = new double[groups];
+            counts = new long[groups];
+        }
+
+        private GroupTotals merge(GroupTotals other) {
+            GroupTotals result = new GroupTotals(sums.length);
+            for (int i = 0; i < sums.length; i++) {
+                result.sums[i] = sums[i] + other.sums[i];
+                result.counts[i] = counts[i] + other.counts[i];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Словарь, кодирующий идентификаторы категорий или поставщиков порядковыми номерами.
+     */
+    private static final class Dictionary {
+        private final LongIntHashMap codes = new LongIntHashMap(64);
+        private final List<String> names = new ArrayList<>();
+
+        private int code(long id) {
+            int code = codes.get(id);
+            if (code == LongIntHashMap.NO_VALUE) {
+                code = names.size();
+                names.add(null);
+                codes.put(id, code);
+            }
+            return code;
+        }
+
+        private void put(long id, String name) {
+            names.set(code(id), name);
+        }
+
+        private String name(int code) {
+            return names.get(code);
+        }
+
+        private int size() {
+            return names.size();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.event.CategoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.InventoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.PartChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.SupplierChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Аналитический движок метрик поверх колоночного снимка в памяти.
+ *
+ * <p>Включается свойством {@code metrics.columnar.enabled}. После старта приложения снимок
+ * загружается из базы в фоне, затем поддерживается в актуальном состоянии по событиям
+ * изменения каталога. Пока снимок не загружен, {@link #isReady()} возвращает {@code false}
+ * и метрики считаются запросами к базе.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "metrics.columnar.enabled", havingValue = "true")
+public class ColumnarAnalyticsEngine {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final double rebuildDeletedRatio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final List<Consumer<ColumnStore>> changesDuringReload = new ArrayList<>();
+    private ColumnStore store;
+    private volatile boolean ready;
+
+    public ColumnarAnalyticsEngine(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${metrics.columnar.fetch-size:10000}") int fetchSize,
+                                   @Value("${metrics.columnar.rebuild-deleted-ratio:0.25}") double rebuildDeletedRatio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.rebuildDeletedRatio = rebuildDeletedRatio;
+    }
+
+    /**
+     * Показывает, загружен ли снимок.
+     *
+     * @return {@code true}, если по снимку можно считать метрики
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<CategoryValue> valueByCategory() {
+        return read(ColumnStore::valueByCategory);
+    }
+
+    public List<SupplierValue> valueBySupplier() {
+        return read(ColumnStore::valueBySupplier);
+    }
+
+    public OverallMetrics overallMetrics() {
+        return read(ColumnStore::overallMetrics);
+    }
+
+    public InventoryOverview inventoryOverview() {
+        return read(ColumnStore::inventoryOverview);
+    }
+
+    public List<StockLevelCount> stockLevelDistribution(int lowThreshold, int mediumThreshold) {
+        return read(columns -> columns.stockLevelDistribution(lowThreshold, mediumThreshold));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reloadInBackground();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPartChanged(PartChangedEvent event) {
+        Part part = event.part();
+        if (event.deleted()) {
+            apply(columns -> columns.deletePart(part.getPartId()));
+        } else {
+            long categoryId = part.getCategory().getCategoryId();
+            long supplierId = part.getSupplier().getSupplierId();
+            apply(columns -> columns.upsertPart(part.getPartId(), categoryId, supplierId, part.getUnitPrice()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Inventory inventory = event.inventory();
+        if (event.deleted()) {
+            apply(columns -> columns.deleteInventory(inventory.getInventoryId()));
+        } else {
+            long partId = inventory.getPart().getPartId();
+            int quantity = inventory.getQuantityInStock();
+            apply(columns -> columns.upsertInventory(inventory.getInventoryId(), partId, quantity));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!event.deleted()) {
+            String name = event.category().getName();
+            long categoryId = event.category().getCategoryId();
+            apply(columns -> columns.putCategoryName(categoryId, name));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        if (!event.deleted()) {
+            String name = event.supplier().getName();
+            long supplierId = event.supplier().getSupplierId();
+            apply(columns -> columns.putSupplierName(supplierId, name));
+        }
+    }
+
+    private <T> T read(Function<ColumnStore, T> aggregation) {
+        lock.readLock().lock();
+        try {
+            if (store == null) {
+                throw new IllegalStateException("Колоночный снимок еще не загружен");
+            }
+            return aggregation.apply(store);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<ColumnStore> change) {
+        boolean rebuild;
+        lock.writeLock().lock();
+        try {
+            if (store != null) {
+                change.accept(store);
+            }
+            if (reloading.get()) {
+                // Загружаемый снимок может не увидеть это изменение - повторим его после замены
+                changesDuringReload.add(change);
+            }
+            rebuild = store != null && store.deletedRatio() > rebuildDeletedRatio;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuild) {
+            reloadInBackground();
+        }
+    }
+
+    private void reloadInBackground() {
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            try {
+                long started = System.nanoTime();
+                ColumnStore loaded = readOnlyTransaction.execute(status -> load());
+                lock.writeLock().lock();
+                try {
+                    changesDuringReload.forEach(change -> change.accept(loaded));
+                    changesDuringReload.clear();
+                    store = loaded;
+                    reloading.set(false);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                ready = true;
+                log.info("Колоночный снимок загружен: {} запчастей, {} записей инвентаря за {} мс",
+                        loaded.partCount(), loaded.inventoryCount(), (System.nanoTime() - started) / 1_000_000);
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringReload.clear();
+                    reloading.set(false);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                log.error("Не удалось загрузить колоночный снимок", e);
+            }
+        }, "columnar-analytics-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private ColumnStore load() {
+        Long partCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM part", Long.class);
+        Long inventoryCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory", Long.class);
+        ColumnStore columns = new ColumnStore(
+                partCount == null ? 0 : partCount.intValue(),
+                inventoryCount == null ? 0 : inventoryCount.intValue());
+
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        streaming.query("SELECT category_id, name FROM categories",
+                rs -> { columns.putCategoryName(rs.getLong(1), rs.getString(2)); });
+        streaming.query("SELECT supplier_id, name FROM suppliers",
+                rs -> { columns.putSupplierName(rs.getLong(1), rs.getString(2)); });
+        streaming.query("SELECT part_id, category_id, supplier_id, unit_price FROM part",
+                rs -> { columns.upsertPart(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDouble(4)); });
+        streaming.query("SELECT inventory_id, part_id, quantity_in_stock FROM inventory",
+                rs -> { columns.upsertInventory(rs.getLong(1), rs.getLong(2), rs.getInt(3)); });
+        return columns;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-min скетч для оценки частот по {@code long}-ключам в фиксированной памяти.
+ *
+ * <p>Оценка никогда не бывает меньше истинного значения и превышает его не более чем
+ * на {@code e / width} от суммы всех добавленных величин с вероятностью {@code 1 - e^-depth}.
+ * Не потокобезопасен: синхронизацию обеспечивает владелец.
+ */
+final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+        0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+        0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final long[][] counters;
+    private final int mask;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Глубина скетча должна быть от 1 до " + SEEDS.length);
+        }
+        int capacity = Integer.highestOneBit(Math.max(16, width - 1)) << 1;
+        counters = new long[depth][capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Увеличивает счетчики ключа и возвращает новую оценку его частоты.
+     */
+    long add(long key, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            int column = column(key, row);
+            counters[row][column] += count;
+            estimate = Math.min(estimate, counters[row][column]);
+        }
+        return estimate;
+    }
+
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            estimate = Math.min(estimate, counters[row][column(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Прибавляет счетчики другого скетча той же формы.
+     */
+    void mergeFrom(CountMinSketch other) {
+        for (int row = 0; row < counters.length; row++) {
+            long[] target = counters[row];
+            long[] source = other.counters[row];
+            for (int column = 0; column < target.length; column++) {
+                target[column] += source[column];
+            }
+        }
+    }
+
+    void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    private int column(long key, int row) {
+        long hash = (key + SEEDS[row]) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 31;
+        hash *= SEEDS[(row + 1) % SEEDS.length] | 1;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,375 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.dto.ClassificationResultDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+import ru.fiarr4ik.xenonpartapi.exception.ConflictException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * ABC/XYZ-классификация запчастей.
+ *
+ * <p>ABC делит запчасти по вкладу в стоимость запасов (цена, умноженная на остаток):
+ * класс A набирает первые {@code a-share} суммарной стоимости, B - следующие до {@code b-share},
+ * остальное - C. XYZ делит по коэффициенту вариации недельного расхода за последние полные недели.
+ *
+ * <p>Запчасти читаются блоками по возрастанию идентификатора в примитивные массивы,
+ * границы классов находятся по отсортированным стоимостям и их префиксным суммам,
+ * классы считаются параллельно, а в базу записываются только изменившиеся классы.
+ *
+ * <p>Одновременно выполняется только одна классификация. Ручной запуск выполняется
+ * в общем пуле задач приложения, а запуск по расписанию, совпавший с идущей
+ * классификацией, пропускается.
+ */
+@Slf4j
+@Component
+public class InventoryClassificationJob {
+
+    private static final String PART_CHUNK =
+            "SELECT part.part_id, part.unit_price * COALESCE(SUM(inventory.quantity_in_stock), 0), " +
+            "part.abc_class, part.xyz_class " +
+            "FROM part LEFT JOIN inventory ON inventory.part_id = part.part_id " +
+            "WHERE part.part_id > ? " +
+            "GROUP BY part.part_id ORDER BY part.part_id LIMIT ?";
+
+    // Недели отсчитываются от начала окна, а не по календарю: иначе в окно попадали бы
+    // неполные первая и текущая недели, а делитель оставался бы равным числу полных недель
+    private static final String WEEKLY_CONSUMPTION =
+            "SELECT part_id, CAST(-SUM(quantity) AS bigint) FROM stock_movement " +
+            "WHERE quantity < 0 AND moved_at >= ? AND moved_at < ? " +
+            "GROUP BY part_id, (CAST(moved_at AS date) - CAST(? AS date)) / 7";
+
+    private static final String UPDATE_CLASSES =
+            "UPDATE part SET abc_class = ?, xyz_class = ? WHERE part_id = ANY (?)";
+
+    private static final byte UNCLASSIFIED = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Executor executor;
+    private final int chunkSize;
+    private final double aShare;
+    private final double bShare;
+    private final int xyzWeeks;
+    private final double xThreshold;
+    private final double yThreshold;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ClassificationResultDTO lastResult;
+
+    public InventoryClassificationJob(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                      Executor executor,
+                                      @Value("${inventory.classification.chunk-size:50000}") int chunkSize,
+                                      @Value("${inventory.classification.a-share:0.8}") double aShare,
+                                      @Value("${inventory.classification.b-share:0.95}") double bShare,
+                                      @Value("${inventory.classification.xyz-weeks:12}") int xyzWeeks,
+                                      @Value("${inventory.classification.x-threshold:0.5}") double xThreshold,
+                                      @Value("${inventory.classification.y-threshold:1.0}") double yThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.aShare = aShare;
+        this.bShare = bShare;
+        this.xyzWeeks = xyzWeeks;
+        this.xThreshold = xThreshold;
+        this.yThreshold = yThreshold;
+    }
+
+    @Scheduled(cron = "${inventory.classification.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("ABC/XYZ-классификация уже выполняется, запуск по расписанию пропущен");
+            return;
+        }
+        classify();
+    }
+
+    /**
+     * Запускает классификацию всех запчастей в фоне. Результат доступен
+     * через {@link #lastResult()} после завершения.
+     *
+     * @throws ConflictException если классификация уже выполняется
+     */
+    public void start() {
+        acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    classify();
+                } catch (RuntimeException e) {
+                    log.error("ABC/XYZ-классификация завершилась ошибкой", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Классифицирует все запчасти в текущем потоке.
+     *
+     * @return количество запчастей в каждом классе
+     * @throws ConflictException если классификация уже выполняется
+     */
+    public ClassificationResultDTO run() {
+        acquire();
+        return classify();
+    }
+
+    /**
+     * Возвращает результат последней завершенной классификации.
+     *
+     * @return результат или пустой результат, если классификация еще не выполнялась
+     */
+    public Optional<ClassificationResultDTO> lastResult() {
+        return Optional.ofNullable(lastResult);
+    }
+
+    private void acquire() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("Классификация уже выполняется");
+        }
+    }
+
+    private ClassificationResultDTO classify() {
+        try {
+            long started = System.nanoTime();
+            Catalogue catalogue = readCatalogue();
+            readConsumption(catalogue);
+            byte[] abc = classifyAbc(catalogue.values, catalogue.size, aShare, bShare);
+            byte[] xyz = classifyXyz(catalogue);
+            int updated = store(catalogue, abc, xyz);
+            ClassificationResultDTO result = summarize(catalogue.size, abc, xyz, updated,
+                    (System.nanoTime() - started) / 1_000_000);
+            log.info("ABC/XYZ-классификация: {} запчастей, изменено {}, {} мс",
+                    catalogue.size, updated, result.getDurationMillis());
+            lastResult = result;
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Catalogue readCatalogue() {
+        Catalogue catalogue = new Catalogue(chunkSize);
+        long lastId = 0;
+        int read;
+        do {
+            int before = catalogue.size;
+            jdbcTemplate.query(PART_CHUNK, rs -> {
+                catalogue.add(rs.getLong(1), rs.getDouble(2), abcCode(rs.getString(3)), xyzCode(rs.getString(4)));
+            }, lastId, chunkSize);
+            read = catalogue.size - before;
+            if (read > 0) {
+                lastId = catalogue.partIds[catalogue.size - 1];
+            }
+        } while (read == chunkSize);
+        return catalogue;
+    }
+
+    private void readConsumption(Catalogue catalogue) {
+        LongIntHashMap rows = new LongIntHashMap(catalogue.size);
+        for (int i = 0; i < catalogue.size; i++) {
+            rows.put(catalogue.partIds[i], i);
+        }
+        catalogue.consumptionSums = new double[catalogue.size];
+        catalogue.consumptionSquares = new double[catalogue.size];
+        // Окно - ровно xyzWeeks полных недель, закончившихся к началу сегодняшнего дня
+        LocalDateTime until = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        Timestamp since = Timestamp.valueOf(until.minusWeeks(xyzWeeks));
+        jdbcTemplate.query(WEEKLY_CONSUMPTION, rs -> {
+            int row = rows.get(rs.getLong(1));
+            if (row != LongIntHashMap.NO_VALUE) {
+                double weekly = rs.getLong(2);
+                catalogue.consumptionSums[row] += weekly;
+                catalogue.consumptionSquares[row] += weekly * weekly;
+            }
+        }, since, Timestamp.valueOf(until), since);
+    }
+
+    /**
+     * Классы ABC по стоимостям запасов первых {@code size} запчастей.
+     */
+    static byte[] classifyAbc(double[] values, int size, double aShare, double bShare) {
+        byte[] classes = new byte[size];
+        if (size == 0) {
+            return classes;
+        }
+        double[] sorted = Arrays.copyOf(values, size);
+        Arrays.parallelSort(sorted);
+        double[] prefix = sorted.clone();
+        Arrays.parallelPrefix(prefix, Double::sum);
+        double total = prefix[size - 1];
+        if (total <= 0) {
+            Arrays.fill(classes, (byte) AbcClass.C.ordinal());
+            return classes;
+        }
+        // Доля стоимости, набранная до элемента i при обходе по убыванию, равна (total - prefix[i]) / total,
+        // поэтому граница класса - первый элемент, у которого эта доля меньше порога.
+        // Остаток вычитается из суммы, а не умножается на 1 - share: 1 - 0.8 в double меньше 0.2,
+        // и запчасть сразу за ровно набранной долей попадала бы в старший класс
+        double aBoundary = sorted[firstAbove(prefix, total - total * aShare)];
+        double bBoundary = sorted[firstAbove(prefix, total - total * bShare)];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            double value = values[i];
+            AbcClass abcClass = value > 0 && value >= aBoundary ? AbcClass.A
+                    : value > 0 && value >= bBoundary ? AbcClass.B
+                    : AbcClass.C;
+            classes[i] = (byte) abcClass.ordinal();
+        });
+        return classes;
+    }
+
+    private byte[] classifyXyz(Catalogue catalogue) {
+        byte[] classes = new byte[catalogue.size];
+        double[] sums = catalogue.consumptionSums;
+        double[] squares = catalogue.consumptionSquares;
+        IntStream.range(0, catalogue.size).parallel().forEach(i -> classes[i] = (byte) classifyXyz(
+                sums[i], squares[i], xyzWeeks, xThreshold, yThreshold).ordinal());
+        return classes;
+    }
+
+    /**
+     * Класс XYZ по сумме недельных расходов и сумме их квадратов. Недели без расхода
+     * входят в выборку с нулевым значением, запчасть без расхода относится к Z.
+     */
+    static XyzClass classifyXyz(double sum, double squares, int weeks, double xThreshold, double yThreshold) {
+        double mean = sum / weeks;
+        if (mean <= 0) {
+            return XyzClass.Z;
+        }
+        double variance = Math.max(0, squares / weeks - mean * mean);
+        double variation = Math.sqrt(variance) / mean;
+        return variation <= xThreshold ? XyzClass.X
+                : variation <= yThreshold ? XyzClass.Y
+                : XyzClass.Z;
+    }
+
+    private int store(Catalogue catalogue, byte[] abc, byte[] xyz) {
+        // Изменившиеся запчасти группируются по паре классов и обновляются массивами идентификаторов
+        int combinations = AbcClass.values().length * XyzClass.values().length;
+        List<List<Long>> changed = new ArrayList<>(combinations);
+        for (int i = 0; i < combinations; i++) {
+            changed.add(new ArrayList<>());
+        }
+        for (int i = 0; i < catalogue.size; i++) {
+            if (abc[i] != catalogue.abcCodes[i] || xyz[i] != catalogue.xyzCodes[i]) {
+                changed.get(abc[i] * XyzClass.values().length + xyz[i]).add(catalogue.partIds[i]);
+            }
+        }
+        int updated = 0;
+        for (int combination = 0; combination < combinations; combination++) {
+            List<Long> ids = changed.get(combination);
+            String abcClass = AbcClass.values()[combination / XyzClass.values().length].name();
+            String xyzClass = XyzClass.values()[combination % XyzClass.values().length].name();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                Long[] chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize)).toArray(new Long[0]);
+                updated += transaction.execute(status -> jdbcTemplate.update(UPDATE_CLASSES, ps -> {
+                    ps.setString(1, abcClass);
+                    ps.setString(2, xyzClass);
+                    ps.setArray(3, ps.getConnection().createArrayOf("bigint", chunk));
+                }));
+            }
+        }
+        return updated;
+    }
+
+    private static ClassificationResultDTO summarize(int size, byte[] abc, byte[] xyz, int updated, long durationMillis) {
+        long[] counts = IntStream.range(0, size).parallel()
+                .collect(() -> new long[6],
+                        (local, i) -> {
+                            local[abc[i]]++;
+                            local[3 + xyz[i]]++;
+                        },
+                        (left, right) -> {
+                            for (int i = 0; i < left.length; i++) {
+                                left[i] += right[i];
+                            }
+                        });
+        return new ClassificationResultDTO(size, counts[0], counts[1], counts[2],
+                counts[3], counts[4], counts[5], updated, durationMillis);
+    }
+
+    /**
+     * Индекс первой префиксной суммы, превышающей порог, или последний индекс.
+     */
+    static int firstAbove(double[] prefix, double threshold) {
+        int low = 0;
+        int high = prefix.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prefix[middle] > threshold) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static byte abcCode(String value) {
+        return value == null ? UNCLASSIFIED : (byte) AbcClass.valueOf(value).ordinal();
+    }
+
+    private static byte xyzCode(String value) {
+        return value == null ? UNCLASSIFIED : (byte) XyzClass.valueOf(value).ordinal();
+    }
+
+    /**
+     * Прочитанные запчасти в колоночном виде.
+     */
+    private static final class Catalogue {
+        private int size;
+        private long[] partIds;
+        private double[] values;
+        private byte[] abcCodes;
+        private byte[] xyzCodes;
+        private double[] consumptionSums;
+        private double[] consumptionSquares;
+
+        private Catalogue(int capacity) {
+            partIds = new long[capacity];
+            values = new double[capacity];
+            abcCodes = new byte[capacity];
+            xyzCodes = new byte[capacity];
+        }
+
+        private void add(long partId, double value, byte abcCode, byte xyzCode) {
+            if (size == partIds.length) {
+                int capacity = partIds.length + (partIds.length >> 1);
+                partIds = Arrays.copyOf(partIds, capacity);
+                values = Arrays.copyOf(values, capacity);
+                abcCodes = Arrays.copyOf(abcCodes, capacity);
+                xyzCodes = Arrays.copyOf(xyzCodes, capacity);
+            }
+            partIds[size] = partId;
+            values[size] = value;
+            abcCodes[size] = abcCode;
+            xyzCodes[size] = xyzCode;
+            size++;
+        }
+    }
+}
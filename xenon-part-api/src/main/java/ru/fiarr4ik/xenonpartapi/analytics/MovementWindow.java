@@ -0,0 +1,22 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import java.time.Duration;
+
+/**
+ * Окно, за которое считаются самые оборачиваемые запчасти.
+ */
+public enum MovementWindow {
+    DAY(Duration.ofDays(1)),
+    WEEK(Duration.ofDays(7)),
+    MONTH(Duration.ofDays(30));
+
+    private final Duration length;
+
+    MovementWindow(Duration length) {
+        this.length = length;
+    }
+
+    public Duration length() {
+        return length;
+    }
+}
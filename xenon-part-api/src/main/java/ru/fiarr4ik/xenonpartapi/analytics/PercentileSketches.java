@@ -0,0 +1,462 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupPercentiles;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.PercentilesDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.ValuePercentiles;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.event.CategoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.InventoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.PartChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.SupplierChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Приближенные процентили цены запчастей и остатков по категориям и поставщикам.
+ *
+ * <p>Для каждой группы строится пара t-digest скетчей: по цене запчастей и по остаткам
+ * записей инвентаря. Итоговые процентили по складу получаются слиянием скетчей категорий.
+ * Процентили вычисляются при публикации ответа, поэтому запрос отвечает за постоянное время.
+ *
+ * <p>Новое значение из события добавляется в скетчи групп и в итоговые скетчи сразу.
+ * Скетч не поддерживает удаление значений, поэтому прежняя цена измененной запчасти
+ * остается в скетче: такие группы помечаются устаревшими и пересчитываются фоновой задачей.
+ * Прежний остаток измененной или удаленной записи инвентаря тоже остается в скетче, но
+ * остатки меняются при каждом движении товара, поэтому группа пересчитывается, только когда
+ * доля устаревших остатков в ней превышает {@code max-stale-ratio}. Новая запись инвентаря
+ * пересчета не требует. Запчасть, перенесенная в другую категорию или к другому
+ * поставщику, пересчитывается в прежних группах по идентификаторам из события и в новых,
+ * куда вместе с ней переходят ее остатки. Запись инвентаря, перенесенная к другой запчасти,
+ * остается в прежних группах до планового полного перестроения.
+ *
+ * <p>Скетчи изменяются только под блокировкой, готовый ответ публикуется через
+ * volatile-поле и читается без нее. События только отмечают, что ответ устарел, а публикует
+ * его фоновая задача не чаще раза в {@code publish-interval-ms}.
+ */
+@Slf4j
+@Component
+public class PercentileSketches {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final double compression;
+    private final double maxStaleRatio;
+
+    private final AtomicBoolean fullRebuildRequested = new AtomicBoolean();
+    private final AtomicBoolean publishRequested = new AtomicBoolean();
+    private final Set<Long> dirtyCategories = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtySuppliers = ConcurrentHashMap.newKeySet();
+
+    private final Object lock = new Object();
+    // Поля ниже изменяются только под lock
+    private Map<Long, GroupSketch> categories = new HashMap<>();
+    private Map<Long, GroupSketch> suppliers = new HashMap<>();
+    private TDigest totalPrice;
+    private TDigest totalStock;
+    private boolean rebuilding;
+
+    private volatile PercentilesDTO view;
+
+    public PercentileSketches(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${metrics.percentiles.fetch-size:10000}") int fetchSize,
+                              @Value("${metrics.percentiles.compression:100}") double compression,
+                              @Value("${metrics.percentiles.max-stale-ratio:0.01}") double maxStaleRatio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.compression = compression;
+        this.maxStaleRatio = maxStaleRatio;
+        synchronized (lock) {
+            mergeTotals();
+            publish();
+        }
+    }
+
+    /**
+     * Возвращает процентили из последнего опубликованного ответа.
+     *
+     * @return процентили цены и остатков
+     */
+    public PercentilesDTO percentiles() {
+        return view;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        fullRebuildRequested.set(true);
+    }
+
+    /**
+     * Плановое полное перестроение, исправляющее накопленные неточности групп.
+     */
+    @Scheduled(cron = "${metrics.percentiles.full-rebuild-cron:0 0 3 * * *}")
+    public void requestFullRebuild() {
+        fullRebuildRequested.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPartChanged(PartChangedEvent event) {
+        Part part = event.part();
+        Long categoryId = part.getCategory() == null ? null : part.getCategory().getCategoryId();
+        Long supplierId = part.getSupplier() == null ? null : part.getSupplier().getSupplierId();
+        synchronized (lock) {
+            // Удаленная запчасть и прежняя цена измененной удаляются из скетчей только пересчетом
+            markDirty(event.previousCategoryId(), event.previousSupplierId());
+            if (event.deleted()) {
+                markDirty(categoryId, supplierId);
+                return;
+            }
+            addPrice(categoryId, supplierId, part.getUnitPrice());
+            // Остатки перенесенной запчасти переходят в новые группы вместе с ней
+            if (event.previousCategoryId() != null && !event.previousCategoryId().equals(categoryId)) {
+                markDirty(categoryId, null);
+            }
+            if (event.previousSupplierId() != null && !event.previousSupplierId().equals(supplierId)) {
+                markDirty(null, supplierId);
+            }
+            publishRequested.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Inventory inventory = event.inventory();
+        Part part = inventory.getPart();
+        if (part == null) {
+            return;
+        }
+        Integer previousQuantity = event.previousQuantity();
+        if (!event.deleted() && previousQuantity != null && previousQuantity.equals(inventory.getQuantityInStock())) {
+            return;
+        }
+        Long categoryId = part.getCategory() == null ? null : part.getCategory().getCategoryId();
+        Long supplierId = part.getSupplier() == null ? null : part.getSupplier().getSupplierId();
+        synchronized (lock) {
+            if (previousQuantity != null || event.deleted()) {
+                addStale(categories, categoryId, dirtyCategories);
+                addStale(suppliers, supplierId, dirtySuppliers);
+            }
+            if (!event.deleted()) {
+                addStock(categoryId, supplierId, inventory.getQuantityInStock());
+            }
+            publishRequested.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        dirtyCategories.add(event.category().getCategoryId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplierChanged(SupplierChangedEvent event) {
+        dirtySuppliers.add(event.supplier().getSupplierId());
+    }
+
+    /**
+     * Публикует ответ, если после последней публикации скетчи изменились.
+     */
+    @Scheduled(fixedDelayString = "${metrics.percentiles.publish-interval-ms:1000}")
+    public void publishChanges() {
+        if (publishRequested.getAndSet(false)) {
+            synchronized (lock) {
+                publish();
+            }
+        }
+    }
+
+    /**
+     * Перестраивает устаревшие группы или, если запрошено, весь снимок.
+     */
+    @Scheduled(fixedDelayString = "${metrics.percentiles.rebuild-interval-ms:5000}")
+    public void rebuild() {
+        try {
+            if (fullRebuildRequested.getAndSet(false)) {
+                synchronized (lock) {
+                    // Изменения, пришедшие во время полного перестроения, останутся помеченными
+                    // и будут пересчитаны следующим запуском
+                    rebuilding = true;
+                    dirtyCategories.clear();
+                    dirtySuppliers.clear();
+                }
+                long started = System.nanoTime();
+                Groups groups = readOnlyTransaction.execute(status ->
+                        new Groups(load(Dimension.CATEGORY, null), load(Dimension.SUPPLIER, null)));
+                synchronized (lock) {
+                    categories = groups.categories();
+                    suppliers = groups.suppliers();
+                    mergeTotals();
+                    publish();
+                }
+                log.info("Скетчи процентилей построены за {} мс", (System.nanoTime() - started) / 1_000_000);
+            } else if (!dirtyCategories.isEmpty() || !dirtySuppliers.isEmpty()) {
+                List<Long> categoryIds;
+                List<Long> supplierIds;
+                synchronized (lock) {
+                    rebuilding = true;
+                    categoryIds = drain(dirtyCategories);
+                    supplierIds = drain(dirtySuppliers);
+                }
+                Groups groups = readOnlyTransaction.execute(status -> new Groups(
+                        categoryIds.isEmpty() ? Map.of() : load(Dimension.CATEGORY, categoryIds),
+                        supplierIds.isEmpty() ? Map.of() : load(Dimension.SUPPLIER, supplierIds)));
+                synchronized (lock) {
+                    replace(categories, categoryIds, groups.categories());
+                    replace(suppliers, supplierIds, groups.suppliers());
+                    mergeTotals();
+                    publish();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось перестроить скетчи процентилей", e);
+        } finally {
+            synchronized (lock) {
+                rebuilding = false;
+            }
+        }
+    }
+
+    private void addPrice(Long categoryId, Long supplierId, double price) {
+        addValue(categories, categoryId, dirtyCategories, sketch -> sketch.price.add(price));
+        addValue(suppliers, supplierId, dirtySuppliers, sketch -> sketch.price.add(price));
+        totalPrice.add(price);
+    }
+
+    private void addStock(Long categoryId, Long supplierId, int quantity) {
+        addValue(categories, categoryId, dirtyCategories, sketch -> sketch.stock.add(quantity));
+        addValue(suppliers, supplierId, dirtySuppliers, sketch -> sketch.stock.add(quantity));
+        totalStock.add(quantity);
+    }
+
+    /**
+     * Добавляет значение в скетч группы. Группа, которой еще нет в снимке или которая
+     * сейчас читается перестроением, вместо этого помечается устаревшей: ее значения
+     * придут из базы.
+     */
+    private void addValue(Map<Long, GroupSketch> sketches, Long id, Set<Long> dirty, Consumer<GroupSketch> add) {
+        if (id == null) {
+            return;
+        }
+        GroupSketch sketch = sketches.get(id);
+        if (sketch == null || rebuilding) {
+            dirty.add(id);
+        }
+        if (sketch != null) {
+            add.accept(sketch);
+            sketch.refresh();
+        }
+    }
+
+    /**
+     * Учитывает прежний остаток, оставшийся в скетче группы. Группа помечается устаревшей,
+     * когда доля таких остатков превышает допустимую, а также если ее еще нет в снимке
+     * или она сейчас читается перестроением.
+     */
+    private void addStale(Map<Long, GroupSketch> sketches, Long id, Set<Long> dirty) {
+        if (id == null) {
+            return;
+        }
+        GroupSketch sketch = sketches.get(id);
+        if (sketch == null || rebuilding
+                || ++sketch.staleStock > maxStaleRatio * (sketch.stock.size() - sketch.staleStock)) {
+            dirty.add(id);
+        }
+    }
+
+    private void markDirty(Long categoryId, Long supplierId) {
+        if (categoryId != null) {
+            dirtyCategories.add(categoryId);
+        }
+        if (supplierId != null) {
+            dirtySuppliers.add(supplierId);
+        }
+    }
+
+    /**
+     * Заново собирает итоговые скетчи из скетчей категорий.
+     */
+    private void mergeTotals() {
+        List<TDigest> prices = new ArrayList<>(categories.size());
+        List<TDigest> stocks = new ArrayList<>(categories.size());
+        for (GroupSketch sketch : categories.values()) {
+            prices.add(sketch.price);
+            stocks.add(sketch.stock);
+        }
+        totalPrice = merged(prices);
+        totalStock = merged(stocks);
+    }
+
+    /**
+     * Сливает скетчи списком за один проход. Слияние по одному {@code add(TDigest)} в
+     * t-digest 3.3 переносит тяжелые крайние центроиды и при включенных assert падает в
+     * {@code MergingDigest.merge}, а слияние списком не принимает пустые скетчи.
+     */
+    private TDigest merged(List<TDigest> digests) {
+        TDigest result = newDigest();
+        List<TDigest> nonEmpty = digests.stream().filter(digest -> digest.size() > 0).toList();
+        if (!nonEmpty.isEmpty()) {
+            result.add(nonEmpty);
+        }
+        return result;
+    }
+
+    private void publish() {
+        view = new PercentilesDTO(percentilesOf(totalPrice), percentilesOf(totalStock),
+                sorted(categories), sorted(suppliers), LocalDateTime.now());
+    }
+
+    /**
+     * Строит скетчи групп, потоково читая цены и остатки.
+     *
+     * @param ids группы для построения или {@code null} для всех групп
+     */
+    private Map<Long, GroupSketch> load(Dimension dimension, List<Long> ids) {
+        String groupFilter = ids == null ? "" : " WHERE " + dimension.column + inList(ids.size());
+        String partFilter = ids == null ? "" : " WHERE part." + dimension.column + inList(ids.size());
+        Object[] args = ids == null ? new Object[0] : ids.toArray();
+
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+
+        Map<Long, GroupSketch> sketches = new HashMap<>();
+        streaming.query(dimension.namesSql + groupFilter, rs -> {
+            long id = rs.getLong(1);
+            sketches.put(id, new GroupSketch(id, rs.getString(2)));
+        }, args);
+        streaming.query(dimension.pricesSql + partFilter, rs -> {
+            GroupSketch sketch = sketches.get(rs.getLong(1));
+            if (sketch != null) {
+                sketch.price.add(rs.getDouble(2));
+            }
+        }, args);
+        streaming.query(dimension.stockSql + partFilter, rs -> {
+            GroupSketch sketch = sketches.get(rs.getLong(1));
+            if (sketch != null) {
+                sketch.stock.add(rs.getInt(2));
+            }
+        }, args);
+
+        sketches.values().forEach(GroupSketch::refresh);
+        return sketches;
+    }
+
+    private TDigest newDigest() {
+        return new MergingDigest(compression);
+    }
+
+    private static void replace(Map<Long, GroupSketch> current, List<Long> ids, Map<Long, GroupSketch> rebuilt) {
+        // Группы, которых больше нет в базе, удаляются из снимка
+        ids.forEach(current::remove);
+        current.putAll(rebuilt);
+    }
+
+    private static String inList(int size) {
+        return " IN (" + String.join(",", Collections.nCopies(size, "?")) + ")";
+    }
+
+    private static List<Long> drain(Set<Long> dirty) {
+        List<Long> ids = new ArrayList<>();
+        for (Long id : dirty) {
+            if (dirty.remove(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static List<GroupPercentiles> sorted(Map<Long, GroupSketch> sketches) {
+        return sketches.values().stream()
+                .map(sketch -> sketch.percentiles)
+                .sorted(Comparator.comparing(GroupPercentiles::id))
+                .toList();
+    }
+
+    private static ValuePercentiles percentilesOf(TDigest digest) {
+        if (digest.size() == 0) {
+            return new ValuePercentiles(0, null, null, null);
+        }
+        return new ValuePercentiles(digest.size(), digest.quantile(0.5), digest.quantile(0.9), digest.quantile(0.99));
+    }
+
+    /**
+     * Скетчи одной группы и процентили, вычисленные по ним при последнем изменении.
+     */
+    private final class GroupSketch {
+        private final long id;
+        private final String name;
+        private final TDigest price = newDigest();
+        private final TDigest stock = newDigest();
+        private GroupPercentiles percentiles;
+        // Прежние остатки, оставшиеся в скетче после изменения или удаления записей
+        private long staleStock;
+
+        private GroupSketch(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        private void refresh() {
+            percentiles = new GroupPercentiles(id, name, percentilesOf(price), percentilesOf(stock));
+        }
+    }
+
+    /**
+     * Скетчи групп, прочитанные одним перестроением.
+     */
+    private record Groups(Map<Long, GroupSketch> categories, Map<Long, GroupSketch> suppliers) {
+    }
+
+    /**
+     * Измерение группировки и запросы, читающие его значения.
+     */
+    private enum Dimension {
+        CATEGORY("category_id",
+                "SELECT category_id, name FROM categories",
+                "SELECT part.category_id, part.unit_price FROM part",
+                "SELECT part.category_id, inventory.quantity_in_stock FROM inventory " +
+                "JOIN part ON part.part_id = inventory.part_id"),
+        SUPPLIER("supplier_id",
+                "SELECT supplier_id, name FROM suppliers",
+                "SELECT part.supplier_id, part.unit_price FROM part",
+                "SELECT part.supplier_id, inventory.quantity_in_stock FROM inventory " +
+                "JOIN part ON part.part_id = inventory.part_id");
+
+        private final String column;
+        private final String namesSql;
+        private final String pricesSql;
+        private final String stockSql;
+
+        Dimension(String column, String namesSql, String pricesSql, String stockSql) {
+            this.column = column;
+            this.namesSql = namesSql;
+            this.pricesSql = pricesSql;
+            this.stockSql = stockSql;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.fiarr4ik.xenonpartapi.event.StockMovedEvent;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Потоковый учет самых оборачиваемых запчастей.
+ *
+ * <p>Движения остатков раскладываются по временным корзинам: часовым для окна в сутки
+ * и суточным для окон в неделю и месяц. В каждой корзине count-min скетч оценивает
+ * объем движения любой запчасти, а ограниченный набор кандидатов хранит лидеров корзины.
+ * Корзины переиспользуются по кругу, поэтому старые движения выпадают из окна,
+ * а занимаемая память не зависит от количества запчастей.
+ */
+@Component
+public class TopMoversTracker {
+
+    /**
+     * Оценка объема движения запчасти за окно.
+     *
+     * @param partId идентификатор запчасти
+     * @param quantity оценка количества перемещенных единиц, не меньше истинного
+     */
+    public record Mover(long partId, long quantity) {
+    }
+
+    private final int candidates;
+    private final Ring hourly;
+    private final Ring daily;
+
+    public TopMoversTracker(@Value("${metrics.top-movers.sketch-depth:4}") int depth,
+                            @Value("${metrics.top-movers.sketch-width:2048}") int width,
+                            @Value("${metrics.top-movers.candidates:100}") int candidates) {
+        this.candidates = candidates;
+        this.hourly = new Ring(Duration.ofHours(1), 24, depth, width, candidates);
+        this.daily = new Ring(Duration.ofDays(1), 30, depth, width, candidates);
+    }
+
+    /**
+     * Учитывает движение остатка запчасти.
+     *
+     * @param partId идентификатор запчасти
+     * @param quantity количество перемещенных единиц
+     */
+    public synchronized void record(long partId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        hourly.record(now, partId, quantity);
+        daily.record(now, partId, quantity);
+    }
+
+    /**
+     * Учитывает движение после фиксации транзакции, в которой оно записано: откаченное
+     * движение не попадает в скетч, а запись скетча не удлиняет транзакцию.
+     *
+     * @param event событие движения
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockMoved(StockMovedEvent event) {
+        record(event.partId(), Math.abs(event.quantity()));
+    }
+
+    /**
+     * Возвращает запчасти с наибольшим объемом движения за окно.
+     *
+     * @param window окно
+     * @param limit максимальное количество запчастей, не больше размера набора кандидатов
+     * @return запчасти по убыванию объема движения
+     */
+    public synchronized List<Mover> top(MovementWindow window, int limit) {
+        Ring ring = window == MovementWindow.DAY ? hourly : daily;
+        return ring.top(System.currentTimeMillis(), window.length(), Math.min(limit, candidates));
+    }
+
+    /**
+     * Круговой набор корзин одинаковой длительности.
+     */
+    private static final class Ring {
+        private final long bucketMillis;
+        private final Bucket[] buckets;
+        private final int depth;
+        private final int width;
+
+        private Ring(Duration bucketLength, int size, int depth, int width, int candidates) {
+            this.bucketMillis = bucketLength.toMillis();
+            this.buckets = new Bucket[size];
+            this.depth = depth;
+            this.width = width;
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new Bucket(new CountMinSketch(depth, width), candidates);
+            }
+        }
+
+        private void record(long now, long partId, long quantity) {
+            long epoch = now / bucketMillis;
+            Bucket bucket = buckets[(int) (epoch % buckets.length)];
+            if (bucket.epoch != epoch) {
+                // Корзина осталась от предыдущего круга - ее движения уже вне любого окна
+                bucket.reset(epoch);
+            }
+            long estimate = bucket.sketch.add(partId, quantity);
+            bucket.leaders.offer(partId, estimate);
+        }
+
+        private List<Mover> top(long now, Duration window, int limit) {
+            long current = now / bucketMillis;
+            long oldest = current - Math.min(buckets.length, window.toMillis() / bucketMillis) + 1;
+            CountMinSketch merged = new CountMinSketch(depth, width);
+            Set<Long> candidates = new HashSet<>();
+            for (Bucket bucket : buckets) {
+                if (bucket.epoch >= oldest && bucket.epoch <= current) {
+                    merged.mergeFrom(bucket.sketch);
+                    candidates.addAll(bucket.leaders.partIds());
+                }
+            }
+            // Лидер окна почти наверняка лидирует хотя бы в одной корзине, поэтому достаточно
+            // переоценить кандидатов корзин по объединенному скетчу
+            return candidates.stream()
+                    .map(partId -> new Mover(partId, merged.estimate(partId)))
+                    .sorted(Comparator.comparingLong(Mover::quantity).reversed()
+                            .thenComparingLong(Mover::partId))
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    /**
+     * Корзина: скетч движений и лидеры за один интервал.
+     */
+    private static final class Bucket {
+        private final CountMinSketch sketch;
+        private final Leaders leaders;
+        private long epoch = Long.MIN_VALUE;
+
+        private Bucket(CountMinSketch sketch, int capacity) {
+            this.sketch = sketch;
+            this.leaders = new Leaders(capacity);
+        }
+
+        private void reset(long epoch) {
+            this.epoch = epoch;
+            sketch.clear();
+            leaders.clear();
+        }
+    }
+
+    /**
+     * Ограниченный набор запчастей с наибольшими оценками. Самая слабая запчасть
+     * вытесняется, когда появляется кандидат с большей оценкой.
+     */
+    private static final class Leaders {
+        private static final Comparator<Mover> ORDER = Comparator.comparingLong(Mover::quantity)
+                .thenComparingLong(Mover::partId);
+
+        private final int capacity;
+        private final Map<Long, Mover> byPart = new HashMap<>();
+        private final TreeSet<Mover> ordered = new TreeSet<>(ORDER);
+
+        private Leaders(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private void offer(long partId, long estimate) {
+            Mover previous = byPart.get(partId);
+            if (previous != null) {
+                ordered.remove(previous);
+            } else if (byPart.size() >= capacity) {
+                Mover weakest = ordered.first();
+                if (weakest.quantity() >= estimate) {
+                    return;
+                }
+                ordered.pollFirst();
+                byPart.remove(weakest.partId());
+            }
+            Mover mover = new Mover(partId, estimate);
+            byPart.put(partId, mover);
+            ordered.add(mover);
+        }
+
+        private Set<Long> partIds() {
+            return byPart.keySet();
+        }
+
+        private void clear() {
+            byPart.clear();
+            ordered.clear();
+        }
+    }
+}
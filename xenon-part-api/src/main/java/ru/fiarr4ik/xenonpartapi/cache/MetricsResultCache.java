@@ -0,0 +1,162 @@
+package ru.fiarr4ik.xenonpartapi.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.fiarr4ik.xenonpartapi.event.CatalogChangedEvent;
+import ru.fiarr4ik.xenonpartapi.routing.RoutingContext;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов аналитических запросов в режиме stale-while-revalidate.
+ *
+ * <p>Ключ записи состоит из имени запроса и его параметров. Пока запись моложе TTL,
+ * она отдается без обращения к базе. Устаревшая запись продолжает отдаваться,
+ * а ее обновление запускается в фоне не более одного раза на ключ. Отсутствующую
+ * запись вычисляет первый обратившийся поток, остальные ждут тот же результат.
+ * Любое изменение каталога сбрасывает кэш целиком.
+ */
+@Slf4j
+@Component
+public class MetricsResultCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refreshExecutor;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public MetricsResultCache(@Value("${metrics.cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${metrics.cache.max-entries:256}") int maxEntries,
+                              @Value("${metrics.cache.refresh-threads:2}") int refreshThreads) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxEntries),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "metrics-cache-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Возвращает результат запроса из кэша, вычисляя или обновляя его при необходимости.
+     *
+     * @param key ключ запроса вместе с параметрами
+     * @param loader функция, выполняющая запрос к базе
+     * @param <T> тип результата
+     * @return результат запроса, возможно устаревший не более чем на одно обновление
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                // Кэш заполнен произвольными комбинациями параметров - считаем без кэширования
+                return loader.get();
+            }
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+
+        if (!entry.initial.isDone()) {
+            return (T) loadInitial(key, entry, loader);
+        }
+
+        if (System.nanoTime() - entry.loadedAt > ttlNanos && entry.refreshing.compareAndSet(false, true)) {
+            scheduleRefresh(key, entry, loader);
+        }
+        return (T) entry.value;
+    }
+
+    /**
+     * Сбрасывает все записи кэша.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Сбрасывает кэш при любом изменении каталога. Изменение, сделанное в транзакции,
+     * сбрасывает кэш после ее фиксации: иначе запрос, пришедший до фиксации, вернул бы
+     * в кэш прежние данные.
+     *
+     * @param event событие изменения
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidateAll();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Object loadInitial(String key, Entry entry, Supplier<?> loader) {
+        if (!entry.loading.compareAndSet(false, true)) {
+            try {
+                return entry.initial.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // Результат получат и другие клиенты, поэтому он должен учитывать все записи, а не только свои
+            Object value = RoutingContext.shared(loader);
+            entry.store(value);
+            entry.initial.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.initial.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void scheduleRefresh(String key, Entry entry, Supplier<?> loader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    // Обновленную запись тоже получат все клиенты
+                    entry.store(RoutingContext.shared(loader));
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось обновить метрику {}, отдаются прежние данные", key, e);
+                } finally {
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Запись кэша. После сброса кэша запись становится недостижимой,
+     * поэтому запоздавшее фоновое обновление не может вернуть в кэш старые данные.
+     */
+    private static final class Entry {
+        private final CompletableFuture<Object> initial = new CompletableFuture<>();
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Object value;
+        private volatile long loadedAt;
+
+        private void store(Object newValue) {
+            value = newValue;
+            loadedAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.fiarr4ik.xenonpartapi.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройка сериализации JSON.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Заменяет рефлексивный доступ к полям и аксессорам сгенерированными лямбдами,
+     * что ускоряет сериализацию ответов с большим числом строк.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
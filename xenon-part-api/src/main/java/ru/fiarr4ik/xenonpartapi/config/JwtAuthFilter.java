@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.fiarr4ik.xenonpartapi.user.TokenRevocationList;
 
 import java.io.IOException;
 
@@ -15,17 +16,19 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
-                Long userId = jwtUtil.getUserIdFromToken(token);
-                request.setAttribute("username", username);
-                request.setAttribute("userId", userId);
+            JwtPrincipal principal = jwtUtil.parse(authHeader.substring(7));
+            if (principal != null && !tokenRevocationList.isRevoked(principal)) {
+                request.setAttribute("principal", principal);
+                request.setAttribute("username", principal.username());
+                request.setAttribute("userId", principal.userId());
             }
         }
         filterChain.doFilter(request, response);
@@ -0,0 +1,15 @@
+package ru.fiarr4ik.xenonpartapi.config;
+
+import java.time.Instant;
+
+/**
+ * Данные проверенного JWT-токена.
+ *
+ * @param username имя пользователя
+ * @param userId идентификатор пользователя
+ * @param tokenId идентификатор токена ({@code jti}), у токенов прежнего формата отсутствует
+ * @param issuedAt момент выпуска токена
+ * @param expiresAt момент истечения токена
+ */
+public record JwtPrincipal(String username, Long userId, String tokenId, Instant issuedAt, Instant expiresAt) {
+}
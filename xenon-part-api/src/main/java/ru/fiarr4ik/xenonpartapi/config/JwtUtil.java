@@ -3,17 +3,45 @@ package ru.fiarr4ik.xenonpartapi.config;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
     private final String SECRET_KEY = "xenon_secret_key_very_long_and_secure";
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 24; // 24 часа
 
+    // Сколько записей просматривается при вытеснении
+    private static final int EVICTION_SAMPLE = 16;
+
+    /**
+     * Уже проверенные токены по SHA-256 их содержимого. Запись действительна до истечения токена.
+     * Чтение не берет блокировок и не меняет структуру, поэтому запросы не выстраиваются
+     * в очередь на кэше. При переполнении просматривается несколько записей: истекшие
+     * удаляются, а если таких нет, вытесняется токен, который истекает раньше остальных.
+     * Истекшие записи удаляются также при обращении к ним. При одновременных вставках
+     * размер может ненадолго превысить предел на число вставляющих потоков.
+     */
+    private final Map<String, JwtPrincipal> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxCachedTokens;
+
+    public JwtUtil(@Value("${jwt.verified-cache.max-entries:10000}") int maxCachedTokens) {
+        this.maxCachedTokens = maxCachedTokens;
+    }
+
     public String generateToken(String username, Long userId) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .claim("userId", userId)
                 .setIssuedAt(new Date())
@@ -22,23 +50,119 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Проверяет токен и извлекает из него данные пользователя. Подпись проверяется
+     * только при первом предъявлении токена, повторные запросы берут результат из кэша.
+     *
+     * @param token JWT-токен
+     * @return данные пользователя или {@code null}, если токен недействителен или истек
+     */
+    public JwtPrincipal parse(String token) {
+        String digest = digest(token);
+        Instant now = Instant.now();
+        JwtPrincipal cached = cached(digest);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(now)) {
+                return cached;
+            }
+            uncache(digest, cached);
+            return null;
+        }
+
+        JwtPrincipal principal;
         try {
-            Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token);
-            return true;
+            Claims claims = Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+            principal = new JwtPrincipal(claims.getSubject(), toUserId(claims.get("userId")), claims.getId(),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant());
         } catch (Exception e) {
-            return false;
+            return null;
         }
+        cache(digest, principal);
+        return principal;
+    }
+
+    public long getExpirationMillis() {
+        return EXPIRATION_TIME;
+    }
+
+    public boolean validateToken(String token) {
+        return parse(token) != null;
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
-        return claims.getSubject();
+        JwtPrincipal principal = parse(token);
+        return principal != null ? principal.username() : null;
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
-        Object userIdObj = claims.get("userId");
+        JwtPrincipal principal = parse(token);
+        return principal != null ? principal.userId() : null;
+    }
+
+    private JwtPrincipal cached(String digest) {
+        return verifiedTokens.get(digest);
+    }
+
+    private void cache(String digest, JwtPrincipal principal) {
+        if (maxCachedTokens <= 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        // Соседний поток мог вытеснить ту же запись, поэтому освобождаем место до предела
+        while (verifiedTokens.size() >= maxCachedTokens && evict(now)) {
+        }
+        verifiedTokens.put(digest, principal);
+    }
+
+    private void uncache(String digest, JwtPrincipal principal) {
+        verifiedTokens.remove(digest, principal);
+    }
+
+    /**
+     * Освобождает место по выборке записей: удаляет истекшие, а если таких нет -
+     * запись, которая истекает раньше остальных в выборке.
+     *
+     * @return {@code false}, если кэш пуст
+     */
+    private boolean evict(Instant now) {
+        Map.Entry<String, JwtPrincipal> earliest = null;
+        boolean removedExpired = false;
+        int sampled = 0;
+        for (Map.Entry<String, JwtPrincipal> entry : verifiedTokens.entrySet()) {
+            Instant expiresAt = entry.getValue().expiresAt();
+            if (!expiresAt.isAfter(now)) {
+                removedExpired |= verifiedTokens.remove(entry.getKey(), entry.getValue());
+            } else if (earliest == null || expiresAt.isBefore(earliest.getValue().expiresAt())) {
+                earliest = entry;
+            }
+            if (++sampled == EVICTION_SAMPLE) {
+                break;
+            }
+        }
+        if (!removedExpired && earliest != null) {
+            verifiedTokens.remove(earliest.getKey(), earliest.getValue());
+        }
+        return sampled > 0;
+    }
+
+    /**
+     * Количество токенов в кэше проверенных.
+     */
+    int cachedTokens() {
+        return verifiedTokens.size();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private static Long toUserId(Object userIdObj) {
         if (userIdObj instanceof Integer) {
             return ((Integer) userIdObj).longValue();
         } else if (userIdObj instanceof Long) {
@@ -48,4 +172,4 @@ public class JwtUtil {
         }
         return null;
     }
-} 
\ No newline at end of file
+}
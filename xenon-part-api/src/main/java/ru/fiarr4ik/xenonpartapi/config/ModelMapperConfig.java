@@ -3,12 +3,37 @@ package ru.fiarr4ik.xenonpartapi.config;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.fiarr4ik.xenonpartapi.dto.InventoryRequestDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PartRequestDTO;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
 
 @Configuration
 public class ModelMapperConfig {
 
+    /**
+     * Маппер с явными правилами для запросов на изменение запчастей и инвентаря.
+     *
+     * <p>Идентификатор и связи сущности назначает сервис. Неявное сопоставление записало бы
+     * {@code categoryId}, {@code supplierId} и {@code partId} запроса во вложенные сущности,
+     * а идентификатор запчасти и вовсе сопоставляется с несколькими полями запроса сразу.
+     */
     @Bean
     public ModelMapper modelMapper() {
-        return new ModelMapper();
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.emptyTypeMap(PartRequestDTO.class, Part.class)
+                .addMappings(mapper -> {
+                    mapper.skip(Part::setPartId);
+                    mapper.skip(Part::setCategory);
+                    mapper.skip(Part::setSupplier);
+                })
+                .implicitMappings();
+        modelMapper.emptyTypeMap(InventoryRequestDTO.class, Inventory.class)
+                .addMappings(mapper -> {
+                    mapper.skip(Inventory::setInventoryId);
+                    mapper.skip(Inventory::setPart);
+                })
+                .implicitMappings();
+        return modelMapper;
     }
 }
@@ -0,0 +1,17 @@
+package ru.fiarr4ik.xenonpartapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает выполнение фоновых задач по расписанию.
+ *
+ * <p>Отключается свойством {@code scheduling.enabled=false}, когда контекст поднимается
+ * не для обслуживания запросов, например в бенчмарках.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -27,6 +27,8 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins("http://localhost:3000") // URL фронтенда
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "Retry-After",
+                        "X-Request-Id")
                 .allowCredentials(true);
     }
 
@@ -34,7 +36,7 @@ public class WebConfig implements WebMvcConfigurer {
     public FilterRegistrationBean<JwtAuthFilter> jwtFilterRegistration() {
         FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>();
         registration.setFilter(jwtAuthFilter);
-        registration.addUrlPatterns("/api/auth/update", "/api/auth/avatar/*"); // Можно расширить список
+        registration.addUrlPatterns("/api/*");
         registration.setOrder(1);
         return registration;
     }
@@ -1,10 +1,15 @@
 package ru.fiarr4ik.xenonpartapi.controller;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import ru.fiarr4ik.xenonpartapi.dto.RegisterRequest;
@@ -12,100 +17,143 @@ import ru.fiarr4ik.xenonpartapi.dto.LoginRequest;
 import ru.fiarr4ik.xenonpartapi.dto.UpdateUserRequest;
 import ru.fiarr4ik.xenonpartapi.user.UserService;
 import ru.fiarr4ik.xenonpartapi.user.User;
+import ru.fiarr4ik.xenonpartapi.config.JwtPrincipal;
 import ru.fiarr4ik.xenonpartapi.config.JwtUtil;
+import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
+import ru.fiarr4ik.xenonpartapi.exception.ServiceUnavailableException;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+import ru.fiarr4ik.xenonpartapi.user.Avatar;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
-import java.util.Optional;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl VERSIONED_AVATAR_CACHE =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final CacheControl avatarCacheControl;
 
     @Autowired
-    public AuthController(UserService userService, JwtUtil jwtUtil) {
+    public AuthController(UserService userService, JwtUtil jwtUtil,
+                          @Value("${avatars.cache-max-age-seconds:300}") long avatarMaxAgeSeconds) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.avatarCacheControl = CacheControl.maxAge(Duration.ofSeconds(avatarMaxAgeSeconds)).cachePublic();
     }
 
+    /**
+     * Регистрация пользователя. Пароль хэшируется в пуле хэширования, поток запроса
+     * на это время освобождается.
+     */
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody RegisterRequest registerRequest) {
-        try {
-            User registeredUser = userService.registerNewUser(registerRequest.getUsername(), registerRequest.getPassword());
-            return ResponseEntity.status(HttpStatus.CREATED).body(registeredUser);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody RegisterRequest registerRequest) {
+        return badRequestOnError(() -> userService
+                .registerNewUser(registerRequest.getUsername(), registerRequest.getPassword())
+                .thenApply(registeredUser -> ResponseEntity.status(HttpStatus.CREATED).body(registeredUser)));
     }
 
+    /**
+     * Вход пользователя. Пароль проверяется в пуле хэширования, поэтому поток запроса
+     * освобождается на время проверки, а при перегрузке пула сразу возвращается 503.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody LoginRequest loginRequest) {
-        try {
-            Optional<User> userOptional = userService.authenticateUser(loginRequest.getUsername(), loginRequest.getPassword());
-
-            if (userOptional.isPresent()) {
-                User user = userOptional.get();
-                String token = jwtUtil.generateToken(user.getUsername(), user.getId());
-                Map<String, Object> response = new HashMap<>();
-                response.put("token", token);
-                response.put("username", user.getUsername());
-                response.put("userId", user.getId());
-                return ResponseEntity.ok(response);
-            } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверное имя пользователя или пароль");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Ошибка при логине: " + e.getMessage());
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody LoginRequest loginRequest) {
+        return userService.authenticateUser(loginRequest.getUsername(), loginRequest.getPassword())
+                .thenApply(userOptional -> {
+                    if (userOptional.isEmpty()) {
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Неверное имя пользователя или пароль");
+                    }
+                    User user = userOptional.get();
+                    String token = jwtUtil.generateToken(user.getUsername(), user.getId());
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("token", token);
+                    response.put("username", user.getUsername());
+                    response.put("userId", user.getId());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Выход пользователя: токен запроса отзывается и больше не принимается.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(HttpServletRequest request) {
+        JwtPrincipal principal = (JwtPrincipal) request.getAttribute("principal");
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Пользователь не авторизован");
         }
+        userService.logout(principal);
+        return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Изменение имени и пароля. Пароли проверяются и хэшируются в пуле хэширования,
+     * поток запроса на это время освобождается.
+     */
     @PutMapping("/update")
-    public ResponseEntity<?> updateUser(@RequestBody UpdateUserRequest updateRequest, HttpServletRequest request) {
-        try {
-            Long userId = (Long) request.getAttribute("userId");
-            if (userId == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Пользователь не авторизован");
-            }
-            User updatedUser = userService.updateUser(
-                userId,
-                updateRequest.getUsername(),
-                updateRequest.getCurrentPassword(),
-                updateRequest.getNewPassword()
-            );
-            return ResponseEntity.ok(updatedUser);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    public CompletableFuture<ResponseEntity<?>> updateUser(@RequestBody UpdateUserRequest updateRequest, HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        if (userId == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Пользователь не авторизован"));
         }
+        return badRequestOnError(() -> userService
+                .updateUser(
+                        userId,
+                        updateRequest.getUsername(),
+                        updateRequest.getCurrentPassword(),
+                        updateRequest.getNewPassword())
+                .thenApply(ResponseEntity::ok));
     }
 
+    /**
+     * Отдает аватарку пользователя. Файл передается из хранилища через sendfile, если
+     * коннектор его поддерживает, клиент может переиспользовать его по ETag.
+     *
+     * @param size требуемый размер стороны в пикселях, отдается наименьшая подходящая копия
+     * @param version хэш аватарки из профиля пользователя; если он совпадает с текущим,
+     *                адрес однозначно определяет содержимое и кэшируется надолго
+     */
     @GetMapping("/avatar/{userId}")
-    public ResponseEntity<?> getUserAvatar(@PathVariable Long userId) {
-        try {
-            Optional<byte[]> avatarDataOptional = userService.getUserAvatar(userId);
-
-            if (avatarDataOptional.isPresent()) {
-                byte[] avatarData = avatarDataOptional.get();
-                // Определяем Content-Type. В реальном приложении нужно определять по типу файла.
-                // Здесь для простоты предполагаем image/jpeg или image/png. Можно сделать проверку первых байтов.
-                MediaType contentType = MediaType.IMAGE_JPEG; // Замените на MediaType.IMAGE_PNG если нужно
-                // В более надежной реализации нужно определять тип по содержимому файла
-
-                return ResponseEntity.ok()
-                        .contentType(contentType)
-                        .body(avatarData);
-            } else {
-                // Если пользователь не найден или у него нет аватарки
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Аватарка не найдена");
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Ошибка при получении аватарки: " + e.getMessage());
+    public void getUserAvatar(@PathVariable Long userId,
+                              @RequestParam(required = false) Integer size,
+                              @RequestParam(name = "v", required = false) String version,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (size != null && size < 1) {
+            throw new ValidationException("Размер аватарки должен быть положительным");
+        }
+        Avatar avatar = userService.getUserAvatar(userId, size)
+                .orElseThrow(() -> new ResourceNotFoundException("Аватарка не найдена"));
+
+        CacheControl cacheControl = avatar.hash().equals(version) ? VERSIONED_AVATAR_CACHE : avatarCacheControl;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(avatar.etag())) {
+            return;
         }
+        response.setContentType(avatar.contentType());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        sendFile(avatar.path(), request, response);
     }
 
     @PostMapping("/avatar/upload")
@@ -119,16 +167,59 @@ public class AuthController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Файл аватарки пуст");
             }
 
-            byte[] avatarData = avatarFile.getBytes();
-            User updatedUser = userService.updateUserAvatar(userId, avatarData);
+            try (InputStream content = avatarFile.getInputStream()) {
+                userService.updateUserAvatar(userId, content);
+            }
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Аватарка успешно загружена");
             return ResponseEntity.ok(response);
 
+        } catch (ValidationException e) {
+            throw e;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Не удалось загрузить аватарку пользователя", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Ошибка при загрузке аватарки: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Отвечает 400 с текстом ошибки, если операция не удалась сразу или ее результат
+     * завершился ошибкой. Перегрузка пула хэширования передается дальше и становится 503.
+     */
+    private static CompletableFuture<ResponseEntity<?>> badRequestOnError(
+            Supplier<CompletableFuture<ResponseEntity<?>>> operation) {
+        CompletableFuture<ResponseEntity<?>> result;
+        try {
+            result = operation.get();
+        } catch (ServiceUnavailableException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()));
+        }
+        return result.exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof ServiceUnavailableException || !(cause instanceof RuntimeException)) {
+                throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+            }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(cause.getMessage());
+        });
+    }
+
+    /**
+     * Отдает файл. Если коннектор Tomcat поддерживает sendfile (NIO и NIO2 с включенным
+     * {@code useSendfile}), файл передается ядром из страничного кэша прямо в сокет после
+     * завершения обработчика. Иначе файл копируется в ответ обычным потоком через буфер.
+     */
+    private static void sendFile(Path path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(path);
+        response.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        Files.copy(path, response.getOutputStream());
+    }
+}
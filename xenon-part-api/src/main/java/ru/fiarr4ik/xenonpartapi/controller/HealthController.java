@@ -6,6 +6,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,22 +17,32 @@ import org.springframework.web.bind.annotation.RestController;
 
 /**
  * Контроллер для проверки состояния приложения.
+ * Подробные проверки и пробы liveness/readiness доступны в /actuator/health.
  */
 @RestController
 @RequestMapping("/api/health")
+@RequiredArgsConstructor
 @Tag(name = "Health", description = "API для проверки состояния приложения")
 public class HealthController {
 
+    private final HealthEndpoint healthEndpoint;
+
     /**
-     * Проверяет состояние приложения.
+     * Проверяет состояние приложения, включая доступность базы данных.
      *
      * @return ответ с сообщением о состоянии
      */
     @Operation(summary = "Проверить состояние приложения")
     @ApiResponse(responseCode = "200", description = "Приложение работает",
             content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "503", description = "Приложение или база данных недоступны",
+            content = @Content(schema = @Schema(implementation = String.class)))
     @GetMapping
     public ResponseEntity<String> checkHealth() {
-        return ResponseEntity.ok("Приложение работает");
+        Status status = healthEndpoint.health().getStatus();
+        if (Status.UP.equals(status)) {
+            return ResponseEntity.ok("Приложение работает");
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Приложение недоступно: " + status);
     }
-} 
\ No newline at end of file
+}
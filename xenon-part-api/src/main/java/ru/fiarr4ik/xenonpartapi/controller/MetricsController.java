@@ -1,128 +1,263 @@
 package ru.fiarr4ik.xenonpartapi.controller;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.analytics.ColumnarAnalyticsEngine;
+import ru.fiarr4ik.xenonpartapi.analytics.MovementWindow;
+import ru.fiarr4ik.xenonpartapi.analytics.PercentileSketches;
+import ru.fiarr4ik.xenonpartapi.analytics.TopMoversTracker;
+import ru.fiarr4ik.xenonpartapi.cache.MetricsResultCache;
+import ru.fiarr4ik.xenonpartapi.dto.StockHistoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.DashboardDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockDetail;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.PercentilesDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierLowStock;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.TopMoverDTO;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
 import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
 import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
-import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+import ru.fiarr4ik.xenonpartapi.service.CatalogStatisticsService;
+import ru.fiarr4ik.xenonpartapi.service.StockHistoryService;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/metrics")
 public class MetricsController {
 
     private final PartRepository partRepository;
-    private final CategoryRepository categoryRepository;
-    private final SupplierRepository supplierRepository;
     private final InventoryRepository inventoryRepository;
+    private final CatalogStatisticsService catalogStatisticsService;
+    private final StockHistoryService stockHistoryService;
+    private final MetricsResultCache metricsCache;
+    private final ObjectProvider<ColumnarAnalyticsEngine> columnarEngine;
+    private final PercentileSketches percentileSketches;
+    private final TopMoversTracker topMoversTracker;
 
     public MetricsController(
             PartRepository partRepository,
-            CategoryRepository categoryRepository,
-            SupplierRepository supplierRepository,
-            InventoryRepository inventoryRepository) {
+            InventoryRepository inventoryRepository,
+            CatalogStatisticsService catalogStatisticsService,
+            StockHistoryService stockHistoryService,
+            MetricsResultCache metricsCache,
+            ObjectProvider<ColumnarAnalyticsEngine> columnarEngine,
+            PercentileSketches percentileSketches,
+            TopMoversTracker topMoversTracker) {
         this.partRepository = partRepository;
-        this.categoryRepository = categoryRepository;
-        this.supplierRepository = supplierRepository;
         this.inventoryRepository = inventoryRepository;
+        this.catalogStatisticsService = catalogStatisticsService;
+        this.stockHistoryService = stockHistoryService;
+        this.metricsCache = metricsCache;
+        this.columnarEngine = columnarEngine;
+        this.percentileSketches = percentileSketches;
+        this.topMoversTracker = topMoversTracker;
     }
 
     @GetMapping("/parts-by-category")
-    public Object getPartsByCategory() {
-        return partRepository.countPartsByCategory();
+    public List<CategoryPartCount> getPartsByCategory() {
+        return partsByCategory();
     }
 
     @GetMapping("/parts-by-supplier")
-    public Object getPartsBySupplier() {
-        return partRepository.countPartsBySupplier();
+    public List<SupplierPartCount> getPartsBySupplier() {
+        return partsBySupplier();
     }
 
     @GetMapping("/value-by-category")
-    public Object getValueByCategory() {
-        return partRepository.calculateValueByCategory();
+    public List<CategoryValue> getValueByCategory() {
+        return valueByCategory();
     }
 
     @GetMapping("/value-by-supplier")
-    public Object getValueBySupplier() {
-        return partRepository.calculateValueBySupplier();
+    public List<SupplierValue> getValueBySupplier() {
+        return valueBySupplier();
     }
 
     @GetMapping("/low-stock")
-    public Object getLowStock(@RequestParam(defaultValue = "10") Integer threshold) {
-        return inventoryRepository.getLowStockDetails(threshold);
+    public List<LowStockDetail> getLowStock(@RequestParam(defaultValue = "10") Integer threshold) {
+        return lowStockDetails(threshold);
     }
 
     @GetMapping("/overall")
-    public Object getOverall() {
-        return partRepository.getOverallMetrics();
+    public OverallMetrics getOverall() {
+        return overall();
     }
 
     @GetMapping("/category-stats")
-    public Object getCategoryStats() {
-        return categoryRepository.getCategoryStatistics();
+    public List<CategoryStatistics> getCategoryStats() {
+        return catalogStatistics().categoryStats();
     }
 
     @GetMapping("/category-inventory")
-    public Object getCategoryInventory() {
-        return categoryRepository.getCategoryInventoryStats();
+    public List<CategoryInventory> getCategoryInventory() {
+        return catalogStatistics().categoryInventory();
     }
 
     @GetMapping("/supplier-stats")
-    public Object getSupplierStats() {
-        return supplierRepository.getSupplierStatistics();
+    public List<SupplierStatistics> getSupplierStats() {
+        return catalogStatistics().supplierStats();
     }
 
     @GetMapping("/supplier-inventory")
-    public Object getSupplierInventory() {
-        return supplierRepository.getSupplierInventoryStats();
+    public List<SupplierInventory> getSupplierInventory() {
+        return catalogStatistics().supplierInventory();
     }
 
     @GetMapping("/supplier-low-stock")
-    public Object getSupplierLowStock() {
-        return supplierRepository.getSupplierLowStockStats();
+    public List<SupplierLowStock> getSupplierLowStock() {
+        return catalogStatistics().supplierLowStock();
     }
 
     @GetMapping("/inventory-overview")
-    public Object getInventoryOverview() {
-        return inventoryRepository.getInventoryOverview();
+    public InventoryOverview getInventoryOverview() {
+        return inventoryOverview();
     }
 
     @GetMapping("/low-stock-details")
-    public Object getLowStockDetails(@RequestParam(defaultValue = "10") Integer threshold) {
-        return inventoryRepository.getLowStockDetails(threshold);
+    public List<LowStockDetail> getLowStockDetails(@RequestParam(defaultValue = "10") Integer threshold) {
+        return lowStockDetails(threshold);
     }
 
     @GetMapping("/stock-distribution")
-    public Object getStockDistribution(
+    public List<StockLevelCount> getStockDistribution(
         @RequestParam(defaultValue = "10") Integer lowThreshold,
         @RequestParam(defaultValue = "50") Integer mediumThreshold
     ) {
-        return inventoryRepository.getStockLevelDistribution(lowThreshold, mediumThreshold);
+        return stockDistribution(lowThreshold, mediumThreshold);
     }
 
     @GetMapping("/dashboard")
-    public Map<String, Object> getDashboardData(
+    public DashboardDTO getDashboardData(
         @RequestParam(defaultValue = "10") Integer lowThreshold,
         @RequestParam(defaultValue = "50") Integer mediumThreshold
     ) {
-        Map<String, Object> dashboard = new HashMap<>();
-        
-        dashboard.put("overall", partRepository.getOverallMetrics());
-        dashboard.put("partsByCategory", partRepository.countPartsByCategory());
-        dashboard.put("partsBySupplier", partRepository.countPartsBySupplier());
-        dashboard.put("valueByCategory", partRepository.calculateValueByCategory());
-        dashboard.put("valueBySupplier", partRepository.calculateValueBySupplier());
-        dashboard.put("lowStock", partRepository.findLowStockParts(lowThreshold));
-        dashboard.put("categoryStats", categoryRepository.getCategoryStatistics());
-        dashboard.put("supplierStats", supplierRepository.getSupplierStatistics());
-        dashboard.put("inventoryOverview", inventoryRepository.getInventoryOverview());
-        dashboard.put("stockDistribution", inventoryRepository.getStockLevelDistribution(lowThreshold, mediumThreshold));
-        
-        return dashboard;
-    }
-} 
\ No newline at end of file
+        CatalogStatisticsService.Snapshot statistics = catalogStatistics();
+        return new DashboardDTO(
+                overall(),
+                partsByCategory(),
+                partsBySupplier(),
+                valueByCategory(),
+                valueBySupplier(),
+                metricsCache.get("low-stock-parts:" + lowThreshold,
+                        () -> partRepository.findLowStockParts(lowThreshold)),
+                statistics.categoryStats(),
+                statistics.supplierStats(),
+                inventoryOverview(),
+                stockDistribution(lowThreshold, mediumThreshold));
+    }
+
+    @GetMapping("/percentiles")
+    public PercentilesDTO getPercentiles() {
+        return percentileSketches.percentiles();
+    }
+
+    @GetMapping("/top-movers")
+    public List<TopMoverDTO> getTopMovers(
+        @RequestParam(defaultValue = "week") String window,
+        @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        if (limit < 1) {
+            throw new ValidationException("Количество запчастей должно быть положительным");
+        }
+        MovementWindow movementWindow;
+        try {
+            movementWindow = MovementWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестное окно: " + window + ", допустимы day, week, month");
+        }
+        List<TopMoversTracker.Mover> movers = topMoversTracker.top(movementWindow, limit);
+        Map<Long, String> names = partRepository.findAllById(
+                        movers.stream().map(TopMoversTracker.Mover::partId).toList()).stream()
+                .collect(Collectors.toMap(Part::getPartId, Part::getName));
+        return movers.stream()
+                .filter(mover -> names.containsKey(mover.partId()))
+                .map(mover -> new TopMoverDTO(mover.partId(), names.get(mover.partId()), mover.quantity()))
+                .toList();
+    }
+
+    @GetMapping("/history")
+    public StockHistoryResponseDTO getHistory(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(required = false) Long categoryId
+    ) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        return stockHistoryService.history(start, end, categoryId);
+    }
+
+    private OverallMetrics overall() {
+        return metricsCache.get("overall",
+                columnarOr(ColumnarAnalyticsEngine::overallMetrics, partRepository::getOverallMetrics));
+    }
+
+    private List<CategoryPartCount> partsByCategory() {
+        return metricsCache.get("parts-by-category", partRepository::countPartsByCategory);
+    }
+
+    private List<SupplierPartCount> partsBySupplier() {
+        return metricsCache.get("parts-by-supplier", partRepository::countPartsBySupplier);
+    }
+
+    private List<CategoryValue> valueByCategory() {
+        return metricsCache.get("value-by-category",
+                columnarOr(ColumnarAnalyticsEngine::valueByCategory, partRepository::calculateValueByCategory));
+    }
+
+    private List<SupplierValue> valueBySupplier() {
+        return metricsCache.get("value-by-supplier",
+                columnarOr(ColumnarAnalyticsEngine::valueBySupplier, partRepository::calculateValueBySupplier));
+    }
+
+    private InventoryOverview inventoryOverview() {
+        return metricsCache.get("inventory-overview",
+                columnarOr(ColumnarAnalyticsEngine::inventoryOverview, inventoryRepository::getInventoryOverview));
+    }
+
+    private CatalogStatisticsService.Snapshot catalogStatistics() {
+        return metricsCache.get("catalog-statistics", catalogStatisticsService::calculate);
+    }
+
+    private List<StockLevelCount> stockDistribution(Integer lowThreshold, Integer mediumThreshold) {
+        return metricsCache.get("stock-distribution:" + lowThreshold + ":" + mediumThreshold,
+                columnarOr(engine -> engine.stockLevelDistribution(lowThreshold, mediumThreshold),
+                        () -> inventoryRepository.getStockLevelDistribution(lowThreshold, mediumThreshold)));
+    }
+
+    private List<LowStockDetail> lowStockDetails(Integer threshold) {
+        return metricsCache.get("low-stock-details:" + threshold,
+                () -> inventoryRepository.getLowStockDetails(threshold));
+    }
+
+    /**
+     * Выбирает источник агрегации: колоночный снимок, если он включен и загружен, иначе запрос к базе.
+     */
+    private <T> Supplier<T> columnarOr(Function<ColumnarAnalyticsEngine, T> columnar, Supplier<T> database) {
+        return () -> {
+            ColumnarAnalyticsEngine engine = columnarEngine.getIfAvailable();
+            return engine != null && engine.isReady() ? columnar.apply(engine) : database.get();
+        };
+    }
+}
@@ -10,8 +10,12 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.fiarr4ik.xenonpartapi.analytics.InventoryClassificationJob;
+import ru.fiarr4ik.xenonpartapi.dto.ClassificationResultDTO;
 import ru.fiarr4ik.xenonpartapi.dto.PartRequestDTO;
 import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
 import ru.fiarr4ik.xenonpartapi.service.PartService;
 
 import java.util.List;
@@ -26,6 +30,7 @@ import java.util.List;
 public class PartController {
 
     private final PartService partService;
+    private final InventoryClassificationJob classificationJob;
 
     /**
      * Создает новую запчасть.
@@ -43,16 +48,22 @@ public class PartController {
     }
 
     /**
-     * Получает все запчасти.
+     * Получает все запчасти, при необходимости отфильтрованные по классам ABC/XYZ.
      *
-     * @return список всех запчастей
+     * @param abcClass класс по вкладу в стоимость запасов
+     * @param xyzClass класс по стабильности расхода
+     * @return список запчастей
      */
     @Operation(summary = "Получить все запчасти")
     @ApiResponse(responseCode = "200", description = "Список запчастей",
             content = @Content(schema = @Schema(implementation = PartResponseDTO.class)))
     @GetMapping
-    public ResponseEntity<List<PartResponseDTO>> findAll() {
-        return ResponseEntity.ok(partService.findAll());
+    public ResponseEntity<List<PartResponseDTO>> findAll(@RequestParam(required = false) AbcClass abcClass,
+                                                         @RequestParam(required = false) XyzClass xyzClass) {
+        if (abcClass == null && xyzClass == null) {
+            return ResponseEntity.ok(partService.findAll());
+        }
+        return ResponseEntity.ok(partService.findByClass(abcClass, xyzClass));
     }
 
     /**
@@ -113,4 +124,34 @@ public class PartController {
     public ResponseEntity<Long> count() {
         return ResponseEntity.ok(partService.count());
     }
+
+    /**
+     * Запускает ABC/XYZ-классификацию всех запчастей в фоне.
+     *
+     * @return пустой ответ: классификация принята к выполнению
+     */
+    @Operation(summary = "Запустить ABC/XYZ-классификацию запчастей")
+    @ApiResponse(responseCode = "202", description = "Классификация запущена")
+    @ApiResponse(responseCode = "409", description = "Классификация уже выполняется")
+    @PostMapping("/classification")
+    public ResponseEntity<Void> classify() {
+        classificationJob.start();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Получает результат последней завершенной ABC/XYZ-классификации.
+     *
+     * @return количество запчастей в каждом классе
+     */
+    @Operation(summary = "Получить результат последней ABC/XYZ-классификации")
+    @ApiResponse(responseCode = "200", description = "Результат классификации",
+            content = @Content(schema = @Schema(implementation = ClassificationResultDTO.class)))
+    @ApiResponse(responseCode = "204", description = "Классификация еще не выполнялась")
+    @GetMapping("/classification")
+    public ResponseEntity<ClassificationResultDTO> classification() {
+        return classificationJob.lastResult()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
 }
@@ -0,0 +1,73 @@
+package ru.fiarr4ik.xenonpartapi.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.fiarr4ik.xenonpartapi.dto.PurchaseOrderDTO;
+import ru.fiarr4ik.xenonpartapi.dto.ReorderPlanRunDTO;
+import ru.fiarr4ik.xenonpartapi.service.ReorderPlanningService;
+
+import java.util.List;
+
+/**
+ * Контроллер для работы с черновиками заказов поставщикам.
+ */
+@RestController
+@RequestMapping("/api/purchase-orders")
+@RequiredArgsConstructor
+@Tag(name = "PurchaseOrder", description = "API для работы с черновиками заказов поставщикам")
+public class PurchaseOrderController {
+
+    private final ReorderPlanningService planningService;
+
+    /**
+     * Получает черновики заказов последнего завершенного плана закупок.
+     *
+     * @return черновики заказов по поставщикам
+     */
+    @Operation(summary = "Получить черновики заказов")
+    @ApiResponse(responseCode = "200", description = "Список черновиков заказов",
+            content = @Content(schema = @Schema(implementation = PurchaseOrderDTO.class)))
+    @GetMapping("/drafts")
+    public ResponseEntity<List<PurchaseOrderDTO>> drafts() {
+        return ResponseEntity.ok(planningService.latestDrafts());
+    }
+
+    /**
+     * Запускает в фоне формирование плана закупок на сегодня или продолжение прерванного.
+     *
+     * @return состояние запуска планировщика на момент постановки в очередь
+     */
+    @Operation(summary = "Сформировать план закупок")
+    @ApiResponse(responseCode = "202", description = "Планировщик запущен или сегодняшний план уже сформирован",
+            content = @Content(schema = @Schema(implementation = ReorderPlanRunDTO.class)))
+    @ApiResponse(responseCode = "409", description = "Планировщик уже выполняется")
+    @PostMapping("/plan")
+    public ResponseEntity<ReorderPlanRunDTO> plan() {
+        return ResponseEntity.accepted().body(planningService.start());
+    }
+
+    /**
+     * Получает состояние последнего запуска планировщика закупок.
+     *
+     * @return состояние запуска планировщика
+     */
+    @Operation(summary = "Получить состояние планировщика закупок")
+    @ApiResponse(responseCode = "200", description = "Состояние последнего запуска",
+            content = @Content(schema = @Schema(implementation = ReorderPlanRunDTO.class)))
+    @ApiResponse(responseCode = "204", description = "Планировщик еще не запускался")
+    @GetMapping("/plan")
+    public ResponseEntity<ReorderPlanRunDTO> planState() {
+        return planningService.latestRun()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+}
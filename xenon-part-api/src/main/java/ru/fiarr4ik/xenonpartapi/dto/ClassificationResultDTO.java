@@ -0,0 +1,36 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO с итогами ABC/XYZ-классификации.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassificationResultDTO {
+
+    /**
+     * Количество классифицированных запчастей.
+     */
+    private int totalParts;
+
+    private long classA;
+    private long classB;
+    private long classC;
+    private long classX;
+    private long classY;
+    private long classZ;
+
+    /**
+     * Количество запчастей, у которых изменился класс.
+     */
+    private int updatedParts;
+
+    /**
+     * Длительность классификации в миллисекундах.
+     */
+    private long durationMillis;
+}
@@ -8,6 +8,8 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
 
 /**
  * DTO для ответа с информацией о детали.
@@ -54,4 +56,14 @@ public class PartResponseDTO {
      * Цена за единицу.
      */
     private Double unitPrice;
+
+    /**
+     * Класс по вкладу в стоимость запасов.
+     */
+    private AbcClass abcClass;
+
+    /**
+     * Класс по стабильности расхода.
+     */
+    private XyzClass xyzClass;
 }
@@ -0,0 +1,25 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO черновика заказа поставщику.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrderDTO {
+
+    private Long purchaseOrderId;
+
+    private Long supplierId;
+
+    private LocalDateTime createdAt;
+
+    private List<PurchaseOrderLineDTO> lines;
+}
@@ -0,0 +1,36 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO строки черновика заказа.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrderLineDTO {
+
+    private Long partId;
+
+    /**
+     * Остаток на момент расчета.
+     */
+    private long onHand;
+
+    /**
+     * Прогноз среднесуточного расхода.
+     */
+    private double dailyDemand;
+
+    /**
+     * Точка заказа.
+     */
+    private long reorderPoint;
+
+    /**
+     * Предлагаемое количество к заказу.
+     */
+    private long suggestedQuantity;
+}
@@ -0,0 +1,30 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.fiarr4ik.xenonpartapi.entity.PlanRunStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO с состоянием запуска планировщика закупок.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderPlanRunDTO {
+
+    private Long runId;
+
+    private LocalDate planDate;
+
+    private PlanRunStatus status;
+
+    private long processedParts;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,32 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.fiarr4ik.xenonpartapi.entity.SampleResolution;
+
+import java.util.List;
+
+/**
+ * DTO для ответа с историей остатков.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHistoryResponseDTO {
+
+    /**
+     * Категория; {@code null} для итога по всему складу.
+     */
+    private Long categoryId;
+
+    /**
+     * Разрешение, из которого прочитаны точки.
+     */
+    private SampleResolution resolution;
+
+    /**
+     * Точки ряда в порядке возрастания времени.
+     */
+    private List<StockValuePointDTO> points;
+}
@@ -0,0 +1,31 @@
+package ru.fiarr4ik.xenonpartapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO точки временного ряда остатков.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValuePointDTO {
+
+    /**
+     * Начало интервала.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * Количество единиц товара на складе.
+     */
+    private long totalQuantity;
+
+    /**
+     * Стоимость товара на складе.
+     */
+    private double totalValue;
+}
@@ -1,6 +1,7 @@
 package ru.fiarr4ik.xenonpartapi.dto;
 
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
@@ -32,4 +33,10 @@ public class SupplierRequestDTO {
 
     private String address;
 
+    /**
+     * Срок поставки в днях.
+     */
+    @Min(value = 0, message = "Срок поставки не может быть отрицательным")
+    private Integer leadTimeDays;
+
 }
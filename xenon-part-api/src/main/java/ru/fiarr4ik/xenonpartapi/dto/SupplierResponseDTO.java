@@ -29,4 +29,9 @@ public class SupplierResponseDTO {
     private String email;
 
     private String address;
+
+    /**
+     * Срок поставки в днях.
+     */
+    private Integer leadTimeDays;
 }
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество записей инвентаря и остаток по категории.
+ */
+public record CategoryInventory(String categoryName, long inventoryCount, Long totalQuantity) {
+}
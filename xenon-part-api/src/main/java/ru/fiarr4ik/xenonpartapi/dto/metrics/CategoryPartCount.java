@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество запчастей в категории.
+ */
+public record CategoryPartCount(String categoryName, long partCount) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество, суммарная и средняя цена запчастей категории.
+ */
+public record CategoryStatistics(String categoryName, long partCount, Double totalValue, Double averagePrice) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Остаток и его стоимость по категории для истории остатков.
+ */
+public record CategoryStockValue(Long categoryId, Long totalQuantity, Double totalValue) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Суммарная стоимость запчастей категории.
+ */
+public record CategoryValue(String categoryName, Double totalValue) {
+}
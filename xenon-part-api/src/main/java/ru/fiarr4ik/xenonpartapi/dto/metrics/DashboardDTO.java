@@ -0,0 +1,18 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+import java.util.List;
+
+/**
+ * Сводка метрик для главной панели.
+ */
+public record DashboardDTO(OverallMetrics overall,
+                           List<CategoryPartCount> partsByCategory,
+                           List<SupplierPartCount> partsBySupplier,
+                           List<CategoryValue> valueByCategory,
+                           List<SupplierValue> valueBySupplier,
+                           List<LowStockPart> lowStock,
+                           List<CategoryStatistics> categoryStats,
+                           List<SupplierStatistics> supplierStats,
+                           InventoryOverview inventoryOverview,
+                           List<StockLevelCount> stockDistribution) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Процентили цены запчастей и остатков одной категории или одного поставщика.
+ */
+public record GroupPercentiles(Long id, String name, ValuePercentiles unitPrice, ValuePercentiles stockLevel) {
+}
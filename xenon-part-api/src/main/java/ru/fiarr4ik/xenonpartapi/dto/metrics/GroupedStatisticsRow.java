@@ -0,0 +1,14 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Строка сгруппированной статистики каталога: показатели одной категории
+ * ({@code dimension = CATEGORY}) или одного поставщика ({@code dimension = SUPPLIER}).
+ */
+public record GroupedStatisticsRow(String dimension,
+                                   Long groupId,
+                                   Long partCount,
+                                   Double totalValue,
+                                   Long inventoryCount,
+                                   Long totalQuantity,
+                                   Long lowStockCount) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Общий остаток, количество уникальных запчастей на складе и средний остаток.
+ */
+public record InventoryOverview(Long totalQuantity, long uniqueParts, Double averageQuantity) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Запись инвентаря с остатком ниже порога и ее стоимость.
+ */
+public record LowStockDetail(String partName, Integer quantity, double unitPrice, Double totalValue) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Запчасть с остатком ниже порога.
+ */
+public record LowStockPart(String partName, Integer quantity) {
+}
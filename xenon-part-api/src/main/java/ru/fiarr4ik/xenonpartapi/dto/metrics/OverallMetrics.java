@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Общее количество, стоимость и средняя цена запчастей.
+ */
+public record OverallMetrics(long totalParts, Double totalValue, Double averagePrice) {
+}
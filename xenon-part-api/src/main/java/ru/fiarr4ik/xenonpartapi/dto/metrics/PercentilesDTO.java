@@ -0,0 +1,14 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Процентили цены запчастей и остатков по складу в целом, по категориям и по поставщикам.
+ */
+public record PercentilesDTO(ValuePercentiles unitPrice,
+                             ValuePercentiles stockLevel,
+                             List<GroupPercentiles> categories,
+                             List<GroupPercentiles> suppliers,
+                             LocalDateTime builtAt) {
+}
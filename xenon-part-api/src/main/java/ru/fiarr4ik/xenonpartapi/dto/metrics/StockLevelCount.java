@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество записей инвентаря на одном уровне запаса.
+ */
+public record StockLevelCount(String stockLevel, long count) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество записей инвентаря и остаток по поставщику.
+ */
+public record SupplierInventory(String supplierName, long inventoryCount, Long totalQuantity) {
+}
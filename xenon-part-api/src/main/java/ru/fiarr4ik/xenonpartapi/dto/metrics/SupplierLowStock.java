@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество записей инвентаря с низким остатком у поставщика.
+ */
+public record SupplierLowStock(String supplierName, long lowStockCount) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество запчастей у поставщика.
+ */
+public record SupplierPartCount(String supplierName, long partCount) {
+}
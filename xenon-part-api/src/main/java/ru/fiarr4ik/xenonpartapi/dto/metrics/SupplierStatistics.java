@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Количество, суммарная и средняя цена запчастей поставщика.
+ */
+public record SupplierStatistics(String supplierName, long partCount, Double totalValue, Double averagePrice) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Суммарная стоимость запчастей поставщика.
+ */
+public record SupplierValue(String supplierName, Double totalValue) {
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Запчасть с оценкой количества единиц, поступивших на склад и списанных со склада за окно.
+ */
+public record TopMoverDTO(Long partId, String partName, long movedQuantity) {
+}
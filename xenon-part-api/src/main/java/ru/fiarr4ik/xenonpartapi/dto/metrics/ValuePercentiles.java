@@ -0,0 +1,12 @@
+package ru.fiarr4ik.xenonpartapi.dto.metrics;
+
+/**
+ * Приближенные процентили величины.
+ *
+ * @param count количество значений в выборке
+ * @param p50 медиана или {@code null} для пустой выборки
+ * @param p90 90-й процентиль
+ * @param p99 99-й процентиль
+ */
+public record ValuePercentiles(long count, Double p50, Double p90, Double p99) {
+}
@@ -0,0 +1,22 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+/**
+ * Класс запчасти по вкладу в стоимость складских запасов.
+ */
+public enum AbcClass {
+
+    /**
+     * Запчасти, дающие основную часть стоимости запасов.
+     */
+    A,
+
+    /**
+     * Запчасти со средним вкладом.
+     */
+    B,
+
+    /**
+     * Запчасти с малым вкладом.
+     */
+    C
+}
@@ -1,31 +1,52 @@
 package ru.fiarr4ik.xenonpartapi.entity;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
+/**
+ * Запись инвентаря: остаток запчасти на складе.
+ *
+ * <p>Запчасть загружается лениво: карточке и списку записей достаточно ее идентификатора
+ * из внешнего ключа. Изменение остатка загружает запчасть графом {@value #STOCK_ADJUSTMENT_GRAPH},
+ * потому что обработчики изменения каталога читают ее категорию и поставщика.
+ */
 @Entity
+@NamedEntityGraph(name = Inventory.STOCK_ADJUSTMENT_GRAPH, attributeNodes = @NamedAttributeNode("part"))
 @Table(name = "inventory")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Inventory {
+
+    /**
+     * Граф загрузки записи вместе с запчастью для изменения остатка.
+     */
+    public static final String STOCK_ADJUSTMENT_GRAPH = "Inventory.stockAdjustment";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long InventoryId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "part_id")
     private Part part;
 
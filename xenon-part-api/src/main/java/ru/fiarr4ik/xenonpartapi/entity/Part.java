@@ -2,26 +2,45 @@ package ru.fiarr4ik.xenonpartapi.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * Сущность, представляющая запчасть.
+ *
+ * <p>Категория и поставщик загружаются лениво. Карточка и списки запчастей показывают
+ * их названия и загружаются графом {@value #DETAIL_GRAPH} одним запросом с соединениями.
  */
 @Entity
+@NamedEntityGraph(name = Part.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("supplier")
+})
 @Table(name = "part")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Part {
 
+    /**
+     * Граф загрузки запчасти вместе с категорией и поставщиком.
+     */
+    public static final String DETAIL_GRAPH = "Part.detail";
+
     /**
      * Уникальный идентификатор запчасти.
      */
@@ -45,14 +64,18 @@ public class Part {
     /**
      * Категория, к которой относится запчасть.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
     /**
      * Поставщик запчасти.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "supplier_id", nullable = false)
     private Supplier supplier;
 
@@ -61,5 +84,19 @@ public class Part {
      */
     @Column(name = "unit_price", nullable = false)
     private double unitPrice;
+
+    /**
+     * Класс по вкладу в стоимость запасов; {@code null}, пока классификация не выполнялась.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "abc_class", length = 1)
+    private AbcClass abcClass;
+
+    /**
+     * Класс по стабильности расхода; {@code null}, пока классификация не выполнялась.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "xyz_class", length = 1)
+    private XyzClass xyzClass;
 }
 
@@ -0,0 +1,17 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+/**
+ * Состояние запуска планировщика закупок.
+ */
+public enum PlanRunStatus {
+
+    /**
+     * Запуск выполняется или был прерван и будет продолжен с контрольной точки.
+     */
+    RUNNING,
+
+    /**
+     * Все запчасти обработаны.
+     */
+    COMPLETED
+}
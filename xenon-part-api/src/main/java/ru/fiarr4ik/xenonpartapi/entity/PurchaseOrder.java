@@ -0,0 +1,41 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Черновик заказа поставщику, сформированный планировщиком закупок.
+ */
+@Entity
+@Table(name = "purchase_order")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "purchase_order_id")
+    private Long purchaseOrderId;
+
+    /**
+     * Запуск планировщика, сформировавший заказ.
+     */
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
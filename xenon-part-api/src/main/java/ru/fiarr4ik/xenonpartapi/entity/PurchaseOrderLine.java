@@ -0,0 +1,57 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Строка черновика заказа: запчасть и предлагаемое количество.
+ */
+@Entity
+@Table(name = "purchase_order_line")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseOrderLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "line_id")
+    private Long lineId;
+
+    @Column(name = "purchase_order_id", nullable = false)
+    private Long purchaseOrderId;
+
+    @Column(name = "part_id", nullable = false)
+    private Long partId;
+
+    /**
+     * Остаток на момент расчета.
+     */
+    @Column(name = "on_hand", nullable = false)
+    private long onHand;
+
+    /**
+     * Прогноз среднесуточного расхода.
+     */
+    @Column(name = "daily_demand", nullable = false)
+    private double dailyDemand;
+
+    /**
+     * Точка заказа: при остатке не выше нее запчасть нужно заказать.
+     */
+    @Column(name = "reorder_point", nullable = false)
+    private long reorderPoint;
+
+    /**
+     * Предлагаемое количество к заказу.
+     */
+    @Column(name = "suggested_quantity", nullable = false)
+    private long suggestedQuantity;
+}
@@ -0,0 +1,60 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Запуск планировщика закупок и его контрольная точка.
+ */
+@Entity
+@Table(name = "reorder_plan_run")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderPlanRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "run_id")
+    private Long runId;
+
+    /**
+     * Дата, на которую рассчитывается план.
+     */
+    @Column(name = "plan_date", nullable = false)
+    private LocalDate planDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private PlanRunStatus status;
+
+    /**
+     * Последняя обработанная запчасть; обработка продолжается со следующей.
+     */
+    @Column(name = "last_part_id", nullable = false)
+    private long lastPartId;
+
+    /**
+     * Количество обработанных запчастей.
+     */
+    @Column(name = "processed_parts", nullable = false)
+    private long processedParts;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
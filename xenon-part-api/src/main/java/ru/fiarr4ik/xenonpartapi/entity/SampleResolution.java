@@ -0,0 +1,22 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+/**
+ * Разрешение точек временного ряда остатков.
+ */
+public enum SampleResolution {
+
+    /**
+     * Исходные замеры с интервалом сэмплера.
+     */
+    RAW,
+
+    /**
+     * Средние значения за час.
+     */
+    HOURLY,
+
+    /**
+     * Средние значения за сутки.
+     */
+    DAILY
+}
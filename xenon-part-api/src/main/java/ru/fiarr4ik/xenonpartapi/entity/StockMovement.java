@@ -0,0 +1,53 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Движение остатка: поступление на склад или списание со склада.
+ */
+@Entity
+@Table(name = "stock_movement")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "movement_id")
+    private Long movementId;
+
+    /**
+     * Запчасть.
+     */
+    @Column(name = "part_id", nullable = false)
+    private Long partId;
+
+    /**
+     * Запись инвентаря, остаток которой изменился.
+     */
+    @Column(name = "inventory_id", nullable = false)
+    private Long inventoryId;
+
+    /**
+     * Изменение остатка: положительное при поступлении, отрицательное при списании.
+     */
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    /**
+     * Время движения.
+     */
+    @Column(name = "moved_at", nullable = false)
+    private LocalDateTime movedAt;
+}
@@ -0,0 +1,63 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Точка временного ряда остатков: количество и стоимость товара на складе
+ * в целом или по одной категории.
+ */
+@Entity
+@Table(name = "stock_value_sample")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValueSample {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sample_id")
+    private Long sampleId;
+
+    /**
+     * Разрешение точки.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false, length = 8)
+    private SampleResolution resolution;
+
+    /**
+     * Начало интервала, к которому относится точка.
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * Категория; {@code null} для итога по всему складу.
+     */
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    /**
+     * Количество единиц товара на складе.
+     */
+    @Column(name = "total_quantity", nullable = false)
+    private long totalQuantity;
+
+    /**
+     * Стоимость товара на складе.
+     */
+    @Column(name = "total_value", nullable = false)
+    private double totalValue;
+}
@@ -46,4 +46,10 @@ public class Supplier {
     @Column(name = "address")
     private String address;
 
+    /**
+     * Срок поставки в днях; {@code null}, если срок не указан.
+     */
+    @Column(name = "lead_time_days")
+    private Integer leadTimeDays;
+
 }
\ No newline at end of file
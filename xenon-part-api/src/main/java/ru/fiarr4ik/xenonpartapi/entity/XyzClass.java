@@ -0,0 +1,22 @@
+package ru.fiarr4ik.xenonpartapi.entity;
+
+/**
+ * Класс запчасти по стабильности расхода.
+ */
+public enum XyzClass {
+
+    /**
+     * Стабильный расход.
+     */
+    X,
+
+    /**
+     * Колеблющийся расход.
+     */
+    Y,
+
+    /**
+     * Нерегулярный расход или его отсутствие.
+     */
+    Z
+}
@@ -0,0 +1,19 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+/**
+ * Общий тип событий изменения данных каталога.
+ *
+ * <p>Публикуется сервисами после успешной записи, чтобы производные данные
+ * (кэши, агрегаты) могли обновиться. Событие, опубликованное в транзакции, обработчики
+ * получают после ее фиксации, поэтому они читают только связи, загруженные сервисом,
+ * и идентификаторы незагруженных связей.
+ */
+public interface CatalogChangedEvent {
+
+    /**
+     * Показывает, была ли сущность удалена.
+     *
+     * @return {@code true}, если сущность удалена
+     */
+    boolean deleted();
+}
@@ -0,0 +1,12 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+
+/**
+ * Событие изменения категории.
+ *
+ * @param category сохраненная или удаленная сущность
+ * @param deleted признак удаления
+ */
+public record CategoryChangedEvent(Category category, boolean deleted) implements CatalogChangedEvent {
+}
@@ -0,0 +1,14 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+
+/**
+ * Событие изменения записи инвентаря.
+ *
+ * @param inventory сохраненная или удаленная сущность
+ * @param previousQuantity остаток до изменения, {@code null} для новой записи
+ * @param deleted признак удаления
+ */
+public record InventoryChangedEvent(Inventory inventory, Integer previousQuantity, boolean deleted)
+        implements CatalogChangedEvent {
+}
@@ -0,0 +1,15 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+
+/**
+ * Событие изменения запчасти.
+ *
+ * @param part сохраненная или удаленная сущность
+ * @param previousCategoryId категория запчасти до изменения, {@code null} для новой запчасти
+ * @param previousSupplierId поставщик запчасти до изменения, {@code null} для новой запчасти
+ * @param deleted признак удаления
+ */
+public record PartChangedEvent(Part part, Long previousCategoryId, Long previousSupplierId, boolean deleted)
+        implements CatalogChangedEvent {
+}
@@ -0,0 +1,10 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+/**
+ * Событие движения остатка запчасти: поступления или списания.
+ *
+ * @param partId идентификатор запчасти
+ * @param quantity количество перемещенных единиц, отрицательное для списания
+ */
+public record StockMovedEvent(long partId, int quantity) {
+}
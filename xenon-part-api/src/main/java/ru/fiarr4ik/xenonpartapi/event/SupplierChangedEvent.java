@@ -0,0 +1,12 @@
+package ru.fiarr4ik.xenonpartapi.event;
+
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+
+/**
+ * Событие изменения поставщика.
+ *
+ * @param supplier сохраненная или удаленная сущность
+ * @param deleted признак удаления
+ */
+public record SupplierChangedEvent(Supplier supplier, boolean deleted) implements CatalogChangedEvent {
+}
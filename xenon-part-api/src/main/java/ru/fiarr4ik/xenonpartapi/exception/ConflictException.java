@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.exception;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.fiarr4ik.xenonpartapi.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
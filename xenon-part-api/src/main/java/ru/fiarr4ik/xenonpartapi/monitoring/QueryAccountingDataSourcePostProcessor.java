@@ -0,0 +1,44 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает источники данных прокси, который учитывает SQL-запросы текущего HTTP-запроса.
+ *
+ * <p>Строки считаются только при {@code sql.accounting.count-rows=true}: прокси на каждом
+ * {@code ResultSet.next()} заметно дороже подсчета запросов, поэтому в рабочем профиле
+ * подсчет выключен и включается в тестах и профиле {@code budget}.
+ */
+@Component
+@ConditionalOnProperty(name = "sql.accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryAccountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final boolean countRows;
+
+    public QueryAccountingDataSourcePostProcessor(Environment environment) {
+        this.countRows = environment.getProperty("sql.accounting.count-rows", Boolean.class, false);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        QueryAccountingListener listener = new QueryAccountingListener();
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(listener);
+        if (countRows) {
+            // Подсчет строк требует проксирования ResultSet и стоит дороже подсчета запросов
+            builder.proxyResultSet().methodListener(listener);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,88 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр, открывающий учет SQL-запросов на время HTTP-запроса.
+ *
+ * <p>По завершении запроса публикует количество запросов, строк и время в метриках
+ * и пишет предупреждение, если эндпоинт превысил свой бюджет запросов. Количество строк
+ * публикуется, только если их подсчет включен ({@code sql.accounting.count-rows}).
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "sql.accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryAccountingFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryBudgetProperties budgetProperties;
+    private final boolean countRows;
+
+    public QueryAccountingFilter(MeterRegistry meterRegistry,
+                                 QueryBudgetProperties budgetProperties,
+                                 @Value("${sql.accounting.count-rows:false}") boolean countRows) {
+        this.meterRegistry = meterRegistry;
+        this.budgetProperties = budgetProperties;
+        this.countRows = countRows;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (QueryStats.Scope scope = QueryStats.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                report(request, scope.stats());
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        if (countRows) {
+            DistributionSummary.builder("http.server.requests.sql.rows")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getRows());
+        }
+        Timer.builder("http.server.requests.sql.time")
+                .tags("method", method, "uri", uri)
+                .register(meterRegistry)
+                .record(stats.getElapsedMillis(), TimeUnit.MILLISECONDS);
+
+        String endpoint = method + ":" + uri;
+        int budget = budgetProperties.maxStatementsFor(endpoint);
+        if (stats.getStatements() > budget) {
+            Map.Entry<String, Integer> repeated = stats.mostRepeatedStatement();
+            log.warn("Эндпоинт {} выполнил {} SQL-запросов при бюджете {}; чаще всего ({} раз) повторялся запрос: {}",
+                    endpoint, stats.getStatements(), budget, repeated.getValue(), repeated.getKey());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Слушатель прокси источника данных: учитывает выполненные запросы, их время
+ * и прочитанные строки в счетчиках текущего потока.
+ */
+class QueryAccountingListener implements QueryExecutionListener, MethodExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = QueryStats.current();
+        if (stats == null) {
+            return;
+        }
+        // Время выполнения относится ко всему пакету, поэтому учитывается один раз
+        long elapsed = execInfo.getElapsedTime();
+        for (QueryInfo queryInfo : queryInfoList) {
+            stats.recordStatement(queryInfo.getQuery(), elapsed);
+            elapsed = 0;
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            QueryStats stats = QueryStats.current();
+            if (stats != null) {
+                stats.recordRow();
+            }
+        }
+    }
+}
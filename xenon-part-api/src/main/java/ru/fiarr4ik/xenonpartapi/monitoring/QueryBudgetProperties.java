@@ -0,0 +1,41 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Бюджеты SQL-запросов на один HTTP-запрос.
+ *
+ * <p>Ключ бюджета эндпоинта - метод и шаблон пути через двоеточие,
+ * например {@code sql.budget.endpoints.[GET\:/api/parts/{id}]=1}; в файле свойств
+ * двоеточие экранируется, иначе оно отделяет значение от ключа.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.budget")
+public class QueryBudgetProperties {
+
+    /**
+     * Бюджет для эндпоинтов без собственной настройки.
+     */
+    private int defaultMaxStatements = 30;
+
+    /**
+     * Бюджеты отдельных эндпоинтов.
+     */
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    /**
+     * Возвращает бюджет эндпоинта.
+     *
+     * @param endpoint метод и шаблон пути
+     * @return допустимое число запросов
+     */
+    public int maxStatementsFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultMaxStatements);
+    }
+}
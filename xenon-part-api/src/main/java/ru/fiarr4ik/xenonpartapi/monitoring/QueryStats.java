@@ -0,0 +1,105 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Счетчики SQL-запросов, выполненных в рамках одной единицы работы (обычно HTTP-запроса).
+ *
+ * <p>Текущие счетчики привязаны к потоку. Если область уже открыта (например, тестом),
+ * вложенные области продолжают считать в нее же, поэтому внешний наблюдатель видит все запросы.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long elapsedMillis;
+    private final Map<String, Integer> statementsBySql = new HashMap<>();
+
+    private QueryStats() {
+    }
+
+    /**
+     * Открывает область подсчета в текущем потоке или возвращает уже открытую.
+     *
+     * @return область подсчета
+     */
+    public static Scope open() {
+        QueryStats current = CURRENT.get();
+        if (current != null) {
+            return new Scope(current, false);
+        }
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return new Scope(stats, true);
+    }
+
+    /**
+     * Возвращает счетчики текущего потока.
+     *
+     * @return счетчики или {@code null}, если область не открыта
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(String sql, long elapsed) {
+        statements++;
+        elapsedMillis += elapsed;
+        statementsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Возвращает запрос, выполненный наибольшее число раз. Многократное повторение
+     * одного и того же запроса - типичный признак проблемы N+1.
+     *
+     * @return самый частый запрос или {@code null}, если запросов не было
+     */
+    public Map.Entry<String, Integer> mostRepeatedStatement() {
+        return statementsBySql.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+
+    /**
+     * Область подсчета. Закрытие области, открывшей счетчики, отвязывает их от потока.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final QueryStats stats;
+        private final boolean owner;
+
+        private Scope(QueryStats stats, boolean owner) {
+            this.stats = stats;
+            this.owner = owner;
+        }
+
+        public QueryStats stats() {
+            return stats;
+        }
+
+        @Override
+        public void close() {
+            if (owner) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
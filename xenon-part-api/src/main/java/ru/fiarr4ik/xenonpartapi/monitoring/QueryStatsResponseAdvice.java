@@ -0,0 +1,49 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет к ответу заголовки со счетчиками SQL-запросов.
+ *
+ * <p>Заголовки пишутся перед сериализацией тела, пока ответ еще не отправлен;
+ * запросы, выполненные во время сериализации, попадают только в метрики и журнал.
+ * Заголовок {@code X-SQL-Rows} пишется, только если подсчет строк включен.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "sql.accounting.headers", havingValue = "true", matchIfMissing = true)
+public class QueryStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final boolean countRows;
+
+    public QueryStatsResponseAdvice(@Value("${sql.accounting.count-rows:false}") boolean countRows) {
+        this.countRows = countRows;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            response.getHeaders().set("X-SQL-Statements", Integer.toString(stats.getStatements()));
+            if (countRows) {
+                response.getHeaders().set("X-SQL-Rows", Long.toString(stats.getRows()));
+            }
+            response.getHeaders().set("X-SQL-Time-Ms", Long.toString(stats.getElapsedMillis()));
+        }
+        return body;
+    }
+}
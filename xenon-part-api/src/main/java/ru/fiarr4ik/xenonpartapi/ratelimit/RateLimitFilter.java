@@ -0,0 +1,115 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает частоту запросов каждого клиента к группам маршрутов.
+ *
+ * <p>Клиентом считается авторизованный пользователь, а без токена - IP-адрес,
+ * поэтому фильтр выполняется после {@code JwtAuthFilter}. Ответы на ограниченные
+ * маршруты содержат заголовки {@code RateLimit-Limit}, {@code RateLimit-Remaining}
+ * и {@code RateLimit-Reset}, отклоненный запрос получает 429 и {@code Retry-After}.
+ */
+@Slf4j
+@Component
+@Order(2)
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LIMIT_HEADER = "RateLimit-Limit";
+    private static final String REMAINING_HEADER = "RateLimit-Remaining";
+    private static final String RESET_HEADER = "RateLimit-Reset";
+
+    private final List<RouteGroup> groups = new ArrayList<>();
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        for (Map.Entry<String, RateLimitProperties.Group> entry : properties.getGroups().entrySet()) {
+            RateLimitProperties.Group group = entry.getValue();
+            RoutePattern[] routes = group.getRoutes().stream().map(RoutePattern::parse).toArray(RoutePattern[]::new);
+            groups.add(new RouteGroup(entry.getKey(), routes, new TokenBucketLimiter(
+                    group.getPermitsPerSecond(), group.getBurst(), properties.getMaxClientsPerGroup())));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteGroup group = match(request.getMethod(), request.getRequestURI());
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TokenBucketLimiter.Decision decision = group.limiter.tryAcquire(clientOf(request), System.nanoTime());
+        response.setIntHeader(LIMIT_HEADER, group.limiter.limit());
+        response.setIntHeader(REMAINING_HEADER, decision.remaining());
+        response.setHeader(RESET_HEADER, Long.toString(toSeconds(decision.resetNanos())));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(toSeconds(decision.retryAfterNanos())));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Слишком много запросов\"}");
+    }
+
+    /**
+     * Удаляет корзины клиентов, которые простаивали достаточно долго, чтобы их лимит восстановился.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        for (RouteGroup group : groups) {
+            int evicted = group.limiter.evictIdle(now);
+            if (evicted > 0) {
+                log.debug("Группа {}: удалено {} простаивающих клиентов, осталось {}",
+                        group.name, evicted, group.limiter.trackedClients());
+            }
+        }
+    }
+
+    private RouteGroup match(String method, String path) {
+        for (RouteGroup group : groups) {
+            for (RoutePattern route : group.routes) {
+                if (route.matches(method, path)) {
+                    return group;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        Object userId = request.getAttribute("userId");
+        return userId != null ? "user:" + userId : request.getRemoteAddr();
+    }
+
+    private static long toSeconds(long nanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return (nanos + second - 1) / second;
+    }
+
+    private record RouteGroup(String name, RoutePattern[] routes, TokenBucketLimiter limiter) {
+    }
+}
@@ -0,0 +1,53 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограничения частоты запросов по группам маршрутов.
+ *
+ * <p>Маршрут задается методом и шаблоном пути через пробел, сегмент {@code *}
+ * или {@code {...}} совпадает с любым значением, например
+ * {@code rate-limit.groups.auth.routes=POST /api/auth/login,POST /api/auth/register}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Максимальное число клиентов, отслеживаемых в одной группе. Новые клиенты
+     * сверх этого числа делят общий лимит, пока простаивающие клиенты не будут удалены.
+     */
+    private int maxClientsPerGroup = 100_000;
+
+    /**
+     * Группы маршрутов и их лимиты.
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Data
+    public static class Group {
+
+        /**
+         * Маршруты группы.
+         */
+        private List<String> routes = new ArrayList<>();
+
+        /**
+         * Устойчивая частота запросов одного клиента в секунду.
+         */
+        private double permitsPerSecond = 10;
+
+        /**
+         * Сколько запросов клиент может выполнить подряд после простоя.
+         */
+        private int burst = 20;
+    }
+}
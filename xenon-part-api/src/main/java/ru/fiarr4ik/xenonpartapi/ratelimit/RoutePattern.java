@@ -0,0 +1,63 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+/**
+ * Шаблон маршрута: метод и путь из сегментов, где {@code *} или {@code {...}}
+ * совпадает с любым непустым сегментом. Сопоставление не выделяет память.
+ */
+final class RoutePattern {
+
+    private final String method;
+    private final String[] segments;
+
+    private RoutePattern(String method, String[] segments) {
+        this.method = method;
+        this.segments = segments;
+    }
+
+    /**
+     * Разбирает маршрут вида {@code POST /api/inventory/{id}/remove}.
+     *
+     * @param route маршрут
+     * @return шаблон
+     * @throws IllegalArgumentException если маршрут записан неверно
+     */
+    static RoutePattern parse(String route) {
+        String[] parts = route.trim().split("\\s+");
+        if (parts.length != 2 || !parts[1].startsWith("/")) {
+            throw new IllegalArgumentException("Маршрут должен иметь вид 'METHOD /path': " + route);
+        }
+        String[] segments = parts[1].substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].startsWith("{") && segments[i].endsWith("}")) {
+                segments[i] = "*";
+            }
+        }
+        return new RoutePattern(parts[0].toUpperCase(), segments);
+    }
+
+    boolean matches(String requestMethod, String path) {
+        if (!method.equals(requestMethod)) {
+            return false;
+        }
+        int position = 1;
+        for (String segment : segments) {
+            if (position > path.length()) {
+                return false;
+            }
+            int end = path.indexOf('/', position);
+            if (end < 0) {
+                end = path.length();
+            }
+            int length = end - position;
+            if (segment.equals("*")) {
+                if (length == 0) {
+                    return false;
+                }
+            } else if (length != segment.length() || !path.regionMatches(position, segment, 0, length)) {
+                return false;
+            }
+            position = end + 1;
+        }
+        return position >= path.length();
+    }
+}
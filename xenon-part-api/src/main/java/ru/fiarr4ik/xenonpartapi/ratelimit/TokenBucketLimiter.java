@@ -0,0 +1,141 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket для множества клиентов без блокировок.
+ *
+ * <p>Корзина хранится в виде одного числа - теоретического времени прибытия
+ * следующего запроса (GCRA). Запрос допускается, если после него это время
+ * опережает текущее не больше чем на емкость корзины; обновление выполняется
+ * одной операцией compare-and-set. Клиент, чья корзина полностью восстановилась,
+ * ничем не отличается от нового, поэтому его запись можно удалить.
+ *
+ * <p>Когда таблица клиентов заполнена, новый клиент сначала занимает место
+ * восстановившейся корзины из небольшой выборки. Если таких нет, он получает
+ * корзину из фиксированного массива по хэшу идентификатора: память не растет
+ * от перебора адресов, а перебор не исчерпывает лимит всех новых клиентов сразу.
+ * Занятые корзины не вытесняются, иначе клиент сбрасывал бы свой лимит перебором.
+ */
+public final class TokenBucketLimiter {
+
+    /**
+     * Решение по запросу.
+     *
+     * @param allowed допущен ли запрос
+     * @param remaining сколько запросов клиент может выполнить подряд прямо сейчас
+     * @param resetNanos через сколько наносекунд корзина восстановится полностью
+     * @param retryAfterNanos через сколько наносекунд запрос будет допущен, 0 для допущенного
+     */
+    public record Decision(boolean allowed, int remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    // Сколько корзин просматривается в поиске восстановившейся при заполненной таблице
+    private static final int EVICTION_SAMPLE = 16;
+    private static final int OVERFLOW_STRIPES = 1024;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong[] overflow = new AtomicLong[OVERFLOW_STRIPES];
+    private final int burst;
+    private final long emissionIntervalNanos;
+    private final long capacityNanos;
+    private final int maxClients;
+
+    /**
+     * @param permitsPerSecond устойчивая частота запросов клиента
+     * @param burst емкость корзины
+     * @param maxClients максимальное число отслеживаемых клиентов
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int maxClients) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Частота и емкость должны быть положительными");
+        }
+        this.burst = burst;
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacityNanos = emissionIntervalNanos * burst;
+        this.maxClients = maxClients;
+        for (int i = 0; i < overflow.length; i++) {
+            overflow[i] = new AtomicLong(Long.MIN_VALUE);
+        }
+    }
+
+    public int limit() {
+        return burst;
+    }
+
+    /**
+     * Пытается списать один запрос из корзины клиента.
+     *
+     * @param client идентификатор клиента
+     * @param now текущее время по {@link System#nanoTime()}
+     * @return решение по запросу
+     */
+    public Decision tryAcquire(String client, long now) {
+        AtomicLong bucket = bucket(client, now);
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            // Корзина массива, к которой еще не обращались, считается восстановившейся
+            long next = (theoreticalArrival == Long.MIN_VALUE ? now : Math.max(theoreticalArrival, now))
+                    + emissionIntervalNanos;
+            long backlog = next - now;
+            if (backlog > capacityNanos) {
+                long debt = Math.max(0, theoreticalArrival - now);
+                return new Decision(false, 0, debt, backlog - capacityNanos);
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                int remaining = (int) ((capacityNanos - backlog) / emissionIntervalNanos);
+                return new Decision(true, remaining, backlog, 0);
+            }
+        }
+    }
+
+    /**
+     * Удаляет корзины, полностью восстановившиеся к указанному моменту.
+     *
+     * @param now текущее время по {@link System#nanoTime()}
+     * @return количество удаленных корзин
+     */
+    public int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int trackedClients() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients && evictSample(now) == 0) {
+            return overflow[stripe(client)];
+        }
+        return buckets.computeIfAbsent(client, k -> new AtomicLong(now));
+    }
+
+    /**
+     * Удаляет восстановившиеся корзины среди первых {@link #EVICTION_SAMPLE} записей таблицы.
+     */
+    private int evictSample(long now) {
+        int evicted = 0;
+        int sampled = 0;
+        for (var iterator = buckets.values().iterator(); iterator.hasNext() && sampled < EVICTION_SAMPLE; sampled++) {
+            if (iterator.next().get() - now <= 0) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private static int stripe(String client) {
+        // Мультипликативное хэширование: старшие биты произведения зависят от всех битов хэша,
+        // поэтому соседние адреса расходятся по разным корзинам
+        return (client.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(OVERFLOW_STRIPES));
+    }
+}
@@ -1,59 +1,78 @@
 package ru.fiarr4ik.xenonpartapi.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStockValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockDetail;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
 import ru.fiarr4ik.xenonpartapi.entity.Inventory;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
-    
-    @Query("SELECT " +
-           "SUM(inventory.quantityInStock) as totalQuantity, " +
-           "COUNT(DISTINCT inventory.part) as uniqueParts, " +
-           "AVG(inventory.quantityInStock) as averageQuantity " +
+
+    /**
+     * Загружает запись инвентаря с запчастью для изменения остатка.
+     *
+     * @param id идентификатор записи
+     * @return запись, если она существует
+     */
+    @EntityGraph(Inventory.STOCK_ADJUSTMENT_GRAPH)
+    @Query("SELECT inventory FROM Inventory inventory WHERE inventory.InventoryId = :id")
+    Optional<Inventory> findForStockAdjustmentById(@Param("id") Long id);
+
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview(" +
+           "SUM(inventory.quantityInStock), " +
+           "COUNT(DISTINCT inventory.part), " +
+           "AVG(inventory.quantityInStock)) " +
            "FROM Inventory inventory")
-    Map<String, Object> getInventoryOverview();
+    InventoryOverview getInventoryOverview();
 
-    @Query("SELECT part.name as partName, " +
-           "inventory.quantityInStock as quantity, " +
-           "part.unitPrice as unitPrice, " +
-           "inventory.quantityInStock * part.unitPrice as totalValue " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockDetail(part.name, " +
+           "inventory.quantityInStock, " +
+           "part.unitPrice, " +
+           "inventory.quantityInStock * part.unitPrice) " +
            "FROM Inventory inventory " +
            "JOIN inventory.part part " +
            "WHERE inventory.quantityInStock < :threshold " +
            "ORDER BY inventory.quantityInStock ASC")
-    List<Map<String, Object>> getLowStockDetails(@Param("threshold") Integer threshold);
-
-    @Query("SELECT " +
-           "CASE " +
-           "  WHEN inventory.quantityInStock = 0 THEN 'Нет в наличии' " +
-           "  WHEN inventory.quantityInStock < :lowThreshold THEN 'Низкий запас' " +
-           "  WHEN inventory.quantityInStock < :mediumThreshold THEN 'Средний запас' " +
-           "  ELSE 'Высокий запас' " +
-           "END as stockLevel, " +
-           "COUNT(*) as count " +
-           "FROM Inventory inventory " +
-           "GROUP BY " +
-           "CASE " +
-           "  WHEN inventory.quantityInStock = 0 THEN 'Нет в наличии' " +
-           "  WHEN inventory.quantityInStock < :lowThreshold THEN 'Низкий запас' " +
-           "  WHEN inventory.quantityInStock < :mediumThreshold THEN 'Средний запас' " +
-           "  ELSE 'Высокий запас' " +
-           "END " +
-           "ORDER BY " +
-           "CASE " +
-           "  WHEN inventory.quantityInStock = 0 THEN 1 " +
-           "  WHEN inventory.quantityInStock < :lowThreshold THEN 2 " +
-           "  WHEN inventory.quantityInStock < :mediumThreshold THEN 3 " +
-           "  ELSE 4 " +
-           "END")
-    List<Map<String, Object>> getStockLevelDistribution(
+    List<LowStockDetail> getLowStockDetails(@Param("threshold") Integer threshold);
+
+    // Уровень вычисляется один раз в подзапросе: CASE с параметрами, повторенный в GROUP BY,
+    // получает свои параметры, и PostgreSQL не считает выражения одинаковыми
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount(levels.stockLevel, COUNT(*)) " +
+           "FROM (SELECT " +
+           "  CASE " +
+           "    WHEN inventory.quantityInStock = 0 THEN 'Нет в наличии' " +
+           "    WHEN inventory.quantityInStock < :lowThreshold THEN 'Низкий запас' " +
+           "    WHEN inventory.quantityInStock < :mediumThreshold THEN 'Средний запас' " +
+           "    ELSE 'Высокий запас' " +
+           "  END AS stockLevel, " +
+           "  CASE " +
+           "    WHEN inventory.quantityInStock = 0 THEN 1 " +
+           "    WHEN inventory.quantityInStock < :lowThreshold THEN 2 " +
+           "    WHEN inventory.quantityInStock < :mediumThreshold THEN 3 " +
+           "    ELSE 4 " +
+           "  END AS levelOrder " +
+           "  FROM Inventory inventory) levels " +
+           "GROUP BY levels.stockLevel, levels.levelOrder " +
+           "ORDER BY levels.levelOrder")
+    List<StockLevelCount> getStockLevelDistribution(
         @Param("lowThreshold") Integer lowThreshold,
         @Param("mediumThreshold") Integer mediumThreshold
     );
-} 
\ No newline at end of file
+
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStockValue(part.category.categoryId, " +
+           "SUM(inventory.quantityInStock), " +
+           "SUM(inventory.quantityInStock * part.unitPrice)) " +
+           "FROM Inventory inventory " +
+           "JOIN inventory.part part " +
+           "GROUP BY part.category.categoryId")
+    List<CategoryStockValue> getStockValueByCategory();
+}
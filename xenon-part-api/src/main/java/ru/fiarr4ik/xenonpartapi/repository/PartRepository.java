@@ -1,54 +1,88 @@
 package ru.fiarr4ik.xenonpartapi.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockPart;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
 import ru.fiarr4ik.xenonpartapi.entity.Part;
-import ru.fiarr4ik.xenonpartapi.entity.Category;
-import ru.fiarr4ik.xenonpartapi.entity.Supplier;
-import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
 
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 @Repository
-public interface PartRepository extends JpaRepository<Part, Long> {
-    
-    @Query("SELECT category.name as categoryName, COUNT(part) as partCount " +
+public interface PartRepository extends JpaRepository<Part, Long>, PartStatisticsRepository {
+
+    /**
+     * Загружает запчасть с категорией и поставщиком для карточки и изменения.
+     *
+     * @param id идентификатор запчасти
+     * @return запчасть, если она существует
+     */
+    @EntityGraph(Part.DETAIL_GRAPH)
+    @Query("SELECT part FROM Part part WHERE part.partId = :id")
+    Optional<Part> findDetailById(@Param("id") Long id);
+
+    /**
+     * Загружает все запчасти с категориями и поставщиками для списка.
+     *
+     * @return список запчастей
+     */
+    @EntityGraph(Part.DETAIL_GRAPH)
+    @Query("SELECT part FROM Part part")
+    List<Part> findAllDetails();
+
+    @EntityGraph(Part.DETAIL_GRAPH)
+    List<Part> findByAbcClass(AbcClass abcClass);
+
+    @EntityGraph(Part.DETAIL_GRAPH)
+    List<Part> findByXyzClass(XyzClass xyzClass);
+
+    @EntityGraph(Part.DETAIL_GRAPH)
+    List<Part> findByAbcClassAndXyzClass(AbcClass abcClass, XyzClass xyzClass);
+
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryPartCount(category.name, COUNT(part)) " +
            "FROM Part part " +
            "JOIN Category category ON part.category.categoryId = category.categoryId " +
            "GROUP BY category.name")
-    List<Map<String, Object>> countPartsByCategory();
+    List<CategoryPartCount> countPartsByCategory();
 
-    @Query("SELECT supplier.name as supplierName, COUNT(part) as partCount " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierPartCount(supplier.name, COUNT(part)) " +
            "FROM Part part " +
            "JOIN Supplier supplier ON part.supplier.supplierId = supplier.supplierId " +
            "GROUP BY supplier.name")
-    List<Map<String, Object>> countPartsBySupplier();
+    List<SupplierPartCount> countPartsBySupplier();
 
-    @Query("SELECT category.name as categoryName, SUM(part.unitPrice) as totalValue " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue(category.name, SUM(part.unitPrice)) " +
            "FROM Part part " +
            "JOIN Category category ON part.category.categoryId = category.categoryId " +
            "GROUP BY category.name")
-    List<Map<String, Object>> calculateValueByCategory();
+    List<CategoryValue> calculateValueByCategory();
 
-    @Query("SELECT supplier.name as supplierName, SUM(part.unitPrice) as totalValue " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue(supplier.name, SUM(part.unitPrice)) " +
            "FROM Part part " +
            "JOIN Supplier supplier ON part.supplier.supplierId = supplier.supplierId " +
            "GROUP BY supplier.name")
-    List<Map<String, Object>> calculateValueBySupplier();
+    List<SupplierValue> calculateValueBySupplier();
 
-    @Query("SELECT part.name as partName, inventory.quantityInStock as quantity " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockPart(part.name, inventory.quantityInStock) " +
            "FROM Part part " +
            "JOIN Inventory inventory ON part.partId = inventory.part.partId " +
            "WHERE inventory.quantityInStock < :threshold")
-    List<Map<String, Object>> findLowStockParts(@Param("threshold") Integer threshold);
+    List<LowStockPart> findLowStockParts(@Param("threshold") Integer threshold);
 
-    @Query("SELECT " +
-           "COUNT(part) as totalParts, " +
-           "SUM(part.unitPrice) as totalValue, " +
-           "AVG(part.unitPrice) as averagePrice " +
+    @Query("SELECT new ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics(" +
+           "COUNT(part), " +
+           "SUM(part.unitPrice), " +
+           "AVG(part.unitPrice)) " +
            "FROM Part part")
-    Map<String, Object> getOverallMetrics();
+    OverallMetrics getOverallMetrics();
 }
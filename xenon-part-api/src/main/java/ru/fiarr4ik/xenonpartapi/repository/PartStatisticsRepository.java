@@ -0,0 +1,18 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupedStatisticsRow;
+
+import java.util.List;
+
+/**
+ * Агрегирующие запросы по запчастям, которые выполняются напрямую через JDBC.
+ */
+public interface PartStatisticsRepository {
+
+    /**
+     * Считает статистику по категориям и поставщикам за один проход по запчастям.
+     *
+     * @return строки с показателями каждой категории и каждого поставщика, у которых есть запчасти
+     */
+    List<GroupedStatisticsRow> getGroupedStatistics();
+}
@@ -0,0 +1,54 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupedStatisticsRow;
+
+import java.util.List;
+
+/**
+ * Реализация {@link PartStatisticsRepository}.
+ *
+ * <p>Строки результата сразу собираются в записи, без промежуточных карт на строку.
+ */
+@RequiredArgsConstructor
+class PartStatisticsRepositoryImpl implements PartStatisticsRepository {
+
+    /**
+     * Остатки предварительно сворачиваются по запчасти, поэтому каждая запчасть
+     * участвует в агрегации ровно один раз. Строки с dimension = 'CATEGORY'
+     * сгруппированы по категории, с dimension = 'SUPPLIER' - по поставщику.
+     */
+    private static final String GROUPED_STATISTICS = "WITH inventory_by_part AS (" +
+            "  SELECT inventory.part_id, " +
+            "         COUNT(*) AS inventory_count, " +
+            "         SUM(inventory.quantity_in_stock) AS total_quantity, " +
+            "         SUM(CASE WHEN inventory.quantity_in_stock < 10 THEN 1 ELSE 0 END) AS low_stock_count " +
+            "  FROM inventory " +
+            "  GROUP BY inventory.part_id" +
+            ") " +
+            "SELECT CASE WHEN GROUPING(part.category_id) = 0 THEN 'CATEGORY' ELSE 'SUPPLIER' END AS dimension, " +
+            "COALESCE(part.category_id, part.supplier_id) AS group_id, " +
+            "COUNT(part.part_id) AS part_count, " +
+            "SUM(part.unit_price) AS total_value, " +
+            "CAST(SUM(COALESCE(stock.inventory_count, 0)) AS bigint) AS inventory_count, " +
+            "CAST(SUM(stock.total_quantity) AS bigint) AS total_quantity, " +
+            "CAST(SUM(COALESCE(stock.low_stock_count, 0)) AS bigint) AS low_stock_count " +
+            "FROM part " +
+            "LEFT JOIN inventory_by_part stock ON stock.part_id = part.part_id " +
+            "GROUP BY GROUPING SETS ((part.category_id), (part.supplier_id))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<GroupedStatisticsRow> getGroupedStatistics() {
+        return jdbcTemplate.query(GROUPED_STATISTICS, (rs, rowNum) -> new GroupedStatisticsRow(
+                rs.getString("dimension"),
+                rs.getLong("group_id"),
+                rs.getLong("part_count"),
+                rs.getObject("total_value", Double.class),
+                rs.getLong("inventory_count"),
+                rs.getObject("total_quantity", Long.class),
+                rs.getLong("low_stock_count")));
+    }
+}
@@ -0,0 +1,14 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.entity.PurchaseOrderLine;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PurchaseOrderLineRepository extends JpaRepository<PurchaseOrderLine, Long> {
+
+    List<PurchaseOrderLine> findByPurchaseOrderIdInOrderByPartId(Collection<Long> purchaseOrderIds);
+}
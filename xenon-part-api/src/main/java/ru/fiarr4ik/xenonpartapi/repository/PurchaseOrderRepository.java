@@ -0,0 +1,13 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.entity.PurchaseOrder;
+
+import java.util.List;
+
+@Repository
+public interface PurchaseOrderRepository extends JpaRepository<PurchaseOrder, Long> {
+
+    List<PurchaseOrder> findByRunId(Long runId);
+}
@@ -0,0 +1,21 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.entity.PlanRunStatus;
+import ru.fiarr4ik.xenonpartapi.entity.ReorderPlanRun;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface ReorderPlanRunRepository extends JpaRepository<ReorderPlanRun, Long> {
+
+    Optional<ReorderPlanRun> findFirstByStatusOrderByStartedAtDesc(PlanRunStatus status);
+
+    Optional<ReorderPlanRun> findFirstByPlanDateAndStatus(LocalDate planDate, PlanRunStatus status);
+
+    Optional<ReorderPlanRun> findFirstByStatusOrderByPlanDateDescRunIdDesc(PlanRunStatus status);
+
+    Optional<ReorderPlanRun> findFirstByOrderByRunIdDesc();
+}
@@ -0,0 +1,9 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.entity.StockMovement;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+}
@@ -0,0 +1,58 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.fiarr4ik.xenonpartapi.entity.SampleResolution;
+import ru.fiarr4ik.xenonpartapi.entity.StockValueSample;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockValueSampleRepository extends JpaRepository<StockValueSample, Long> {
+
+    List<StockValueSample> findByResolutionAndCategoryIdIsNullAndBucketStartBetweenOrderByBucketStart(
+            SampleResolution resolution, LocalDateTime from, LocalDateTime to);
+
+    List<StockValueSample> findByResolutionAndCategoryIdAndBucketStartBetweenOrderByBucketStart(
+            SampleResolution resolution, Long categoryId, LocalDateTime from, LocalDateTime to);
+
+    Optional<StockValueSample> findFirstByResolutionOrderByBucketStartAsc(SampleResolution resolution);
+
+    Optional<StockValueSample> findFirstByResolutionOrderByBucketStartDesc(SampleResolution resolution);
+
+    /**
+     * Сворачивает исходные замеры за [from, to) в часовые точки.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_value_sample (resolution, bucket_start, category_id, total_quantity, total_value) " +
+           "SELECT 'HOURLY', date_trunc('hour', sample.bucket_start), sample.category_id, " +
+           "CAST(ROUND(AVG(sample.total_quantity)) AS bigint), AVG(sample.total_value) " +
+           "FROM stock_value_sample sample " +
+           "WHERE sample.resolution = 'RAW' AND sample.bucket_start >= :from AND sample.bucket_start < :to " +
+           "GROUP BY date_trunc('hour', sample.bucket_start), sample.category_id",
+           nativeQuery = true)
+    int rollupToHourly(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Сворачивает часовые точки за [from, to) в суточные.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_value_sample (resolution, bucket_start, category_id, total_quantity, total_value) " +
+           "SELECT 'DAILY', date_trunc('day', sample.bucket_start), sample.category_id, " +
+           "CAST(ROUND(AVG(sample.total_quantity)) AS bigint), AVG(sample.total_value) " +
+           "FROM stock_value_sample sample " +
+           "WHERE sample.resolution = 'HOURLY' AND sample.bucket_start >= :from AND sample.bucket_start < :to " +
+           "GROUP BY date_trunc('day', sample.bucket_start), sample.category_id",
+           nativeQuery = true)
+    int rollupToDaily(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM StockValueSample sample " +
+           "WHERE sample.resolution = :resolution AND sample.bucketStart < :before")
+    int deleteOlderThan(@Param("resolution") SampleResolution resolution, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,303 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выбор базы для очередного соединения: основной или одной из реплик.
+ *
+ * <p>На реплику направляются только читающие транзакции, реплики перебираются по кругу.
+ * Реплика пригодна, если она отстает от основной базы не больше допустимого и уже
+ * получила последнюю запись, которую должно видеть чтение: запись своего клиента для
+ * HTTP-запроса или запись любого клиента для фоновых задач и общих результатов.
+ * Если пригодной реплики нет, чтение выполняется основной базой.
+ *
+ * <p>Отставание измеряется по журналу предзаписи: периодически запоминается текущая
+ * позиция журнала основной базы вместе с моментом замера, и реплика считается
+ * догнавшей основную базу на тот момент, позицию которого она уже воспроизвела.
+ * Поэтому чтение своей записи не требует угадывать время задержки репликации.
+ */
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+
+    private static final String CURRENT_LSN = "SELECT pg_current_wal_lsn()";
+    private static final String REPLAY_LSN = "SELECT pg_is_in_recovery(), pg_last_wal_replay_lsn()";
+
+    private static final Object WRITE_TRACKED = new Object();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> clientWrites = new ConcurrentHashMap<>();
+    private final Deque<LsnSample> samples = new ArrayDeque<>();
+    private volatile long lastWriteNanos = System.nanoTime();
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbackConnections;
+
+    public ReplicaRouter(HikariDataSource primary, List<Replica> replicas, long maxLagMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        this.primaryConnections = connectionCounter(meterRegistry, "primary");
+        this.replicaConnections = connectionCounter(meterRegistry, "replica");
+        this.fallbackConnections = connectionCounter(meterRegistry, "primary-fallback");
+        for (Replica replica : this.replicas) {
+            Gauge.builder("xenon.datasource.replica.lag", replica, r -> r.lagSeconds(System.nanoTime()))
+                    .description("Отставание реплики от основной базы")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Выдает соединение с базой, подходящей для текущей транзакции.
+     *
+     * @return соединение
+     * @throws SQLException если соединение не удалось получить
+     */
+    Connection getConnection() throws SQLException {
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        RoutingContext context = RoutingContext.current();
+        if (readOnly && (context == null || !context.primaryOnly())) {
+            Replica replica = selectReplica(context);
+            if (replica != null) {
+                replicaConnections.increment();
+                return replica.dataSource.getConnection();
+            }
+            fallbackConnections.increment();
+            return primary.getConnection();
+        }
+        primaryConnections.increment();
+        Connection connection = primary.getConnection();
+        return readOnly ? connection : trackWrite(connection);
+    }
+
+    /**
+     * Сравнивает позиции журнала реплик с позицией основной базы.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval-ms:250}")
+    public synchronized void checkLag() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        long sampledAt = System.nanoTime();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(CURRENT_LSN)) {
+            rs.next();
+            samples.addLast(new LsnSample(parseLsn(rs.getString(1)), sampledAt));
+        } catch (SQLException e) {
+            log.warn("Не удалось получить позицию журнала основной базы: {}", e.getMessage());
+            return;
+        }
+        // Реплика, воспроизводящая только более старые замеры, все равно отстает сверх допустимого
+        while (samples.size() > 1 && sampledAt - samples.peekFirst().nanos > maxLagNanos) {
+            samples.removeFirst();
+        }
+
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+        long now = System.nanoTime();
+        clientWrites.values().removeIf(writtenAt -> now - writtenAt > maxLagNanos);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private Replica selectReplica(RoutingContext context) {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        long requiredNanos = context == null || RoutingContext.isShared()
+                ? lastWriteNanos
+                : lastClientWrite(context.clientKeys());
+        long now = System.nanoTime();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isUsable(now, maxLagNanos, requiredNanos)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private long lastClientWrite(String[] clientKeys) {
+        // Без записей клиента подходит любая реплика в пределах допустимого отставания
+        long latest = System.nanoTime() - maxLagNanos;
+        for (String key : clientKeys) {
+            Long writtenAt = clientWrites.get(key);
+            if (writtenAt != null && writtenAt - latest > 0) {
+                latest = writtenAt;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Запоминает момент записи, когда она станет видна другим соединениям:
+     * после фиксации транзакции или после закрытия соединения без транзакции.
+     */
+    private Connection trackWrite(Connection connection) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!TransactionSynchronizationManager.hasResource(WRITE_TRACKED)) {
+                TransactionSynchronizationManager.bindResource(WRITE_TRACKED, Boolean.TRUE);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    // До обработчиков событий после фиксации: сброшенный ими кэш не должен
+                    // заполниться с реплики, еще не получившей эту запись
+                    @Override
+                    public void afterCommit() {
+                        recordWrite();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED);
+                    }
+                });
+            }
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName())) {
+                            recordWrite();
+                        }
+                    }
+                });
+    }
+
+    private void recordWrite() {
+        long now = System.nanoTime();
+        lastWriteNanos = now;
+        RoutingContext context = RoutingContext.current();
+        if (context != null) {
+            for (String key : context.clientKeys()) {
+                clientWrites.put(key, now);
+            }
+        }
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLAY_LSN)) {
+            rs.next();
+            String replayLsn = rs.getString(2);
+            if (!rs.getBoolean(1) || replayLsn == null) {
+                replica.markUnavailable("не находится в режиме восстановления и не является репликой");
+                return;
+            }
+            long replayed = parseLsn(replayLsn);
+            Iterator<LsnSample> newestFirst = samples.descendingIterator();
+            while (newestFirst.hasNext()) {
+                LsnSample sample = newestFirst.next();
+                if (Long.compareUnsigned(sample.lsn, replayed) <= 0) {
+                    replica.markCaughtUp(sample.nanos);
+                    return;
+                }
+            }
+            replica.markUnavailable("отстает больше допустимого");
+        } catch (SQLException e) {
+            replica.markUnavailable(e.getMessage());
+        }
+    }
+
+    /**
+     * Переводит позицию журнала вида {@code 16/B374D848} в число.
+     */
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return (Long.parseUnsignedLong(lsn.substring(0, slash), 16) << 32)
+                | Long.parseUnsignedLong(lsn.substring(slash + 1), 16);
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("xenon.datasource.connections")
+                .description("Соединения, выданные маршрутизатором")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private record LsnSample(long lsn, long nanos) {
+    }
+
+    /**
+     * Реплика и ее последнее известное состояние.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean checked;
+        private volatile boolean available;
+        private volatile long caughtUpToNanos;
+
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isUsable(long now, long maxLagNanos, long requiredNanos) {
+            long caughtUpTo = caughtUpToNanos;
+            return available && now - caughtUpTo <= maxLagNanos && caughtUpTo - requiredNanos >= 0;
+        }
+
+        private void markCaughtUp(long sampleNanos) {
+            if (!available) {
+                log.info("Реплика {} доступна для чтения", name);
+            }
+            caughtUpToNanos = sampleNanos;
+            available = true;
+            checked = true;
+        }
+
+        private void markUnavailable(String reason) {
+            if (available || !checked) {
+                log.warn("Реплика {} исключена из чтения: {}", name, reason);
+            }
+            available = false;
+            checked = true;
+        }
+
+        private double lagSeconds(long now) {
+            return available ? (now - caughtUpToNanos) / 1e9 : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Источник данных, направляющий читающие транзакции на реплики.
+ *
+ * <p>Пулы основной базы и реплик не регистрируются как отдельные бины, поэтому
+ * учет SQL-запросов оборачивает только итоговый источник данных и не считает
+ * запросы дважды. По той же причине Spring Boot не видит эти пулы и не публикует
+ * их метрики, поэтому каждый пул сам регистрирует метрики {@code hikaricp.*}
+ * под своим именем в теге {@code pool}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRouter replicaRouter(DataSourceProperties dataSourceProperties,
+                                       ReplicaRoutingProperties properties,
+                                       MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+        Set<String> poolNames = new HashSet<>();
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName(uniquePoolName("primary", poolNames));
+        primary.setMetricsTrackerFactory(metricsTrackerFactory);
+
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+        for (ReplicaRoutingProperties.Instance instance : properties.getInstances()) {
+            String name = uniquePoolName(instance.getName() != null ? instance.getName() : "replica-" + replicas.size(),
+                    poolNames);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(instance.getUrl())
+                    .username(instance.getUsername() != null
+                            ? instance.getUsername() : dataSourceProperties.determineUsername())
+                    .password(instance.getPassword() != null
+                            ? instance.getPassword() : dataSourceProperties.determinePassword())
+                    .build();
+            replica.setPoolName(name);
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(instance.getMaximumPoolSize());
+            replica.setMetricsTrackerFactory(metricsTrackerFactory);
+            replicas.add(new ReplicaRouter.Replica(name, replica));
+        }
+        return new ReplicaRouter(primary, replicas, properties.getMaxLagMs(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouter replicaRouter) {
+        return new LazyConnectionDataSourceProxy(new RoutingDataSource(replicaRouter));
+    }
+
+    /**
+     * Проверяет, что имя пула не повторяется: метрики пулов различаются только им.
+     */
+    private static String uniquePoolName(String name, Set<String> poolNames) {
+        if (!poolNames.add(name)) {
+            throw new IllegalStateException("Имя пула соединений " + name + " уже используется");
+        }
+        return name;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реплики базы данных для читающих транзакций.
+ *
+ * <p>Маршрутизация включается свойством {@code datasource.replicas.enabled}, основная база
+ * по-прежнему задается свойствами {@code spring.datasource.*}, например
+ * {@code datasource.replicas.instances[0].url=jdbc:postgresql://localhost:5433/xenon_diplom}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.replicas")
+public class ReplicaRoutingProperties {
+
+    /**
+     * Наибольшее отставание реплики, при котором на нее еще направляются запросы.
+     */
+    private long maxLagMs = 1000;
+
+    /**
+     * Реплики. Пустой список направляет все запросы в основную базу.
+     */
+    private List<Instance> instances = new ArrayList<>();
+
+    @Data
+    public static class Instance {
+
+        /**
+         * Имя реплики в метриках и журнале, по умолчанию ее порядковый номер.
+         */
+        private String name;
+
+        /**
+         * JDBC URL реплики.
+         */
+        private String url;
+
+        /**
+         * Пользователь, по умолчанию тот же, что и для основной базы.
+         */
+        private String username;
+
+        /**
+         * Пароль, по умолчанию тот же, что и для основной базы.
+         */
+        private String password;
+
+        /**
+         * Размер пула соединений с репликой.
+         */
+        private int maximumPoolSize = 10;
+    }
+}
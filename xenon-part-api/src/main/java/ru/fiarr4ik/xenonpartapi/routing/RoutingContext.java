@@ -0,0 +1,94 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Контекст маршрутизации текущего потока.
+ *
+ * <p>HTTP-запрос сообщает, кто его клиент и изменяет ли он данные: изменяющий запрос
+ * целиком обслуживается основной базой, а чтения клиента после его собственной записи
+ * идут только на реплики, которые эту запись уже получили. Результат, который увидят
+ * другие клиенты, например запись кэша, вычисляется в {@link #shared(Supplier)} и должен
+ * учитывать последнюю запись любого клиента.
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<RoutingContext> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> SHARED = new ThreadLocal<>();
+
+    private final boolean primaryOnly;
+    private final String[] clientKeys;
+
+    private RoutingContext(boolean primaryOnly, String[] clientKeys) {
+        this.primaryOnly = primaryOnly;
+        this.clientKeys = clientKeys;
+    }
+
+    /**
+     * Вычисляет результат, который будет отдан не только текущему клиенту.
+     *
+     * @param loader вычисление результата
+     * @param <T> тип результата
+     * @return результат вычисления
+     */
+    public static <T> T shared(Supplier<T> loader) {
+        if (Boolean.TRUE.equals(SHARED.get())) {
+            return loader.get();
+        }
+        SHARED.set(Boolean.TRUE);
+        try {
+            return loader.get();
+        } finally {
+            SHARED.remove();
+        }
+    }
+
+    /**
+     * Выполняет чтение основной базой. Нужно, когда решение принимается по записи,
+     * сделанной другим экземпляром приложения: ее момент маршрутизатору неизвестен.
+     *
+     * @param loader чтение
+     * @param <T> тип результата
+     * @return результат чтения
+     */
+    public static <T> T primary(Supplier<T> loader) {
+        RoutingContext previous = CURRENT.get();
+        CURRENT.set(new RoutingContext(true, previous != null ? previous.clientKeys : new String[0]));
+        try {
+            return loader.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    static void enter(boolean primaryOnly, String... clientKeys) {
+        CURRENT.set(new RoutingContext(primaryOnly, clientKeys));
+    }
+
+    static void exit() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Контекст HTTP-запроса или {@code null} для фоновых задач.
+     */
+    static RoutingContext current() {
+        return CURRENT.get();
+    }
+
+    static boolean isShared() {
+        return Boolean.TRUE.equals(SHARED.get());
+    }
+
+    boolean primaryOnly() {
+        return primaryOnly;
+    }
+
+    String[] clientKeys() {
+        return clientKeys;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Заполняет {@link RoutingContext} на время HTTP-запроса.
+ *
+ * <p>Клиент определяется и по пользователю, и по IP-адресу: так регистрация и следующий
+ * за ней вход без токена, как и смена пароля и повторный вход, видят свою запись.
+ * Поэтому фильтр выполняется после {@code JwtAuthFilter}.
+ */
+@Component
+@Order(3)
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class RoutingContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String address = "ip:" + request.getRemoteAddr();
+        Object userId = request.getAttribute("userId");
+        String[] clientKeys = userId != null ? new String[] {"user:" + userId, address} : new String[] {address};
+        RoutingContext.enter(!isSafe(request.getMethod()), clientKeys);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingContext.exit();
+        }
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
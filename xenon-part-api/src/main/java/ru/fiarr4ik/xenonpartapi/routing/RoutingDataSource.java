@@ -0,0 +1,33 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+/**
+ * Источник данных, выдающий соединения выбранной {@link ReplicaRouter} базы.
+ *
+ * <p>Используется только за {@code LazyConnectionDataSourceProxy}: менеджер транзакций
+ * запрашивает соединение до того, как транзакция отмечена читающей, и настоящее
+ * соединение должно браться при первом запросе к базе.
+ */
+class RoutingDataSource extends AbstractDataSource {
+
+    private final ReplicaRouter router;
+
+    RoutingDataSource(ReplicaRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return router.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Учетные данные задаются в настройках основной базы и реплик");
+    }
+}
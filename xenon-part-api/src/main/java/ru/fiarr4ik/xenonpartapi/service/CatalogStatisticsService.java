@@ -0,0 +1,134 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupedStatisticsRow;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierLowStock;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierStatistics;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис статистики по категориям и поставщикам.
+ *
+ * <p>Все показатели считаются одним агрегирующим запросом с GROUPING SETS,
+ * после чего раскладываются по отдельным срезам, которые отдают эндпоинты метрик.
+ */
+@Service
+@Timed("xenon.service")
+@RequiredArgsConstructor
+public class CatalogStatisticsService {
+
+    private final PartRepository partRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
+
+    /**
+     * Срезы статистики, вычисленные за один проход.
+     *
+     * @param categoryStats количество, суммарная и средняя цена запчастей по категориям
+     * @param categoryInventory количество записей инвентаря и остаток по категориям
+     * @param supplierStats количество, суммарная и средняя цена запчастей по поставщикам
+     * @param supplierInventory количество записей инвентаря и остаток по поставщикам
+     * @param supplierLowStock количество записей с низким остатком по поставщикам
+     */
+    public record Snapshot(List<CategoryStatistics> categoryStats,
+                           List<CategoryInventory> categoryInventory,
+                           List<SupplierStatistics> supplierStats,
+                           List<SupplierInventory> supplierInventory,
+                           List<SupplierLowStock> supplierLowStock) {
+    }
+
+    /**
+     * Вычисляет статистику по категориям и поставщикам.
+     *
+     * @return срезы статистики
+     */
+    @Transactional(readOnly = true)
+    public Snapshot calculate() {
+        Map<Long, GroupedStatisticsRow> byCategory = new HashMap<>();
+        Map<Long, GroupedStatisticsRow> bySupplier = new HashMap<>();
+        for (GroupedStatisticsRow row : partRepository.getGroupedStatistics()) {
+            if ("CATEGORY".equals(row.dimension())) {
+                byCategory.put(row.groupId(), row);
+            } else {
+                bySupplier.put(row.groupId(), row);
+            }
+        }
+
+        // Группы без запчастей в агрегат не попадают, но должны присутствовать в ответе с нулями.
+        // Как и прежде, группы с одинаковым названием объединяются.
+        Map<String, GroupTotals> categoryTotals = new LinkedHashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryTotals.computeIfAbsent(category.getName(), name -> new GroupTotals())
+                    .add(byCategory.get(category.getCategoryId()));
+        }
+        Map<String, GroupTotals> supplierTotals = new LinkedHashMap<>();
+        for (Supplier supplier : supplierRepository.findAll()) {
+            supplierTotals.computeIfAbsent(supplier.getName(), name -> new GroupTotals())
+                    .add(bySupplier.get(supplier.getSupplierId()));
+        }
+
+        List<CategoryStatistics> categoryStats = new ArrayList<>(categoryTotals.size());
+        List<CategoryInventory> categoryInventory = new ArrayList<>(categoryTotals.size());
+        categoryTotals.forEach((name, totals) -> {
+            categoryStats.add(new CategoryStatistics(name, totals.partCount, totals.totalValue, totals.averagePrice()));
+            categoryInventory.add(new CategoryInventory(name, totals.inventoryCount, totals.totalQuantity));
+        });
+
+        List<SupplierStatistics> supplierStats = new ArrayList<>(supplierTotals.size());
+        List<SupplierInventory> supplierInventory = new ArrayList<>(supplierTotals.size());
+        List<SupplierLowStock> supplierLowStock = new ArrayList<>(supplierTotals.size());
+        supplierTotals.forEach((name, totals) -> {
+            supplierStats.add(new SupplierStatistics(name, totals.partCount, totals.totalValue, totals.averagePrice()));
+            supplierInventory.add(new SupplierInventory(name, totals.inventoryCount, totals.totalQuantity));
+            supplierLowStock.add(new SupplierLowStock(name, totals.lowStockCount));
+        });
+
+        return new Snapshot(categoryStats, categoryInventory, supplierStats, supplierInventory, supplierLowStock);
+    }
+
+    /**
+     * Накопитель показателей одной группы.
+     */
+    private static final class GroupTotals {
+        private long partCount;
+        private Double totalValue;
+        private long inventoryCount;
+        private Long totalQuantity;
+        private long lowStockCount;
+
+        private void add(GroupedStatisticsRow row) {
+            if (row == null) {
+                return;
+            }
+            partCount += row.partCount();
+            inventoryCount += row.inventoryCount();
+            lowStockCount += row.lowStockCount();
+            if (row.totalValue() != null) {
+                totalValue = (totalValue == null ? 0 : totalValue) + row.totalValue();
+            }
+            if (row.totalQuantity() != null) {
+                totalQuantity = (totalQuantity == null ? 0 : totalQuantity) + row.totalQuantity();
+            }
+        }
+
+        private Double averagePrice() {
+            return partCount > 0 && totalValue != null ? totalValue / partCount : null;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package ru.fiarr4ik.xenonpartapi.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.fiarr4ik.xenonpartapi.dto.CategoryRequestDTO;
 import ru.fiarr4ik.xenonpartapi.dto.CategoryResponseDTO;
 import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.event.CategoryChangedEvent;
 import ru.fiarr4ik.xenonpartapi.exception.EntityNotFoundException;
 import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
 import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
@@ -16,11 +20,13 @@ import java.util.stream.Collectors;
  * Сервис для работы с категориями.
  */
 @Service
+@Timed("xenon.service")
 @RequiredArgsConstructor
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final GlobalMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создает новую категорию.
@@ -31,6 +37,7 @@ public class CategoryService {
     public CategoryResponseDTO create(CategoryRequestDTO requestDto) {
         Category category = categoryMapper.toCategoryEntity(requestDto);
         Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved, false));
         return categoryMapper.toCategoryResponseDto(saved);
     }
 
@@ -39,6 +46,7 @@ public class CategoryService {
      *
      * @return список всех категорий
      */
+    @Transactional(readOnly = true)
     public List<CategoryResponseDTO> findAll() {
         return categoryRepository.findAll().stream()
                 .map(categoryMapper::toCategoryResponseDto)
@@ -51,6 +59,7 @@ public class CategoryService {
      * @param id идентификатор категории
      * @return категория
      */
+    @Transactional(readOnly = true)
     public CategoryResponseDTO findById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + id));
@@ -69,6 +78,7 @@ public class CategoryService {
                 .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + id));
         categoryMapper.updateCategoryFromDto(requestDto, existing);
         Category updated = categoryRepository.save(existing);
+        eventPublisher.publishEvent(new CategoryChangedEvent(updated, false));
         return categoryMapper.toCategoryResponseDto(updated);
     }
 
@@ -78,10 +88,10 @@ public class CategoryService {
      * @param id идентификатор категории
      */
     public void delete(Long id) {
-        if (!categoryRepository.existsById(id)) {
-            throw new EntityNotFoundException("Категория не найдена: " + id);
-        }
-        categoryRepository.deleteById(id);
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + id));
+        categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category, true));
     }
 
     /**
@@ -89,6 +99,7 @@ public class CategoryService {
      *
      * @return количество категорий
      */
+    @Transactional(readOnly = true)
     public long count() {
         return categoryRepository.count();
     }
@@ -1,14 +1,21 @@
 package ru.fiarr4ik.xenonpartapi.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.fiarr4ik.xenonpartapi.dto.InventoryRequestDTO;
 import ru.fiarr4ik.xenonpartapi.dto.InventoryResponseDTO;
 import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.event.InventoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.StockMovedEvent;
 import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
 import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
 import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
 import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.StockMovementRepository;
+import ru.fiarr4ik.xenonpartapi.entity.StockMovement;
 import ru.fiarr4ik.xenonpartapi.entity.Part;
 import java.time.LocalDateTime;
 
@@ -17,14 +24,21 @@ import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с инвентарем.
+ *
+ * <p>Карточке и списку записей достаточно идентификатора запчасти, поэтому сама запчасть
+ * не загружается. Изменение остатка и удаление загружают ее вместе с записью: обработчики
+ * изменения каталога читают ее категорию и поставщика после фиксации транзакции.
  */
 @Service
+@Timed("xenon.service")
 @RequiredArgsConstructor
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final GlobalMapper inventoryMapper;
     private final PartRepository partRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockMovementRepository stockMovementRepository;
 
     /**
      * Создает новую запись инвентаря.
@@ -32,12 +46,14 @@ public class InventoryService {
      * @param requestDto данные для создания записи инвентаря
      * @return созданная запись инвентаря
      */
+    @Transactional
     public InventoryResponseDTO create(InventoryRequestDTO requestDto) {
         Part part = partRepository.findById(requestDto.getPartId())
                 .orElseThrow(() -> new RuntimeException("Запчасть не найдена: " + requestDto.getPartId()));
         Inventory inventory = inventoryMapper.toInventoryEntity(requestDto);
         inventory.setPart(part);
         Inventory savedInventory = inventoryRepository.save(inventory);
+        eventPublisher.publishEvent(new InventoryChangedEvent(savedInventory, null, false));
         return inventoryMapper.toInventoryResponseDto(savedInventory);
     }
 
@@ -46,6 +62,7 @@ public class InventoryService {
      *
      * @return список всех записей инвентаря
      */
+    @Transactional(readOnly = true)
     public List<InventoryResponseDTO> findAll() {
         return inventoryRepository.findAll().stream()
                 .map(inventoryMapper::toInventoryResponseDto)
@@ -58,6 +75,7 @@ public class InventoryService {
      * @param id идентификатор записи инвентаря
      * @return запись инвентаря
      */
+    @Transactional(readOnly = true)
     public InventoryResponseDTO findById(Long id) {
         Inventory inventory = inventoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Inventory not found with id: " + id));
@@ -71,14 +89,17 @@ public class InventoryService {
      * @param requestDto данные для обновления записи инвентаря
      * @return обновленная запись инвентаря
      */
+    @Transactional
     public InventoryResponseDTO update(Long id, InventoryRequestDTO requestDto) {
         Inventory inventory = inventoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Inventory not found with id: " + id));
         Part part = partRepository.findById(requestDto.getPartId())
                 .orElseThrow(() -> new RuntimeException("Запчасть не найдена: " + requestDto.getPartId()));
+        Integer previousQuantity = inventory.getQuantityInStock();
         inventoryMapper.updateInventoryFromDto(requestDto, inventory);
         inventory.setPart(part);
         Inventory updatedInventory = inventoryRepository.save(inventory);
+        eventPublisher.publishEvent(new InventoryChangedEvent(updatedInventory, previousQuantity, false));
         return inventoryMapper.toInventoryResponseDto(updatedInventory);
     }
 
@@ -87,8 +108,12 @@ public class InventoryService {
      *
      * @param id идентификатор записи инвентаря
      */
+    @Transactional
     public void delete(Long id) {
-        inventoryRepository.deleteById(id);
+        inventoryRepository.findForStockAdjustmentById(id).ifPresent(inventory -> {
+            inventoryRepository.delete(inventory);
+            eventPublisher.publishEvent(new InventoryChangedEvent(inventory, inventory.getQuantityInStock(), true));
+        });
     }
 
     /**
@@ -96,6 +121,7 @@ public class InventoryService {
      *
      * @return количество записей инвентаря
      */
+    @Transactional(readOnly = true)
     public long count() {
         return inventoryRepository.count();
     }
@@ -108,14 +134,18 @@ public class InventoryService {
      * @return обновленная запись инвентаря
      * @throws ResourceNotFoundException если запись не найдена
      */
+    @Transactional
     public InventoryResponseDTO addQuantity(Long id, Integer quantity) {
-        Inventory inventory = inventoryRepository.findById(id)
+        Inventory inventory = inventoryRepository.findForStockAdjustmentById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Запись инвентаря не найдена"));
 
-        inventory.setQuantityInStock(inventory.getQuantityInStock() + quantity);
+        int previousQuantity = inventory.getQuantityInStock();
+        inventory.setQuantityInStock(previousQuantity + quantity);
         inventory.setLastRestockDate(LocalDateTime.now());
 
         Inventory savedInventory = inventoryRepository.save(inventory);
+        recordMovement(savedInventory, quantity);
+        eventPublisher.publishEvent(new InventoryChangedEvent(savedInventory, previousQuantity, false));
         return inventoryMapper.toInventoryResponseDto(savedInventory);
     }
 
@@ -128,18 +158,29 @@ public class InventoryService {
      * @throws ResourceNotFoundException если запись не найдена
      * @throws IllegalArgumentException если недостаточно товара на складе
      */
+    @Transactional
     public InventoryResponseDTO removeQuantity(Long id, Integer quantity) {
-        Inventory inventory = inventoryRepository.findById(id)
+        Inventory inventory = inventoryRepository.findForStockAdjustmentById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Запись инвентаря не найдена"));
 
         if (inventory.getQuantityInStock() < quantity) {
             throw new IllegalArgumentException("Недостаточно товара на складе");
         }
 
-        inventory.setQuantityInStock(inventory.getQuantityInStock() - quantity);
+        int previousQuantity = inventory.getQuantityInStock();
+        inventory.setQuantityInStock(previousQuantity - quantity);
         inventory.setLastRestockDate(LocalDateTime.now());
 
         Inventory savedInventory = inventoryRepository.save(inventory);
+        recordMovement(savedInventory, -quantity);
+        eventPublisher.publishEvent(new InventoryChangedEvent(savedInventory, previousQuantity, false));
         return inventoryMapper.toInventoryResponseDto(savedInventory);
     }
-}
\ No newline at end of file
+
+    private void recordMovement(Inventory inventory, int quantity) {
+        Long partId = inventory.getPart().getPartId();
+        stockMovementRepository.save(new StockMovement(null, partId, inventory.getInventoryId(),
+                quantity, inventory.getLastRestockDate()));
+        eventPublisher.publishEvent(new StockMovedEvent(partId, quantity));
+    }
+}
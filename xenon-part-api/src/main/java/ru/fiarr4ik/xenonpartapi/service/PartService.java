@@ -1,12 +1,18 @@
 package ru.fiarr4ik.xenonpartapi.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.fiarr4ik.xenonpartapi.dto.PartRequestDTO;
 import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
 import ru.fiarr4ik.xenonpartapi.entity.Category;
 import ru.fiarr4ik.xenonpartapi.entity.Part;
 import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+import ru.fiarr4ik.xenonpartapi.event.PartChangedEvent;
 import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
 import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
 import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
@@ -17,8 +23,13 @@ import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с запчастями.
+ *
+ * <p>Карточка и списки загружают запчасти вместе с категориями и поставщиками одним
+ * запросом. Изменения выполняются в одной транзакции, и ответ строится по уже
+ * загруженным сущностям без обращений к ленивым связям после ее завершения.
  */
 @Service
+@Timed("xenon.service")
 @RequiredArgsConstructor
 public class PartService {
 
@@ -26,6 +37,7 @@ public class PartService {
     private final GlobalMapper partMapper;
     private final CategoryRepository categoryRepository;
     private final SupplierRepository supplierRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создает новую запчасть.
@@ -33,6 +45,7 @@ public class PartService {
      * @param requestDto данные для создания запчасти
      * @return созданная запчасть
      */
+    @Transactional
     public PartResponseDTO create(PartRequestDTO requestDto) {
         Category category = categoryRepository.findById(requestDto.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Категория не найдена: " + requestDto.getCategoryId()));
@@ -44,6 +57,7 @@ public class PartService {
         part.setSupplier(supplier);
 
         Part saved = partRepository.save(part);
+        eventPublisher.publishEvent(new PartChangedEvent(saved, null, null, false));
         return partMapper.toPartResponseDto(saved);
     }
 
@@ -54,10 +68,13 @@ public class PartService {
      * @param requestDto данные для обновления запчасти
      * @return обновленная запчасть
      */
+    @Transactional
     public PartResponseDTO update(Long id, PartRequestDTO requestDto) {
-        Part existing = partRepository.findById(id)
+        Part existing = partRepository.findDetailById(id)
                 .orElseThrow(() -> new RuntimeException("Запчасть не найдена: " + id));
 
+        Long previousCategoryId = existing.getCategory().getCategoryId();
+        Long previousSupplierId = existing.getSupplier().getSupplierId();
         partMapper.updatePartFromDto(requestDto, existing);
 
         Category category = categoryRepository.findById(requestDto.getCategoryId())
@@ -69,6 +86,7 @@ public class PartService {
         existing.setSupplier(supplier);
 
         Part updated = partRepository.save(existing);
+        eventPublisher.publishEvent(new PartChangedEvent(updated, previousCategoryId, previousSupplierId, false));
         return partMapper.toPartResponseDto(updated);
     }
 
@@ -77,11 +95,13 @@ public class PartService {
      *
      * @param id идентификатор запчасти
      */
+    @Transactional
     public void delete(Long id) {
-        if (!partRepository.existsById(id)) {
-            throw new RuntimeException("Запчасть не найдена: " + id);
-        }
-        partRepository.deleteById(id);
+        Part part = partRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Запчасть не найдена: " + id));
+        partRepository.delete(part);
+        eventPublisher.publishEvent(new PartChangedEvent(part,
+                part.getCategory().getCategoryId(), part.getSupplier().getSupplierId(), true));
     }
 
     /**
@@ -90,8 +110,9 @@ public class PartService {
      * @param id идентификатор запчасти
      * @return запчасть
      */
+    @Transactional(readOnly = true)
     public PartResponseDTO findById(Long id) {
-        Part part = partRepository.findById(id)
+        Part part = partRepository.findDetailById(id)
                 .orElseThrow(() -> new RuntimeException("Запчасть не найдена: " + id));
         return partMapper.toPartResponseDto(part);
     }
@@ -101,17 +122,41 @@ public class PartService {
      *
      * @return список всех запчастей
      */
+    @Transactional(readOnly = true)
     public List<PartResponseDTO> findAll() {
-        return partRepository.findAll().stream()
+        return partRepository.findAllDetails().stream()
                 .map(partMapper::toPartResponseDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Получает запчасти указанных классов.
+     *
+     * @param abcClass класс по вкладу в стоимость запасов или {@code null} для любого
+     * @param xyzClass класс по стабильности расхода или {@code null} для любого
+     * @return список запчастей
+     */
+    @Transactional(readOnly = true)
+    public List<PartResponseDTO> findByClass(AbcClass abcClass, XyzClass xyzClass) {
+        List<Part> parts;
+        if (abcClass != null && xyzClass != null) {
+            parts = partRepository.findByAbcClassAndXyzClass(abcClass, xyzClass);
+        } else if (abcClass != null) {
+            parts = partRepository.findByAbcClass(abcClass);
+        } else if (xyzClass != null) {
+            parts = partRepository.findByXyzClass(xyzClass);
+        } else {
+            parts = partRepository.findAllDetails();
+        }
+        return partMapper.toPartResponseList(parts);
+    }
+
     /**
      * Получает количество запчастей.
      *
      * @return количество запчастей
      */
+    @Transactional(readOnly = true)
     public long count() {
         return partRepository.count();
     }
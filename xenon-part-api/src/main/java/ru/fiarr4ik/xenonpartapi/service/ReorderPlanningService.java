@@ -0,0 +1,397 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.dto.PurchaseOrderDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PurchaseOrderLineDTO;
+import ru.fiarr4ik.xenonpartapi.dto.ReorderPlanRunDTO;
+import ru.fiarr4ik.xenonpartapi.entity.PlanRunStatus;
+import ru.fiarr4ik.xenonpartapi.entity.PurchaseOrder;
+import ru.fiarr4ik.xenonpartapi.entity.PurchaseOrderLine;
+import ru.fiarr4ik.xenonpartapi.entity.ReorderPlanRun;
+import ru.fiarr4ik.xenonpartapi.exception.ConflictException;
+import ru.fiarr4ik.xenonpartapi.repository.PurchaseOrderLineRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PurchaseOrderRepository;
+import ru.fiarr4ik.xenonpartapi.repository.ReorderPlanRunRepository;
+import ru.fiarr4ik.xenonpartapi.routing.RoutingContext;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Планировщик закупок.
+ *
+ * <p>Для каждой запчасти на складе прогнозирует суточный расход экспоненциальным сглаживанием
+ * ежедневных списаний, считает точку заказа с учетом срока поставки поставщика и страхового
+ * запаса и, если остаток не выше точки заказа, предлагает количество к заказу. Предложения
+ * собираются в черновики заказов по поставщикам.
+ *
+ * <p>Инвентарь читается блоками по возрастанию идентификатора запчасти. Строки заказов блока
+ * и контрольная точка запуска сохраняются в одной транзакции, поэтому прерванный запуск
+ * продолжается со следующего необработанного блока.
+ *
+ * <p>Одновременно выполняется только один запуск. Ручной запуск выполняется в общем пуле
+ * задач приложения, а запуск по расписанию, совпавший с идущим, пропускается.
+ */
+@Slf4j
+@Service
+@Timed("xenon.service")
+public class ReorderPlanningService {
+
+    private static final String STOCK_CHUNK =
+            "SELECT part.part_id, part.supplier_id, suppliers.lead_time_days, " +
+            "CAST(SUM(inventory.quantity_in_stock) AS bigint) " +
+            "FROM inventory " +
+            "JOIN part ON part.part_id = inventory.part_id " +
+            "JOIN suppliers ON suppliers.supplier_id = part.supplier_id " +
+            "WHERE inventory.part_id > ? " +
+            "GROUP BY part.part_id, part.supplier_id, suppliers.lead_time_days " +
+            "ORDER BY part.part_id LIMIT ?";
+
+    private static final String DAILY_REMOVALS =
+            "SELECT part_id, CAST(moved_at AS date), CAST(-SUM(quantity) AS bigint) " +
+            "FROM stock_movement " +
+            "WHERE quantity < 0 AND part_id BETWEEN ? AND ? AND moved_at >= ? AND moved_at < ? " +
+            "GROUP BY part_id, CAST(moved_at AS date) " +
+            "ORDER BY part_id";
+
+    private static final String INSERT_LINE =
+            "INSERT INTO purchase_order_line " +
+            "(purchase_order_id, part_id, on_hand, daily_demand, reorder_point, suggested_quantity) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Executor executor;
+    private final ReorderPlanRunRepository runRepository;
+    private final PurchaseOrderRepository orderRepository;
+    private final PurchaseOrderLineRepository lineRepository;
+    private final int chunkSize;
+    private final int historyDays;
+    private final double smoothing;
+    private final int warmUpDays;
+    private final double serviceLevelZ;
+    private final int reviewPeriodDays;
+    private final int defaultLeadTimeDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReorderPlanningService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                  Executor executor,
+                                  ReorderPlanRunRepository runRepository,
+                                  PurchaseOrderRepository orderRepository,
+                                  PurchaseOrderLineRepository lineRepository,
+                                  @Value("${purchasing.planner.chunk-size:10000}") int chunkSize,
+                                  @Value("${purchasing.planner.history-days:90}") int historyDays,
+                                  @Value("${purchasing.planner.smoothing:0.2}") double smoothing,
+                                  @Value("${purchasing.planner.warm-up-days:7}") int warmUpDays,
+                                  @Value("${purchasing.planner.service-level-z:1.65}") double serviceLevelZ,
+                                  @Value("${purchasing.planner.review-period-days:7}") int reviewPeriodDays,
+                                  @Value("${purchasing.planner.default-lead-time-days:7}") int defaultLeadTimeDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.runRepository = runRepository;
+        this.orderRepository = orderRepository;
+        this.lineRepository = lineRepository;
+        this.chunkSize = chunkSize;
+        this.historyDays = historyDays;
+        this.smoothing = smoothing;
+        this.warmUpDays = warmUpDays;
+        this.serviceLevelZ = serviceLevelZ;
+        this.reviewPeriodDays = reviewPeriodDays;
+        this.defaultLeadTimeDays = defaultLeadTimeDays;
+    }
+
+    @Scheduled(cron = "${purchasing.planner.cron:0 0 1 * * *}")
+    public void scheduledPlan() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Планировщик закупок уже выполняется, запуск по расписанию пропущен");
+            return;
+        }
+        try {
+            RoutingContext.primary(() -> {
+                ReorderPlanRun run = openRun();
+                if (run.getStatus() == PlanRunStatus.RUNNING) {
+                    execute(run);
+                }
+                return run;
+            });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Запускает формирование плана закупок на сегодня в фоне. Прерванный запуск
+     * продолжается, а завершенный сегодняшний план не пересчитывается.
+     *
+     * @return состояние запуска на момент постановки в очередь
+     * @throws ConflictException если планировщик уже выполняется
+     */
+    public ReorderPlanRunDTO start() {
+        acquire();
+        try {
+            ReorderPlanRun run = RoutingContext.primary(this::openRun);
+            ReorderPlanRunDTO state = toDto(run);
+            if (run.getStatus() != PlanRunStatus.RUNNING) {
+                running.set(false);
+                return state;
+            }
+            executor.execute(() -> {
+                try {
+                    RoutingContext.primary(() -> {
+                        execute(run);
+                        return run;
+                    });
+                } catch (RuntimeException e) {
+                    log.error("План закупок на {} не сформирован", run.getPlanDate(), e);
+                } finally {
+                    running.set(false);
+                }
+            });
+            return state;
+        } catch (RuntimeException e) {
+            // Запуск не принят пулом или не открыт - планировщик снова свободен
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Формирует план закупок на сегодня в текущем потоке. Прерванный запуск продолжается,
+     * а завершенный сегодняшний план не пересчитывается.
+     *
+     * @return состояние запуска
+     * @throws ConflictException если планировщик уже выполняется
+     */
+    public ReorderPlanRunDTO plan() {
+        acquire();
+        try {
+            return RoutingContext.primary(() -> {
+                ReorderPlanRun run = openRun();
+                if (run.getStatus() == PlanRunStatus.RUNNING) {
+                    execute(run);
+                }
+                return toDto(run);
+            });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Возвращает состояние последнего запуска планировщика.
+     *
+     * @return состояние или пустой результат, если планировщик еще не запускался
+     */
+    public Optional<ReorderPlanRunDTO> latestRun() {
+        return RoutingContext.primary(() -> runRepository.findFirstByOrderByRunIdDesc().map(ReorderPlanningService::toDto));
+    }
+
+    /**
+     * Возвращает черновики заказов последнего завершенного плана.
+     *
+     * @return черновики заказов по поставщикам
+     */
+    @Transactional(readOnly = true)
+    public List<PurchaseOrderDTO> latestDrafts() {
+        return runRepository.findFirstByStatusOrderByPlanDateDescRunIdDesc(PlanRunStatus.COMPLETED)
+                .map(run -> {
+                    List<PurchaseOrder> orders = orderRepository.findByRunId(run.getRunId());
+                    Map<Long, List<PurchaseOrderLineDTO>> lines = lineRepository
+                            .findByPurchaseOrderIdInOrderByPartId(
+                                    orders.stream().map(PurchaseOrder::getPurchaseOrderId).toList())
+                            .stream()
+                            .collect(Collectors.groupingBy(PurchaseOrderLine::getPurchaseOrderId,
+                                    Collectors.mapping(line -> new PurchaseOrderLineDTO(line.getPartId(),
+                                            line.getOnHand(), line.getDailyDemand(), line.getReorderPoint(),
+                                            line.getSuggestedQuantity()), Collectors.toList())));
+                    return orders.stream()
+                            .map(order -> new PurchaseOrderDTO(order.getPurchaseOrderId(), order.getSupplierId(),
+                                    order.getCreatedAt(), lines.getOrDefault(order.getPurchaseOrderId(), List.of())))
+                            .toList();
+                })
+                .orElse(List.of());
+    }
+
+    private void acquire() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("Планировщик закупок уже выполняется");
+        }
+    }
+
+    /**
+     * Находит прерванный запуск или завершенный сегодняшний план, иначе начинает новый запуск.
+     * Состояние запуска и его контрольную точку мог записать другой экземпляр приложения,
+     * поэтому вызывается внутри {@link RoutingContext#primary}.
+     */
+    private ReorderPlanRun openRun() {
+        LocalDate today = LocalDate.now();
+        return runRepository.findFirstByStatusOrderByStartedAtDesc(PlanRunStatus.RUNNING)
+                .or(() -> runRepository.findFirstByPlanDateAndStatus(today, PlanRunStatus.COMPLETED))
+                .orElseGet(() -> runRepository.save(new ReorderPlanRun(null, today, PlanRunStatus.RUNNING,
+                        0, 0, LocalDateTime.now(), null)));
+    }
+
+    private void execute(ReorderPlanRun run) {
+        long started = System.nanoTime();
+        Map<Long, Long> ordersBySupplier = orderRepository.findByRunId(run.getRunId()).stream()
+                .collect(Collectors.toMap(PurchaseOrder::getSupplierId, PurchaseOrder::getPurchaseOrderId));
+        LocalDateTime historyEnd = run.getPlanDate().atStartOfDay();
+        LocalDateTime historyStart = historyEnd.minusDays(historyDays);
+
+        while (true) {
+            List<PartStock> chunk = new ArrayList<>(chunkSize);
+            jdbcTemplate.query(STOCK_CHUNK, rs -> {
+                int leadTime = rs.getInt(3);
+                chunk.add(new PartStock(rs.getLong(1), rs.getLong(2),
+                        rs.wasNull() ? defaultLeadTimeDays : leadTime, rs.getLong(4)));
+            }, run.getLastPartId(), chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            Map<Long, Demand> demand = forecast(chunk.get(0).partId(), chunk.get(chunk.size() - 1).partId(),
+                    historyStart, historyEnd);
+            List<PlannedLine> lines = new ArrayList<>();
+            for (PartStock stock : chunk) {
+                Demand partDemand = demand.getOrDefault(stock.partId(), Demand.NONE);
+                long reorderPoint = (long) Math.ceil(partDemand.daily() * stock.leadTimeDays()
+                        + serviceLevelZ * partDemand.deviation() * Math.sqrt(stock.leadTimeDays()));
+                if (partDemand.daily() > 0 && stock.onHand() <= reorderPoint) {
+                    long suggested = (long) Math.ceil(reorderPoint + partDemand.daily() * reviewPeriodDays
+                            - stock.onHand());
+                    lines.add(new PlannedLine(stock, partDemand.daily(), reorderPoint, Math.max(1, suggested)));
+                }
+            }
+
+            long lastPartId = chunk.get(chunk.size() - 1).partId();
+            transaction.executeWithoutResult(status -> {
+                saveLines(run, lines, ordersBySupplier);
+                run.setLastPartId(lastPartId);
+                run.setProcessedParts(run.getProcessedParts() + chunk.size());
+                runRepository.save(run);
+            });
+        }
+
+        transaction.executeWithoutResult(status -> {
+            run.setStatus(PlanRunStatus.COMPLETED);
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+        });
+        log.info("План закупок на {} сформирован: {} запчастей, {} заказов, {} мс", run.getPlanDate(),
+                run.getProcessedParts(), ordersBySupplier.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Прогнозирует суточный расход запчастей из диапазона по истории ежедневных списаний.
+     * Дни без списаний входят в ряд с нулевым расходом.
+     */
+    private Map<Long, Demand> forecast(long fromPartId, long toPartId, LocalDateTime from, LocalDateTime to) {
+        Map<Long, Demand> result = new HashMap<>();
+        double[] daily = new double[historyDays];
+        long[] currentPart = {Long.MIN_VALUE};
+        jdbcTemplate.query(DAILY_REMOVALS, rs -> {
+            long partId = rs.getLong(1);
+            if (partId != currentPart[0]) {
+                if (currentPart[0] != Long.MIN_VALUE) {
+                    result.put(currentPart[0], smooth(daily, smoothing, warmUpDays));
+                }
+                currentPart[0] = partId;
+                Arrays.fill(daily, 0);
+            }
+            int day = (int) ChronoUnit.DAYS.between(from.toLocalDate(), rs.getDate(2).toLocalDate());
+            if (day >= 0 && day < daily.length) {
+                daily[day] = rs.getLong(3);
+            }
+        }, fromPartId, toPartId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (currentPart[0] != Long.MIN_VALUE) {
+            result.put(currentPart[0], smooth(daily, smoothing, warmUpDays));
+        }
+        return result;
+    }
+
+    /**
+     * Простое экспоненциальное сглаживание ряда. Разброс оценивается сглаженным
+     * средним абсолютным отклонением прогноза, умноженным на 1.25.
+     *
+     * <p>Уровень и отклонение начинаются со среднего и среднего абсолютного отклонения
+     * первых {@code warmUpDays} дней, а не с расхода одного первого дня: случайный
+     * всплеск или пустой день в начале истории иначе искажал бы короткий ряд.
+     */
+    static Demand smooth(double[] daily, double smoothing, int warmUpDays) {
+        int warmUp = Math.max(1, Math.min(warmUpDays, daily.length));
+        double level = 0;
+        for (int day = 0; day < warmUp; day++) {
+            level += daily[day];
+        }
+        level /= warmUp;
+        double absoluteDeviation = 0;
+        for (int day = 0; day < warmUp; day++) {
+            absoluteDeviation += Math.abs(daily[day] - level);
+        }
+        absoluteDeviation /= warmUp;
+        for (int day = warmUp; day < daily.length; day++) {
+            double error = daily[day] - level;
+            absoluteDeviation = smoothing * Math.abs(error) + (1 - smoothing) * absoluteDeviation;
+            level += smoothing * error;
+        }
+        return new Demand(level, 1.25 * absoluteDeviation);
+    }
+
+    private void saveLines(ReorderPlanRun run, List<PlannedLine> lines, Map<Long, Long> ordersBySupplier) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        for (PlannedLine line : lines) {
+            ordersBySupplier.computeIfAbsent(line.stock().supplierId(), supplierId -> orderRepository.save(
+                    new PurchaseOrder(null, run.getRunId(), supplierId, LocalDateTime.now())).getPurchaseOrderId());
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, ordersBySupplier.get(line.stock().supplierId()));
+            ps.setLong(2, line.stock().partId());
+            ps.setLong(3, line.stock().onHand());
+            ps.setDouble(4, line.dailyDemand());
+            ps.setLong(5, line.reorderPoint());
+            ps.setLong(6, line.suggestedQuantity());
+        });
+    }
+
+    private static ReorderPlanRunDTO toDto(ReorderPlanRun run) {
+        return new ReorderPlanRunDTO(run.getRunId(), run.getPlanDate(), run.getStatus(),
+                run.getProcessedParts(), run.getStartedAt(), run.getFinishedAt());
+    }
+
+    private record PartStock(long partId, long supplierId, int leadTimeDays, long onHand) {
+    }
+
+    record Demand(double daily, double deviation) {
+        private static final Demand NONE = new Demand(0, 0);
+    }
+
+    private record PlannedLine(PartStock stock, double dailyDemand, long reorderPoint, long suggestedQuantity) {
+    }
+}
@@ -0,0 +1,160 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.fiarr4ik.xenonpartapi.dto.StockHistoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.StockValuePointDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStockValue;
+import ru.fiarr4ik.xenonpartapi.entity.SampleResolution;
+import ru.fiarr4ik.xenonpartapi.entity.StockValueSample;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.StockValueSampleRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис истории остатков.
+ *
+ * <p>С фиксированным интервалом записывает количество и стоимость товара на складе
+ * в целом и по категориям, раз в час сворачивает замеры в часовые и суточные точки
+ * и удаляет данные старше срока хранения каждого разрешения.
+ */
+@Slf4j
+@Service
+@Timed("xenon.service")
+public class StockHistoryService {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockValueSampleRepository sampleRepository;
+    private final Duration sampleInterval;
+    private final Duration rawRetention;
+    private final Duration hourlyRetention;
+    private final Duration dailyRetention;
+    private final int maxPoints;
+
+    public StockHistoryService(InventoryRepository inventoryRepository,
+                               StockValueSampleRepository sampleRepository,
+                               @Value("${metrics.history.sample-interval-ms:60000}") long sampleIntervalMs,
+                               @Value("${metrics.history.raw-retention-hours:48}") long rawRetentionHours,
+                               @Value("${metrics.history.hourly-retention-days:90}") long hourlyRetentionDays,
+                               @Value("${metrics.history.daily-retention-days:1825}") long dailyRetentionDays,
+                               @Value("${metrics.history.max-points:500}") int maxPoints) {
+        this.inventoryRepository = inventoryRepository;
+        this.sampleRepository = sampleRepository;
+        this.sampleInterval = Duration.ofMillis(sampleIntervalMs);
+        this.rawRetention = Duration.ofHours(rawRetentionHours);
+        this.hourlyRetention = Duration.ofDays(hourlyRetentionDays);
+        this.dailyRetention = Duration.ofDays(dailyRetentionDays);
+        this.maxPoints = maxPoints;
+    }
+
+    /**
+     * Записывает текущие остатки: по одной точке на категорию и итоговую точку по складу.
+     */
+    @Scheduled(fixedRateString = "${metrics.history.sample-interval-ms:60000}",
+            initialDelayString = "${metrics.history.sample-interval-ms:60000}")
+    @Transactional
+    public void sample() {
+        LocalDateTime bucketStart = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<StockValueSample> samples = new ArrayList<>();
+        long totalQuantity = 0;
+        double totalValue = 0;
+        for (CategoryStockValue row : inventoryRepository.getStockValueByCategory()) {
+            long quantity = row.totalQuantity() == null ? 0 : row.totalQuantity();
+            double value = row.totalValue() == null ? 0 : row.totalValue();
+            samples.add(new StockValueSample(null, SampleResolution.RAW, bucketStart,
+                    row.categoryId(), quantity, value));
+            totalQuantity += quantity;
+            totalValue += value;
+        }
+        samples.add(new StockValueSample(null, SampleResolution.RAW, bucketStart, null, totalQuantity, totalValue));
+        sampleRepository.saveAll(samples);
+    }
+
+    /**
+     * Сворачивает завершенные часы и сутки и удаляет устаревшие точки.
+     */
+    @Scheduled(cron = "${metrics.history.rollup-cron:0 5 * * * *}")
+    @Transactional
+    public void rollupAndPrune() {
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime hourlyUntil = now.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime hourlyFrom = rollupStart(SampleResolution.RAW, SampleResolution.HOURLY, ChronoUnit.HOURS, hourlyUntil);
+        if (hourlyFrom.isBefore(hourlyUntil)) {
+            sampleRepository.rollupToHourly(hourlyFrom, hourlyUntil);
+        }
+
+        LocalDateTime dailyUntil = now.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime dailyFrom = rollupStart(SampleResolution.HOURLY, SampleResolution.DAILY, ChronoUnit.DAYS, dailyUntil);
+        if (dailyFrom.isBefore(dailyUntil)) {
+            sampleRepository.rollupToDaily(dailyFrom, dailyUntil);
+        }
+
+        int pruned = sampleRepository.deleteOlderThan(SampleResolution.RAW, now.minus(rawRetention))
+                + sampleRepository.deleteOlderThan(SampleResolution.HOURLY, now.minus(hourlyRetention))
+                + sampleRepository.deleteOlderThan(SampleResolution.DAILY, now.minus(dailyRetention));
+        log.debug("Свертка истории остатков выполнена, удалено точек: {}", pruned);
+    }
+
+    /**
+     * Возвращает историю остатков за период в разрешении, подходящем для его длины.
+     *
+     * @param from начало периода
+     * @param to конец периода
+     * @param categoryId категория или {@code null} для итога по складу
+     * @return точки ряда
+     */
+    @Transactional(readOnly = true)
+    public StockHistoryResponseDTO history(LocalDateTime from, LocalDateTime to, Long categoryId) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше конца");
+        }
+        SampleResolution resolution = chooseResolution(from, to);
+        List<StockValueSample> samples = categoryId == null
+                ? sampleRepository.findByResolutionAndCategoryIdIsNullAndBucketStartBetweenOrderByBucketStart(
+                        resolution, from, to)
+                : sampleRepository.findByResolutionAndCategoryIdAndBucketStartBetweenOrderByBucketStart(
+                        resolution, categoryId, from, to);
+        List<StockValuePointDTO> points = samples.stream()
+                .map(sample -> new StockValuePointDTO(sample.getBucketStart(), sample.getTotalQuantity(), sample.getTotalValue()))
+                .toList();
+        return new StockHistoryResponseDTO(categoryId, resolution, points);
+    }
+
+    /**
+     * Выбирает самое детальное разрешение, которое еще хранится для начала периода
+     * и дает не больше {@code maxPoints} точек. Длинные периоды читаются из суточных точек.
+     */
+    SampleResolution chooseResolution(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now();
+        Duration range = Duration.between(from, to);
+        if (!from.isBefore(now.minus(rawRetention))
+                && range.toMillis() / Math.max(1, sampleInterval.toMillis()) <= maxPoints) {
+            return SampleResolution.RAW;
+        }
+        if (!from.isBefore(now.minus(hourlyRetention)) && range.toHours() <= maxPoints) {
+            return SampleResolution.HOURLY;
+        }
+        return SampleResolution.DAILY;
+    }
+
+    private LocalDateTime rollupStart(SampleResolution source, SampleResolution target,
+                                      ChronoUnit unit, LocalDateTime until) {
+        // Продолжаем с интервала, следующего за последним свернутым, чтобы не создавать дубликаты
+        return sampleRepository.findFirstByResolutionOrderByBucketStartDesc(target)
+                .map(last -> last.getBucketStart().plus(1, unit))
+                .or(() -> sampleRepository.findFirstByResolutionOrderByBucketStartAsc(source)
+                        .map(first -> first.getBucketStart().truncatedTo(unit)))
+                .orElse(until);
+    }
+}
@@ -1,10 +1,14 @@
 package ru.fiarr4ik.xenonpartapi.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.fiarr4ik.xenonpartapi.dto.SupplierRequestDTO;
 import ru.fiarr4ik.xenonpartapi.dto.SupplierResponseDTO;
 import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.event.SupplierChangedEvent;
 import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
 import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
 
@@ -15,11 +19,13 @@ import java.util.stream.Collectors;
  * Сервис для работы с поставщиками.
  */
 @Service
+@Timed("xenon.service")
 @RequiredArgsConstructor
 public class SupplierService {
 
     private final SupplierRepository supplierRepository;
     private final GlobalMapper supplierMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создает нового поставщика.
@@ -28,13 +34,15 @@ public class SupplierService {
      * @return созданный поставщик
      */
     public SupplierResponseDTO create(SupplierRequestDTO requestDTO) {
+        Supplier saved;
         try {
             Supplier supplier = supplierMapper.toSupplierEntity(requestDTO);
-            Supplier saved = supplierRepository.save(supplier);
-            return supplierMapper.toSupplierResponseDto(saved);
+            saved = supplierRepository.save(supplier);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при создании поставщика: " + e.getMessage());
         }
+        eventPublisher.publishEvent(new SupplierChangedEvent(saved, false));
+        return supplierMapper.toSupplierResponseDto(saved);
     }
 
     /**
@@ -42,6 +50,7 @@ public class SupplierService {
      *
      * @return список всех поставщиков
      */
+    @Transactional(readOnly = true)
     public List<SupplierResponseDTO> findAll() {
         return supplierRepository.findAll().stream()
                 .map(supplierMapper::toSupplierResponseDto)
@@ -54,6 +63,7 @@ public class SupplierService {
      * @param id идентификатор поставщика
      * @return поставщик
      */
+    @Transactional(readOnly = true)
     public SupplierResponseDTO findById(Long id) {
         Supplier supplier = supplierRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Поставщик не найден: " + id));
@@ -72,6 +82,7 @@ public class SupplierService {
                 .orElseThrow(() -> new RuntimeException("Поставщик не найден: " + id));
         supplierMapper.updateSupplierFromDto(requestDTO, existing);
         Supplier updated = supplierRepository.save(existing);
+        eventPublisher.publishEvent(new SupplierChangedEvent(updated, false));
         return supplierMapper.toSupplierResponseDto(updated);
     }
 
@@ -81,10 +92,10 @@ public class SupplierService {
      * @param id идентификатор поставщика
      */
     public void delete(Long id) {
-        if (!supplierRepository.existsById(id)) {
-            throw new RuntimeException("Поставщик не найден: " + id);
-        }
-        supplierRepository.deleteById(id);
+        Supplier supplier = supplierRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Поставщик не найден: " + id));
+        supplierRepository.delete(supplier);
+        eventPublisher.publishEvent(new SupplierChangedEvent(supplier, true));
     }
 
     /**
@@ -92,6 +103,7 @@ public class SupplierService {
      *
      * @return количество поставщиков
      */
+    @Transactional(readOnly = true)
     public long count() {
         return supplierRepository.count();
     }
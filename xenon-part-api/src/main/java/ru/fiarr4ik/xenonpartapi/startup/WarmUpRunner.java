@@ -0,0 +1,117 @@
+package ru.fiarr4ik.xenonpartapi.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Прогрев приложения перед приемом трафика.
+ *
+ * <p>Выполняется после запуска веб-сервера, но до перехода readiness в
+ * {@code ACCEPTING_TRAFFIC}: Spring Boot публикует это состояние только после
+ * завершения всех {@link ApplicationRunner}. Прогрев отправляет настоящие HTTP-запросы
+ * к горячим эндпоинтам, поэтому загружаются и инициализируются классы фильтров,
+ * Jackson, Hibernate и ModelMapper, наполняются пулы соединений и кэши, а JIT успевает
+ * скомпилировать основные пути до прихода первых клиентов.
+ *
+ * <p>Обучающий запуск для архива классов выполняет {@link WarmUpTraining}: он
+ * завершает приложение после прогрева, поэтому в архив попадают классы, загруженные
+ * и при старте, и при обработке запросов.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "startup.warm-up.enabled", havingValue = "true")
+class WarmUpRunner implements ApplicationRunner {
+
+    private final Environment environment;
+    private final List<String> paths;
+    private final int iterations;
+    private final Duration maxDuration;
+
+    private volatile Result lastResult;
+
+    WarmUpRunner(Environment environment,
+                 @Value("${startup.warm-up.paths:/api/health}") List<String> paths,
+                 @Value("${startup.warm-up.iterations:200}") int iterations,
+                 @Value("${startup.warm-up.max-duration-ms:30000}") long maxDurationMs) {
+        this.environment = environment;
+        this.paths = paths;
+        this.iterations = iterations;
+        this.maxDuration = Duration.ofMillis(maxDurationMs);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int port = environment.getRequiredProperty("local.server.port", Integer.class);
+        URI base = URI.create("http://localhost:" + port);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        int requests = 0;
+        int failures = 0;
+        warmUp:
+        for (int i = 0; i < iterations; i++) {
+            for (String path : paths) {
+                if (System.nanoTime() - deadline > 0) {
+                    log.warn("Прогрев прерван по времени после {} запросов", requests);
+                    break warmUp;
+                }
+                requests++;
+                if (!send(client, base.resolve(path))) {
+                    failures++;
+                }
+            }
+        }
+        log.info("Прогрев завершен: {} запросов за {} мс, неуспешных {}",
+                requests, (System.nanoTime() - started) / 1_000_000, failures);
+        lastResult = new Result(requests, failures);
+    }
+
+    /**
+     * Итог последнего прогрева.
+     *
+     * @return число запросов и неуспешных из них или {@code null}, если прогрева еще не было
+     */
+    Result lastResult() {
+        return lastResult;
+    }
+
+    private static boolean send(HttpClient client, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Итог прогрева.
+     *
+     * @param requests отправленные запросы
+     * @param failures запросы без ответа или с ответом 5xx
+     */
+    record Result(int requests, int failures) {
+    }
+}
@@ -0,0 +1,49 @@
+package ru.fiarr4ik.xenonpartapi.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.fiarr4ik.xenonpartapi.XenonPartApiApplication;
+
+/**
+ * Обучающий запуск для архива классов: поднимает приложение, дожидается прогрева
+ * {@link WarmUpRunner} и завершает процесс с кодом выхода приложения.
+ *
+ * <p>Запускается из {@code scripts/fast-start-build.sh} вместо обычной точки входа:
+ * {@code java -cp xenon-part-api-*-exec.jar ru.fiarr4ik.xenonpartapi.startup.WarmUpTraining}.
+ * Сам компонент прогрева процесс не завершает, поэтому рабочие узлы с профилем
+ * fast-start продолжают принимать трафик после прогрева.
+ */
+public final class WarmUpTraining {
+
+    private WarmUpTraining() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Поднимает приложение, проверяет, что прогрев выполнен, и закрывает контекст.
+     *
+     * @param args аргументы командной строки приложения
+     * @return код выхода приложения
+     * @throws IllegalStateException если прогрев выключен свойством {@code startup.warm-up.enabled}
+     */
+    static int run(String... args) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(XenonPartApiApplication.class)
+                // Код AOT-обработки ищется по главному классу приложения, а не по этому
+                .main(XenonPartApiApplication.class)
+                .run(args);
+        try {
+            WarmUpRunner runner = context.getBeanProvider(WarmUpRunner.class).getIfAvailable();
+            if (runner == null || runner.lastResult() == null) {
+                throw new IllegalStateException("Прогрев не выполнен: обучающему запуску нужен startup.warm-up.enabled=true");
+            }
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+        return SpringApplication.exit(context);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import java.nio.file.Path;
+
+/**
+ * Файл аватарки пользователя, выбранный для отдачи: оригинал или уменьшенная копия.
+ *
+ * @param hash SHA-256 оригинала, версия аватарки пользователя
+ * @param etag тег конкретного файла
+ * @param path путь к файлу в хранилище
+ * @param contentType тип содержимого файла
+ */
+public record Avatar(String hash, String etag, Path path, String contentType) {
+}
@@ -0,0 +1,72 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Форматы изображений, принимаемые в качестве аватарки. Формат определяется
+ * по сигнатуре в начале файла, а не по имени или заголовку запроса.
+ */
+enum AvatarFormat {
+    JPEG("image/jpeg", "jpg", new int[] {0xFF, 0xD8, 0xFF}),
+    PNG("image/png", "png", new int[] {0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}),
+    GIF("image/gif", "gif", new int[] {'G', 'I', 'F', '8'}),
+    WEBP("image/webp", "webp", new int[] {'R', 'I', 'F', 'F', -1, -1, -1, -1, 'W', 'E', 'B', 'P'});
+
+    /**
+     * Количество байт, достаточное для определения любого формата.
+     */
+    static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+    private final String extension;
+    /**
+     * Сигнатура формата, -1 означает любой байт.
+     */
+    private final int[] signature;
+
+    AvatarFormat(String contentType, String extension, int[] signature) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.signature = signature;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    String extension() {
+        return extension;
+    }
+
+    /**
+     * Формат уменьшенных копий: форматы с прозрачностью уменьшаются в PNG, остальные в JPEG.
+     */
+    AvatarFormat variantFormat() {
+        return this == PNG || this == GIF ? PNG : JPEG;
+    }
+
+    static Optional<AvatarFormat> detect(byte[] header, int length) {
+        return Arrays.stream(values())
+                .filter(format -> format.matches(header, length))
+                .findFirst();
+    }
+
+    static Optional<AvatarFormat> ofContentType(String contentType) {
+        return Arrays.stream(values())
+                .filter(format -> format.contentType.equals(contentType))
+                .findFirst();
+    }
+
+    private boolean matches(byte[] header, int length) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] != -1 && (header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
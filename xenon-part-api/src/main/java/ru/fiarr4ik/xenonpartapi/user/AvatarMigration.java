@@ -0,0 +1,65 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Определяет тип содержимого и строит уменьшенные копии для аватарок, у которых
+ * тип еще не определен, например перенесенных {@link LegacyAvatarColumnMigration}
+ * из столбца прежней версии.
+ */
+@Slf4j
+@Component
+class AvatarMigration {
+
+    private static final String UNPROCESSED_AVATARS =
+            "SELECT DISTINCT avatar_hash FROM users WHERE avatar_hash IS NOT NULL AND avatar_content_type IS NULL";
+
+    private static final String SET_CONTENT_TYPE =
+            "UPDATE users SET avatar_content_type = ? WHERE avatar_hash = ?";
+
+    private static final String UNKNOWN_CONTENT_TYPE = "application/octet-stream";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AvatarStore avatarStore;
+    private final AvatarProcessor avatarProcessor;
+
+    AvatarMigration(JdbcTemplate jdbcTemplate, AvatarStore avatarStore, AvatarProcessor avatarProcessor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.avatarStore = avatarStore;
+        this.avatarProcessor = avatarProcessor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        processUntyped();
+    }
+
+    private void processUntyped() {
+        List<String> hashes = jdbcTemplate.queryForList(UNPROCESSED_AVATARS, String.class);
+        for (String hash : hashes) {
+            String contentType = UNKNOWN_CONTENT_TYPE;
+            try {
+                Path original = avatarStore.find(hash).orElse(null);
+                if (original != null) {
+                    AvatarFormat format = avatarProcessor.detect(original);
+                    avatarProcessor.createVariants(hash, original, format);
+                    contentType = format.contentType();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Аватарку {} не удалось обработать: {}", hash, e.getMessage());
+            }
+            jdbcTemplate.update(SET_CONTENT_TYPE, contentType, hash);
+        }
+        if (!hashes.isEmpty()) {
+            log.info("Определены типы и построены копии для {} аватарок", hashes.size());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Обработка загруженной аватарки: определение настоящего формата и построение
+ * квадратных уменьшенных копий фиксированных размеров. Копии строятся один раз
+ * при загрузке, поэтому при отдаче изображение не декодируется.
+ */
+@Slf4j
+@Component
+class AvatarProcessor {
+
+    private final AvatarStore avatarStore;
+    private final int[] variantSizes;
+    private final long maxPixels;
+
+    AvatarProcessor(AvatarStore avatarStore,
+                    @Value("${avatars.variant-sizes:32,64,256}") int[] variantSizes,
+                    @Value("${avatars.max-pixels:16000000}") long maxPixels) {
+        this.avatarStore = avatarStore;
+        this.variantSizes = variantSizes.clone();
+        Arrays.sort(this.variantSizes);
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Определяет формат сохраненного изображения по его сигнатуре.
+     *
+     * @param original путь к оригиналу
+     * @return формат изображения
+     * @throws ValidationException если файл не является изображением поддерживаемого формата
+     * @throws IOException если файл не удалось прочитать
+     */
+    AvatarFormat detect(Path original) throws IOException {
+        byte[] header = new byte[AvatarFormat.HEADER_LENGTH];
+        int length;
+        try (InputStream in = Files.newInputStream(original)) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+        return AvatarFormat.detect(header, length)
+                .orElseThrow(() -> new ValidationException("Аватарка должна быть изображением JPEG, PNG, GIF или WebP"));
+    }
+
+    /**
+     * Строит уменьшенные копии изображения и сохраняет их рядом с оригиналом.
+     *
+     * @param hash хэш оригинала
+     * @param original путь к оригиналу
+     * @param format формат оригинала
+     * @throws ValidationException если изображение слишком велико
+     * @throws IOException если копию не удалось записать
+     * @see #render(Path, AvatarFormat)
+     */
+    void createVariants(String hash, Path original, AvatarFormat format) throws IOException {
+        storeVariants(hash, render(original, format));
+    }
+
+    /**
+     * Декодирует изображение и кодирует его уменьшенные копии в память, ничего
+     * не записывая в хранилище. Копии больше оригинала не строятся, для них отдается
+     * оригинал. Если изображение не удается декодировать (например, WebP), копий нет.
+     *
+     * @param source файл с изображением, в том числе еще не опубликованный
+     * @param format формат изображения
+     * @return закодированные копии
+     * @throws ValidationException если изображение слишком велико
+     * @throws IOException если файл не удалось прочитать
+     */
+    List<Variant> render(Path source, AvatarFormat format) throws IOException {
+        BufferedImage image = decode(source);
+        if (image == null) {
+            log.info("Аватарка {} в формате {} не декодируется, уменьшенные копии не построены",
+                    source.getFileName(), format);
+            return List.of();
+        }
+        AvatarFormat variantFormat = format.variantFormat();
+        BufferedImage square = cropToSquare(image);
+        List<Variant> variants = new ArrayList<>();
+        for (int size : variantSizes) {
+            if (size >= square.getWidth()) {
+                break;
+            }
+            BufferedImage variant = scale(square, size, variantFormat == AvatarFormat.PNG);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(variant, variantFormat.name().toLowerCase(), out);
+            variants.add(new Variant(size, variantFormat.extension(), out.toByteArray()));
+        }
+        return variants;
+    }
+
+    /**
+     * Записывает построенные копии рядом с оригиналом.
+     *
+     * @param hash хэш оригинала
+     * @param variants копии из {@link #render(Path, AvatarFormat)}
+     * @throws IOException если копию не удалось записать
+     */
+    void storeVariants(String hash, List<Variant> variants) throws IOException {
+        for (Variant variant : variants) {
+            avatarStore.storeVariant(hash, variant.size(), variant.extension(), out -> out.write(variant.content()));
+        }
+    }
+
+    /**
+     * Выбирает наименьшую копию не меньше запрошенного размера.
+     *
+     * @param requested запрошенный размер стороны в пикселях
+     * @return размер копии или {@code null}, если подходит только оригинал
+     */
+    Integer variantSizeFor(int requested) {
+        for (int size : variantSizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return null;
+    }
+
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                // Размеры проверяются по заголовку до декодирования, чтобы маленький файл
+                // не развернулся в гигабайты пикселей
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new ValidationException("Слишком большое разрешение аватарки");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        return image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2, side, side);
+    }
+
+    /**
+     * Уменьшает изображение последовательными уменьшениями не более чем вдвое,
+     * что дает заметно более гладкий результат, чем одно билинейное уменьшение.
+     */
+    private static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int side = source.getWidth();
+        do {
+            side = Math.max(size, side / 2);
+            BufferedImage next = new BufferedImage(side, side, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, side, side, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (side > size);
+        return current;
+    }
+
+    /**
+     * Закодированная уменьшенная копия.
+     *
+     * @param size размер стороны в пикселях
+     * @param extension расширение файла
+     * @param content содержимое файла
+     */
+    record Variant(int size, String extension, byte[] content) {
+    }
+}
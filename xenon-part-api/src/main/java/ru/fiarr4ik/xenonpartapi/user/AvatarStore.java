@@ -0,0 +1,218 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Файловое хранилище аватарок с адресацией по содержимому.
+ *
+ * <p>Файл хранится под SHA-256 своего содержимого в каталоге из первых символов хэша,
+ * поэтому одинаковые изображения занимают место один раз, а записанный файл
+ * больше не изменяется. Загрузка потоково пишется во временный файл и после
+ * вычисления хэша атомарно переносится на место. Уменьшенные копии хранятся рядом
+ * с оригиналом под именем {@code <хэш>-<размер>.<расширение>}.
+ */
+@Component
+public class AvatarStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public AvatarStore(@Value("${avatars.storage-dir:data/avatars}") String storageDir) {
+        this.root = Path.of(storageDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать каталог аватарок " + root, e);
+        }
+    }
+
+    /**
+     * Сохраняет содержимое потока.
+     *
+     * @param content поток с изображением, закрывается вызывающим
+     * @return хэш сохраненного содержимого
+     * @throws IOException если запись не удалась
+     */
+    public String store(InputStream content) throws IOException {
+        Staged staged = stage(content);
+        try {
+            publish(staged);
+            return staged.hash();
+        } finally {
+            discard(staged);
+        }
+    }
+
+    /**
+     * Записывает содержимое потока во временный файл и вычисляет его хэш, не публикуя файл.
+     * Пока файл не опубликован, его не найти по хэшу и не удалить через {@link #delete(String)}.
+     *
+     * @param content поток с изображением, закрывается вызывающим
+     * @return временный файл с хэшем содержимого, удаляется через {@link #discard(Staged)}
+     * @throws IOException если запись не удалась
+     */
+    public Staged stage(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                content.transferTo(out);
+            }
+            return new Staged(HexFormat.of().formatHex(digest.digest()), temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Переносит временный файл на место по хэшу, если файла с тем же содержимым там еще нет.
+     *
+     * @param staged временный файл
+     * @return путь к опубликованному файлу
+     * @throws IOException если перенос не удался
+     */
+    public Path publish(Staged staged) throws IOException {
+        Path target = pathOf(staged.hash());
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(staged.file(), target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // То же содержимое одновременно сохранил другой запрос
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Удаляет временный файл, если он не был перенесен.
+     *
+     * @param staged временный файл
+     * @throws IOException если файл не удалось удалить
+     */
+    public void discard(Staged staged) throws IOException {
+        Files.deleteIfExists(staged.file());
+    }
+
+    /**
+     * Возвращает путь к сохраненному файлу.
+     *
+     * @param hash хэш содержимого
+     * @return путь к файлу или пустой результат, если файла нет
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Сохраняет уменьшенную копию изображения.
+     *
+     * @param hash хэш оригинала
+     * @param size размер стороны копии в пикселях
+     * @param extension расширение файла копии
+     * @param writer запись содержимого копии
+     * @throws IOException если запись не удалась
+     */
+    public void storeVariant(String hash, int size, String extension, VariantWriter writer) throws IOException {
+        Path target = variantPathOf(hash, size, extension);
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Возвращает путь к уменьшенной копии изображения.
+     *
+     * @param hash хэш оригинала
+     * @param size размер стороны копии в пикселях
+     * @param extension расширение файла копии
+     * @return путь к файлу или пустой результат, если копии нет
+     */
+    public Optional<Path> findVariant(String hash, int size, String extension) {
+        if (find(hash).isEmpty()) {
+            return Optional.empty();
+        }
+        Path path = variantPathOf(hash, size, extension);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Удаляет файл, на который больше никто не ссылается, вместе с его уменьшенными копиями.
+     *
+     * @param hash хэш содержимого
+     */
+    public void delete(String hash) {
+        find(hash).ifPresent(path -> {
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(path.getParent(), hash + "-*")) {
+                for (Path variant : variants) {
+                    Files.deleteIfExists(variant);
+                }
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось удалить аватарку " + hash, e);
+            }
+        });
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path variantPathOf(String hash, int size, String extension) {
+        return pathOf(hash).resolveSibling(hash + "-" + size + "." + extension);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Загруженный, но еще не опубликованный файл.
+     *
+     * @param hash SHA-256 содержимого
+     * @param file временный файл
+     */
+    public record Staged(String hash, Path file) {
+    }
+
+    /**
+     * Запись содержимого уменьшенной копии.
+     */
+    @FunctionalInterface
+    public interface VariantWriter {
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Миграция Flyway V4: переносит аватарки, сохраненные прежней версией в столбце
+ * {@code users.avatar}, в {@link AvatarStore} и удаляет столбец.
+ *
+ * <p>Изображения переносятся в файлы, поэтому миграция написана на Java и выполняется
+ * приложением, а не SQL-скриптом. Пользователи переносятся по одному, чтобы в памяти
+ * не оказывалось больше одного изображения. Тип содержимого перенесенных аватарок
+ * определяет {@link AvatarMigration} после запуска приложения. В базах, созданных
+ * миграциями, столбца нет, и миграция ничего не переносит.
+ */
+@Slf4j
+@Component
+class LegacyAvatarColumnMigration implements JavaMigration {
+
+    private static final String LEGACY_COLUMN_EXISTS =
+            "SELECT COUNT(*) FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = 'users' AND column_name = 'avatar'";
+
+    private static final String PENDING_USERS =
+            "SELECT id FROM users WHERE avatar IS NOT NULL ORDER BY id";
+
+    private static final String READ_AVATAR =
+            "SELECT avatar FROM users WHERE id = ?";
+
+    private static final String MOVE_AVATAR =
+            "UPDATE users SET avatar_hash = ?, avatar_content_type = NULL, avatar = NULL WHERE id = ?";
+
+    private static final String DROP_LEGACY_COLUMN =
+            "ALTER TABLE users DROP COLUMN IF EXISTS avatar";
+
+    private final AvatarStore avatarStore;
+
+    LegacyAvatarColumnMigration(AvatarStore avatarStore) {
+        this.avatarStore = avatarStore;
+    }
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("4");
+    }
+
+    @Override
+    public String getDescription() {
+        return "move legacy avatars to files";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        Integer legacyColumns = jdbcTemplate.queryForObject(LEGACY_COLUMN_EXISTS, Integer.class);
+        if (legacyColumns != null && legacyColumns > 0) {
+            moveAvatars(jdbcTemplate);
+        }
+        jdbcTemplate.execute(DROP_LEGACY_COLUMN);
+    }
+
+    private void moveAvatars(JdbcTemplate jdbcTemplate) {
+        List<Long> userIds = jdbcTemplate.queryForList(PENDING_USERS, Long.class);
+        for (Long userId : userIds) {
+            String hash = jdbcTemplate.query(READ_AVATAR, rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                try (InputStream content = rs.getBinaryStream(1)) {
+                    return content == null ? null : avatarStore.store(content);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, userId);
+            if (hash != null) {
+                jdbcTemplate.update(MOVE_AVATAR, hash, userId);
+            }
+        }
+        if (!userIds.isEmpty()) {
+            log.info("Аватарки {} пользователей перенесены в файловое хранилище", userIds.size());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.fiarr4ik.xenonpartapi.exception.ServiceUnavailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Хэширование и проверка паролей.
+ *
+ * <p>Пароли хэшируются bcrypt. Хэши прежнего формата (несоленый SHA-256 в Base64)
+ * по-прежнему проверяются, а при успешной проверке возвращается bcrypt-хэш для замены.
+ *
+ * <p>bcrypt намеренно дорог по процессору, поэтому все вычисления выполняются
+ * в отдельном пуле с ограниченной очередью. Когда очередь заполнена, задача сразу
+ * отклоняется с {@link ServiceUnavailableException}, и волна логинов не занимает
+ * потоки, обслуживающие остальные запросы.
+ *
+ * <p>Снаружи пакета доступны только конструктор, хэширование и проверка: через них
+ * модуль бенчмарков измеряет стоимость bcrypt, не размещая свои классы в этом пакете.
+ */
+@Component
+public class PasswordHasher {
+
+    /**
+     * Результат проверки пароля.
+     *
+     * @param matches совпал ли пароль
+     * @param upgradedHash новый хэш, если сохраненный нужно заменить, иначе {@code null}
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    /**
+     * Хэш для проверки при входе несуществующего пользователя, чтобы время ответа
+     * не выдавало, зарегистрировано ли имя.
+     */
+    private final String dummyHash;
+
+    public PasswordHasher(MeterRegistry meterRegistry,
+                          @Value("${auth.hashing.bcrypt-strength:10}") int strength,
+                          @Value("${auth.hashing.threads:4}") int threads,
+                          @Value("${auth.hashing.queue-capacity:64}") int queueCapacity) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        this.dummyHash = encoder.encode("dummy-password");
+    }
+
+    /**
+     * Хэширует пароль.
+     *
+     * @param rawPassword пароль
+     * @return bcrypt-хэш пароля
+     * @throws ServiceUnavailableException если пул хэширования перегружен
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Проверяет пароль по сохраненному хэшу.
+     *
+     * @param rawPassword введенный пароль
+     * @param storedHash сохраненный хэш или {@code null}, если пользователь не найден
+     * @return результат проверки
+     * @throws ServiceUnavailableException если пул хэширования перегружен
+     */
+    public CompletableFuture<Verification> verify(String rawPassword, String storedHash) {
+        return submit(() -> {
+            if (storedHash == null) {
+                encoder.matches(rawPassword, dummyHash);
+                return new Verification(false, null);
+            }
+            if (isLegacy(storedHash)) {
+                boolean matches = MessageDigest.isEqual(
+                        legacyHash(rawPassword).getBytes(StandardCharsets.UTF_8),
+                        storedHash.getBytes(StandardCharsets.UTF_8));
+                return new Verification(matches, matches ? encoder.encode(rawPassword) : null);
+            }
+            boolean matches = encoder.matches(rawPassword, storedHash);
+            String upgradedHash = matches && encoder.upgradeEncoding(storedHash) ? encoder.encode(rawPassword) : null;
+            return new Verification(matches, upgradedHash);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Сервис аутентификации перегружен, повторите попытку позже");
+        }
+    }
+
+    private static boolean isLegacy(String storedHash) {
+        return !storedHash.startsWith("$2");
+    }
+
+    private static String legacyHash(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
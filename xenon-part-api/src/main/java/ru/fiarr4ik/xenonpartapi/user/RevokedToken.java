@@ -0,0 +1,45 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Отозванный JWT-токен. Запись нужна только до истечения самого токена.
+ */
+@Entity
+@Table(name = "revoked_token")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    /**
+     * Идентификатор токена (claim {@code jti}).
+     */
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * Время истечения токена, после которого запись удаляется.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * Время отзыва. Другие экземпляры приложения подгружают новые отзывы не по нему,
+     * а по номеру записавшей транзакции в столбце {@code revoked_txid}, который заполняет база.
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+}
@@ -0,0 +1,38 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Нижняя граница снимка основной базы: все транзакции с меньшим номером завершены.
+     * Отзывы, еще не видимые сейчас, будут записаны транзакциями не меньше этой границы.
+     *
+     * @return номер транзакции
+     */
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long currentTxidWatermark();
+
+    /**
+     * Действующие отзывы, записанные транзакциями начиная с границы.
+     *
+     * @param watermark граница, полученная {@link #currentTxidWatermark()} перед прошлым чтением
+     * @param now текущий момент
+     * @return отзывы
+     */
+    @Query(value = "SELECT * FROM revoked_token WHERE revoked_txid >= :watermark AND expires_at > :now",
+            nativeQuery = true)
+    List<RevokedToken> findRevokedSince(@Param("watermark") long watermark, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken token WHERE token.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,166 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.fiarr4ik.xenonpartapi.config.JwtPrincipal;
+import ru.fiarr4ik.xenonpartapi.config.JwtUtil;
+import ru.fiarr4ik.xenonpartapi.routing.RoutingContext;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Список отозванных токенов.
+ *
+ * <p>Отзывы хранятся в базе и зеркалируются в памяти, поэтому проверка токена
+ * не обращается к базе. Большинство токенов не отозваны, и для них ответ дает
+ * фильтр Блума, точный набор проверяется только при его срабатывании.
+ *
+ * <p>Выход из системы отзывает один токен по его {@code jti}. Смена пароля отзывает
+ * все токены пользователя, выпущенные до нее, - для этого хранится момент,
+ * с которого токены пользователя действительны.
+ *
+ * <p>Отзывы, сделанные другими экземплярами приложения, подгружаются периодически
+ * с основной базы по номерам записавших их транзакций: граница следующего чтения -
+ * нижняя граница снимка базы, взятая перед текущим. Поэтому отзыв, зафиксированный
+ * позже, чем началось чтение, попадает в следующую синхронизацию, сколько бы
+ * ни длилась его транзакция. Записи удаляются, когда истекает срок действия самого токена.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMillis;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, Instant> userCutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile long syncWatermark;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               UserRepository userRepository,
+                               JwtUtil jwtUtil,
+                               @Value("${jwt.revocation.expected-entries:100000}") int expectedRevocations,
+                               @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userRepository = userRepository;
+        this.tokenLifetimeMillis = jwtUtil.getExpirationMillis();
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    /**
+     * Проверяет, отозван ли токен.
+     *
+     * @param principal данные проверенного токена
+     * @return {@code true}, если токен отозван
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        String tokenId = principal.tokenId();
+        if (tokenId != null && filter.mightContain(tokenId) && revokedTokens.containsKey(tokenId)) {
+            return true;
+        }
+        Instant cutoff = principal.userId() != null ? userCutoffs.get(principal.userId()) : null;
+        return cutoff != null && principal.issuedAt() != null && principal.issuedAt().isBefore(cutoff);
+    }
+
+    /**
+     * Отзывает токен до истечения его срока.
+     *
+     * @param principal данные токена
+     */
+    public void revoke(JwtPrincipal principal) {
+        if (principal.tokenId() == null || principal.expiresAt().isBefore(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(principal.tokenId(), principal.userId(),
+                principal.expiresAt(), Instant.now()));
+        remember(principal.tokenId(), principal.expiresAt());
+    }
+
+    /**
+     * Отзывает все токены пользователя, выпущенные до текущего момента.
+     * Момент отзыва уже должен быть сохранен в {@link User#getTokensValidFrom()}.
+     *
+     * @param userId идентификатор пользователя
+     * @param validFrom момент, с которого токены пользователя действительны
+     */
+    public void revokeAllBefore(Long userId, Instant validFrom) {
+        userCutoffs.merge(userId, validFrom, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Момент, с которого действительны токены, выпускаемые сейчас. Время выпуска
+     * в токене хранится с точностью до секунды, поэтому момент округляется вниз.
+     */
+    public static Instant currentCutoff() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Подгружает отзывы, записанные с прошлой синхронизации, в том числе другими
+     * экземплярами приложения. Первый запуск загружает все действующие отзывы.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        try {
+            // Реплика может еще не получить отзыв, а граница ее снимка не связана с основной базой
+            RoutingContext.primary(() -> {
+                Instant now = Instant.now();
+                // Граница берется до чтения: все, что чтение не увидит, записано транзакциями не раньше нее
+                long watermark = revokedTokenRepository.currentTxidWatermark();
+                for (RevokedToken token : revokedTokenRepository.findRevokedSince(syncWatermark, now)) {
+                    remember(token.getTokenId(), token.getExpiresAt());
+                }
+                Instant earliestRelevant = now.minusMillis(tokenLifetimeMillis);
+                for (User user : userRepository.findTokenCutoffsSince(syncWatermark, earliestRelevant)) {
+                    revokeAllBefore(user.getId(), user.getTokensValidFrom());
+                }
+                syncWatermark = watermark;
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось синхронизировать отозванные токены", e);
+        }
+    }
+
+    /**
+     * Удаляет отзывы токенов, срок действия которых истек, и перестраивает фильтр.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval-ms:3600000}")
+    public void prune() {
+        try {
+            Instant now = Instant.now();
+            int deleted = revokedTokenRepository.deleteExpired(now);
+            revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+            Instant earliestRelevant = now.minusMillis(tokenLifetimeMillis);
+            userCutoffs.values().removeIf(cutoff -> cutoff.isBefore(earliestRelevant));
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revokedTokens.size() * 2),
+                    falsePositiveRate);
+            revokedTokens.keySet().forEach(rebuilt::add);
+            filter = rebuilt;
+            // Отзывы, добавленные во время перестроения, могли попасть только в прежний фильтр
+            revokedTokens.keySet().forEach(rebuilt::add);
+            if (deleted > 0) {
+                log.info("Удалено {} истекших отозванных токенов", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось очистить отозванные токены", e);
+        }
+    }
+
+    private void remember(String tokenId, Instant expiresAt) {
+        revokedTokens.put(tokenId, expiresAt);
+        filter.add(tokenId);
+    }
+}
@@ -1,11 +1,14 @@
 package ru.fiarr4ik.xenonpartapi.user;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "users")
 public class User {
@@ -16,7 +19,23 @@ public class User {
 
     private String username;
     private String password;
-    private byte[] avatar;
+    /**
+     * SHA-256 содержимого аватарки в {@link AvatarStore}. Само изображение в таблице не хранится.
+     */
+    @Column(name = "avatar_hash", length = 64)
+    private String avatarHash;
+
+    /**
+     * Тип содержимого аватарки, определенный по сигнатуре файла при загрузке.
+     */
+    @Column(name = "avatar_content_type", length = 32)
+    private String avatarContentType;
+
+    /**
+     * Токены, выпущенные раньше этого момента, недействительны. Устанавливается при смене пароля.
+     */
+    @Column(name = "tokens_valid_from")
+    private Instant tokensValidFrom;
 
     public User() {
     }
@@ -50,11 +69,27 @@ public class User {
         this.password = password;
     }
 
-    public byte[] getAvatar() {
-        return avatar;
+    public String getAvatarHash() {
+        return avatarHash;
+    }
+
+    public void setAvatarHash(String avatarHash) {
+        this.avatarHash = avatarHash;
+    }
+
+    public String getAvatarContentType() {
+        return avatarContentType;
+    }
+
+    public void setAvatarContentType(String avatarContentType) {
+        this.avatarContentType = avatarContentType;
+    }
+
+    public Instant getTokensValidFrom() {
+        return tokensValidFrom;
     }
 
-    public void setAvatar(byte[] avatar) {
-        this.avatar = avatar;
+    public void setTokensValidFrom(Instant tokensValidFrom) {
+        this.tokensValidFrom = tokensValidFrom;
     }
 } 
\ No newline at end of file
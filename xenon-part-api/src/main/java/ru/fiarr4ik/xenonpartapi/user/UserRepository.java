@@ -1,9 +1,38 @@
 package ru.fiarr4ik.xenonpartapi.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    boolean existsByAvatarHash(String avatarHash);
+
+    /**
+     * Блокирует файл аватарки до конца транзакции. Под этой блокировкой ссылка на файл
+     * записывается в пользователя, а неиспользуемый файл проверяется и удаляется, поэтому
+     * файл не удаляется между проверкой и появлением новой ссылки на него.
+     *
+     * @param avatarHash хэш файла аватарки
+     * @return всегда 1
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(:avatarHash, 0))) AS avatar_lock",
+            nativeQuery = true)
+    int lockAvatar(@Param("avatarHash") String avatarHash);
+
+    /**
+     * Пользователи, у которых момент отзыва токенов изменен транзакциями начиная с границы.
+     *
+     * @param watermark граница, полученная {@link RevokedTokenRepository#currentTxidWatermark()}
+     * @param validFromAfter отзывы до этого момента уже не затрагивают действующие токены
+     * @return пользователи
+     */
+    @Query(value = "SELECT * FROM users WHERE tokens_revoked_txid >= :watermark AND tokens_valid_from > :validFromAfter",
+            nativeQuery = true)
+    List<User> findTokenCutoffsSince(@Param("watermark") long watermark, @Param("validFromAfter") Instant validFromAfter);
 } 
\ No newline at end of file
@@ -1,72 +1,136 @@
 package ru.fiarr4ik.xenonpartapi.user;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import ru.fiarr4ik.xenonpartapi.config.JwtPrincipal;
+import ru.fiarr4ik.xenonpartapi.exception.ServiceUnavailableException;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Пользователи, их пароли и аватарки.
+ *
+ * <p>Пароли хэшируются и проверяются в пуле {@link PasswordHasher}, поток запроса
+ * на это время освобождается. Пул занимается только вычислением хэшей: чтение
+ * пользователя выполняется в потоке запроса до отправки задачи, а сохранение
+ * результата - в общем пуле задач приложения, поэтому соединения с базой
+ * не удерживаются потоками хэширования и волна логинов не занимает их запись.
+ */
 @Service
+@Timed("xenon.service")
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final AvatarStore avatarStore;
+    private final AvatarProcessor avatarProcessor;
+    private final TokenRevocationList tokenRevocationList;
+    private final Executor persistenceExecutor;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PasswordHasher passwordHasher,
+                       AvatarStore avatarStore, AvatarProcessor avatarProcessor,
+                       TokenRevocationList tokenRevocationList,
+                       @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                       Executor persistenceExecutor,
+                       TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.avatarStore = avatarStore;
+        this.avatarProcessor = avatarProcessor;
+        this.tokenRevocationList = tokenRevocationList;
+        this.persistenceExecutor = persistenceExecutor;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    public User registerNewUser(String username, String password) {
+    /**
+     * Регистрирует пользователя.
+     *
+     * @param username имя пользователя
+     * @param password пароль
+     * @return сохраненный пользователь
+     * @throws RuntimeException если имя уже занято
+     * @throws ServiceUnavailableException если пул хэширования перегружен
+     */
+    public CompletableFuture<User> registerNewUser(String username, String password) {
         // Проверить, существует ли пользователь с таким именем
         if (userRepository.findByUsername(username).isPresent()) {
             throw new RuntimeException("Пользователь с таким именем уже существует");
         }
 
-        // Создать нового пользователя
-        User user = new User();
-        user.setUsername(username);
-        user.setPassword(hashPassword(password)); // Хэшируем пароль вручную
+        return passwordHasher.hash(password).thenApplyAsync(hash -> {
+            // Создать нового пользователя
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword(hash);
 
-        // Сохранить пользователя в базе данных
-        return userRepository.save(user);
+            // Сохранить пользователя в базе данных
+            return userRepository.save(user);
+        }, persistenceExecutor);
     }
 
-    public Optional<User> authenticateUser(String username, String password) {
-        // Найти пользователя по имени
+    /**
+     * Проверяет имя и пароль пользователя. Пароль проверяется в пуле хэширования,
+     * хэш прежнего формата при успешном входе заменяется на bcrypt.
+     *
+     * @param username имя пользователя
+     * @param password пароль
+     * @return пользователь или пустой результат, если имя или пароль неверны
+     * @throws ServiceUnavailableException если пул хэширования перегружен
+     */
+    public CompletableFuture<Optional<User>> authenticateUser(String username, String password) {
         Optional<User> userOptional = userRepository.findByUsername(username);
+        String storedHash = userOptional.map(User::getPassword).orElse(null);
 
-        // Если пользователь найден и пароль совпадает
-        if (userOptional.isPresent() && verifyPassword(password, userOptional.get().getPassword())) {
-            System.out.println("Логин успешен для " + username);
-            return userOptional;
-        } else {
-            return Optional.empty();
-        }
-    }
-
-    // Метод для ручного хэширования пароля (SHA-256)
-    private String hashPassword(String password) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] encodedhash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encodedhash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Ошибка при хэшировании пароля", e);
-        }
+        return passwordHasher.verify(password, storedHash).thenCompose(verification -> {
+            if (!verification.matches()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            User user = userOptional.get();
+            if (verification.upgradedHash() == null) {
+                return CompletableFuture.completedFuture(Optional.of(user));
+            }
+            user.setPassword(verification.upgradedHash());
+            return CompletableFuture.supplyAsync(() -> Optional.of(userRepository.save(user)), persistenceExecutor);
+        });
     }
 
-    // Метод для ручной проверки пароля
-    private boolean verifyPassword(String rawPassword, String hashedPassword) {
-        // Хэшируем введенный пароль и сравниваем с сохраненным хэшем
-        return hashPassword(rawPassword).equals(hashedPassword);
+    /**
+     * Завершает сеанс: отзывает токен, с которым выполнен запрос.
+     *
+     * @param principal данные токена
+     */
+    public void logout(JwtPrincipal principal) {
+        tokenRevocationList.revoke(principal);
     }
 
-    public User updateUser(Long userId, String username, String currentPassword, String newPassword) {
+    /**
+     * Обновляет имя и пароль пользователя. При смене пароля текущий пароль проверяется,
+     * а все выданные ранее токены пользователя отзываются.
+     *
+     * @param userId ID пользователя
+     * @param username новое имя или {@code null}, если имя не меняется
+     * @param currentPassword текущий пароль, обязателен при смене пароля
+     * @param newPassword новый пароль или {@code null}, если пароль не меняется
+     * @return сохраненный пользователь
+     * @throws RuntimeException если пользователь не найден, имя занято или текущий пароль неверен
+     * @throws ServiceUnavailableException если пул хэширования перегружен
+     */
+    public CompletableFuture<User> updateUser(Long userId, String username, String currentPassword, String newPassword) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
@@ -78,54 +142,141 @@ public class UserService {
             user.setUsername(username.trim());
         }
 
-        // Обновляем пароль, если он указан
-        if (newPassword != null && !newPassword.isEmpty()) {
-            // Проверяем текущий пароль только при смене пароля
-            if (currentPassword == null || currentPassword.isEmpty() || !verifyPassword(currentPassword, user.getPassword())) {
-                 throw new RuntimeException("Неверный текущий пароль");
-            }
-            user.setPassword(hashPassword(newPassword));
+        if (newPassword == null || newPassword.isEmpty()) {
+            return CompletableFuture.completedFuture(saveUpdated(user));
         }
 
-        return userRepository.save(user);
+        // Проверяем текущий пароль только при смене пароля
+        if (currentPassword == null || currentPassword.isEmpty()) {
+            throw new RuntimeException("Неверный текущий пароль");
+        }
+        return passwordHasher.verify(currentPassword, user.getPassword())
+                .thenCompose(verification -> {
+                    if (!verification.matches()) {
+                        throw new RuntimeException("Неверный текущий пароль");
+                    }
+                    return passwordHasher.hash(newPassword);
+                })
+                .thenApplyAsync(hash -> {
+                    user.setPassword(hash);
+                    user.setTokensValidFrom(TokenRevocationList.currentCutoff());
+                    return saveUpdated(user);
+                }, persistenceExecutor);
+    }
+
+    private User saveUpdated(User user) {
+        User saved = userRepository.save(user);
+        if (saved.getTokensValidFrom() != null) {
+            tokenRevocationList.revokeAllBefore(saved.getId(), saved.getTokensValidFrom());
+        }
+        return saved;
     }
 
     /**
-     * Обновляет аватарку пользователя.
+     * Обновляет аватарку пользователя. Формат изображения определяется по содержимому,
+     * уменьшенные копии строятся сразу при загрузке.
      *
      * @param userId ID пользователя.
-     * @param avatarData Массив байтов с данными аватарки.
+     * @param content Поток с изображением, читается до конца без загрузки в память.
      * @return Обновленный объект пользователя.
      * @throws RuntimeException если пользователь не найден.
+     * @throws ValidationException если файл не является изображением поддерживаемого формата.
+     * @throws IOException если изображение не удалось сохранить.
      */
-    public User updateUserAvatar(Long userId, byte[] avatarData) {
+    public User updateUserAvatar(Long userId, InputStream content) throws IOException {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
-        user.setAvatar(avatarData);
+        AvatarStore.Staged staged = avatarStore.stage(content);
+        String hash = staged.hash();
+        String previousHash = user.getAvatarHash();
+        User saved;
+        try {
+            AvatarFormat format = avatarProcessor.detect(staged.file());
+            // Декодирование и уменьшение идут до блокировки: под ней удерживается соединение с базой
+            List<AvatarProcessor.Variant> variants = avatarProcessor.render(staged.file(), format);
+            // Файл публикуется и становится используемым под одной блокировкой, иначе
+            // удаление прежней аватарки другого пользователя могло бы убрать его между делом
+            saved = withAvatarLock(hash, () -> {
+                avatarStore.publish(staged);
+                avatarProcessor.storeVariants(hash, variants);
+                user.setAvatarHash(hash);
+                user.setAvatarContentType(format.contentType());
+                return userRepository.save(user);
+            });
+        } finally {
+            avatarStore.discard(staged);
+        }
 
-        return userRepository.save(user);
+        if (previousHash != null && !previousHash.equals(hash)) {
+            deleteIfUnused(previousHash);
+        }
+        return saved;
     }
 
-    // Метод для получения аватарки
-    public Optional<byte[]> getUserAvatar(Long userId) {
+    /**
+     * Возвращает аватарку пользователя нужного размера.
+     *
+     * @param userId ID пользователя.
+     * @param size Требуемый размер стороны в пикселях или {@code null} для оригинала.
+     * @return Наименьшая копия не меньше требуемого размера, оригинал, если такой копии нет,
+     *         или пустой результат, если пользователя или аватарки нет.
+     */
+    public Optional<Avatar> getUserAvatar(Long userId, Integer size) {
         Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isPresent()) {
-            return Optional.ofNullable(userOptional.get().getAvatar());
+        if (userOptional.isEmpty() || userOptional.get().getAvatarHash() == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        String hash = userOptional.get().getAvatarHash();
+        String contentType = userOptional.get().getAvatarContentType();
+
+        Optional<AvatarFormat> format = AvatarFormat.ofContentType(contentType);
+        Integer variantSize = size != null ? avatarProcessor.variantSizeFor(size) : null;
+        if (format.isPresent() && variantSize != null) {
+            AvatarFormat variantFormat = format.get().variantFormat();
+            Optional<Path> variant = avatarStore.findVariant(hash, variantSize, variantFormat.extension());
+            if (variant.isPresent()) {
+                return Optional.of(new Avatar(hash, hash + "-" + variantSize, variant.get(), variantFormat.contentType()));
+            }
+        }
+        return avatarStore.find(hash).map(path -> new Avatar(hash, hash, path,
+                contentType != null ? contentType : "application/octet-stream"));
+    }
+
+    // Файл общий для всех пользователей с тем же изображением
+    private void deleteIfUnused(String hash) throws IOException {
+        withAvatarLock(hash, () -> {
+            deleteUnusedLocked(hash);
+            return null;
+        });
     }
 
-    public Map<String, String> loginUser(String username, String password) {
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user != null && verifyPassword(password, user.getPassword())) {
-            // Генерируем простой токен. В реальном приложении использовать JWT или аналог.
-            String token = "token-" + user.getUsername() + "-" + System.currentTimeMillis();
-            Map<String, String> response = new HashMap<>();
-            response.put("token", token);
-            response.put("username", user.getUsername()); // Добавляем имя пользователя
-            return response;
+    private void deleteUnusedLocked(String hash) {
+        if (!userRepository.existsByAvatarHash(hash)) {
+            avatarStore.delete(hash);
         }
-        return null; // Возвращаем null при неуспешном входе
     }
-} 
\ No newline at end of file
+
+    /**
+     * Выполняет действие в транзакции, удерживающей блокировку файла аватарки.
+     */
+    private <T> T withAvatarLock(String hash, AvatarAction<T> action) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                userRepository.lockAvatar(hash);
+                try {
+                    return action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface AvatarAction<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,112 @@
+-- Исходная схема в том виде, в каком ее создавал Hibernate (spring.jpa.generate-ddl=true).
+-- Базы, созданные до появления миграций, помечаются этой версией без ее выполнения
+-- (spring.flyway.baseline-on-migrate=true) и получают только последующие миграции.
+
+CREATE TABLE categories (
+    category_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        varchar(255) NOT NULL,
+    description varchar(255)
+);
+
+CREATE TABLE suppliers (
+    supplier_id    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name           varchar(255) NOT NULL,
+    contact_person varchar(255),
+    phone          varchar(255),
+    email          varchar(255),
+    address        varchar(255),
+    lead_time_days integer
+);
+
+CREATE TABLE part (
+    part_id     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        varchar(255) NOT NULL,
+    description varchar(255),
+    category_id bigint       NOT NULL REFERENCES categories (category_id),
+    supplier_id bigint       NOT NULL REFERENCES suppliers (supplier_id),
+    unit_price  float(53)    NOT NULL,
+    abc_class   char(1) CHECK (abc_class IN ('A', 'B', 'C')),
+    xyz_class   char(1) CHECK (xyz_class IN ('X', 'Y', 'Z'))
+);
+
+CREATE INDEX idx_part_abc_xyz ON part (abc_class, xyz_class);
+
+CREATE TABLE inventory (
+    inventory_id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    part_id           bigint REFERENCES part (part_id),
+    quantity_in_stock integer,
+    last_restock_date timestamp(6)
+);
+
+CREATE TABLE stock_movement (
+    movement_id  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    part_id      bigint       NOT NULL,
+    inventory_id bigint       NOT NULL,
+    quantity     integer      NOT NULL,
+    moved_at     timestamp(6) NOT NULL
+);
+
+CREATE INDEX idx_stock_movement_moved_at ON stock_movement (moved_at, part_id);
+CREATE INDEX idx_stock_movement_part ON stock_movement (part_id, moved_at);
+
+CREATE TABLE stock_value_sample (
+    sample_id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    resolution     varchar(8)   NOT NULL CHECK (resolution IN ('RAW', 'HOURLY', 'DAILY')),
+    bucket_start   timestamp(6) NOT NULL,
+    category_id    bigint,
+    total_quantity bigint       NOT NULL,
+    total_value    float(53)    NOT NULL
+);
+
+CREATE INDEX idx_stock_value_sample_series ON stock_value_sample (resolution, category_id, bucket_start);
+
+CREATE TABLE reorder_plan_run (
+    run_id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    plan_date       date         NOT NULL,
+    status          varchar(16)  NOT NULL CHECK (status IN ('RUNNING', 'COMPLETED')),
+    last_part_id    bigint       NOT NULL,
+    processed_parts bigint       NOT NULL,
+    started_at      timestamp(6) NOT NULL,
+    finished_at     timestamp(6)
+);
+
+CREATE TABLE purchase_order (
+    purchase_order_id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    run_id            bigint       NOT NULL,
+    supplier_id       bigint       NOT NULL,
+    created_at        timestamp(6) NOT NULL,
+    CONSTRAINT uk_purchase_order_run_supplier UNIQUE (run_id, supplier_id)
+);
+
+CREATE INDEX idx_purchase_order_run ON purchase_order (run_id);
+
+CREATE TABLE purchase_order_line (
+    line_id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    purchase_order_id  bigint    NOT NULL,
+    part_id            bigint    NOT NULL,
+    on_hand            bigint    NOT NULL,
+    daily_demand       float(53) NOT NULL,
+    reorder_point      bigint    NOT NULL,
+    suggested_quantity bigint    NOT NULL
+);
+
+CREATE INDEX idx_purchase_order_line_order ON purchase_order_line (purchase_order_id);
+
+CREATE TABLE users (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username            varchar(255),
+    password            varchar(255),
+    avatar_hash         varchar(64),
+    avatar_content_type varchar(32),
+    tokens_valid_from   timestamp(6) with time zone
+);
+
+CREATE TABLE revoked_token (
+    token_id   varchar(36) PRIMARY KEY,
+    user_id    bigint,
+    expires_at timestamp(6) with time zone NOT NULL,
+    revoked_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
+CREATE INDEX idx_revoked_token_revoked_at ON revoked_token (revoked_at);
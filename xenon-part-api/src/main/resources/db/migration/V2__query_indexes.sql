@@ -0,0 +1,92 @@
+-- Индексы под запросы репозиториев и фоновых задач. Индексы строятся CONCURRENTLY, чтобы
+-- не блокировать запись в уже заполненных базах, поэтому Flyway выполняет миграцию
+-- вне транзакции (spring.flyway.mixed), а его блокировка не держит открытую транзакцию
+-- (spring.flyway.postgresql.transactional-lock=false): CONCURRENTLY ждет завершения всех
+-- транзакций, в том числе транзакции самого Flyway. IF [NOT] EXISTS делает миграцию
+-- повторяемой после прерванного запуска.
+
+-- Прерванное или упавшее построение CONCURRENTLY оставляет индекс INVALID, и IF NOT EXISTS
+-- пропустил бы его при повторном запуске. Такие индексы удаляются и строятся заново;
+-- DROP INDEX внутри блока не может быть CONCURRENTLY, но недействительный индекс
+-- удаляется мгновенно.
+DO $$
+DECLARE
+    invalid_index text;
+BEGIN
+    FOR invalid_index IN
+        SELECT index_class.relname
+        FROM pg_index index_info
+        JOIN pg_class index_class ON index_class.oid = index_info.indexrelid
+        WHERE NOT index_info.indisvalid
+          AND index_class.relnamespace = 'public'::regnamespace
+          AND index_class.relname IN ('idx_part_category', 'idx_part_supplier', 'idx_inventory_part',
+                                      'idx_inventory_quantity', 'uk_users_username', 'idx_users_avatar_hash',
+                                      'idx_users_tokens_valid_from', 'idx_stock_movement_outflow_part',
+                                      'idx_stock_movement_outflow_moved_at',
+                                      'idx_stock_value_sample_resolution_bucket',
+                                      'idx_purchase_order_line_order_part')
+    LOOP
+        EXECUTE format('DROP INDEX %I', invalid_index);
+    END LOOP;
+END
+$$;
+
+-- Внешние ключи запчасти: фильтры скетчей по группам и проверки при удалении категорий и поставщиков
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_part_category ON part (category_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_part_supplier ON part (supplier_id);
+
+-- Соединения инвентаря с запчастью и блоки планировщика по part_id; остаток в индексе
+-- позволяет суммировать его без чтения таблицы
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_part ON inventory (part_id) INCLUDE (quantity_in_stock);
+-- Низкие остатки: quantity_in_stock < :threshold ORDER BY quantity_in_stock
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_inventory_quantity ON inventory (quantity_in_stock);
+
+-- Вход по имени пользователя. Регистрация проверяет имя и вставляет пользователя
+-- не атомарно, поэтому в базе могут быть повторы. Молча переименовывать их нельзя:
+-- пользователь потерял бы вход под своим именем. Миграция останавливается со списком
+-- повторов, их разбирают вручную, затем выполняют flyway repair и повторяют миграцию.
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('%L (id %s)', username, ids), '; ' ORDER BY username)
+    INTO duplicates
+    FROM (SELECT username, string_agg(CAST(id AS text), ', ' ORDER BY id) AS ids
+          FROM users
+          WHERE username IS NOT NULL
+          GROUP BY username
+          HAVING count(*) > 1) duplicate;
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Повторяющиеся имена пользователей: %', duplicates
+            USING HINT = 'Переименуйте или удалите повторы, выполните flyway repair и повторите миграцию';
+    END IF;
+END
+$$;
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_users_username ON users (username);
+-- Аватарки и отзывы токенов есть у малой части пользователей
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_avatar_hash ON users (avatar_hash)
+    WHERE avatar_hash IS NOT NULL;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_tokens_valid_from ON users (tokens_valid_from)
+    WHERE tokens_valid_from IS NOT NULL;
+
+-- Движения читаются только как расход (quantity < 0): по запчастям в планировщике
+-- и по времени в классификации XYZ. Частичные покрывающие индексы заменяют полные
+-- и не обновляются при приходе товара.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stock_movement_outflow_part ON stock_movement (part_id, moved_at)
+    INCLUDE (quantity) WHERE quantity < 0;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stock_movement_outflow_moved_at ON stock_movement (moved_at)
+    INCLUDE (part_id, quantity) WHERE quantity < 0;
+DROP INDEX CONCURRENTLY IF EXISTS idx_stock_movement_part;
+DROP INDEX CONCURRENTLY IF EXISTS idx_stock_movement_moved_at;
+
+-- Свертка, очистка и границы истории выбирают разрешение и диапазон времени по всем категориям
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_stock_value_sample_resolution_bucket
+    ON stock_value_sample (resolution, bucket_start);
+
+-- Строки заказов читаются по заказам в порядке запчастей
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchase_order_line_order_part
+    ON purchase_order_line (purchase_order_id, part_id);
+DROP INDEX CONCURRENTLY IF EXISTS idx_purchase_order_line_order;
+
+-- Поиск заказов запуска обслуживает уникальный индекс (run_id, supplier_id)
+DROP INDEX CONCURRENTLY IF EXISTS idx_purchase_order_run;
@@ -0,0 +1,35 @@
+-- Отзывы токенов подгружаются другими экземплярами по номеру записавшей их транзакции,
+-- а не по времени отзыва: время назначается до фиксации, и отзыв, зафиксированный позже
+-- следующего чтения, навсегда оставался бы за окном синхронизации. Экземпляр запоминает
+-- нижнюю границу снимка основной базы (pg_snapshot_xmin) перед чтением - все транзакции
+-- с меньшим номером к этому моменту завершены и видны, а остальные будут прочитаны
+-- следующей синхронизацией.
+
+ALTER TABLE revoked_token ADD COLUMN revoked_txid bigint;
+ALTER TABLE revoked_token ALTER COLUMN revoked_txid SET DEFAULT CAST(CAST(pg_current_xact_id() AS text) AS bigint);
+UPDATE revoked_token SET revoked_txid = CAST(CAST(pg_current_xact_id() AS text) AS bigint);
+ALTER TABLE revoked_token ALTER COLUMN revoked_txid SET NOT NULL;
+CREATE INDEX idx_revoked_token_revoked_txid ON revoked_token (revoked_txid);
+DROP INDEX IF EXISTS idx_revoked_token_revoked_at;
+
+-- Момент, с которого действительны токены пользователя, меняет смена пароля. Номер
+-- транзакции проставляет триггер, поэтому его не может забыть ни один путь записи
+ALTER TABLE users ADD COLUMN tokens_revoked_txid bigint;
+UPDATE users SET tokens_revoked_txid = CAST(CAST(pg_current_xact_id() AS text) AS bigint)
+WHERE tokens_valid_from IS NOT NULL;
+
+CREATE FUNCTION users_tokens_revoked_txid() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    NEW.tokens_revoked_txid := CAST(CAST(pg_current_xact_id() AS text) AS bigint);
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER users_tokens_revoked_txid
+    BEFORE INSERT OR UPDATE OF tokens_valid_from ON users
+    FOR EACH ROW
+    WHEN (NEW.tokens_valid_from IS NOT NULL)
+    EXECUTE FUNCTION users_tokens_revoked_txid();
+
+CREATE INDEX idx_users_tokens_revoked_txid ON users (tokens_revoked_txid) WHERE tokens_revoked_txid IS NOT NULL;
+DROP INDEX IF EXISTS idx_users_tokens_valid_from;
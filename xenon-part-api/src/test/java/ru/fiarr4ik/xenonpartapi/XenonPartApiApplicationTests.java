@@ -2,8 +2,11 @@ package ru.fiarr4ik.xenonpartapi;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
 
 @SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
 class XenonPartApiApplicationTests {
 
     @Test
@@ -0,0 +1,158 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogFilterTests {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AccessLogWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void keepsValidRequestIdAndExposesItToMdc() throws Exception {
+        AccessLogFilter filter = filter(1.0, 1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/parts/7");
+        request.addHeader(AccessLogFilter.REQUEST_ID_HEADER, "edge-42:a.b_c");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/parts/{id}");
+        request.setAttribute("userId", 5L);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<String> mdc = new ArrayList<>();
+
+        filter.doFilter(request, response, chain(mdc, 200));
+
+        assertEquals("edge-42:a.b_c", response.getHeader(AccessLogFilter.REQUEST_ID_HEADER));
+        assertEquals(List.of("edge-42:a.b_c"), mdc);
+        assertNull(MDC.get(AccessLogFilter.MDC_KEY));
+        JsonNode record = records().get(0);
+        assertEquals("edge-42:a.b_c", record.get("requestId").asText());
+        assertEquals("/api/parts/{id}", record.get("route").asText());
+        assertEquals("/api/parts/7", record.get("path").asText());
+        assertEquals(5, record.get("userId").asLong());
+        assertEquals(200, record.get("status").asInt());
+    }
+
+    @Test
+    void replacesInvalidRequestId() throws Exception {
+        AccessLogFilter filter = filter(1.0, 1000);
+        for (String header : new String[] {"", "с пробелом", "x".repeat(65)}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/health");
+            request.addHeader(AccessLogFilter.REQUEST_ID_HEADER, header);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, new MockFilterChain());
+
+            assertTrue(response.getHeader(AccessLogFilter.REQUEST_ID_HEADER).matches("[0-9a-f]{16}"));
+        }
+    }
+
+    @Test
+    void errorsAndSlowRequestsBypassSampling() throws Exception {
+        AccessLogFilter filter = filter(0.0, 50);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/ok"), new MockHttpServletResponse(), chain(null, 200));
+        filter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(), chain(null, 404));
+        filter.doFilter(new MockHttpServletRequest("GET", "/slow"), new MockHttpServletResponse(), (request, response) -> {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        List<JsonNode> records = records();
+        assertEquals(List.of("/missing", "/slow"), records.stream().map(record -> record.get("path").asText()).toList());
+        assertTrue(records.get(1).get("durationMicros").asLong() >= 50_000);
+        assertEquals(1, meterRegistry.get("xenon.access-log.records").tag("outcome", "sampled-out").counter().count());
+    }
+
+    @Test
+    void exceptionIsRecordedAsServerError() throws Exception {
+        AccessLogFilter filter = filter(0.0, 1000);
+
+        assertThrows(ServletException.class, () -> filter.doFilter(new MockHttpServletRequest("POST", "/api/parts"),
+                new MockHttpServletResponse(), (request, response) -> {
+                    throw new ServletException("сбой");
+                }));
+
+        assertEquals(500, records().get(0).get("status").asInt());
+    }
+
+    @Test
+    void disabledWriterStillAssignsRequestId() throws Exception {
+        AccessLogFilter filter = new AccessLogFilter(new StaticListableBeanFactory().getBeanProvider(AccessLogWriter.class),
+                new AccessLogProperties(), meterRegistry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/health"), response, new MockFilterChain());
+
+        assertTrue(response.getHeader(AccessLogFilter.REQUEST_ID_HEADER).matches("[0-9a-f]{16}"));
+    }
+
+    private AccessLogFilter filter(double sampleRate, long slowThresholdMs) throws IOException {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setPath(directory.resolve("access.log").toString());
+        properties.setSampleRate(sampleRate);
+        properties.setSlowThresholdMs(slowThresholdMs);
+        writer = new AccessLogWriter(properties, meterRegistry);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("accessLogWriter", writer));
+        return new AccessLogFilter(beanFactory.getBeanProvider(AccessLogWriter.class), properties, meterRegistry);
+    }
+
+    private static FilterChain chain(List<String> mdc, int status) {
+        return (request, response) -> {
+            if (mdc != null) {
+                mdc.add(MDC.get(AccessLogFilter.MDC_KEY));
+            }
+            ((MockHttpServletResponse) response).setStatus(status);
+        };
+    }
+
+    /**
+     * Закрывает запись журнала и читает все записанные строки.
+     */
+    private List<JsonNode> records() throws IOException {
+        writer.close();
+        writer = null;
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve("access.log"), StandardCharsets.UTF_8)) {
+            records.add(objectMapper.readTree(line));
+        }
+        return records;
+    }
+}
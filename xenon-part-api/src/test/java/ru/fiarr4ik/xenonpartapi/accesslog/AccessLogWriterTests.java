@@ -0,0 +1,123 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogWriterTests {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void writesRecordsInOrderAndFlushesOnClose() throws IOException {
+        Path file = directory.resolve("nested/access.log");
+        AccessLogWriter writer = new AccessLogWriter(properties(file, 64), meterRegistry);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.append(1_714_564_800_000L + i, "req-" + i, "GET", "/api/parts/" + i, "/api/parts/{id}",
+                    200, 150, i % 2 == 0 ? 7L : null, "10.0.0.1"));
+        }
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(10, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode record = objectMapper.readTree(lines.get(i));
+            assertEquals("req-" + i, record.get("requestId").asText());
+            assertEquals("/api/parts/" + i, record.get("path").asText());
+            assertEquals("/api/parts/{id}", record.get("route").asText());
+            assertEquals(200, record.get("status").asInt());
+            assertEquals(i % 2 == 0, record.has("userId"));
+        }
+        assertEquals(10, counter("written"));
+        assertEquals(0, counter("dropped"));
+        assertEquals(0, meterRegistry.get("xenon.access-log.buffer.used").gauge().value());
+    }
+
+    @Test
+    void appendsToExistingFile() throws IOException {
+        Path file = directory.resolve("access.log");
+        Files.writeString(file, "{\"previous\":true}\n");
+        AccessLogWriter writer = new AccessLogWriter(properties(file, 8), meterRegistry);
+        writer.append(0, "req", "POST", "/api/parts", null, 201, 10, null, "10.0.0.1");
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertFalse(objectMapper.readTree(lines.get(1)).has("route"));
+    }
+
+    @Test
+    void concurrentProducersNeverTearRecordsAndCountDrops() throws Exception {
+        Path file = directory.resolve("access.log");
+        // Маленький буфер, чтобы часть записей не помещалась
+        AccessLogWriter writer = new AccessLogWriter(properties(file, 4), meterRegistry);
+        int producers = 4;
+        int perProducer = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<Set<String>>> accepted = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            accepted.add(executor.submit(() -> {
+                Set<String> ids = new HashSet<>();
+                for (int i = 0; i < perProducer; i++) {
+                    String id = producer + "-" + i;
+                    if (writer.append(i, id, "GET", "/api/parts/" + id, null, 200, i, null, "10.0.0." + producer)) {
+                        ids.add(id);
+                    }
+                }
+                return ids;
+            }));
+        }
+        Set<String> expected = new HashSet<>();
+        for (Future<Set<String>> future : accepted) {
+            expected.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        writer.close();
+
+        Set<String> written = new HashSet<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            JsonNode record = objectMapper.readTree(line);
+            String id = record.get("requestId").asText();
+            assertEquals("/api/parts/" + id, record.get("path").asText());
+            assertTrue(written.add(id), () -> "Запись " + id + " повторилась");
+        }
+        assertEquals(expected, written);
+        assertEquals(written.size(), counter("written"));
+        assertEquals(producers * perProducer - written.size(), counter("dropped"));
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("xenon.access-log.records").tag("outcome", outcome).counter().count();
+    }
+
+    private static AccessLogProperties properties(Path file, int bufferSize) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setPath(file.toString());
+        properties.setBufferSize(bufferSize);
+        return properties;
+    }
+}
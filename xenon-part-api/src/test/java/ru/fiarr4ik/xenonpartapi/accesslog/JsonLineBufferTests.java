@@ -0,0 +1,170 @@
+package ru.fiarr4ik.xenonpartapi.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonLineBufferTests {
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesFieldsAsOneJsonLine() throws IOException {
+        JsonLineBuffer line = new JsonLineBuffer(512);
+        line.begin();
+        line.timestampField("ts", 1_714_564_800_123L);
+        line.field("status", 404);
+        line.field("userId", -42);
+        line.field("route", null);
+        line.field("path", "/api/parts/7");
+        line.end();
+
+        String text = text(line);
+        assertEquals("{\"ts\":\"2024-05-01T12:00:00.123Z\",\"status\":404,\"userId\":-42,\"path\":\"/api/parts/7\"}\n",
+                text);
+    }
+
+    @Test
+    void timestampsMatchJavaTime() {
+        long[] samples = {0, -1, 951_782_400_000L, 4_107_542_399_999L, -2_208_988_800_000L, 253_402_300_799_999L};
+        for (long millis : samples) {
+            assertTimestamp(millis);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            assertTimestamp(random.nextLong(253_402_300_800_000L));
+        }
+    }
+
+    @Test
+    void numbersCoverWholeLongRange() throws IOException {
+        long[] values = {0, 9, 10, -10, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        for (long value : values) {
+            JsonLineBuffer line = new JsonLineBuffer(256);
+            line.begin();
+            line.field("value", value);
+            line.end();
+
+            assertEquals(value, parse(line).get("value").asLong());
+        }
+    }
+
+    @Test
+    void escapesAndEncodesStrings() throws IOException {
+        String value = "кавычка \" слеш \\ перевод\nстроки\tтаб \u0001 эмодзи 🚗 юань 元";
+        JsonLineBuffer line = new JsonLineBuffer(512);
+        line.begin();
+        line.field("path", value);
+        line.end();
+
+        assertEquals(value, parse(line).get("path").asText());
+    }
+
+    @Test
+    void unpairedSurrogateIsReplaced() throws IOException {
+        JsonLineBuffer line = new JsonLineBuffer(256);
+        line.begin();
+        line.field("path", "a\uD83Db\uDE97");
+        line.end();
+
+        assertEquals("a?b?", parse(line).get("path").asText());
+    }
+
+    @Test
+    void longValuesAreTruncatedAndLaterFieldsSkipped() throws IOException {
+        JsonLineBuffer line = new JsonLineBuffer(64);
+        line.begin();
+        line.field("status", 200);
+        line.field("path", "/api/" + "ю".repeat(100));
+        line.field("clientIp", "127.0.0.1");
+        line.end();
+
+        assertTrue(line.length() <= 64);
+        JsonNode node = parse(line);
+        assertEquals(200, node.get("status").asInt());
+        assertTrue(node.get("path").asText().startsWith("/api/ю"));
+        assertFalse(node.has("clientIp"));
+    }
+
+    @Test
+    void bufferIsReusedBetweenRecords() throws IOException {
+        JsonLineBuffer line = new JsonLineBuffer(64);
+        line.begin();
+        line.field("path", "x".repeat(200));
+        line.end();
+
+        line.begin();
+        line.field("status", 201);
+        line.end();
+
+        assertEquals("{\"status\":201}\n", text(line));
+    }
+
+    @Test
+    void anyInputWithinAnyCapacityStaysValidJson() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            int capacity = 32 + random.nextInt(200);
+            String value = randomString(random, random.nextInt(120));
+            JsonLineBuffer line = new JsonLineBuffer(capacity);
+            line.begin();
+            line.timestampField("ts", random.nextLong(4_102_444_800_000L));
+            line.field("durationMicros", random.nextLong());
+            line.field("path", value);
+            line.field("method", "GET");
+            line.end();
+
+            assertTrue(line.length() <= capacity);
+            JsonNode node = parse(line);
+            if (node.has("method")) {
+                assertEquals(value.replaceAll("\\p{Cs}", "?"), node.get("path").asText());
+            }
+        }
+    }
+
+    private void assertTimestamp(long millis) {
+        JsonLineBuffer line = new JsonLineBuffer(64);
+        line.begin();
+        line.timestampField("ts", millis);
+        line.end();
+        assertEquals("{\"ts\":\"" + TIMESTAMP.format(Instant.ofEpochMilli(millis)) + "\"}\n", text(line));
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            switch (random.nextInt(5)) {
+                case 0 -> builder.append((char) random.nextInt(0x20));
+                case 1 -> builder.append("\"\\".charAt(random.nextInt(2)));
+                case 2 -> builder.append((char) ('а' + random.nextInt(32)));
+                case 3 -> builder.appendCodePoint(0x1F600 + random.nextInt(64));
+                default -> builder.append((char) (0xD800 + random.nextInt(0x800)));
+            }
+        }
+        return builder.toString();
+    }
+
+    private JsonNode parse(JsonLineBuffer line) throws IOException {
+        String text = text(line);
+        assertTrue(text.endsWith("\n"));
+        return objectMapper.readTree(text);
+    }
+
+    private static String text(JsonLineBuffer line) {
+        return new String(line.data(), 0, line.length(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnStoreTests {
+
+    @Test
+    void aggregatesPartsByCategoryAndSupplier() {
+        ColumnStore store = catalog();
+        store.upsertPart(1, 1, 10, 100);
+        store.upsertPart(2, 1, 20, 50);
+        store.upsertPart(3, 2, 20, 25);
+
+        assertEquals(List.of(new CategoryValue("Тормоза", 150.0), new CategoryValue("Фильтры", 25.0)),
+                store.valueByCategory());
+        assertEquals(List.of(new SupplierValue("Поставщик А", 100.0), new SupplierValue("Поставщик Б", 75.0)),
+                store.valueBySupplier());
+        assertEquals(new OverallMetrics(3, 175.0, 175.0 / 3), store.overallMetrics());
+    }
+
+    @Test
+    void upsertReplacesPriceAndGroups() {
+        ColumnStore store = catalog();
+        store.upsertPart(1, 1, 10, 100);
+        store.upsertPart(2, 1, 10, 50);
+
+        store.upsertPart(1, 2, 20, 80);
+
+        assertEquals(List.of(new CategoryValue("Тормоза", 50.0), new CategoryValue("Фильтры", 80.0)),
+                store.valueByCategory());
+        assertEquals(List.of(new SupplierValue("Поставщик А", 50.0), new SupplierValue("Поставщик Б", 80.0)),
+                store.valueBySupplier());
+        assertEquals(2, store.partCount());
+    }
+
+    @Test
+    void deletedRowsAreSkippedAndRestoredByUpsert() {
+        ColumnStore store = catalog();
+        store.upsertPart(1, 1, 10, 100);
+        store.upsertPart(2, 2, 10, 50);
+        store.upsertInventory(100, 1, 5);
+        store.upsertInventory(101, 2, 7);
+
+        store.deletePart(2);
+        store.deleteInventory(101);
+        store.deletePart(2);
+
+        assertEquals(List.of(new CategoryValue("Тормоза", 100.0)), store.valueByCategory());
+        assertEquals(new InventoryOverview(5L, 1, 5.0), store.inventoryOverview());
+        assertEquals(0.5, store.deletedRatio());
+
+        store.upsertPart(2, 2, 10, 60);
+        store.upsertInventory(101, 2, 9);
+
+        assertEquals(List.of(new CategoryValue("Тормоза", 100.0), new CategoryValue("Фильтры", 60.0)),
+                store.valueByCategory());
+        assertEquals(new InventoryOverview(14L, 2, 7.0), store.inventoryOverview());
+        assertEquals(0, store.deletedRatio());
+    }
+
+    @Test
+    void inventoryBeforeItsPartIsCountedButPartIsPending() {
+        ColumnStore store = catalog();
+        store.upsertInventory(100, 1, 5);
+
+        assertEquals(new OverallMetrics(0, null, null), store.overallMetrics());
+        assertEquals(List.of(), store.valueByCategory());
+        assertEquals(new InventoryOverview(5L, 1, 5.0), store.inventoryOverview());
+
+        store.upsertPart(1, 1, 10, 100);
+
+        assertEquals(new OverallMetrics(1, 100.0, 100.0), store.overallMetrics());
+        assertEquals(1, store.partCount());
+    }
+
+    @Test
+    void inventoryMovedToAnotherPartUpdatesUniqueParts() {
+        ColumnStore store = catalog();
+        store.upsertPart(1, 1, 10, 100);
+        store.upsertPart(2, 1, 10, 100);
+        store.upsertInventory(100, 1, 5);
+        store.upsertInventory(101, 1, 3);
+
+        assertEquals(new InventoryOverview(8L, 1, 4.0), store.inventoryOverview());
+
+        store.upsertInventory(101, 2, 3);
+        assertEquals(new InventoryOverview(8L, 2, 4.0), store.inventoryOverview());
+
+        store.upsertInventory(100, 2, 1);
+        assertEquals(new InventoryOverview(4L, 1, 2.0), store.inventoryOverview());
+    }
+
+    @Test
+    void stockLevelsFollowThresholdsAndSkipEmptyLevels() {
+        ColumnStore store = catalog();
+        store.upsertPart(1, 1, 10, 100);
+        int[] quantities = {0, 0, 3, 9, 10, 49, 50, 500};
+        for (int i = 0; i < quantities.length; i++) {
+            store.upsertInventory(100 + i, 1, quantities[i]);
+        }
+
+        assertEquals(List.of(new StockLevelCount("Нет в наличии", 2), new StockLevelCount("Низкий запас", 2),
+                        new StockLevelCount("Средний запас", 2), new StockLevelCount("Высокий запас", 2)),
+                store.stockLevelDistribution(10, 50));
+
+        store.deleteInventory(100);
+        store.deleteInventory(101);
+        assertEquals(List.of(new StockLevelCount("Низкий запас", 2), new StockLevelCount("Средний запас", 2),
+                        new StockLevelCount("Высокий запас", 2)),
+                store.stockLevelDistribution(10, 50));
+    }
+
+    @Test
+    void groupsWithSameNameAreMergedLikeJpql() {
+        ColumnStore store = new ColumnStore(0, 0);
+        store.putCategoryName(1, "Тормоза");
+        store.putCategoryName(2, "Тормоза");
+        store.putSupplierName(10, "Поставщик");
+        store.upsertPart(1, 1, 10, 100);
+        store.upsertPart(2, 2, 10, 50);
+
+        assertEquals(List.of(new CategoryValue("Тормоза", 150.0)), store.valueByCategory());
+    }
+
+    @Test
+    void parallelChunksMatchSequentialTotals() {
+        // Больше нескольких блоков по 65536 строк, чтобы частичные результаты складывались
+        int parts = 300_000;
+        ColumnStore store = new ColumnStore(16, 16);
+        double[] categoryValues = new double[5];
+        long[] levels = new long[4];
+        long quantityTotal = 0;
+        Random random = new Random(42);
+        for (int category = 0; category < categoryValues.length; category++) {
+            store.putCategoryName(category, "Категория " + category);
+        }
+        store.putSupplierName(0, "Поставщик");
+        for (int part = 0; part < parts; part++) {
+            int category = random.nextInt(categoryValues.length);
+            double price = random.nextInt(100_000) / 100.0;
+            int quantity = random.nextInt(100);
+            store.upsertPart(part, category, 0, price);
+            store.upsertInventory(part, part, quantity);
+            categoryValues[category] += price;
+            levels[quantity == 0 ? 0 : quantity < 10 ? 1 : quantity < 50 ? 2 : 3]++;
+            quantityTotal += quantity;
+        }
+
+        List<CategoryValue> values = store.valueByCategory();
+        for (CategoryValue value : values) {
+            int category = Integer.parseInt(value.categoryName().substring("Категория ".length()));
+            assertEquals(categoryValues[category], value.totalValue(), 1e-3);
+        }
+        assertEquals(categoryValues.length, values.size());
+        List<StockLevelCount> distribution = store.stockLevelDistribution(10, 50);
+        for (int level = 0; level < levels.length; level++) {
+            assertEquals(levels[level], distribution.get(level).count());
+        }
+        assertEquals(new InventoryOverview(quantityTotal, parts, (double) quantityTotal / parts),
+                store.inventoryOverview());
+    }
+
+    private static ColumnStore catalog() {
+        ColumnStore store = new ColumnStore(0, 0);
+        store.putCategoryName(1, "Тормоза");
+        store.putCategoryName(2, "Фильтры");
+        store.putSupplierName(10, "Поставщик А");
+        store.putSupplierName(20, "Поставщик Б");
+        return store;
+    }
+}
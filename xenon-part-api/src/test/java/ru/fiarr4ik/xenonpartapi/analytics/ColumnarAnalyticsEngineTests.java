@@ -0,0 +1,161 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.event.CategoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.InventoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.PartChangedEvent;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Загрузка колоночного снимка из встроенной базы и повтор изменений, пришедших во время загрузки.
+ *
+ * <p>Менеджер транзакций теста задерживает транзакцию загрузчика, пока тест не отпустит ее,
+ * поэтому события гарантированно приходят во время перезагрузки.
+ */
+class ColumnarAnalyticsEngineTests {
+
+    private static final Duration LOAD_TIMEOUT = Duration.ofSeconds(30);
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private GatedTransactionManager transactionManager;
+    private ColumnarAnalyticsEngine engine;
+
+    private final Category brakes = new Category(1L, "Тормоза", null);
+    private final Category filters = new Category(2L, "Фильтры", null);
+    private final Supplier supplier = new Supplier(1L, "Поставщик", null, null, null, null, null);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) VALUES (1, 'Тормоза'), (2, 'Фильтры')");
+        jdbcTemplate.update("INSERT INTO suppliers (supplier_id, name) VALUES (1, 'Поставщик')");
+        jdbcTemplate.update("INSERT INTO part (part_id, name, category_id, supplier_id, unit_price) " +
+                "VALUES (1, 'Колодки', 1, 1, 100), (2, 'Диск', 1, 1, 300)");
+        jdbcTemplate.update("INSERT INTO inventory (inventory_id, part_id, quantity_in_stock, last_restock_date) " +
+                "VALUES (1, 1, 4, localtimestamp), (2, 2, 6, localtimestamp)");
+        transactionManager = new GatedTransactionManager(postgres.getPostgresDatabase());
+        engine = new ColumnarAnalyticsEngine(jdbcTemplate, transactionManager, 1_000, 0.5);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        transactionManager.release.countDown();
+        postgres.close();
+    }
+
+    @Test
+    void loadsSnapshotFromDatabase() throws InterruptedException {
+        assertFalse(engine.isReady());
+        assertThrows(IllegalStateException.class, engine::overallMetrics);
+
+        transactionManager.release.countDown();
+        engine.onApplicationReady();
+        awaitReady();
+
+        assertEquals(new OverallMetrics(2, 400.0, 200.0), engine.overallMetrics());
+        assertEquals(List.of(new CategoryValue("Тормоза", 400.0)), engine.valueByCategory());
+        assertEquals(new InventoryOverview(10L, 2, 5.0), engine.inventoryOverview());
+    }
+
+    @Test
+    void replaysChangesThatArriveDuringLoad() throws InterruptedException {
+        engine.onApplicationReady();
+        assertTrue(transactionManager.started.await(LOAD_TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+
+        // Снимок читается после этих изменений, но сами они в базу не попали: без повтора
+        // загруженный снимок их бы не увидел
+        Part moved = new Part(2L, "Диск", null, filters, supplier, 350, null, null);
+        engine.onPartChanged(new PartChangedEvent(moved, 1L, 1L, false));
+        Part added = new Part(3L, "Фильтр", null, filters, supplier, 50, null, null);
+        engine.onPartChanged(new PartChangedEvent(added, null, null, false));
+        engine.onInventoryChanged(new InventoryChangedEvent(new Inventory(3L, added, 10, LocalDateTime.now()), null, false));
+        engine.onInventoryChanged(new InventoryChangedEvent(new Inventory(1L, null, 4, LocalDateTime.now()), 4, true));
+        engine.onCategoryChanged(new CategoryChangedEvent(new Category(2L, "Фильтры и масла", null), false));
+        transactionManager.release.countDown();
+        awaitReady();
+
+        assertEquals(new OverallMetrics(3, 500.0, 500.0 / 3), engine.overallMetrics());
+        assertEquals(List.of(new CategoryValue("Тормоза", 100.0), new CategoryValue("Фильтры и масла", 400.0)),
+                engine.valueByCategory());
+        assertEquals(new InventoryOverview(16L, 2, 8.0), engine.inventoryOverview());
+    }
+
+    @Test
+    void changesAfterLoadApplyToSnapshot() throws InterruptedException {
+        transactionManager.release.countDown();
+        engine.onApplicationReady();
+        awaitReady();
+
+        engine.onPartChanged(new PartChangedEvent(new Part(1L, "Колодки", null, brakes, supplier, 100, null, null),
+                1L, 1L, true));
+
+        assertEquals(new OverallMetrics(1, 300.0, 300.0), engine.overallMetrics());
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.nanoTime() + LOAD_TIMEOUT.toNanos();
+        while (!engine.isReady()) {
+            assertTrue(System.nanoTime() < deadline, "Снимок не загрузился");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Менеджер транзакций, который не начинает транзакцию, пока тест его не отпустит.
+     */
+    private static final class GatedTransactionManager extends DataSourceTransactionManager {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private GatedTransactionManager(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.doBegin(transaction, definition);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTests {
+
+    @Test
+    void estimateIsNeverBelowTrueCountAndStaysWithinBound() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        long[] counts = new long[2000];
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(counts.length);
+            int quantity = 1 + random.nextInt(10);
+            counts[key] += quantity;
+            total += quantity;
+            sketch.add(key, quantity);
+        }
+
+        int outsideBound = 0;
+        for (int key = 0; key < counts.length; key++) {
+            long estimate = sketch.estimate(key);
+            assertTrue(estimate >= counts[key], "Оценка меньше истинного значения для " + key);
+            if (estimate - counts[key] > Math.E / 256 * total) {
+                outsideBound++;
+            }
+        }
+        // Граница нарушается с вероятностью e^-4, то есть меньше чем для 2% ключей
+        assertTrue(outsideBound < counts.length / 50, "Граница нарушена для " + outsideBound + " ключей");
+    }
+
+    @Test
+    void addReturnsCurrentEstimate() {
+        CountMinSketch sketch = new CountMinSketch(2, 64);
+
+        assertEquals(5, sketch.add(7, 5));
+        assertEquals(8, sketch.add(7, 3));
+        assertEquals(8, sketch.estimate(7));
+    }
+
+    @Test
+    void mergeAddsCountersAndClearResets() {
+        CountMinSketch first = new CountMinSketch(3, 64);
+        CountMinSketch second = new CountMinSketch(3, 64);
+        first.add(1, 4);
+        second.add(1, 6);
+        second.add(2, 1);
+
+        first.mergeFrom(second);
+        assertEquals(10, first.estimate(1));
+        assertTrue(first.estimate(2) >= 1);
+
+        first.clear();
+        assertEquals(0, first.estimate(1));
+    }
+
+    @Test
+    void rejectsUnsupportedDepth() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 64));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(9, 64));
+    }
+}
@@ -0,0 +1,140 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import ru.fiarr4ik.xenonpartapi.dto.ClassificationResultDTO;
+import ru.fiarr4ik.xenonpartapi.exception.ConflictException;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Классификация на встроенной базе: недельный расход берется ровно за {@code xyz-weeks}
+ * полных недель, отсчитанных от начала окна, без неполной текущей недели; ручной запуск
+ * выполняется в фоне, а совпавший с ним запуск по расписанию пропускается.
+ */
+class InventoryClassificationDatabaseTests {
+
+    private static final int WEEKS = 12;
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private InventoryClassificationJob job;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        job = job(Runnable::run);
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) VALUES (1, 'Тормоза')");
+        jdbcTemplate.update("INSERT INTO suppliers (supplier_id, name) VALUES (1, 'Поставщик')");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void steadyDailyConsumptionIsXRegardlessOfCurrentWeek() {
+        part(1);
+        part(2);
+        LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime since = today.minusWeeks(WEEKS);
+        for (LocalDateTime day = since; day.isBefore(today); day = day.plusDays(1)) {
+            removal(1, 10, day.plusHours(12));
+            removal(2, 10, day.plusHours(12));
+        }
+        // Всплеск в неполной текущей неделе и расход до начала окна в выборку не входят
+        removal(1, 5_000, today.plusSeconds(1));
+        removal(2, 5_000, since.minusSeconds(1));
+
+        job.run();
+
+        assertEquals("X", xyzClass(1));
+        assertEquals("X", xyzClass(2));
+    }
+
+    @Test
+    void weeksAreCountedFromWindowStart() {
+        part(1);
+        part(2);
+        LocalDateTime since = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusWeeks(WEEKS);
+        for (int week = 0; week < WEEKS; week++) {
+            // Весь недельный расход - в первую и последнюю секунды своей недели окна
+            removal(1, 35, since.plusWeeks(week));
+            removal(1, 35, since.plusWeeks(week + 1).minusSeconds(1));
+        }
+        // Расход только в первой неделе окна
+        removal(2, 840, since.plusDays(1));
+
+        ClassificationResultDTO result = job.run();
+
+        assertEquals("X", xyzClass(1));
+        assertEquals("Z", xyzClass(2));
+        assertEquals(2, result.getTotalParts());
+    }
+
+    @Test
+    void scheduledRunIsSkippedWhileManualRunIsPending() {
+        part(1);
+        List<Runnable> queued = new ArrayList<>();
+        job = job(queued::add);
+
+        job.start();
+        assertThrows(ConflictException.class, job::start);
+        job.scheduledRun();
+
+        assertTrue(job.lastResult().isEmpty());
+        assertNull(xyzClass(1));
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals(1, job.lastResult().orElseThrow().getTotalParts());
+        assertEquals("Z", xyzClass(1));
+        // После завершения ручного запуска классификация снова доступна
+        job.start();
+        assertEquals(2, queued.size());
+    }
+
+    private InventoryClassificationJob job(Executor executor) {
+        return new InventoryClassificationJob(jdbcTemplate,
+                new DataSourceTransactionManager(postgres.getPostgresDatabase()), executor,
+                1_000, 0.8, 0.95, WEEKS, 0.5, 1.0);
+    }
+
+    private void part(long partId) {
+        jdbcTemplate.update("INSERT INTO part (part_id, name, category_id, supplier_id, unit_price) " +
+                "VALUES (?, ?, 1, 1, 100)", partId, "Запчасть " + partId);
+    }
+
+    private void removal(long partId, int quantity, LocalDateTime movedAt) {
+        jdbcTemplate.update("INSERT INTO stock_movement (part_id, inventory_id, quantity, moved_at) VALUES (?, ?, ?, ?)",
+                partId, partId, -quantity, Timestamp.valueOf(movedAt));
+    }
+
+    private String xyzClass(long partId) {
+        return jdbcTemplate.queryForObject("SELECT xyz_class FROM part WHERE part_id = ?", String.class, partId);
+    }
+}
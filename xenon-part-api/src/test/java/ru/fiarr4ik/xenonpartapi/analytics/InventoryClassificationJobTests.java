@@ -0,0 +1,74 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InventoryClassificationJobTests {
+
+    @Test
+    void firstAboveFindsFirstPrefixStrictlyAboveThreshold() {
+        double[] prefix = {5, 20, 50, 100};
+
+        assertEquals(0, InventoryClassificationJob.firstAbove(prefix, 0));
+        assertEquals(1, InventoryClassificationJob.firstAbove(prefix, 5));
+        assertEquals(1, InventoryClassificationJob.firstAbove(prefix, 19.99));
+        assertEquals(2, InventoryClassificationJob.firstAbove(prefix, 20));
+        assertEquals(3, InventoryClassificationJob.firstAbove(prefix, 99));
+        // Порог не превышен ни одной суммой - последний элемент
+        assertEquals(3, InventoryClassificationJob.firstAbove(prefix, 100));
+        assertEquals(0, InventoryClassificationJob.firstAbove(new double[] {7}, 10));
+    }
+
+    @Test
+    void abcClassIncludesPartThatReachesShare() {
+        // Колодки и диски вместе дают ровно 80% стоимости, фильтр добирает до 95%
+        double[] values = {15, 50, 5, 30};
+
+        assertArrayEquals(classes(AbcClass.B, AbcClass.A, AbcClass.C, AbcClass.A),
+                InventoryClassificationJob.classifyAbc(values, 4, 0.8, 0.95));
+    }
+
+    @Test
+    void abcClassTreatsEqualValuesAlikeAndEmptyStockAsC() {
+        assertArrayEquals(classes(AbcClass.A, AbcClass.A, AbcClass.A, AbcClass.A),
+                InventoryClassificationJob.classifyAbc(new double[] {10, 10, 10, 10}, 4, 0.8, 0.95));
+        assertArrayEquals(classes(AbcClass.A, AbcClass.C),
+                InventoryClassificationJob.classifyAbc(new double[] {100, 0}, 2, 0.8, 0.95));
+        assertArrayEquals(classes(AbcClass.C, AbcClass.C),
+                InventoryClassificationJob.classifyAbc(new double[] {0, 0}, 2, 0.8, 0.95));
+        // Учитываются только первые size значений массива
+        assertArrayEquals(classes(AbcClass.A),
+                InventoryClassificationJob.classifyAbc(new double[] {3, 1000}, 1, 0.8, 0.95));
+        assertEquals(0, InventoryClassificationJob.classifyAbc(new double[0], 0, 0.8, 0.95).length);
+    }
+
+    @Test
+    void xyzClassFollowsCoefficientOfVariation() {
+        assertEquals(XyzClass.X, xyz(10, 10, 10, 10));
+        // Коэффициент вариации ровно на границах классов
+        assertEquals(XyzClass.X, xyz(15, 5, 15, 5));
+        assertEquals(XyzClass.Y, xyz(20, 0, 20, 0));
+        assertEquals(XyzClass.Z, xyz(40, 0, 0, 0));
+        assertEquals(XyzClass.Z, xyz(0, 0, 0, 0));
+    }
+
+    private static XyzClass xyz(double... weekly) {
+        double sum = Arrays.stream(weekly).sum();
+        double squares = Arrays.stream(weekly).map(value -> value * value).sum();
+        return InventoryClassificationJob.classifyXyz(sum, squares, weekly.length, 0.5, 1.0);
+    }
+
+    private static byte[] classes(AbcClass... classes) {
+        byte[] codes = new byte[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            codes[i] = (byte) classes[i].ordinal();
+        }
+        return codes;
+    }
+}
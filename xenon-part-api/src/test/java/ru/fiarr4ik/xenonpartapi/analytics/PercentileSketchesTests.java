@@ -0,0 +1,293 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupPercentiles;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.PercentilesDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.ValuePercentiles;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.event.InventoryChangedEvent;
+import ru.fiarr4ik.xenonpartapi.event.PartChangedEvent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Скетчи процентилей на встроенной базе: точность после построения, добавление значений
+ * из событий, пересчет групп после изменения и переноса запчасти и после накопления
+ * прежних остатков, совместная публикация изменений.
+ */
+class PercentileSketchesTests {
+
+    private static final int PARTS = 30_000;
+    // Допустимая ошибка ранга оценки t-digest при сжатии 100
+    private static final double RANK_TOLERANCE = 0.01;
+    private static final double MAX_STALE_RATIO = 0.01;
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private PercentileSketches sketches;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        sketches = new PercentileSketches(jdbcTemplate,
+                new DataSourceTransactionManager(postgres.getPostgresDatabase()), 1_000, 100, MAX_STALE_RATIO);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void estimatesStayWithinRankErrorOfExactPercentiles() {
+        seed(3, 4);
+
+        fullRebuild();
+
+        PercentilesDTO percentiles = sketches.percentiles();
+        assertEquals(PARTS, percentiles.unitPrice().count());
+        assertEquals(PARTS, percentiles.stockLevel().count());
+        assertAccurate(percentiles.unitPrice(), "SELECT unit_price FROM part");
+        assertAccurate(percentiles.stockLevel(), "SELECT quantity_in_stock FROM inventory");
+        for (GroupPercentiles category : percentiles.categories()) {
+            assertAccurate(category.unitPrice(), "SELECT unit_price FROM part WHERE category_id = " + category.id());
+            assertAccurate(category.stockLevel(), "SELECT inventory.quantity_in_stock FROM inventory " +
+                    "JOIN part ON part.part_id = inventory.part_id WHERE part.category_id = " + category.id());
+        }
+        for (GroupPercentiles supplier : percentiles.suppliers()) {
+            assertAccurate(supplier.unitPrice(), "SELECT unit_price FROM part WHERE supplier_id = " + supplier.id());
+        }
+    }
+
+    @Test
+    void mergesCategoriesWithFewDistinctValues() {
+        // Много категорий с несколькими повторяющимися ценами: тяжелые крайние центроиды
+        // при слиянии скетчей по одному нарушали инварианты MergingDigest
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'Категория ' || i FROM generate_series(1, 200) i");
+        jdbcTemplate.update("INSERT INTO suppliers (name) SELECT 'Поставщик ' || i FROM generate_series(1, 50) i");
+        jdbcTemplate.update("INSERT INTO part (name, category_id, supplier_id, unit_price) " +
+                "SELECT 'Запчасть ' || i, 1 + i % 200, 1 + i % 50, 10 + i % 1000 FROM generate_series(1, 200000) i");
+
+        fullRebuild();
+
+        ValuePercentiles price = sketches.percentiles().unitPrice();
+        assertEquals(200_000, price.count());
+        assertAccurate(price, "SELECT unit_price FROM part");
+    }
+
+    @Test
+    void addsValuesFromEventsBeforeRebuild() {
+        seed(2, 2);
+        long emptyGroup = insertEmptyGroups();
+        fullRebuild();
+
+        Part part = insertPart(emptyGroup, emptyGroup, 1_000_000);
+        sketches.onPartChanged(new PartChangedEvent(part, null, null, false));
+        Inventory inventory = insertInventory(part, 7);
+        sketches.onInventoryChanged(new InventoryChangedEvent(inventory, null, false));
+        sketches.publishChanges();
+
+        PercentilesDTO percentiles = sketches.percentiles();
+        assertEquals(PARTS + 1, percentiles.unitPrice().count());
+        assertEquals(PARTS + 1, percentiles.stockLevel().count());
+        GroupPercentiles category = group(percentiles.categories(), emptyGroup);
+        assertEquals(new ValuePercentiles(1, 1_000_000.0, 1_000_000.0, 1_000_000.0), category.unitPrice());
+        assertEquals(new ValuePercentiles(1, 7.0, 7.0, 7.0), category.stockLevel());
+        assertEquals(new ValuePercentiles(1, 1_000_000.0, 1_000_000.0, 1_000_000.0),
+                group(percentiles.suppliers(), emptyGroup).unitPrice());
+    }
+
+    @Test
+    void movedPartLeavesPreviousGroupsAfterRebuild() {
+        seed(2, 2);
+        long emptyGroup = insertEmptyGroups();
+        Part part = insertPart(1, 1, 5_000_000);
+        insertInventory(part, 40_000);
+        fullRebuild();
+        long previousParts = group(sketches.percentiles().categories(), 1).unitPrice().count();
+        long previousStock = group(sketches.percentiles().categories(), 1).stockLevel().count();
+
+        jdbcTemplate.update("UPDATE part SET category_id = ?, supplier_id = ? WHERE part_id = ?",
+                emptyGroup, emptyGroup, part.getPartId());
+        part.setCategory(new Category(emptyGroup, null, null));
+        part.setSupplier(new Supplier(emptyGroup, null, null, null, null, null, null));
+        sketches.onPartChanged(new PartChangedEvent(part, 1L, 1L, false));
+        sketches.publishChanges();
+
+        // Цена видна в новой категории с публикацией, прежняя группа пересчитывается позже
+        assertEquals(1, group(sketches.percentiles().categories(), emptyGroup).unitPrice().count());
+        assertEquals(previousParts, group(sketches.percentiles().categories(), 1).unitPrice().count());
+
+        sketches.rebuild();
+
+        PercentilesDTO percentiles = sketches.percentiles();
+        assertEquals(previousParts - 1, group(percentiles.categories(), 1).unitPrice().count());
+        assertEquals(previousStock - 1, group(percentiles.categories(), 1).stockLevel().count());
+        for (GroupPercentiles moved : List.of(group(percentiles.categories(), emptyGroup),
+                group(percentiles.suppliers(), emptyGroup))) {
+            assertEquals(new ValuePercentiles(1, 5_000_000.0, 5_000_000.0, 5_000_000.0), moved.unitPrice());
+            assertEquals(new ValuePercentiles(1, 40_000.0, 40_000.0, 40_000.0), moved.stockLevel());
+        }
+        assertTrue(group(percentiles.suppliers(), 1).unitPrice().p99() < 5_000_000.0);
+        assertEquals(PARTS + 1, percentiles.unitPrice().count());
+        assertEquals(PARTS + 1, percentiles.stockLevel().count());
+    }
+
+    @Test
+    void stockChangesRecountGroupOnlyPastStaleRatio() {
+        seed(2, 2);
+        Part part = insertPart(1, 1, 100);
+        Inventory inventory = insertInventory(part, 10);
+        fullRebuild();
+        long exact = group(sketches.percentiles().categories(), 1).stockLevel().count();
+
+        // Новая запись и запись без изменения остатка группу не пересчитывают
+        sketches.onInventoryChanged(new InventoryChangedEvent(insertInventory(part, 5), null, false));
+        sketches.onInventoryChanged(new InventoryChangedEvent(inventory, 10, false));
+        sketches.rebuild();
+        sketches.publishChanges();
+        assertEquals(exact + 1, group(sketches.percentiles().categories(), 1).stockLevel().count());
+        exact++;
+
+        // Прежние остатки копятся в скетче, пока их доля не превысит допустимую
+        long allowed = (long) (MAX_STALE_RATIO * exact);
+        for (int i = 0; i < allowed; i++) {
+            inventory.setQuantityInStock(11 + i);
+            sketches.onInventoryChanged(new InventoryChangedEvent(inventory, 10 + i, false));
+        }
+        sketches.rebuild();
+        sketches.publishChanges();
+        assertEquals(exact + allowed, group(sketches.percentiles().categories(), 1).stockLevel().count());
+
+        inventory.setQuantityInStock(0);
+        sketches.onInventoryChanged(new InventoryChangedEvent(inventory, 10 + (int) allowed, false));
+        sketches.rebuild();
+
+        assertEquals(exact, group(sketches.percentiles().categories(), 1).stockLevel().count());
+    }
+
+    @Test
+    void eventsArePublishedTogether() {
+        seed(2, 2);
+        long emptyGroup = insertEmptyGroups();
+        fullRebuild();
+        PercentilesDTO before = sketches.percentiles();
+
+        Part part = insertPart(emptyGroup, emptyGroup, 100);
+        sketches.onPartChanged(new PartChangedEvent(part, null, null, false));
+        sketches.onInventoryChanged(new InventoryChangedEvent(insertInventory(part, 3), null, false));
+        assertSame(before, sketches.percentiles());
+
+        sketches.publishChanges();
+        PercentilesDTO published = sketches.percentiles();
+        assertEquals(PARTS + 1, published.unitPrice().count());
+        assertEquals(PARTS + 1, published.stockLevel().count());
+        sketches.publishChanges();
+        assertSame(published, sketches.percentiles());
+    }
+
+    @Test
+    void deletedPartIsRemovedByRebuild() {
+        seed(2, 2);
+        Part part = insertPart(1, 1, 100);
+        fullRebuild();
+
+        jdbcTemplate.update("DELETE FROM part WHERE part_id = ?", part.getPartId());
+        sketches.onPartChanged(new PartChangedEvent(part, 1L, 1L, true));
+        sketches.rebuild();
+
+        assertEquals(PARTS, sketches.percentiles().unitPrice().count());
+    }
+
+    /**
+     * Каталог из заданного числа категорий и поставщиков с перекошенным распределением цен
+     * и одной записью инвентаря на запчасть.
+     */
+    private void seed(int categories, int suppliers) {
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'Категория ' || i FROM generate_series(1, ?) i",
+                categories);
+        jdbcTemplate.update("INSERT INTO suppliers (name) SELECT 'Поставщик ' || i FROM generate_series(1, ?) i",
+                suppliers);
+        jdbcTemplate.update("INSERT INTO part (name, category_id, supplier_id, unit_price) " +
+                "SELECT 'Запчасть ' || i, 1 + i % ?, 1 + i % ?, 10 + power(i * 7919 % 10007, 2) / 1000.0 " +
+                "FROM generate_series(1, ?) i", categories, suppliers, PARTS);
+        jdbcTemplate.update("INSERT INTO inventory (part_id, quantity_in_stock, last_restock_date) " +
+                "SELECT part_id, part_id * 104729 % 500, localtimestamp FROM part");
+    }
+
+    /**
+     * Добавляет категорию и поставщика без запчастей с одинаковым идентификатором.
+     */
+    private long insertEmptyGroups() {
+        long id = jdbcTemplate.queryForObject("SELECT max(category_id) + 1 FROM categories", Long.class);
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) VALUES (?, 'Пустая')", id);
+        jdbcTemplate.update("INSERT INTO suppliers (supplier_id, name) VALUES (?, 'Пустой')", id);
+        return id;
+    }
+
+    private Part insertPart(long categoryId, long supplierId, double price) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO part (name, category_id, supplier_id, unit_price) " +
+                "VALUES ('Новая', ?, ?, ?) RETURNING part_id", Long.class, categoryId, supplierId, price);
+        return new Part(id, "Новая", null, new Category(categoryId, null, null),
+                new Supplier(supplierId, null, null, null, null, null, null), price, null, null);
+    }
+
+    private Inventory insertInventory(Part part, int quantity) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO inventory (part_id, quantity_in_stock, last_restock_date) " +
+                "VALUES (?, ?, localtimestamp) RETURNING inventory_id", Long.class, part.getPartId(), quantity);
+        return new Inventory(id, part, quantity, LocalDateTime.now());
+    }
+
+    private void fullRebuild() {
+        sketches.requestFullRebuild();
+        sketches.rebuild();
+    }
+
+    /**
+     * Проверяет, что доля значений не больше оценки отличается от уровня процентиля
+     * не более чем на допустимую ошибку ранга.
+     */
+    private void assertAccurate(ValuePercentiles estimate, String valuesSql) {
+        assertRank(0.5, estimate.p50(), valuesSql);
+        assertRank(0.9, estimate.p90(), valuesSql);
+        assertRank(0.99, estimate.p99(), valuesSql);
+    }
+
+    private void assertRank(double quantile, double value, String valuesSql) {
+        Map<String, Object> ranks = jdbcTemplate.queryForMap("SELECT " +
+                "avg(CASE WHEN v < ? THEN 1.0 ELSE 0 END) AS below, " +
+                "avg(CASE WHEN v <= ? THEN 1.0 ELSE 0 END) AS at_most " +
+                "FROM (" + valuesSql + ") values_(v)", value, value);
+        double below = ((Number) ranks.get("below")).doubleValue();
+        double atMost = ((Number) ranks.get("at_most")).doubleValue();
+        assertTrue(below - RANK_TOLERANCE <= quantile && quantile <= atMost + RANK_TOLERANCE,
+                () -> "p" + Math.round(quantile * 100) + " = " + value + " попадает в ранги [" + below + ", " + atMost + "]");
+    }
+
+    private static GroupPercentiles group(List<GroupPercentiles> groups, long id) {
+        return groups.stream().filter(group -> group.id() == id).findFirst().orElseThrow();
+    }
+}
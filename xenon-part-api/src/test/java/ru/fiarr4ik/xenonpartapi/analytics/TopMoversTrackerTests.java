@@ -0,0 +1,61 @@
+package ru.fiarr4ik.xenonpartapi.analytics;
+
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.event.StockMovedEvent;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopMoversTrackerTests {
+
+    @Test
+    void ranksPartsByMovedQuantityInEveryWindow() {
+        TopMoversTracker tracker = new TopMoversTracker(4, 2048, 100);
+        tracker.record(1, 10);
+        tracker.record(2, 30);
+        tracker.record(3, 20);
+        tracker.record(1, 15);
+
+        for (MovementWindow window : MovementWindow.values()) {
+            assertEquals(List.of(new TopMoversTracker.Mover(2, 30), new TopMoversTracker.Mover(1, 25)),
+                    tracker.top(window, 2));
+        }
+    }
+
+    @Test
+    void countsIssuesAndReceiptsAlikeAndIgnoresEmptyMovements() {
+        TopMoversTracker tracker = new TopMoversTracker(4, 2048, 100);
+        tracker.onStockMoved(new StockMovedEvent(1, 5));
+        tracker.onStockMoved(new StockMovedEvent(1, -7));
+        tracker.record(2, 0);
+
+        assertEquals(List.of(new TopMoversTracker.Mover(1, 12)), tracker.top(MovementWindow.DAY, 10));
+    }
+
+    @Test
+    void limitIsCappedByCandidates() {
+        TopMoversTracker tracker = new TopMoversTracker(4, 2048, 3);
+        for (int partId = 1; partId <= 10; partId++) {
+            tracker.record(partId, partId);
+        }
+
+        List<TopMoversTracker.Mover> top = tracker.top(MovementWindow.WEEK, 10);
+        assertEquals(List.of(10L, 9L, 8L), top.stream().map(TopMoversTracker.Mover::partId).toList());
+    }
+
+    @Test
+    void heavyHittersSurviveManySmallMovements() {
+        TopMoversTracker tracker = new TopMoversTracker(4, 256, 20);
+        for (int partId = 100; partId < 5100; partId++) {
+            tracker.record(partId, 1);
+        }
+        tracker.record(1, 500);
+        tracker.record(2, 400);
+
+        List<TopMoversTracker.Mover> top = tracker.top(MovementWindow.MONTH, 2);
+        assertEquals(List.of(1L, 2L), top.stream().map(TopMoversTracker.Mover::partId).toList());
+        assertTrue(top.get(0).quantity() >= 500);
+    }
+}
@@ -0,0 +1,179 @@
+package ru.fiarr4ik.xenonpartapi.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.routing.RoutingContextProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsResultCacheTests {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private MetricsResultCache cache;
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void loadsOnceWithinTtlAsSharedResult() {
+        cache = new MetricsResultCache(60, 16, 1);
+        AtomicInteger loads = new AtomicInteger();
+        List<Boolean> shared = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("значение", cache.get("overall", () -> {
+                loads.incrementAndGet();
+                shared.add(RoutingContextProbe.isShared());
+                return "значение";
+            }));
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of(true), shared);
+        assertFalse(RoutingContextProbe.isShared());
+    }
+
+    @Test
+    void concurrentMissesWaitForOneLoad() throws Exception {
+        cache = new MetricsResultCache(60, 16, 1);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Object> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return new Object();
+        };
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(clients.submit(() -> cache.get("dashboard", loader)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            Object first = results.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void staleEntryIsServedWhileSharedRefreshRunsInBackground() throws InterruptedException {
+        cache = new MetricsResultCache(0, 16, 1);
+        cache.get("overall", () -> "старое");
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Boolean> shared = new CopyOnWriteArrayList<>();
+        AtomicInteger refreshes = new AtomicInteger();
+        Supplier<String> refresh = () -> {
+            refreshes.incrementAndGet();
+            shared.add(RoutingContextProbe.isShared());
+            refreshStarted.countDown();
+            await(release);
+            return "новое";
+        };
+
+        assertEquals("старое", cache.get("overall", refresh));
+        assertTrue(refreshStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Пока обновление идет, второе не запускается и клиенты получают прежнее значение
+        assertEquals("старое", cache.get("overall", refresh));
+        assertEquals(1, refreshes.get());
+        release.countDown();
+
+        awaitValue("новое", refresh);
+        assertTrue(shared.stream().allMatch(Boolean::booleanValue));
+    }
+
+    @Test
+    void failedRefreshKeepsPreviousValue() throws InterruptedException {
+        cache = new MetricsResultCache(0, 16, 1);
+        cache.get("overall", () -> "старое");
+        CountDownLatch failed = new CountDownLatch(1);
+
+        assertEquals("старое", cache.get("overall", () -> {
+            failed.countDown();
+            throw new IllegalStateException("база недоступна");
+        }));
+        assertTrue(failed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        awaitValue("новое", () -> "новое");
+    }
+
+    @Test
+    void failedInitialLoadIsNotCached() {
+        cache = new MetricsResultCache(60, 16, 1);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("overall", () -> {
+            throw new IllegalStateException("база недоступна");
+        }));
+
+        assertEquals("значение", cache.get("overall", () -> "значение"));
+    }
+
+    @Test
+    void catalogChangeDropsAllEntries() {
+        cache = new MetricsResultCache(60, 16, 1);
+        cache.get("overall", () -> "старое");
+        cache.get("dashboard", () -> "старое");
+
+        cache.onCatalogChanged(() -> false);
+
+        assertEquals("новое", cache.get("overall", () -> "новое"));
+        assertEquals("новое", cache.get("dashboard", () -> "новое"));
+    }
+
+    @Test
+    void keysBeyondCapacityAreComputedWithoutCaching() {
+        cache = new MetricsResultCache(60, 1, 1);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("low-stock:10", () -> "кэшируется");
+
+        cache.get("low-stock:20", loads::incrementAndGet);
+        cache.get("low-stock:20", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+        assertEquals("кэшируется", cache.get("low-stock:10", () -> "не вызывается"));
+    }
+
+    /**
+     * Повторяет чтение, пока фоновое обновление не заменит значение.
+     */
+    private void awaitValue(Object expected, Supplier<?> refresh) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!expected.equals(cache.get("overall", refresh))) {
+            assertTrue(System.nanoTime() < deadline, "Значение не обновилось");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
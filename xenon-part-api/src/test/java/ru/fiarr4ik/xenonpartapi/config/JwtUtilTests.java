@@ -0,0 +1,148 @@
+package ru.fiarr4ik.xenonpartapi.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTests {
+
+    private static final String SECRET_KEY = "xenon_secret_key_very_long_and_secure";
+
+    @Test
+    void repeatedTokenIsServedFromCache() {
+        JwtUtil jwtUtil = new JwtUtil(10);
+        String token = jwtUtil.generateToken("ivan", 7L);
+
+        JwtPrincipal first = jwtUtil.parse(token);
+        assertNotNull(first);
+        assertEquals("ivan", first.username());
+        assertEquals(7L, first.userId());
+        assertSame(first, jwtUtil.parse(token));
+        assertEquals(1, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryTime() {
+        JwtUtil jwtUtil = new JwtUtil(0);
+        String token = jwtUtil.generateToken("ivan", 7L);
+
+        assertNotSame(jwtUtil.parse(token), jwtUtil.parse(token));
+        assertEquals(0, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void invalidAndExpiredTokensAreRejectedAndNotCached() {
+        JwtUtil jwtUtil = new JwtUtil(10);
+
+        assertNull(jwtUtil.parse("not-a-token"));
+        assertNull(jwtUtil.parse(token(System.currentTimeMillis() - 60_000)));
+        assertEquals(0, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void cachedTokenStopsWorkingWhenItExpires() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil(10);
+        // Срок в токене хранится с точностью до секунды
+        String token = token(System.currentTimeMillis() + 1_000);
+        assertNotNull(jwtUtil.parse(token));
+        assertEquals(1, jwtUtil.cachedTokens());
+
+        Thread.sleep(2_000);
+
+        assertNull(jwtUtil.parse(token));
+        assertEquals(0, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void tokenExpiringFirstIsEvicted() {
+        JwtUtil jwtUtil = new JwtUtil(2);
+        long now = System.currentTimeMillis();
+        String first = token(now + 3_600_000);
+        String second = token(now + 60_000);
+        String third = token(now + 7_200_000);
+
+        JwtPrincipal firstPrincipal = jwtUtil.parse(first);
+        JwtPrincipal secondPrincipal = jwtUtil.parse(second);
+        JwtPrincipal thirdPrincipal = jwtUtil.parse(third);
+
+        assertEquals(2, jwtUtil.cachedTokens());
+        assertSame(firstPrincipal, jwtUtil.parse(first));
+        assertSame(thirdPrincipal, jwtUtil.parse(third));
+        // Второй токен истекает раньше остальных и проверяется заново
+        JwtPrincipal reverified = jwtUtil.parse(second);
+        assertNotSame(secondPrincipal, reverified);
+        assertEquals(2, jwtUtil.cachedTokens());
+    }
+
+    @Test
+    void expiredEntriesAreEvictedBeforeLiveOnes() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil(2);
+        long now = System.currentTimeMillis();
+        String expiring = token(now + 1_000);
+        String live = token(now + 60_000);
+        jwtUtil.parse(expiring);
+        JwtPrincipal livePrincipal = jwtUtil.parse(live);
+
+        Thread.sleep(2_000);
+        jwtUtil.parse(token(now + 3_600_000));
+
+        assertEquals(2, jwtUtil.cachedTokens());
+        assertSame(livePrincipal, jwtUtil.parse(live));
+    }
+
+    @Test
+    void concurrentReadersShareCachedPrincipal() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(64);
+        String[] tokens = new String[128];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = jwtUtil.generateToken("user-" + i, (long) i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        int index = (offset * 31 + i) % tokens.length;
+                        assertEquals((long) index, jwtUtil.parse(tokens[index]).userId());
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Предел может быть превышен только на число одновременно вставляющих потоков
+        assertTrue(jwtUtil.cachedTokens() <= 64 + 8);
+    }
+
+    private static String token(long expiresAtMillis) {
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("ivan")
+                .claim("userId", 7L)
+                .setIssuedAt(new Date(expiresAtMillis - 60_000))
+                .setExpiration(new Date(expiresAtMillis))
+                .signWith(SignatureAlgorithm.HS512, SECRET_KEY)
+                .compact();
+    }
+}
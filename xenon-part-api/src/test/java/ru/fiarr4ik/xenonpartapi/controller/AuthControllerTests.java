@@ -0,0 +1,205 @@
+package ru.fiarr4ik.xenonpartapi.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.fiarr4ik.xenonpartapi.config.JwtUtil;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+import ru.fiarr4ik.xenonpartapi.user.AvatarStore;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Регистрация, вход, изменение пользователя и его аватарка. Пароли проверяются в пуле
+ * хэширования, поэтому ответы на эти запросы приходят асинхронно.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+    private static final String USERNAME = "auth-test";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvatarStore avatarStore;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.queryForList("SELECT avatar_hash FROM users WHERE username LIKE 'auth-test%' " +
+                "AND avatar_hash IS NOT NULL", String.class).forEach(avatarStore::delete);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'auth-test%'");
+    }
+
+    @Test
+    void registersAndLogsIn() throws Exception {
+        perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials("secret")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value(USERNAME));
+
+        perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials("secret")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.username").value(USERNAME));
+        perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(credentials("wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void duplicateRegistrationIsBadRequest() throws Exception {
+        register();
+
+        perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials("other")))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Пользователь с таким именем уже существует"));
+    }
+
+    @Test
+    void changesPasswordAndRejectsWrongCurrentPassword() throws Exception {
+        String token = jwtUtil.generateToken(USERNAME, register());
+
+        perform(put("/api/auth/update").header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"currentPassword\":\"wrong\",\"newPassword\":\"changed\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Неверный текущий пароль"));
+        perform(put("/api/auth/update").header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"auth-test-renamed\",\"currentPassword\":\"secret\",\"newPassword\":\"changed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("auth-test-renamed"));
+
+        perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"auth-test-renamed\",\"password\":\"changed\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updateRequiresAuthentication() throws Exception {
+        perform(put("/api/auth/update").contentType(MediaType.APPLICATION_JSON).content("{\"username\":\"x\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void avatarIsHandedToSendfileWhenConnectorSupportsIt() throws Exception {
+        long userId = register();
+        byte[] image = png(4);
+        mockMvc.perform(multipart("/api/auth/avatar/upload")
+                        .file(new MockMultipartFile("avatar", "avatar.png", "image/png", image))
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(USERNAME, userId)))
+                .andExpect(status().isOk());
+
+        MvcResult sendfile = mockMvc.perform(get("/api/auth/avatar/{id}", userId)
+                        .requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().longValue("Content-Length", image.length))
+                .andReturn();
+        MockHttpServletRequest request = sendfile.getRequest();
+        assertEquals(0, sendfile.getResponse().getContentAsByteArray().length);
+        assertArrayEquals(image, Files.readAllBytes(Path.of((String) request.getAttribute("org.apache.tomcat.sendfile.filename"))));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) image.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+
+        // Без поддержки sendfile файл копируется в ответ
+        mockMvc.perform(get("/api/auth/avatar/{id}", userId))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void servesSmallestSufficientVariantWithDetectedContentType() throws Exception {
+        long userId = register();
+        byte[] image = png(100);
+        // Заявленный тип файла не учитывается, тип определяется по содержимому
+        mockMvc.perform(multipart("/api/auth/avatar/upload")
+                        .file(new MockMultipartFile("avatar", "avatar.jpg", "image/jpeg", image))
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(USERNAME, userId)))
+                .andExpect(status().isOk());
+        String hash = jdbcTemplate.queryForObject("SELECT avatar_hash FROM users WHERE id = ?", String.class, userId);
+
+        MvcResult variant = mockMvc.perform(get("/api/auth/avatar/{id}", userId).param("size", "40"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string("ETag", "\"" + hash + "-64\""))
+                .andReturn();
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(variant.getResponse().getContentAsByteArray())).getWidth());
+
+        mockMvc.perform(get("/api/auth/avatar/{id}", userId).param("size", "300"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(content().bytes(image));
+        mockMvc.perform(get("/api/auth/avatar/{id}", userId).param("size", "40").header("If-None-Match", "\"" + hash + "-64\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/auth/avatar/{id}", userId).param("v", hash))
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"));
+        mockMvc.perform(get("/api/auth/avatar/{id}", userId).param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long register() throws Exception {
+        perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content(credentials("secret")))
+                .andExpect(status().isCreated());
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+    }
+
+    /**
+     * Выполняет запрос и, если обработчик вернул отложенный результат, дожидается его.
+     */
+    private ResultActions perform(MockHttpServletRequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+
+    private static byte[] png(int side) throws IOException {
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, (int) System.nanoTime());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String credentials(String password) {
+        return "{\"username\":\"" + USERNAME + "\",\"password\":\"" + password + "\"}";
+    }
+}
@@ -0,0 +1,97 @@
+package ru.fiarr4ik.xenonpartapi.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.fiarr4ik.xenonpartapi.support.QueryBudget.assertMaxStatements;
+
+/**
+ * Бюджеты SQL-запросов эндпоинтов чтения. Подсчет строк включен, как в профиле {@code budget}.
+ */
+@SpringBootTest(properties = "sql.accounting.count-rows=true")
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+@AutoConfigureMockMvc
+class ControllerQueryBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Category category;
+    private Supplier supplier;
+    private Part part;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Тормоза", null));
+        supplier = supplierRepository.save(new Supplier(null, "Поставщик", null, null, null, null, null));
+        part = partRepository.save(new Part(null, "Колодки", null, category, supplier, 1500, null, null));
+        inventory = inventoryRepository.save(new Inventory(null, part, 3, LocalDateTime.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryRepository.delete(inventory);
+        partRepository.delete(part);
+        supplierRepository.delete(supplier);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void partByIdLoadsInOneStatement() throws Exception {
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/parts/{id}", part.getPartId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-SQL-Statements"))
+                .andExpect(header().string("X-SQL-Rows", "1")));
+    }
+
+    @Test
+    void inventoryByIdStaysWithinBudget() throws Exception {
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/inventory/{id}", inventory.getInventoryId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void partCountIsSingleStatement() throws Exception {
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/parts/count"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void dashboardStaysWithinBudget() throws Exception {
+        assertMaxStatements(15, () -> mockMvc.perform(get("/api/metrics/dashboard"))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,159 @@
+package ru.fiarr4ik.xenonpartapi.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+import ru.fiarr4ik.xenonpartapi.support.QueryBudget;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.fiarr4ik.xenonpartapi.support.QueryBudget.assertMaxStatements;
+
+/**
+ * Ленивые связи запчастей и инвентаря.
+ *
+ * <p>Каждый эндпоинт загружает нужные связи графом в своей транзакции. Ленивая связь,
+ * прочитанная после транзакции, при выключенном open-in-view завершает запрос ошибкой,
+ * а догруженная внутри нее видна в статистике Hibernate как отдельная выборка сущности.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+@AutoConfigureMockMvc
+class LazyAssociationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Category category;
+    private Supplier supplier;
+    private Part part;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Тормоза", null));
+        supplier = supplierRepository.save(new Supplier(null, "Поставщик", null, null, null, null, null));
+        part = partRepository.save(new Part(null, "Колодки", null, category, supplier, 1500, AbcClass.A, null));
+        inventory = inventoryRepository.save(new Inventory(null, part, 3, LocalDateTime.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Движения, записанные изменением остатка, не принадлежат сущностям теста
+        jdbcTemplate.update("DELETE FROM stock_movement WHERE inventory_id = ?", inventory.getInventoryId());
+        inventoryRepository.delete(inventory);
+        partRepository.delete(part);
+        supplierRepository.delete(supplier);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void partDetailJoinsCategoryAndSupplier() throws Exception {
+        assertNoLazyLoads(1, () -> mockMvc.perform(get("/api/parts/{id}", part.getPartId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryName").value("Тормоза"))
+                .andExpect(jsonPath("$.supplierName").value("Поставщик")));
+    }
+
+    @Test
+    void partListJoinsCategoriesAndSuppliers() throws Exception {
+        assertNoLazyLoads(1, () -> mockMvc.perform(get("/api/parts"))
+                .andExpect(status().isOk()));
+        assertNoLazyLoads(1, () -> mockMvc.perform(get("/api/parts").param("abcClass", "A"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void partUpdateReusesLoadedAssociations() throws Exception {
+        String body = "{\"name\":\"Колодки передние\",\"categoryId\":" + category.getCategoryId()
+                + ",\"supplierId\":" + supplier.getSupplierId() + ",\"unitPrice\":1600}";
+        assertNoLazyLoads(2, () -> mockMvc.perform(put("/api/parts/{id}", part.getPartId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryName").value("Тормоза")));
+    }
+
+    @Test
+    void inventoryReadsUsePartIdWithoutLoadingPart() throws Exception {
+        assertNoLazyLoads(1, () -> mockMvc.perform(get("/api/inventory/{id}", inventory.getInventoryId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partId").value(part.getPartId())));
+        assertNoLazyLoads(1, () -> mockMvc.perform(get("/api/inventory"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void stockAdjustmentLoadsPartWithInventory() throws Exception {
+        // Выборка с запчастью, запись движения и обновление остатка
+        assertNoLazyLoads(3, () -> mockMvc.perform(post("/api/inventory/{id}/add", inventory.getInventoryId())
+                        .param("quantity", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantityInStock").value(8)));
+        assertNoLazyLoads(3, () -> mockMvc.perform(post("/api/inventory/{id}/remove", inventory.getInventoryId())
+                        .param("quantity", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantityInStock").value(6)));
+    }
+
+    @Test
+    void inventoryDeleteLoadsPartWithInventory() throws Exception {
+        assertNoLazyLoads(2, () -> mockMvc.perform(delete("/api/inventory/{id}", inventory.getInventoryId()))
+                .andExpect(status().is2xxSuccessful()));
+    }
+
+    /**
+     * Проверяет бюджет запросов действия и отсутствие в нем догрузки ленивых связей.
+     */
+    private void assertNoLazyLoads(int maxStatements, QueryBudget.Action action) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long fetchesBefore = statistics.getEntityFetchCount();
+        assertMaxStatements(maxStatements, action);
+        assertEquals(0, statistics.getEntityFetchCount() - fetchesBefore, "Догружены ленивые связи");
+    }
+}
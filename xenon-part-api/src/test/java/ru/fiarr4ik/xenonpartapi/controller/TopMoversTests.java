@@ -0,0 +1,122 @@
+package ru.fiarr4ik.xenonpartapi.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.analytics.MovementWindow;
+import ru.fiarr4ik.xenonpartapi.analytics.TopMoversTracker;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.event.StockMovedEvent;
+import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Учет самых оборачиваемых запчастей: движения попадают в скетч только после фиксации.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+@AutoConfigureMockMvc
+class TopMoversTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TopMoversTracker topMoversTracker;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Category category;
+    private Supplier supplier;
+    private Part part;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Тормоза", null));
+        supplier = supplierRepository.save(new Supplier(null, "Поставщик", null, null, null, null, null));
+        part = partRepository.save(new Part(null, "Колодки", null, category, supplier, 1500, null, null));
+        inventory = inventoryRepository.save(new Inventory(null, part, 3, LocalDateTime.now()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM stock_movement WHERE inventory_id = ?", inventory.getInventoryId());
+        inventoryRepository.delete(inventory);
+        partRepository.delete(part);
+        supplierRepository.delete(supplier);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void committedMovementIsReported() throws Exception {
+        mockMvc.perform(post("/api/inventory/{id}/add", inventory.getInventoryId()).param("quantity", "1000000"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/metrics/top-movers").param("window", "day").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].partId").value(part.getPartId()))
+                .andExpect(jsonPath("$[0].partName").value("Колодки"));
+    }
+
+    @Test
+    void rolledBackMovementIsNotRecorded() {
+        long partId = part.getPartId();
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new StockMovedEvent(partId, 5));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(topMoversTracker.top(MovementWindow.DAY, 100).stream()
+                .noneMatch(mover -> mover.partId() == partId));
+    }
+
+    @Test
+    void nonPositiveLimitIsRejected() throws Exception {
+        mockMvc.perform(get("/api/metrics/top-movers").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/top-movers").param("limit", "-5"))
+                .andExpect(status().isBadRequest());
+    }
+}
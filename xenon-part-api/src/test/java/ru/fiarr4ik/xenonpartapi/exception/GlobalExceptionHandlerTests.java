@@ -0,0 +1,25 @@
+package ru.fiarr4ik.xenonpartapi.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GlobalExceptionHandlerTests {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void conflictIsReportedAs409() {
+        ResponseEntity<Map<String, Object>> response =
+                handler.handleConflictException(new ConflictException("Классификация уже выполняется"));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(409, response.getBody().get("status"));
+        assertEquals("Conflict", response.getBody().get("error"));
+        assertEquals("Классификация уже выполняется", response.getBody().get("message"));
+    }
+}
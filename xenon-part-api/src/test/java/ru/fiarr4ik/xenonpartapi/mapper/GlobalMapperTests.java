@@ -0,0 +1,67 @@
+package ru.fiarr4ik.xenonpartapi.mapper;
+
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.config.ModelMapperConfig;
+import ru.fiarr4ik.xenonpartapi.dto.InventoryRequestDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PartRequestDTO;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Копирование запросов на изменение в сущности.
+ */
+class GlobalMapperTests {
+
+    private final GlobalMapper mapper = new GlobalMapper(new ModelMapperConfig().modelMapper());
+
+    @Test
+    void partRequestLeavesIdentifierAndAssociationsToService() {
+        Category category = new Category(1L, "Тормоза", null);
+        Supplier supplier = new Supplier(2L, "Поставщик", null, null, null, null, null);
+        Part part = new Part(10L, "Колодки", null, category, supplier, 1500, null, null);
+        PartRequestDTO request = new PartRequestDTO();
+        request.setName("Колодки передние");
+        request.setCategoryId(3L);
+        request.setSupplierId(4L);
+        request.setUnitPrice(1600);
+
+        mapper.updatePartFromDto(request, part);
+
+        assertEquals("Колодки передние", part.getName());
+        assertEquals(1600, part.getUnitPrice());
+        assertEquals(10L, part.getPartId());
+        assertSame(category, part.getCategory());
+        assertEquals(1L, category.getCategoryId());
+        assertSame(supplier, part.getSupplier());
+        assertEquals(2L, supplier.getSupplierId());
+
+        Part created = mapper.toPartEntity(request);
+        assertNull(created.getPartId());
+        assertNull(created.getCategory());
+        assertNull(created.getSupplier());
+    }
+
+    @Test
+    void inventoryRequestLeavesIdentifierAndPartToService() {
+        Part part = new Part(10L, "Колодки", null, null, null, 1500, null, null);
+        Inventory inventory = new Inventory(5L, part, 3, LocalDateTime.now());
+        InventoryRequestDTO request = new InventoryRequestDTO();
+        request.setPartId(11L);
+        request.setQuantityInStock(7);
+
+        mapper.updateInventoryFromDto(request, inventory);
+
+        assertEquals(7, inventory.getQuantityInStock());
+        assertEquals(5L, inventory.getInventoryId());
+        assertSame(part, inventory.getPart());
+        assertEquals(10L, part.getPartId());
+    }
+}
@@ -0,0 +1,63 @@
+package ru.fiarr4ik.xenonpartapi.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.fiarr4ik.xenonpartapi.service.CategoryService;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Пробы состояния и метрики сервисов.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+@AutoConfigureMockMvc
+class InstrumentationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    void healthHidesDetailsFromAnonymousCallers() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.components").doesNotExist());
+    }
+
+    @Test
+    void probesAndApplicationHealthReportUp() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void serviceCallsAreTimed() {
+        categoryService.findAll();
+
+        Timer timer = meterRegistry.find("xenon.service")
+                .tag("class", CategoryService.class.getName())
+                .tag("method", "findAll")
+                .timer();
+        assertNotNull(timer, "Нет таймера xenon.service для CategoryService.findAll");
+        assertTrue(timer.count() >= 1);
+    }
+}
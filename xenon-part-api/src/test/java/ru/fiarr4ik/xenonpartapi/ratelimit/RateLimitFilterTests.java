@@ -0,0 +1,76 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTests {
+
+    private final RateLimitFilter filter = new RateLimitFilter(properties());
+
+    @Test
+    void limitedRouteGetsHeadersAndThen429() throws Exception {
+        MockHttpServletResponse first = perform("POST", "/api/inventory/7/remove", "10.0.0.1", null);
+        MockHttpServletResponse second = perform("POST", "/api/inventory/8/add", "10.0.0.1", null);
+        MockHttpServletResponse rejected = perform("POST", "/api/inventory/7/remove", "10.0.0.1", null);
+
+        assertEquals(200, first.getStatus());
+        assertEquals("2", first.getHeader("RateLimit-Limit"));
+        assertEquals("1", first.getHeader("RateLimit-Remaining"));
+        assertEquals("0", second.getHeader("RateLimit-Remaining"));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1000", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"status\":429"));
+    }
+
+    @Test
+    void unlimitedRoutePassesWithoutHeaders() throws Exception {
+        MockHttpServletResponse response = perform("GET", "/api/inventory/7", "10.0.0.2", null);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("RateLimit-Limit"));
+    }
+
+    @Test
+    void authenticatedUsersAreLimitedByIdNotAddress() throws Exception {
+        perform("POST", "/api/inventory/7/remove", "10.0.0.3", 1L);
+        perform("POST", "/api/inventory/7/remove", "10.0.0.3", 1L);
+
+        assertEquals(429, perform("POST", "/api/inventory/7/remove", "10.0.0.3", 1L).getStatus());
+        assertEquals(200, perform("POST", "/api/inventory/7/remove", "10.0.0.3", 2L).getStatus());
+        assertEquals(200, perform("POST", "/api/inventory/7/remove", "10.0.0.3", null).getStatus());
+    }
+
+    private MockHttpServletResponse perform(String method, String path, String address, Long userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(address);
+        if (userId != null) {
+            request.setAttribute("userId", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 200) {
+            assertNotNull(chain.getRequest());
+        }
+        return response;
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties.Group group = new RateLimitProperties.Group();
+        group.setRoutes(List.of("POST /api/inventory/{id}/add", "POST /api/inventory/{id}/remove"));
+        group.setPermitsPerSecond(0.001);
+        group.setBurst(2);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getGroups().put("stock-writes", group);
+        return properties;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutePatternTests {
+
+    @Test
+    void matchesMethodAndSegments() {
+        RoutePattern route = RoutePattern.parse("post /api/inventory/{id}/remove");
+
+        assertTrue(route.matches("POST", "/api/inventory/12/remove"));
+        assertFalse(route.matches("GET", "/api/inventory/12/remove"));
+        assertFalse(route.matches("POST", "/api/inventory//remove"));
+        assertFalse(route.matches("POST", "/api/inventory/12/removed"));
+        assertFalse(route.matches("POST", "/api/inventory/12/remove/extra"));
+        assertFalse(route.matches("POST", "/api/inventory/12"));
+    }
+
+    @Test
+    void rejectsMalformedRoutes() {
+        assertThrows(IllegalArgumentException.class, () -> RoutePattern.parse("/api/parts"));
+        assertThrows(IllegalArgumentException.class, () -> RoutePattern.parse("GET api/parts"));
+    }
+}
@@ -0,0 +1,160 @@
+package ru.fiarr4ik.xenonpartapi.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    void allowsBurstThenRejects() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5, 100);
+
+        for (int i = 0; i < 5; i++) {
+            TokenBucketLimiter.Decision decision = limiter.tryAcquire("client", START);
+            assertTrue(decision.allowed());
+            assertEquals(4 - i, decision.remaining());
+            assertEquals(0, decision.retryAfterNanos());
+        }
+        TokenBucketLimiter.Decision rejected = limiter.tryAcquire("client", START);
+
+        assertFalse(rejected.allowed());
+        assertEquals(0, rejected.remaining());
+        assertEquals(SECOND / 10, rejected.retryAfterNanos());
+        assertEquals(5 * SECOND / 10, rejected.resetNanos());
+    }
+
+    @Test
+    void refillsOneRequestPerEmissionInterval() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 2, 100);
+        limiter.tryAcquire("client", START);
+        limiter.tryAcquire("client", START);
+
+        assertFalse(limiter.tryAcquire("client", START + SECOND / 10 - 1).allowed());
+        assertTrue(limiter.tryAcquire("client", START + SECOND / 10).allowed());
+        assertFalse(limiter.tryAcquire("client", START + SECOND / 10).allowed());
+
+        // После полного восстановления снова доступен весь запас
+        TokenBucketLimiter.Decision rested = limiter.tryAcquire("client", START + 10 * SECOND);
+        assertTrue(rested.allowed());
+        assertEquals(1, rested.remaining());
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100);
+        assertTrue(limiter.tryAcquire("client", START).allowed());
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(limiter.tryAcquire("client", START + i).allowed());
+        }
+
+        assertTrue(limiter.tryAcquire("client", START + SECOND).allowed());
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100);
+
+        assertTrue(limiter.tryAcquire("first", START).allowed());
+        assertFalse(limiter.tryAcquire("first", START).allowed());
+        assertTrue(limiter.tryAcquire("second", START).allowed());
+    }
+
+    @Test
+    void newClientTakesPlaceOfRecoveredBucket() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 2);
+        limiter.tryAcquire("first", START);
+        limiter.tryAcquire("second", START + SECOND);
+
+        assertTrue(limiter.tryAcquire("third", START + SECOND).allowed());
+        assertFalse(limiter.tryAcquire("third", START + SECOND).allowed());
+        assertEquals(2, limiter.trackedClients());
+        // Занятая корзина не вытесняется и продолжает ограничивать клиента
+        assertFalse(limiter.tryAcquire("second", START + SECOND).allowed());
+    }
+
+    @Test
+    void clientsBeyondCapacityDoNotShareOneBucket() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 2);
+        limiter.tryAcquire("first", START);
+        limiter.tryAcquire("second", START);
+
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("10.0.0." + i, START).allowed()) {
+                allowed++;
+            }
+        }
+
+        // Корзины массива изредка совпадают, но перебор не исчерпывает лимит всех клиентов
+        assertTrue(allowed > 90, "allowed " + allowed);
+        assertEquals(2, limiter.trackedClients());
+        assertFalse(limiter.tryAcquire("10.0.0.1", START).allowed());
+    }
+
+    @Test
+    void evictsOnlyFullyRecoveredBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 10, 100);
+        limiter.tryAcquire("idle", START);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("busy", START + 5 * SECOND);
+        }
+
+        assertEquals(1, limiter.evictIdle(START + 6 * SECOND));
+        assertEquals(1, limiter.trackedClients());
+        assertEquals(1, limiter.evictIdle(START + 10 * SECOND));
+        assertEquals(0, limiter.trackedClients());
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedBurst() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1e-3, 100, 100);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        if (limiter.tryAcquire("client", START).allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(100, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0, 1));
+    }
+}
@@ -0,0 +1,92 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Миграции Flyway на базе, оставшейся от прежних версий приложения.
+ *
+ * <p>Flyway настраивается так же, как в {@code application.properties}: смешанные миграции
+ * и блокировка без открытой транзакции, иначе построение индексов CONCURRENTLY ждет
+ * транзакцию самого Flyway.
+ */
+class FlywayMigrationTests {
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+
+    @AfterEach
+    void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void migratesFreshDatabase() {
+        assertTimeoutPreemptively(Duration.ofMinutes(2), () -> flyway(null).migrate());
+
+        assertEquals(List.of(), invalidIndexes());
+    }
+
+    @Test
+    void stopsOnDuplicateUsernamesAndRebuildsInvalidIndexAfterRepair() {
+        flyway("1").migrate();
+        jdbcTemplate.update("INSERT INTO users (id, username) VALUES (1, 'ivan'), (2, 'ivan'), (3, 'petr'), " +
+                "(4, 'petr'), (5, 'petr'), (6, 'anna')");
+        // Упавшее построение уникального индекса оставляет его недействительным
+        assertThrows(RuntimeException.class, () ->
+                jdbcTemplate.execute("CREATE UNIQUE INDEX CONCURRENTLY uk_users_username ON users (username)"));
+        assertEquals(List.of("uk_users_username"), invalidIndexes());
+
+        FlywayException failure = assertThrows(FlywayException.class, () -> flyway(null).migrate());
+
+        assertTrue(failure.getMessage().contains("'ivan' (id 1, 2); 'petr' (id 3, 4, 5)"), failure.getMessage());
+        assertEquals(List.of("ivan", "ivan", "petr", "petr", "petr", "anna"),
+                jdbcTemplate.queryForList("SELECT username FROM users ORDER BY id", String.class));
+
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (2, 4, 5)");
+        flyway(null).repair();
+        assertTimeoutPreemptively(Duration.ofMinutes(2), () -> flyway(null).migrate());
+
+        assertEquals(List.of(), invalidIndexes());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_indexes WHERE indexname = 'uk_users_username'", Integer.class));
+    }
+
+    private Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+        if (target != null) {
+            configuration.target(target);
+        }
+        return configuration.load();
+    }
+
+    private List<String> invalidIndexes() {
+        return jdbcTemplate.queryForList("SELECT index_class.relname " +
+                "FROM pg_index index_info JOIN pg_class index_class ON index_class.oid = index_info.indexrelid " +
+                "WHERE NOT index_info.indisvalid ORDER BY 1", String.class);
+    }
+}
@@ -0,0 +1,152 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStockValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.GroupedStatisticsRow;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockDetail;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockPart;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Запросы метрик, собирающие строки сразу в записи.
+ *
+ * <p>Каждый запрос проверяется на данных теста, а JSON записей - на те же имена полей,
+ * что были у карт, которые эндпоинты метрик отдавали раньше.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+class MetricsProjectionTests {
+
+    private static final Set<String> STOCK_LEVELS = Set.of("Нет в наличии", "Низкий запас", "Средний запас", "Высокий запас");
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Category category;
+    private Supplier supplier;
+    private final List<Part> parts = new ArrayList<>();
+    private final List<Inventory> inventories = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category(null, "Проекции: тормоза", null));
+        supplier = supplierRepository.save(new Supplier(null, "Проекции: поставщик", null, null, null, null, null));
+        parts.add(partRepository.save(new Part(null, "Проекции: колодки", null, category, supplier, 1500, null, null)));
+        parts.add(partRepository.save(new Part(null, "Проекции: диск", null, category, supplier, 4000, null, null)));
+        inventories.add(inventoryRepository.save(new Inventory(null, parts.get(0), 0, LocalDateTime.now())));
+        inventories.add(inventoryRepository.save(new Inventory(null, parts.get(1), 4, LocalDateTime.now())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Inventory inventory : inventories) {
+            jdbcTemplate.update("DELETE FROM stock_movement WHERE inventory_id = ?", inventory.getInventoryId());
+        }
+        inventoryRepository.deleteAll(inventories);
+        partRepository.deleteAll(parts);
+        supplierRepository.delete(supplier);
+        categoryRepository.delete(category);
+        inventories.clear();
+        parts.clear();
+    }
+
+    @Test
+    void countsAndValuesAreGroupedIntoRecords() {
+        assertTrue(partRepository.countPartsByCategory().contains(new CategoryPartCount(category.getName(), 2)));
+        assertTrue(partRepository.countPartsBySupplier().contains(new SupplierPartCount(supplier.getName(), 2)));
+        assertTrue(partRepository.calculateValueByCategory().contains(new CategoryValue(category.getName(), 5500.0)));
+        assertTrue(partRepository.calculateValueBySupplier().contains(new SupplierValue(supplier.getName(), 5500.0)));
+    }
+
+    @Test
+    void lowStockRowsCarryQuantitiesAndValues() {
+        List<LowStockPart> lowStock = partRepository.findLowStockParts(10);
+        assertTrue(lowStock.contains(new LowStockPart("Проекции: колодки", 0)));
+        assertTrue(lowStock.contains(new LowStockPart("Проекции: диск", 4)));
+
+        List<LowStockDetail> details = inventoryRepository.getLowStockDetails(10);
+        assertTrue(details.contains(new LowStockDetail("Проекции: диск", 4, 4000, 16_000.0)));
+        for (int i = 1; i < details.size(); i++) {
+            assertTrue(details.get(i - 1).quantity() <= details.get(i).quantity(), "Детали не упорядочены по остатку");
+        }
+    }
+
+    @Test
+    void stockValueAndGroupedStatisticsMatchInventory() {
+        assertTrue(inventoryRepository.getStockValueByCategory()
+                .contains(new CategoryStockValue(category.getCategoryId(), 4L, 16_000.0)));
+
+        List<GroupedStatisticsRow> rows = partRepository.getGroupedStatistics();
+        assertTrue(rows.contains(new GroupedStatisticsRow("CATEGORY", category.getCategoryId(), 2L, 5500.0, 2L, 4L, 2L)));
+        assertTrue(rows.contains(new GroupedStatisticsRow("SUPPLIER", supplier.getSupplierId(), 2L, 5500.0, 2L, 4L, 2L)));
+    }
+
+    @Test
+    void stockDistributionUsesLevelLabels() {
+        List<StockLevelCount> distribution = inventoryRepository.getStockLevelDistribution(10, 50);
+
+        assertEquals("Нет в наличии", distribution.get(0).stockLevel());
+        assertTrue(distribution.get(0).count() >= 1);
+        assertTrue(distribution.stream().allMatch(row -> STOCK_LEVELS.contains(row.stockLevel())));
+        assertTrue(distribution.stream().anyMatch(row -> row.stockLevel().equals("Низкий запас")));
+    }
+
+    @Test
+    void recordsSerializeWithFormerMapKeys() throws Exception {
+        JsonNode detail = objectMapper.valueToTree(new LowStockDetail("Колодки", 4, 1500, 6000.0));
+        assertEquals(List.of("partName", "quantity", "unitPrice", "totalValue"), fieldNames(detail));
+
+        JsonNode level = objectMapper.valueToTree(new StockLevelCount("Низкий запас", 3));
+        assertEquals(List.of("stockLevel", "count"), fieldNames(level));
+        assertEquals(3, level.get("count").asLong());
+
+        JsonNode value = objectMapper.readTree(objectMapper.writeValueAsString(new CategoryValue("Тормоза", null)));
+        assertTrue(value.get("totalValue").isNull());
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
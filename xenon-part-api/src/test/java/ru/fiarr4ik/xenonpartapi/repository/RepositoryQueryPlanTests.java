@@ -0,0 +1,358 @@
+package ru.fiarr4ik.xenonpartapi.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.PlanRunStatus;
+import ru.fiarr4ik.xenonpartapi.entity.SampleResolution;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+import ru.fiarr4ik.xenonpartapi.user.RevokedTokenRepository;
+import ru.fiarr4ik.xenonpartapi.user.UserRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Планы запросов репозиториев на большом наборе данных.
+ *
+ * <p>Каждый запрос выполняется через репозиторий в откатываемой транзакции, его SQL
+ * и параметры перехватываются прокси источника данных, и для них строится EXPLAIN.
+ * Тест падает, если план читает большую таблицу последовательным сканированием,
+ * кроме таблиц, которые запрос по смыслу читает целиком, например агрегаты по всему каталогу.
+ *
+ * <p>Схема создается миграциями Flyway во встроенном PostgreSQL и проверяется Hibernate
+ * ({@code spring.jpa.hibernate.ddl-auto=validate}), поэтому тест заодно проверяет,
+ * что миграции совпадают с сущностями.
+ */
+@SpringBootTest(properties = {
+        "sql.accounting.enabled=false",
+        "access-log.enabled=false",
+        "rate-limit.enabled=false"
+})
+@Import(RepositoryQueryPlanTests.StatementCapture.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTests {
+
+    private static final int PARTS = 200_000;
+    private static final int USERS = 100_000;
+    private static final int PLAN_RUNS = 2_000;
+    private static final int PURCHASE_ORDERS = PLAN_RUNS * 50;
+
+    /**
+     * Таблицы с таким числом строк и больше не должны читаться последовательно.
+     */
+    private static final long BIG_TABLE_ROWS = 10_000;
+
+    private static final EmbeddedPostgres POSTGRES = EmbeddedDatabase.start();
+    private static final StatementRecorder RECORDER = new StatementRecorder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockValueSampleRepository stockValueSampleRepository;
+
+    @Autowired
+    private ReorderPlanRunRepository reorderPlanRunRepository;
+
+    @Autowired
+    private PurchaseOrderRepository purchaseOrderRepository;
+
+    @Autowired
+    private PurchaseOrderLineRepository purchaseOrderLineRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private Set<String> bigTables;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'Категория ' || i FROM generate_series(1, 200) i");
+        jdbcTemplate.update("INSERT INTO suppliers (name, lead_time_days) " +
+                "SELECT 'Поставщик ' || i, 3 + i % 25 FROM generate_series(1, 500) i");
+        jdbcTemplate.update("INSERT INTO part (name, category_id, supplier_id, unit_price, abc_class, xyz_class) " +
+                "SELECT 'Запчасть ' || i, 1 + i % 200, 1 + i % 500, 10 + i % 1000, " +
+                "(ARRAY['A', 'B', 'C'])[1 + i % 3], (ARRAY['X', 'Y', 'Z'])[1 + i / 3 % 3] " +
+                "FROM generate_series(1, ?) i", PARTS);
+        // Остатки равномерно распределены от 0 до 50000, низких (меньше 10) - несколько десятков
+        jdbcTemplate.update("INSERT INTO inventory (part_id, quantity_in_stock, last_restock_date) " +
+                "SELECT i, i * 7919 % 50000, localtimestamp - i % 60 * interval '1 day' " +
+                "FROM generate_series(1, ?) i", PARTS);
+        jdbcTemplate.update("INSERT INTO users (username, password, avatar_hash, avatar_content_type, tokens_valid_from) " +
+                "SELECT 'user-' || i, 'hash', " +
+                "CASE WHEN i % 50 = 0 THEN 'avatar-' || i END, " +
+                "CASE WHEN i % 50 = 0 THEN 'image/png' END, " +
+                "CASE WHEN i % 100 = 0 THEN now() - i % 720 * interval '1 hour' END " +
+                "FROM generate_series(1, ?) i", USERS);
+        jdbcTemplate.update("INSERT INTO revoked_token (token_id, user_id, revoked_at, expires_at) " +
+                "SELECT 'token-' || i, i % ?, now() - i % 43200 * interval '1 minute', " +
+                "now() - i % 43200 * interval '1 minute' + interval '31 days' " +
+                "FROM generate_series(1, 100000) i", USERS);
+        // Общий ряд и 20 категорий: сырые точки за двое суток, часовые за 90 дней, суточные за пять лет
+        seedSamples("RAW", "minute", 2_880);
+        seedSamples("HOURLY", "hour", 2_160);
+        seedSamples("DAILY", "day", 1_825);
+        jdbcTemplate.update("INSERT INTO reorder_plan_run " +
+                "(plan_date, status, last_part_id, processed_parts, started_at, finished_at) " +
+                "SELECT current_date - r, 'COMPLETED', ?, ?, localtimestamp - r * interval '1 day', " +
+                "localtimestamp - r * interval '1 day' + interval '1 hour' " +
+                "FROM generate_series(1, ?) r", PARTS, PARTS, PLAN_RUNS);
+        jdbcTemplate.update("INSERT INTO purchase_order (run_id, supplier_id, created_at) " +
+                "SELECT r, s, localtimestamp FROM generate_series(1, ?) r, generate_series(1, 50) s", PLAN_RUNS);
+        jdbcTemplate.update("INSERT INTO purchase_order_line " +
+                "(purchase_order_id, part_id, on_hand, daily_demand, reorder_point, suggested_quantity) " +
+                "SELECT o, (o * 31 + l) % ? + 1, 5, 1.5, 20, 40 " +
+                "FROM generate_series(1, ?) o, generate_series(1, 3) l", PARTS, PURCHASE_ORDERS);
+        jdbcTemplate.execute("ANALYZE");
+
+        bigTables = Set.copyOf(jdbcTemplate.queryForList("SELECT relname FROM pg_class " +
+                "WHERE relkind = 'r' AND relnamespace = 'public'::regnamespace AND reltuples >= ?",
+                String.class, BIG_TABLE_ROWS));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesAvoidSequentialScansOfBigTables() {
+        Instant now = Instant.now();
+        LocalDateTime today = LocalDateTime.now();
+        return Stream.of(
+                query("PartRepository.findById", () -> partRepository.findById(PARTS / 2L)),
+                query("PartRepository.findDetailById", () -> partRepository.findDetailById(PARTS / 2L)),
+                query("InventoryRepository.findById", () -> inventoryRepository.findById(PARTS / 2L)),
+                query("InventoryRepository.findForStockAdjustmentById",
+                        () -> inventoryRepository.findForStockAdjustmentById(PARTS / 2L)),
+                query("InventoryRepository.getLowStockDetails", () -> inventoryRepository.getLowStockDetails(10)),
+                query("PartRepository.findLowStockParts", () -> partRepository.findLowStockParts(10)),
+                query("UserRepository.findByUsername", () -> userRepository.findByUsername("user-" + USERS / 2)),
+                query("UserRepository.existsByAvatarHash", () -> userRepository.existsByAvatarHash("avatar-350")),
+                query("UserRepository.findTokenCutoffsSince",
+                        () -> userRepository.findTokenCutoffsSince(revokedTokenRepository.currentTxidWatermark(),
+                                now.minus(1, ChronoUnit.HOURS))),
+                query("RevokedTokenRepository.findRevokedSince",
+                        () -> revokedTokenRepository.findRevokedSince(revokedTokenRepository.currentTxidWatermark(), now)),
+                query("RevokedTokenRepository.deleteExpired", () -> revokedTokenRepository.deleteExpired(now)),
+                query("StockValueSampleRepository.findByResolutionAndCategoryIdIsNull...",
+                        () -> stockValueSampleRepository.findByResolutionAndCategoryIdIsNullAndBucketStartBetweenOrderByBucketStart(
+                                SampleResolution.RAW, today.minusHours(1), today)),
+                query("StockValueSampleRepository.findByResolutionAndCategoryId...",
+                        () -> stockValueSampleRepository.findByResolutionAndCategoryIdAndBucketStartBetweenOrderByBucketStart(
+                                SampleResolution.HOURLY, 7L, today.minusDays(1), today)),
+                query("StockValueSampleRepository.findFirstByResolutionOrderByBucketStartAsc",
+                        () -> stockValueSampleRepository.findFirstByResolutionOrderByBucketStartAsc(SampleResolution.RAW)),
+                query("StockValueSampleRepository.findFirstByResolutionOrderByBucketStartDesc",
+                        () -> stockValueSampleRepository.findFirstByResolutionOrderByBucketStartDesc(SampleResolution.HOURLY)),
+                query("StockValueSampleRepository.rollupToHourly",
+                        () -> stockValueSampleRepository.rollupToHourly(today.minusHours(2), today.minusHours(1))),
+                query("StockValueSampleRepository.rollupToDaily",
+                        () -> stockValueSampleRepository.rollupToDaily(today.minusDays(2), today.minusDays(1))),
+                query("StockValueSampleRepository.deleteOlderThan",
+                        () -> stockValueSampleRepository.deleteOlderThan(SampleResolution.RAW, today.minusDays(2))),
+                query("ReorderPlanRunRepository.findFirstByStatusOrderByPlanDateDescRunIdDesc",
+                        () -> reorderPlanRunRepository.findFirstByStatusOrderByPlanDateDescRunIdDesc(PlanRunStatus.COMPLETED)),
+                query("PurchaseOrderRepository.findByRunId", () -> purchaseOrderRepository.findByRunId(PLAN_RUNS / 2L)),
+                query("PurchaseOrderLineRepository.findByPurchaseOrderIdInOrderByPartId",
+                        () -> purchaseOrderLineRepository.findByPurchaseOrderIdInOrderByPartId(
+                                List.of(PURCHASE_ORDERS / 2L, PURCHASE_ORDERS / 2L + 1))),
+
+                // Агрегаты и список по всему каталогу читают таблицы целиком
+                query("InventoryRepository.getInventoryOverview",
+                        () -> inventoryRepository.getInventoryOverview(), "inventory"),
+                query("InventoryRepository.getStockLevelDistribution",
+                        () -> inventoryRepository.getStockLevelDistribution(10, 50), "inventory"),
+                query("InventoryRepository.getStockValueByCategory",
+                        () -> inventoryRepository.getStockValueByCategory(), "inventory", "part"),
+                query("PartRepository.countPartsByCategory", () -> partRepository.countPartsByCategory(), "part"),
+                query("PartRepository.countPartsBySupplier", () -> partRepository.countPartsBySupplier(), "part"),
+                query("PartRepository.calculateValueByCategory", () -> partRepository.calculateValueByCategory(), "part"),
+                query("PartRepository.calculateValueBySupplier", () -> partRepository.calculateValueBySupplier(), "part"),
+                query("PartRepository.getOverallMetrics", () -> partRepository.getOverallMetrics(), "part"),
+                query("PartRepository.getGroupedStatistics",
+                        () -> partRepository.getGroupedStatistics(), "part", "inventory"),
+                query("PartRepository.findAllDetails", () -> partRepository.findAllDetails(), "part"),
+
+                // Каждый класс ABC или XYZ - крупная доля каталога, индекс здесь дороже чтения таблицы
+                query("PartRepository.findByAbcClass", () -> partRepository.findByAbcClass(AbcClass.A), "part"),
+                query("PartRepository.findByXyzClass", () -> partRepository.findByXyzClass(XyzClass.X), "part"),
+                query("PartRepository.findByAbcClassAndXyzClass",
+                        () -> partRepository.findByAbcClassAndXyzClass(AbcClass.A, XyzClass.X), "part"));
+    }
+
+    private DynamicTest query(String name, Runnable action, String... fullScanTables) {
+        return DynamicTest.dynamicTest(name, () -> {
+            List<CapturedStatement> statements = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                statements.addAll(RECORDER.capture(action));
+                status.setRollbackOnly();
+            });
+            assertFalse(statements.isEmpty(), "Запрос не выполнил ни одного SQL-запроса");
+
+            Set<String> allowed = Set.of(fullScanTables);
+            for (CapturedStatement statement : statements) {
+                JsonNode plan = explain(statement).path(0).path("Plan");
+                List<String> scanned = new ArrayList<>();
+                collectSequentialScans(plan, scanned);
+                for (String table : scanned) {
+                    if (bigTables.contains(table) && !allowed.contains(table)) {
+                        fail("Последовательное сканирование таблицы " + table + " в запросе\n"
+                                + statement.sql() + "\nплан:\n" + plan.toPrettyString());
+                    }
+                }
+            }
+        });
+    }
+
+    private JsonNode explain(CapturedStatement statement) {
+        return jdbcTemplate.execute((ConnectionCallback<JsonNode>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statement.sql())) {
+                for (ParameterSetOperation parameter : statement.parameters()) {
+                    parameter.getMethod().invoke(explain, parameter.getArgs());
+                }
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    return objectMapper.readTree(rs.getString(1));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Не удалось передать параметры запроса в EXPLAIN", e);
+            }
+        });
+    }
+
+    private static void collectSequentialScans(JsonNode plan, List<String> tables) {
+        // Параллельное сканирование имеет тот же тип узла с признаком Parallel Aware
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            tables.add(plan.path("Relation Name").asText());
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSequentialScans(child, tables);
+        }
+    }
+
+    private void seedSamples(String resolution, String unit, int points) {
+        jdbcTemplate.update("INSERT INTO stock_value_sample " +
+                "(resolution, bucket_start, category_id, total_quantity, total_value) " +
+                "SELECT ?, date_trunc('" + unit + "', localtimestamp) - n * interval '1 " + unit + "', " +
+                "NULLIF(c, 0), 1000 + n % 100, 100000 + n % 1000 " +
+                "FROM generate_series(0, ?) n, generate_series(0, 20) c", resolution, points - 1);
+    }
+
+    /**
+     * SQL-запрос и параметры его первого выполнения.
+     */
+    private record CapturedStatement(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    /**
+     * Запоминает запросы, выполненные в текущем потоке во время {@link #capture(Runnable)}.
+     * Запросы фоновых задач приложения в других потоках не учитываются.
+     */
+    private static final class StatementRecorder implements QueryExecutionListener {
+
+        private final ThreadLocal<List<CapturedStatement>> captured = new ThreadLocal<>();
+
+        List<CapturedStatement> capture(Runnable action) {
+            List<CapturedStatement> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                action.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<CapturedStatement> statements = captured.get();
+            if (statements == null) {
+                return;
+            }
+            for (QueryInfo queryInfo : queryInfoList) {
+                List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+                statements.add(new CapturedStatement(queryInfo.getQuery(),
+                        parameters.isEmpty() ? List.of() : List.copyOf(parameters.get(0))));
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        /**
+         * Оборачивает источник данных прокси, передающим запросы в {@link #RECORDER}.
+         */
+        @Bean
+        static BeanPostProcessor statementCapturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(dataSource).name(beanName).listener(RECORDER).build();
+                }
+            };
+        }
+    }
+}
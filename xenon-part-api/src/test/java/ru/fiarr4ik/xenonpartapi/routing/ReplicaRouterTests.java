@@ -0,0 +1,185 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Маршрутизация соединений между основной базой и репликой.
+ *
+ * <p>Базы заменены заглушками, которые отвечают на запросы позиции журнала
+ * значениями из полей теста.
+ */
+class ReplicaRouterTests {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private String primaryLsn = "0/100";
+    private String replayLsn = "0/100";
+    private boolean inRecovery = true;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRouter router;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariDataSource primary = mock(HikariDataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ResultSet currentLsn = statement(primaryConnection);
+        when(currentLsn.getString(1)).thenAnswer(invocation -> primaryLsn);
+
+        HikariDataSource replica = mock(HikariDataSource.class);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        ResultSet replay = statement(replicaConnection);
+        when(replay.getBoolean(1)).thenAnswer(invocation -> inRecovery);
+        when(replay.getString(2)).thenAnswer(invocation -> replayLsn);
+
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ReplicaRouter(primary, List.of(new ReplicaRouter.Replica("replica", replica)),
+                60_000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.exit();
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void parsesLsnAsUnsignedNumber() {
+        assertEquals(0L, ReplicaRouter.parseLsn("0/0"));
+        assertEquals(0x16_B374D848L, ReplicaRouter.parseLsn("16/B374D848"));
+        assertEquals(0x1_00000000L, ReplicaRouter.parseLsn("1/0"));
+        assertEquals(-1L, ReplicaRouter.parseLsn("FFFFFFFF/FFFFFFFF"));
+        assertThrows(NumberFormatException.class, () -> ReplicaRouter.parseLsn("0/XYZ"));
+    }
+
+    @Test
+    void readsUsePrimaryUntilReplicaIsChecked() throws SQLException {
+        assertSame(primaryConnection, readConnection());
+
+        router.checkLag();
+
+        assertSame(replicaConnection, readConnection());
+        assertEquals(1, meterRegistry.get("xenon.datasource.connections").tag("target", "replica").counter().count());
+        assertEquals(1, meterRegistry.get("xenon.datasource.connections").tag("target", "primary-fallback")
+                .counter().count());
+    }
+
+    @Test
+    void writesAndPrimaryOnlyRequestsUsePrimary() throws SQLException {
+        router.checkLag();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        router.getConnection().close();
+        assertEquals(1, meterRegistry.get("xenon.datasource.connections").tag("target", "primary").counter().count());
+
+        RoutingContext.enter(true, "client");
+        assertSame(primaryConnection, readConnection());
+    }
+
+    @Test
+    void laggingOrPromotedReplicaIsSkipped() throws SQLException {
+        primaryLsn = "0/200";
+        router.checkLag();
+        assertSame(primaryConnection, readConnection());
+
+        replayLsn = "0/200";
+        router.checkLag();
+        assertSame(replicaConnection, readConnection());
+
+        inRecovery = false;
+        router.checkLag();
+        assertSame(primaryConnection, readConnection());
+    }
+
+    @Test
+    void clientReadsItsOwnWriteFromPrimaryUntilReplicaReplaysIt() throws SQLException {
+        router.checkLag();
+
+        RoutingContext.enter(false, "writer");
+        router.getConnection().close();
+        RoutingContext.exit();
+
+        RoutingContext.enter(false, "writer");
+        assertSame(primaryConnection, readConnection());
+        RoutingContext.enter(false, "reader");
+        assertSame(replicaConnection, readConnection());
+        // Общий результат должен учитывать запись любого клиента
+        assertSame(primaryConnection, RoutingContext.shared(this::readConnectionUnchecked));
+
+        primaryLsn = "0/200";
+        replayLsn = "0/200";
+        router.checkLag();
+        RoutingContext.enter(false, "writer");
+        assertSame(replicaConnection, readConnection());
+        assertSame(replicaConnection, RoutingContext.shared(this::readConnectionUnchecked));
+    }
+
+    @Test
+    void primaryReadsBypassReplicasAndRestoreContext() throws SQLException {
+        router.checkLag();
+
+        assertSame(primaryConnection, RoutingContext.primary(this::readConnectionUnchecked));
+        assertNull(RoutingContext.current());
+
+        RoutingContext.enter(false, "reader");
+        RoutingContext previous = RoutingContext.current();
+        assertSame(primaryConnection, RoutingContext.primary(this::readConnectionUnchecked));
+        assertSame(previous, RoutingContext.current());
+        assertSame(replicaConnection, readConnection());
+    }
+
+    @Test
+    void routingDataSourceRejectsExplicitCredentials() {
+        RoutingDataSource dataSource = new RoutingDataSource(router);
+
+        assertThrows(SQLFeatureNotSupportedException.class, () -> dataSource.getConnection("user", "password"));
+    }
+
+    private Connection readConnection() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            return router.getConnection();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    private Connection readConnectionUnchecked() {
+        try {
+            return readConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResultSet statement(Connection connection) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        return resultSet;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplicaRoutingConfigTests {
+
+    private static EmbeddedPostgres postgres;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void startDatabase() {
+        postgres = EmbeddedDatabase.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void poolsPublishConnectionMetricsUnderTheirNames() throws Exception {
+        try (ReplicaRouter router = new ReplicaRoutingConfig().replicaRouter(primary(), replicas(null, null),
+                meterRegistry)) {
+            router.getConnection().close();
+            router.checkLag();
+
+            for (String pool : List.of("primary", "replica-0", "replica-1")) {
+                assertEquals(1, meterRegistry.get("hikaricp.connections.max").tag("pool", pool).gauges().size());
+            }
+        }
+    }
+
+    @Test
+    void duplicatePoolNamesAreRejected() {
+        assertThrows(IllegalStateException.class, () -> new ReplicaRoutingConfig()
+                .replicaRouter(primary(), replicas("primary", null), meterRegistry));
+        assertThrows(IllegalStateException.class, () -> new ReplicaRoutingConfig()
+                .replicaRouter(primary(), replicas("replica", "replica"), meterRegistry));
+    }
+
+    private static DataSourceProperties primary() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        properties.setUsername("postgres");
+        properties.setPassword("postgres");
+        return properties;
+    }
+
+    private static ReplicaRoutingProperties replicas(String first, String second) {
+        ReplicaRoutingProperties properties = new ReplicaRoutingProperties();
+        for (String name : new String[] {first, second}) {
+            ReplicaRoutingProperties.Instance instance = new ReplicaRoutingProperties.Instance();
+            instance.setName(name);
+            instance.setUrl(postgres.getJdbcUrl("postgres", "postgres"));
+            instance.setMaximumPoolSize(2);
+            properties.getInstances().add(instance);
+        }
+        return properties;
+    }
+}
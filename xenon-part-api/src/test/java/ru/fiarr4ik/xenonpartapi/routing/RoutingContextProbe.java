@@ -0,0 +1,19 @@
+package ru.fiarr4ik.xenonpartapi.routing;
+
+/**
+ * Доступ тестов других пакетов к состоянию {@link RoutingContext} текущего потока.
+ */
+public final class RoutingContextProbe {
+
+    private RoutingContextProbe() {
+    }
+
+    /**
+     * Показывает, вычисляется ли сейчас общий для всех клиентов результат.
+     *
+     * @return {@code true} внутри {@link RoutingContext#shared}
+     */
+    public static boolean isShared() {
+        return RoutingContext.isShared();
+    }
+}
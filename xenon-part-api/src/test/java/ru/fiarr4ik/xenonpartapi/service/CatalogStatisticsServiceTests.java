@@ -0,0 +1,250 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierInventory;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierLowStock;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierStatistics;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.repository.CategoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+import ru.fiarr4ik.xenonpartapi.repository.SupplierRepository;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Статистика по категориям и поставщикам из одного запроса с GROUPING SETS.
+ *
+ * <p>Результат сверяется с отдельными запросами, которые эндпоинты выполняли раньше:
+ * группы с одинаковым названием объединяются, группы без запчастей отдаются с нулями,
+ * запчасть с несколькими записями инвентаря учитывается в цене один раз.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+class CatalogStatisticsServiceTests {
+
+    private static final double DELTA = 1e-6;
+
+    @Autowired
+    private CatalogStatisticsService catalogStatisticsService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Supplier> suppliers = new ArrayList<>();
+    private final List<Part> parts = new ArrayList<>();
+    private final List<Inventory> inventories = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Category brakes = category("Статистика: тормоза");
+        Category brakesDuplicate = category("Статистика: тормоза");
+        Category filters = category("Статистика: фильтры");
+        category("Статистика: пустая");
+        Supplier first = supplier("Статистика: первый");
+        Supplier second = supplier("Статистика: второй");
+        supplier("Статистика: пустой");
+
+        Part pads = part("Колодки", brakes, first, 1500);
+        Part discs = part("Диски", brakesDuplicate, second, 4000);
+        Part oilFilter = part("Масляный фильтр", filters, first, 700);
+        part("Воздушный фильтр", filters, second, 300);
+        inventory(pads, 3);
+        inventory(pads, 20);
+        inventory(discs, 0);
+        inventory(oilFilter, 9);
+        inventory(oilFilter, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Inventory inventory : inventories) {
+            jdbcTemplate.update("DELETE FROM stock_movement WHERE inventory_id = ?", inventory.getInventoryId());
+        }
+        inventoryRepository.deleteAll(inventories);
+        partRepository.deleteAll(parts);
+        supplierRepository.deleteAll(suppliers);
+        categoryRepository.deleteAll(categories);
+        inventories.clear();
+        parts.clear();
+        suppliers.clear();
+        categories.clear();
+    }
+
+    @Test
+    void mergesGroupsByNameAndKeepsEmptyGroups() {
+        CatalogStatisticsService.Snapshot snapshot = catalogStatisticsService.calculate();
+
+        Map<String, CategoryStatistics> categoryStats = byName(snapshot.categoryStats(), CategoryStatistics::categoryName);
+        assertEquals(new CategoryStatistics("Статистика: тормоза", 2, 5500.0, 2750.0),
+                categoryStats.get("Статистика: тормоза"));
+        assertEquals(new CategoryStatistics("Статистика: фильтры", 2, 1000.0, 500.0),
+                categoryStats.get("Статистика: фильтры"));
+        assertEquals(new CategoryStatistics("Статистика: пустая", 0, null, null),
+                categoryStats.get("Статистика: пустая"));
+
+        Map<String, CategoryInventory> categoryInventory =
+                byName(snapshot.categoryInventory(), CategoryInventory::categoryName);
+        assertEquals(new CategoryInventory("Статистика: тормоза", 3, 23L), categoryInventory.get("Статистика: тормоза"));
+        assertEquals(new CategoryInventory("Статистика: фильтры", 2, 19L), categoryInventory.get("Статистика: фильтры"));
+        assertEquals(new CategoryInventory("Статистика: пустая", 0, null), categoryInventory.get("Статистика: пустая"));
+
+        Map<String, SupplierStatistics> supplierStats = byName(snapshot.supplierStats(), SupplierStatistics::supplierName);
+        assertEquals(new SupplierStatistics("Статистика: первый", 2, 2200.0, 1100.0),
+                supplierStats.get("Статистика: первый"));
+        assertEquals(new SupplierStatistics("Статистика: пустой", 0, null, null),
+                supplierStats.get("Статистика: пустой"));
+
+        Map<String, SupplierInventory> supplierInventory =
+                byName(snapshot.supplierInventory(), SupplierInventory::supplierName);
+        assertEquals(new SupplierInventory("Статистика: первый", 4, 42L), supplierInventory.get("Статистика: первый"));
+        assertEquals(new SupplierInventory("Статистика: второй", 1, 0L), supplierInventory.get("Статистика: второй"));
+
+        Map<String, SupplierLowStock> lowStock = byName(snapshot.supplierLowStock(), SupplierLowStock::supplierName);
+        assertEquals(2, lowStock.get("Статистика: первый").lowStockCount());
+        assertEquals(1, lowStock.get("Статистика: второй").lowStockCount());
+        assertEquals(0, lowStock.get("Статистика: пустой").lowStockCount());
+    }
+
+    @Test
+    void matchesFormerPerSliceQueries() {
+        CatalogStatisticsService.Snapshot snapshot = catalogStatisticsService.calculate();
+
+        Map<String, Map<String, Object>> formerCategories = former("categories", "category_id");
+        assertEquals(formerCategories.size(), snapshot.categoryStats().size());
+        for (CategoryStatistics stats : snapshot.categoryStats()) {
+            Map<String, Object> row = formerCategories.get(stats.categoryName());
+            assertStatistics(row, stats.partCount(), stats.totalValue(), stats.averagePrice());
+        }
+        for (CategoryInventory inventory : snapshot.categoryInventory()) {
+            Map<String, Object> row = formerCategories.get(inventory.categoryName());
+            assertInventory(row, inventory.inventoryCount(), inventory.totalQuantity());
+        }
+
+        Map<String, Map<String, Object>> formerSuppliers = former("suppliers", "supplier_id");
+        assertEquals(formerSuppliers.size(), snapshot.supplierStats().size());
+        for (SupplierStatistics stats : snapshot.supplierStats()) {
+            Map<String, Object> row = formerSuppliers.get(stats.supplierName());
+            assertStatistics(row, stats.partCount(), stats.totalValue(), stats.averagePrice());
+        }
+        for (SupplierInventory inventory : snapshot.supplierInventory()) {
+            Map<String, Object> row = formerSuppliers.get(inventory.supplierName());
+            assertInventory(row, inventory.inventoryCount(), inventory.totalQuantity());
+        }
+        for (SupplierLowStock lowStock : snapshot.supplierLowStock()) {
+            assertEquals(((Number) formerSuppliers.get(lowStock.supplierName()).get("low_stock_count")).longValue(),
+                    lowStock.lowStockCount());
+        }
+    }
+
+    /**
+     * Показатели групп так, как их считали прежние запросы: цены - соединением группы
+     * с запчастями, остатки - соединением еще и с инвентарем, с группировкой по названию.
+     */
+    private Map<String, Map<String, Object>> former(String table, String idColumn) {
+        String prices = "SELECT g.name, COUNT(part.part_id) AS part_count, SUM(part.unit_price) AS total_value, " +
+                "AVG(part.unit_price) AS average_price " +
+                "FROM " + table + " g LEFT JOIN part ON part." + idColumn + " = g." + idColumn + " GROUP BY g.name";
+        String stock = "SELECT g.name, COUNT(inventory.inventory_id) AS inventory_count, " +
+                "SUM(inventory.quantity_in_stock) AS total_quantity, " +
+                "SUM(CASE WHEN inventory.quantity_in_stock < 10 THEN 1 ELSE 0 END) AS low_stock_count " +
+                "FROM " + table + " g LEFT JOIN part ON part." + idColumn + " = g." + idColumn + " " +
+                "LEFT JOIN inventory ON inventory.part_id = part.part_id GROUP BY g.name";
+        Map<String, Map<String, Object>> rows = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(prices)) {
+            rows.put((String) row.get("name"), new HashMap<>(row));
+        }
+        for (Map<String, Object> row : jdbcTemplate.queryForList(stock)) {
+            rows.get((String) row.get("name")).putAll(row);
+        }
+        return rows;
+    }
+
+    private static void assertStatistics(Map<String, Object> row, long partCount, Double totalValue, Double averagePrice) {
+        assertNotNull(row);
+        assertEquals(((Number) row.get("part_count")).longValue(), partCount);
+        assertNullableEquals(row.get("total_value"), totalValue);
+        assertNullableEquals(row.get("average_price"), averagePrice);
+    }
+
+    private static void assertInventory(Map<String, Object> row, long inventoryCount, Long totalQuantity) {
+        assertEquals(((Number) row.get("inventory_count")).longValue(), inventoryCount);
+        if (row.get("total_quantity") == null) {
+            assertNull(totalQuantity);
+        } else {
+            assertEquals(((Number) row.get("total_quantity")).longValue(), totalQuantity);
+        }
+    }
+
+    private static void assertNullableEquals(Object expected, Double actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertEquals(((Number) expected).doubleValue(), actual, DELTA);
+        }
+    }
+
+    private static <T> Map<String, T> byName(List<T> rows, Function<T, String> name) {
+        Map<String, T> result = new HashMap<>();
+        for (T row : rows) {
+            result.put(name.apply(row), row);
+        }
+        return result;
+    }
+
+    private Category category(String name) {
+        Category category = categoryRepository.save(new Category(null, name, null));
+        categories.add(category);
+        return category;
+    }
+
+    private Supplier supplier(String name) {
+        Supplier supplier = supplierRepository.save(new Supplier(null, name, null, null, null, null, null));
+        suppliers.add(supplier);
+        return supplier;
+    }
+
+    private Part part(String name, Category category, Supplier supplier, double price) {
+        Part part = partRepository.save(new Part(null, "Статистика: " + name, null, category, supplier, price, null, null));
+        parts.add(part);
+        return part;
+    }
+
+    private void inventory(Part part, int quantity) {
+        inventories.add(inventoryRepository.save(new Inventory(null, part, quantity, LocalDateTime.now())));
+    }
+}
@@ -0,0 +1,196 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.fiarr4ik.xenonpartapi.dto.PurchaseOrderDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PurchaseOrderLineDTO;
+import ru.fiarr4ik.xenonpartapi.dto.ReorderPlanRunDTO;
+import ru.fiarr4ik.xenonpartapi.entity.PlanRunStatus;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Планировщик закупок на встроенной базе: инвентарь читается блоками по два, прерванный
+ * запуск продолжается с контрольной точки без повторных строк заказов, строки собираются
+ * в черновики по поставщикам, а ручной запуск выполняется в фоне.
+ *
+ * <p>Тест работает со своей базой и без задач по расписанию: иначе планировщик по cron
+ * мог бы начать собственный запуск посреди проверок.
+ */
+@SpringBootTest(properties = {
+        "scheduling.enabled=false",
+        "purchasing.planner.chunk-size=2",
+        "purchasing.planner.history-days=30"
+})
+class ReorderPlanningDatabaseTests {
+
+    private static final EmbeddedPostgres POSTGRES = EmbeddedDatabase.start();
+    private static final long BRAKES_SUPPLIER = 901;
+    private static final long FILTERS_SUPPLIER = 902;
+
+    @Autowired
+    private ReorderPlanningService planningService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) VALUES (901, 'План: запчасти')");
+        jdbcTemplate.update("INSERT INTO suppliers (supplier_id, name, lead_time_days) VALUES " +
+                "(901, 'План: тормоза', 7), (902, 'План: фильтры', 14)");
+        // Блоки по два: [901, 902], [903, 904], [905, 906], [907]
+        for (long partId = 901; partId <= 906; partId++) {
+            part(partId, partId % 2 == 1 ? BRAKES_SUPPLIER : FILTERS_SUPPLIER);
+            inventory(partId, partId, 1);
+            dailyRemovals(partId, 5);
+        }
+        // Остаток одной запчасти разложен по двум строкам инвентаря
+        inventory(911, 901, 2);
+        // Запас покрывает расход - заказ не нужен
+        part(907, BRAKES_SUPPLIER);
+        inventory(907, 907, 10_000);
+        dailyRemovals(907, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS fail_planned_line ON purchase_order_line");
+        jdbcTemplate.execute("DROP FUNCTION IF EXISTS fail_planned_line()");
+        jdbcTemplate.update("DELETE FROM purchase_order_line");
+        jdbcTemplate.update("DELETE FROM purchase_order");
+        jdbcTemplate.update("DELETE FROM reorder_plan_run");
+        jdbcTemplate.update("DELETE FROM stock_movement");
+        jdbcTemplate.update("DELETE FROM inventory");
+        jdbcTemplate.update("DELETE FROM part");
+        jdbcTemplate.update("DELETE FROM suppliers");
+        jdbcTemplate.update("DELETE FROM categories");
+    }
+
+    @Test
+    void planGroupsLinesBySupplierChunkByChunk() {
+        ReorderPlanRunDTO run = planningService.plan();
+
+        assertEquals(PlanRunStatus.COMPLETED, run.getStatus());
+        assertEquals(7, run.getProcessedParts());
+        assertEquals(907, lastPartId(run.getRunId()));
+        Map<Long, List<Long>> partsBySupplier = planningService.latestDrafts().stream()
+                .collect(Collectors.toMap(PurchaseOrderDTO::getSupplierId,
+                        order -> order.getLines().stream().map(PurchaseOrderLineDTO::getPartId).toList()));
+        assertEquals(Map.of(BRAKES_SUPPLIER, List.of(901L, 903L, 905L), FILTERS_SUPPLIER, List.of(902L, 904L, 906L)),
+                partsBySupplier);
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT on_hand FROM purchase_order_line WHERE part_id = 901", Long.class));
+    }
+
+    @Test
+    void failedChunkIsResumedFromCheckpointWithoutDuplicateLines() {
+        jdbcTemplate.execute("CREATE FUNCTION fail_planned_line() RETURNS trigger AS $$ " +
+                "BEGIN IF NEW.part_id = 905 THEN RAISE EXCEPTION 'сбой блока'; END IF; RETURN NEW; END $$ " +
+                "LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER fail_planned_line BEFORE INSERT ON purchase_order_line " +
+                "FOR EACH ROW EXECUTE FUNCTION fail_planned_line()");
+
+        assertThrows(DataAccessException.class, planningService::plan);
+
+        ReorderPlanRunDTO interrupted = planningService.latestRun().orElseThrow();
+        assertEquals(PlanRunStatus.RUNNING, interrupted.getStatus());
+        assertEquals(4, interrupted.getProcessedParts());
+        assertEquals(904, lastPartId(interrupted.getRunId()));
+        List<Long> linesBeforeResume = lineIds();
+        assertEquals(4, linesBeforeResume.size());
+
+        jdbcTemplate.execute("DROP TRIGGER fail_planned_line ON purchase_order_line");
+        ReorderPlanRunDTO resumed = planningService.plan();
+
+        assertEquals(interrupted.getRunId(), resumed.getRunId());
+        assertEquals(PlanRunStatus.COMPLETED, resumed.getStatus());
+        assertEquals(7, resumed.getProcessedParts());
+        assertEquals(List.of(901L, 902L, 903L, 904L, 905L, 906L), jdbcTemplate.queryForList(
+                "SELECT part_id FROM purchase_order_line ORDER BY part_id", Long.class));
+        // Строки обработанных блоков не пересчитывались
+        assertTrue(lineIds().containsAll(linesBeforeResume));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM purchase_order", Long.class));
+    }
+
+    @Test
+    void startRunsInBackgroundAndTodaysPlanIsNotRebuilt() throws InterruptedException {
+        ReorderPlanRunDTO started = planningService.start();
+
+        assertEquals(PlanRunStatus.RUNNING, started.getStatus());
+        ReorderPlanRunDTO finished = awaitCompletion();
+        assertEquals(started.getRunId(), finished.getRunId());
+        assertEquals(7, finished.getProcessedParts());
+
+        ReorderPlanRunDTO again = planningService.start();
+        assertEquals(started.getRunId(), again.getRunId());
+        assertEquals(PlanRunStatus.COMPLETED, again.getStatus());
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT count(*) FROM purchase_order_line", Long.class));
+    }
+
+    private ReorderPlanRunDTO awaitCompletion() throws InterruptedException {
+        for (int attempt = 0; attempt < 200; attempt++) {
+            ReorderPlanRunDTO run = planningService.latestRun().orElseThrow();
+            if (run.getStatus() == PlanRunStatus.COMPLETED) {
+                return run;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("План закупок не сформирован за 10 секунд");
+    }
+
+    private void part(long partId, long supplierId) {
+        jdbcTemplate.update("INSERT INTO part (part_id, name, category_id, supplier_id, unit_price) " +
+                "VALUES (?, ?, 901, ?, 100)", partId, "План: запчасть " + partId, supplierId);
+    }
+
+    private void inventory(long inventoryId, long partId, int quantity) {
+        jdbcTemplate.update("INSERT INTO inventory (inventory_id, part_id, quantity_in_stock, last_restock_date) " +
+                "VALUES (?, ?, ?, localtimestamp)", inventoryId, partId, quantity);
+    }
+
+    private void dailyRemovals(long partId, int quantity) {
+        LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        List<Object[]> removals = new ArrayList<>();
+        for (int day = 1; day <= 30; day++) {
+            removals.add(new Object[] {partId, partId, -quantity, Timestamp.valueOf(today.minusDays(day).plusHours(12))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock_movement (part_id, inventory_id, quantity, moved_at) " +
+                "VALUES (?, ?, ?, ?)", removals);
+    }
+
+    private long lastPartId(long runId) {
+        return jdbcTemplate.queryForObject("SELECT last_part_id FROM reorder_plan_run WHERE run_id = ?",
+                Long.class, runId);
+    }
+
+    private List<Long> lineIds() {
+        return jdbcTemplate.queryForList("SELECT line_id FROM purchase_order_line", Long.class);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReorderPlanningServiceTests {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void constantDemandHasNoDeviation() {
+        double[] daily = new double[90];
+        Arrays.fill(daily, 4);
+
+        ReorderPlanningService.Demand demand = ReorderPlanningService.smooth(daily, 0.2, 7);
+
+        assertEquals(4, demand.daily(), DELTA);
+        assertEquals(0, demand.deviation(), DELTA);
+    }
+
+    @Test
+    void smoothingStartsFromWarmUpAverage() {
+        // Начало: уровень 3, отклонение 1; день 2: ошибка 3, день 3: ошибка 3.5
+        ReorderPlanningService.Demand demand = ReorderPlanningService.smooth(new double[] {2, 4, 6, 8}, 0.5, 2);
+
+        assertEquals(6.25, demand.daily(), DELTA);
+        assertEquals(1.25 * 2.75, demand.deviation(), DELTA);
+    }
+
+    @Test
+    void firstDayDoesNotSetTheLevel() {
+        ReorderPlanningService.Demand demand =
+                ReorderPlanningService.smooth(new double[] {10, 0, 0, 0, 0, 0, 0}, 0.2, 7);
+
+        assertEquals(10.0 / 7, demand.daily(), DELTA);
+    }
+
+    @Test
+    void shortHistoryIsAveragedWhole() {
+        ReorderPlanningService.Demand demand = ReorderPlanningService.smooth(new double[] {3, 5}, 0.2, 7);
+
+        assertEquals(4, demand.daily(), DELTA);
+        assertEquals(1.25, demand.deviation(), DELTA);
+    }
+}
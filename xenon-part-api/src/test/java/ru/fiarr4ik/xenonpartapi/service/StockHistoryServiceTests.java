@@ -0,0 +1,241 @@
+package ru.fiarr4ik.xenonpartapi.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.fiarr4ik.xenonpartapi.dto.StockHistoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.StockValuePointDTO;
+import ru.fiarr4ik.xenonpartapi.entity.SampleResolution;
+import ru.fiarr4ik.xenonpartapi.entity.StockValueSample;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+import ru.fiarr4ik.xenonpartapi.repository.StockValueSampleRepository;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Замеры остатков, их свертка в часовые и суточные точки, удаление по сроку хранения
+ * и выбор разрешения для запрошенного периода.
+ *
+ * <p>Тест работает со своей базой и без задач по расписанию: иначе сэмплер других
+ * контекстов добавлял бы замеры посреди проверок свертки.
+ */
+@SpringBootTest(properties = {
+        "scheduling.enabled=false",
+        "metrics.history.sample-interval-ms=60000",
+        "metrics.history.raw-retention-hours=48",
+        "metrics.history.hourly-retention-days=90",
+        "metrics.history.daily-retention-days=1825",
+        "metrics.history.max-points=500"
+})
+class StockHistoryServiceTests {
+
+    private static final EmbeddedPostgres POSTGRES = EmbeddedDatabase.start();
+    private static final double DELTA = 1e-6;
+
+    @Autowired
+    private StockHistoryService stockHistoryService;
+
+    @Autowired
+    private StockValueSampleRepository sampleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeEach
+    void clearSamples() {
+        sampleRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void sampleStoresPointPerCategoryAndTotal() {
+        jdbcTemplate.update("INSERT INTO categories (category_id, name) VALUES (901, 'История: тормоза'), " +
+                "(902, 'История: фильтры'), (903, 'История: пустая')");
+        jdbcTemplate.update("INSERT INTO suppliers (supplier_id, name) VALUES (901, 'История: поставщик')");
+        jdbcTemplate.update("INSERT INTO part (part_id, name, category_id, supplier_id, unit_price) VALUES " +
+                "(901, 'Колодки', 901, 901, 100), (902, 'Диск', 901, 901, 250), (903, 'Фильтр', 902, 901, 40)");
+        jdbcTemplate.update("INSERT INTO inventory (inventory_id, part_id, quantity_in_stock, last_restock_date) VALUES " +
+                "(901, 901, 3, localtimestamp), (902, 902, 2, localtimestamp), (903, 903, 10, localtimestamp)");
+        try {
+            stockHistoryService.sample();
+
+            Map<Long, StockValueSample> samples = sampleRepository.findAll().stream()
+                    .filter(sample -> sample.getCategoryId() != null)
+                    .collect(Collectors.toMap(StockValueSample::getCategoryId, sample -> sample));
+            StockValueSample brakes = samples.get(901L);
+            assertEquals(SampleResolution.RAW, brakes.getResolution());
+            assertEquals(5, brakes.getTotalQuantity());
+            assertEquals(800.0, brakes.getTotalValue(), DELTA);
+            assertEquals(10, samples.get(902L).getTotalQuantity());
+            assertEquals(400.0, samples.get(902L).getTotalValue(), DELTA);
+            assertNull(samples.get(903L));
+
+            StockValueSample total = sampleRepository.findAll().stream()
+                    .filter(sample -> sample.getCategoryId() == null)
+                    .findFirst().orElseThrow();
+            assertEquals(brakes.getBucketStart(), total.getBucketStart());
+            assertEquals(15, total.getTotalQuantity());
+            assertEquals(1200.0, total.getTotalValue(), DELTA);
+        } finally {
+            jdbcTemplate.update("DELETE FROM inventory WHERE inventory_id IN (901, 902, 903)");
+            jdbcTemplate.update("DELETE FROM part WHERE part_id IN (901, 902, 903)");
+            jdbcTemplate.update("DELETE FROM suppliers WHERE supplier_id = 901");
+            jdbcTemplate.update("DELETE FROM categories WHERE category_id IN (901, 902, 903)");
+        }
+    }
+
+    @Test
+    void rollupAveragesCompletedHoursAndDays() {
+        LocalDateTime yesterday = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(1);
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        raw(yesterday.plusHours(10), null, 10, 100);
+        raw(yesterday.plusHours(10).plusMinutes(20), null, 20, 200);
+        raw(yesterday.plusHours(10).plusMinutes(40), null, 31, 300);
+        raw(yesterday.plusHours(11).plusMinutes(15), null, 40, 400);
+        raw(yesterday.plusHours(10), 7L, 5, 50);
+        raw(currentHour, null, 1_000, 10_000);
+
+        stockHistoryService.rollupAndPrune();
+
+        List<StockValueSample> hourly = series(SampleResolution.HOURLY, null);
+        assertEquals(2, hourly.size());
+        assertPoint(hourly.get(0), yesterday.plusHours(10), 20, 200.0);
+        assertPoint(hourly.get(1), yesterday.plusHours(11), 40, 400.0);
+        assertPoint(series(SampleResolution.HOURLY, 7L).get(0), yesterday.plusHours(10), 5, 50.0);
+        // Текущий час еще не завершен и не сворачивается
+        assertTrue(hourly.stream().noneMatch(sample -> sample.getBucketStart().equals(currentHour)));
+
+        List<StockValueSample> daily = series(SampleResolution.DAILY, null);
+        assertEquals(1, daily.size());
+        assertPoint(daily.get(0), yesterday, 30, 300.0);
+    }
+
+    @Test
+    void repeatedRollupResumesAfterLastBucket() {
+        LocalDateTime yesterday = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(1);
+        raw(yesterday.plusHours(5), null, 10, 100);
+        stockHistoryService.rollupAndPrune();
+
+        raw(yesterday.plusHours(6), null, 30, 300);
+        stockHistoryService.rollupAndPrune();
+        stockHistoryService.rollupAndPrune();
+
+        List<StockValueSample> hourly = series(SampleResolution.HOURLY, null);
+        assertEquals(2, hourly.size());
+        assertPoint(hourly.get(1), yesterday.plusHours(6), 30, 300.0);
+        // Сутки свернуты при первом запуске и не пересчитываются
+        assertEquals(1, series(SampleResolution.DAILY, null).size());
+    }
+
+    @Test
+    void pruneDropsPointsPastRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        save(SampleResolution.DAILY, now.minusDays(2_000).truncatedTo(ChronoUnit.DAYS), 1);
+        save(SampleResolution.DAILY, now.minusDays(1_000).truncatedTo(ChronoUnit.DAYS), 2);
+        save(SampleResolution.HOURLY, now.minusDays(100).truncatedTo(ChronoUnit.HOURS), 3);
+        save(SampleResolution.HOURLY, now.minusDays(10).truncatedTo(ChronoUnit.HOURS), 4);
+        raw(now.minusHours(72), null, 5, 5);
+        raw(now.minusHours(1), null, 6, 6);
+
+        stockHistoryService.rollupAndPrune();
+
+        LocalDateTime checked = LocalDateTime.now();
+        for (StockValueSample sample : sampleRepository.findAll()) {
+            LocalDateTime oldest = switch (sample.getResolution()) {
+                case RAW -> checked.minusHours(48);
+                case HOURLY -> checked.minusDays(90);
+                case DAILY -> checked.minusDays(1_825);
+            };
+            assertTrue(!sample.getBucketStart().isBefore(oldest.minusMinutes(1)),
+                    () -> sample.getResolution() + " " + sample.getBucketStart() + " старше срока хранения");
+        }
+        assertEquals(List.of(6L), series(SampleResolution.RAW, null).stream()
+                .map(StockValueSample::getTotalQuantity).toList());
+        // Удаленные по сроку часовые и исходные точки остались в более грубом разрешении
+        assertTrue(series(SampleResolution.DAILY, null).stream()
+                .anyMatch(sample -> sample.getBucketStart().equals(now.minusDays(100).truncatedTo(ChronoUnit.DAYS))));
+        assertTrue(series(SampleResolution.HOURLY, null).stream()
+                .anyMatch(sample -> sample.getBucketStart().equals(now.minusHours(72).truncatedTo(ChronoUnit.HOURS))));
+    }
+
+    @Test
+    void resolutionFollowsRetentionAndPointBudget() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertEquals(SampleResolution.RAW, stockHistoryService.chooseResolution(now.minusHours(6), now));
+        // 10 часов - 600 минутных замеров, больше бюджета в 500 точек
+        assertEquals(SampleResolution.HOURLY, stockHistoryService.chooseResolution(now.minusHours(10), now));
+        // Короткий период, но исходные замеры за него уже удалены
+        assertEquals(SampleResolution.HOURLY,
+                stockHistoryService.chooseResolution(now.minusDays(3), now.minusDays(3).plusHours(1)));
+        assertEquals(SampleResolution.HOURLY, stockHistoryService.chooseResolution(now.minusDays(20), now));
+        assertEquals(SampleResolution.DAILY, stockHistoryService.chooseResolution(now.minusDays(30), now));
+        assertEquals(SampleResolution.DAILY,
+                stockHistoryService.chooseResolution(now.minusDays(200), now.minusDays(199)));
+    }
+
+    @Test
+    void historyReadsOneSeriesInChosenResolution() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        raw(now.minusMinutes(30), null, 10, 100);
+        raw(now.minusMinutes(20), null, 20, 200);
+        raw(now.minusMinutes(20), 7L, 3, 30);
+        raw(now.minusHours(5), null, 99, 990);
+
+        StockHistoryResponseDTO total = stockHistoryService.history(now.minusHours(1), now, null);
+        assertNull(total.getCategoryId());
+        assertEquals(SampleResolution.RAW, total.getResolution());
+        assertEquals(List.of(10L, 20L), total.getPoints().stream().map(StockValuePointDTO::getTotalQuantity).toList());
+
+        StockHistoryResponseDTO category = stockHistoryService.history(now.minusHours(1), now, 7L);
+        assertEquals(7L, category.getCategoryId());
+        assertEquals(1, category.getPoints().size());
+        assertEquals(now.minusMinutes(20), category.getPoints().get(0).getTimestamp());
+
+        assertThrows(ValidationException.class, () -> stockHistoryService.history(now, now, null));
+    }
+
+    private void raw(LocalDateTime bucketStart, Long categoryId, long quantity, double value) {
+        sampleRepository.save(new StockValueSample(null, SampleResolution.RAW, bucketStart, categoryId, quantity, value));
+    }
+
+    private void save(SampleResolution resolution, LocalDateTime bucketStart, long quantity) {
+        sampleRepository.save(new StockValueSample(null, resolution, bucketStart, null, quantity, quantity));
+    }
+
+    private List<StockValueSample> series(SampleResolution resolution, Long categoryId) {
+        return sampleRepository.findAll().stream()
+                .filter(sample -> sample.getResolution() == resolution)
+                .filter(sample -> categoryId == null ? sample.getCategoryId() == null : categoryId.equals(sample.getCategoryId()))
+                .sorted(Comparator.comparing(StockValueSample::getBucketStart))
+                .toList();
+    }
+
+    private static void assertPoint(StockValueSample sample, LocalDateTime bucketStart, long quantity, double value) {
+        assertEquals(bucketStart, sample.getBucketStart());
+        assertEquals(quantity, sample.getTotalQuantity());
+        assertEquals(value, sample.getTotalValue(), DELTA);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.fiarr4ik.xenonpartapi.startup;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WarmUpRunnerTests {
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            int status = switch (path) {
+                case "/ok" -> 200;
+                case "/broken" -> 500;
+                default -> 404;
+            };
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void sendsEveryPathEachIterationAndCountsServerErrors() {
+        WarmUpRunner runner = runner(List.of("/ok", "/broken", "/missing"), 3, 30_000);
+        assertNull(runner.lastResult());
+
+        runner.run(null);
+
+        assertEquals(new WarmUpRunner.Result(9, 3), runner.lastResult());
+        assertEquals(3, hits.get("/ok").get());
+        assertEquals(3, hits.get("/broken").get());
+        assertEquals(3, hits.get("/missing").get());
+    }
+
+    @Test
+    void stopsAtDeadline() {
+        WarmUpRunner runner = runner(List.of("/ok"), 1_000, 0);
+
+        runner.run(null);
+
+        assertEquals(new WarmUpRunner.Result(0, 0), runner.lastResult());
+        assertNull(hits.get("/ok"));
+    }
+
+    @Test
+    void unreachableServerCountsAsFailure() {
+        WarmUpRunner runner = runner(List.of("/ok"), 2, 30_000);
+        server.stop(0);
+
+        runner.run(null);
+
+        assertEquals(new WarmUpRunner.Result(2, 2), runner.lastResult());
+    }
+
+    private WarmUpRunner runner(List<String> paths, int iterations, long maxDurationMs) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("local.server.port", String.valueOf(server.getAddress().getPort()));
+        return new WarmUpRunner(environment, paths, iterations, maxDurationMs);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.fiarr4ik.xenonpartapi.startup;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Обучающий запуск на встроенной базе: приложение поднимается, прогревается
+ * и возвращает код выхода, не завершая JVM.
+ */
+class WarmUpTrainingTests {
+
+    private EmbeddedPostgres postgres;
+
+    @BeforeEach
+    void startPostgres() {
+        postgres = EmbeddedDatabase.start();
+    }
+
+    @AfterEach
+    void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void returnsExitCodeAfterWarmUp() {
+        assertEquals(0, WarmUpTraining.run(args("--startup.warm-up.enabled=true")));
+    }
+
+    @Test
+    void failsWhenWarmUpIsDisabled() {
+        assertThrows(IllegalStateException.class, () -> WarmUpTraining.run(args("--startup.warm-up.enabled=false")));
+    }
+
+    private String[] args(String... extra) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--server.port=0",
+                "--startup.warm-up.iterations=2"));
+        args.addAll(Arrays.asList(extra));
+        return args.toArray(String[]::new);
+    }
+}
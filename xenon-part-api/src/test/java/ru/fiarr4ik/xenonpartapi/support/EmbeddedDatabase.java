@@ -0,0 +1,68 @@
+package ru.fiarr4ik.xenonpartapi.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Встроенный PostgreSQL для тестов, поднимающих контекст приложения.
+ *
+ * <p>Тесты не должны обращаться к базе разработчика из {@code application.properties}.
+ * Класс подключается как {@code @ContextConfiguration(initializers = EmbeddedDatabase.class)}:
+ * все такие тесты получают один кэшированный контекст и одну базу на запуск, схему
+ * в ней создают миграции Flyway. Данные, созданные тестом, он удаляет сам.
+ */
+public class EmbeddedDatabase implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static EmbeddedPostgres shared;
+
+    /**
+     * Запускает отдельный экземпляр PostgreSQL.
+     *
+     * @return запущенная база
+     */
+    public static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Свойства источника данных для базы.
+     *
+     * @param postgres запущенная база
+     * @return свойства {@code spring.datasource.*}
+     */
+    public static TestPropertyValues datasourceProperties(EmbeddedPostgres postgres) {
+        return TestPropertyValues.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "spring.datasource.username=postgres",
+                "spring.datasource.password=postgres");
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        datasourceProperties(shared()).applyTo(context);
+    }
+
+    private static synchronized EmbeddedPostgres shared() {
+        if (shared == null) {
+            shared = start();
+            EmbeddedPostgres postgres = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // База все равно останавливается вместе с JVM
+                }
+            }));
+        }
+        return shared;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.fiarr4ik.xenonpartapi.support;
+
+import ru.fiarr4ik.xenonpartapi.monitoring.QueryStats;
+
+import java.util.Map;
+
+/**
+ * Проверка бюджета SQL-запросов в тестах.
+ *
+ * <p>Действие выполняется в области подсчета {@link QueryStats}; запросы, выполненные
+ * фильтром учета и контроллерами в том же потоке (например, через MockMvc), попадают в нее же.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Действие, которое может бросить проверяемое исключение.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Выполняет действие и проверяет, что оно уложилось в бюджет запросов.
+     *
+     * @param maxStatements допустимое число запросов
+     * @param action проверяемое действие
+     * @return счетчики выполненных запросов
+     */
+    public static QueryStats assertMaxStatements(int maxStatements, Action action) throws Exception {
+        try (QueryStats.Scope scope = QueryStats.open()) {
+            action.run();
+            QueryStats stats = scope.stats();
+            if (stats.getStatements() > maxStatements) {
+                Map.Entry<String, Integer> repeated = stats.mostRepeatedStatement();
+                throw new AssertionError("Ожидалось не больше " + maxStatements + " SQL-запросов, выполнено "
+                        + stats.getStatements() + "; чаще всего (" + repeated.getValue() + " раз): "
+                        + repeated.getKey());
+            }
+            return stats;
+        }
+    }
+}
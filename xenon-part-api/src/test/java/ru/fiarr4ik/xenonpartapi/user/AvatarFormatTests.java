@@ -0,0 +1,60 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AvatarFormatTests {
+
+    @Test
+    void detectsFormatsBySignature() {
+        assertEquals(Optional.of(AvatarFormat.JPEG), detect(0xFF, 0xD8, 0xFF, 0xE0));
+        assertEquals(Optional.of(AvatarFormat.PNG), detect(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+        assertEquals(Optional.of(AvatarFormat.GIF), detect('G', 'I', 'F', '8', '9', 'a'));
+        assertEquals(Optional.of(AvatarFormat.WEBP), detect('R', 'I', 'F', 'F', 0x10, 0x20, 0, 0, 'W', 'E', 'B', 'P'));
+    }
+
+    @Test
+    void rejectsUnknownAndTruncatedHeaders() {
+        assertEquals(Optional.empty(), detect(text("<svg xmlns=")));
+        assertEquals(Optional.empty(), detect('R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'A', 'V', 'E'));
+        assertEquals(Optional.empty(), detect(0x89, 'P', 'N', 'G'));
+        assertEquals(Optional.empty(), AvatarFormat.detect(new byte[AvatarFormat.HEADER_LENGTH], 0));
+    }
+
+    @Test
+    void variantsKeepTransparencyOnlyWhereOriginalHasIt() {
+        assertEquals(AvatarFormat.PNG, AvatarFormat.PNG.variantFormat());
+        assertEquals(AvatarFormat.PNG, AvatarFormat.GIF.variantFormat());
+        assertEquals(AvatarFormat.JPEG, AvatarFormat.JPEG.variantFormat());
+        assertEquals(AvatarFormat.JPEG, AvatarFormat.WEBP.variantFormat());
+    }
+
+    @Test
+    void mapsContentTypes() {
+        assertEquals(Optional.of(AvatarFormat.WEBP), AvatarFormat.ofContentType("image/webp"));
+        assertEquals(Optional.empty(), AvatarFormat.ofContentType("application/octet-stream"));
+        assertEquals(Optional.empty(), AvatarFormat.ofContentType(null));
+    }
+
+    private static Optional<AvatarFormat> detect(int... bytes) {
+        byte[] header = new byte[AvatarFormat.HEADER_LENGTH];
+        for (int i = 0; i < bytes.length; i++) {
+            header[i] = (byte) bytes[i];
+        }
+        return AvatarFormat.detect(header, bytes.length);
+    }
+
+    private static int[] text(String value) {
+        byte[] bytes = Arrays.copyOf(value.getBytes(StandardCharsets.US_ASCII), AvatarFormat.HEADER_LENGTH);
+        int[] result = new int[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i] = bytes[i] & 0xFF;
+        }
+        return result;
+    }
+}
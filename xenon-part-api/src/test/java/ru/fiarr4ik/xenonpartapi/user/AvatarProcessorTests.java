@@ -0,0 +1,117 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvatarProcessorTests {
+
+    @TempDir
+    private Path root;
+
+    private AvatarStore store;
+    private AvatarProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        store = new AvatarStore(root.toString());
+        processor = new AvatarProcessor(store, new int[] {256, 32, 64}, 1_000_000);
+    }
+
+    @Test
+    void detectsFormatByContentNotByName() throws IOException {
+        String png = store.store(new ByteArrayInputStream(image(10, 10, "png")));
+        String jpeg = store.store(new ByteArrayInputStream(image(10, 10, "jpg")));
+        String text = store.store(new ByteArrayInputStream("plain text, not an image".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(AvatarFormat.PNG, processor.detect(store.find(png).orElseThrow()));
+        assertEquals(AvatarFormat.JPEG, processor.detect(store.find(jpeg).orElseThrow()));
+        assertThrows(ValidationException.class, () -> processor.detect(store.find(text).orElseThrow()));
+    }
+
+    @Test
+    void buildsSquareVariantsSmallerThanOriginal() throws IOException {
+        String hash = store.store(new ByteArrayInputStream(image(300, 200, "png")));
+
+        processor.createVariants(hash, store.find(hash).orElseThrow(), AvatarFormat.PNG);
+
+        assertEquals(32, side(store.findVariant(hash, 32, "png").orElseThrow()));
+        assertEquals(64, side(store.findVariant(hash, 64, "png").orElseThrow()));
+        // Копия больше оригинала не строится, вместо нее отдается оригинал
+        assertTrue(store.findVariant(hash, 256, "png").isEmpty());
+    }
+
+    @Test
+    void opaqueFormatsAreScaledToJpeg() throws IOException {
+        String hash = store.store(new ByteArrayInputStream(image(100, 100, "jpg")));
+
+        processor.createVariants(hash, store.find(hash).orElseThrow(), AvatarFormat.JPEG);
+
+        BufferedImage variant = ImageIO.read(store.findVariant(hash, 64, "jpg").orElseThrow().toFile());
+        assertEquals(64, variant.getWidth());
+        assertEquals(64, variant.getHeight());
+        assertTrue(store.findVariant(hash, 64, "png").isEmpty());
+    }
+
+    @Test
+    void rendersStagedFileWithoutTouchingStore() throws IOException {
+        AvatarStore.Staged staged = store.stage(new ByteArrayInputStream(image(200, 200, "png")));
+
+        List<AvatarProcessor.Variant> variants = processor.render(staged.file(), AvatarFormat.PNG);
+
+        assertEquals(List.of(32, 64), variants.stream().map(AvatarProcessor.Variant::size).toList());
+        assertTrue(store.findVariant(staged.hash(), 32, "png").isEmpty());
+        store.publish(staged);
+        processor.storeVariants(staged.hash(), variants);
+        assertEquals(64, side(store.findVariant(staged.hash(), 64, "png").orElseThrow()));
+    }
+
+    @Test
+    void rejectsImagesAboveMaxPixelsBeforeDecoding() throws IOException {
+        String hash = store.store(new ByteArrayInputStream(image(1001, 1000, "png")));
+
+        assertThrows(ValidationException.class,
+                () -> processor.createVariants(hash, store.find(hash).orElseThrow(), AvatarFormat.PNG));
+        assertTrue(store.findVariant(hash, 32, "png").isEmpty());
+    }
+
+    @Test
+    void picksSmallestVariantNotSmallerThanRequested() {
+        assertEquals(32, processor.variantSizeFor(1));
+        assertEquals(32, processor.variantSizeFor(32));
+        assertEquals(64, processor.variantSizeFor(33));
+        assertEquals(256, processor.variantSizeFor(200));
+        assertNull(processor.variantSizeFor(257));
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x % height, 0x336699);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static int side(Path variant) throws IOException {
+        BufferedImage image = ImageIO.read(variant.toFile());
+        assertEquals(image.getWidth(), image.getHeight());
+        return image.getWidth();
+    }
+}
@@ -0,0 +1,180 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Удаление файлов аватарок, на которые больше никто не ссылается.
+ *
+ * <p>Файл общий для всех пользователей с тем же изображением, поэтому проверка ссылок
+ * и удаление выполняются под блокировкой файла, которую удерживает и запись новой ссылки.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+class AvatarReferenceTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AvatarStore avatarStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User first;
+    private User second;
+
+    @BeforeEach
+    void setUp() {
+        first = userRepository.save(user("avatar-test-first"));
+        second = userRepository.save(user("avatar-test-second"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.queryForList("SELECT avatar_hash FROM users WHERE username LIKE 'avatar-test-%' " +
+                "AND avatar_hash IS NOT NULL", String.class).forEach(avatarStore::delete);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'avatar-test-%'");
+    }
+
+    @Test
+    void replacedAvatarIsDeletedWhenUnused() throws Exception {
+        User withFirst = userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(png(3)));
+        String firstHash = withFirst.getAvatarHash();
+
+        User withSecond = userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(png(4)));
+
+        assertEquals("image/png", withSecond.getAvatarContentType());
+        assertTrue(avatarStore.find(withSecond.getAvatarHash()).isPresent());
+        assertTrue(avatarStore.find(firstHash).isEmpty());
+    }
+
+    @Test
+    void sharedAvatarIsKeptWhileReferenced() throws Exception {
+        byte[] shared = png(5);
+        String hash = userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(shared)).getAvatarHash();
+        userService.updateUserAvatar(second.getId(), new ByteArrayInputStream(shared));
+
+        userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(png(6)));
+
+        assertTrue(avatarStore.find(hash).isPresent());
+    }
+
+    @Test
+    void referenceWrittenDuringDeletionCheckKeepsFile() throws Exception {
+        String hash = userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(png(7))).getAvatarHash();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Загрузка того же изображения вторым пользователем: файл опубликован, ссылка еще не записана
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            userRepository.lockAvatar(hash);
+            locked.countDown();
+            await(release);
+            jdbcTemplate.update("UPDATE users SET avatar_hash = ?, avatar_content_type = 'image/png' WHERE id = ?",
+                    hash, second.getId());
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<User> replace = CompletableFuture.supplyAsync(() -> {
+            try {
+                return userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(png(8)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waitForBlockedAdvisoryLock();
+        assertFalse(replace.isDone());
+        release.countDown();
+
+        upload.get(10, TimeUnit.SECONDS);
+        replace.get(10, TimeUnit.SECONDS);
+        assertTrue(avatarStore.find(hash).isPresent());
+    }
+
+    @Test
+    void rejectedUploadLeavesNoFiles() {
+        byte[] content = ("not an image " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(ValidationException.class,
+                () -> userService.updateUserAvatar(first.getId(), new ByteArrayInputStream(content)));
+
+        assertNull(userRepository.findById(first.getId()).orElseThrow().getAvatarHash());
+    }
+
+    private void waitForBlockedAdvisoryLock() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_locks WHERE locktype = 'advisory' AND NOT granted", Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Удаление не ждет блокировку файла");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Уникальное изображение, чтобы тесты не делили файлы друг с другом и с другими запусками.
+     */
+    private static byte[] png(int seed) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        long salt = UUID.randomUUID().getLeastSignificantBits();
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                image.setRGB(x, y, (int) (salt >>> ((x + y) % 40)) * seed);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("hash");
+        return user;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvatarStoreTests {
+
+    private static final byte[] CONTENT = "avatar".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path root;
+
+    @Test
+    void storesContentUnderItsHashOnce() throws Exception {
+        AvatarStore store = new AvatarStore(root.toString());
+
+        String hash = store.store(new ByteArrayInputStream(CONTENT));
+        String again = store.store(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT)), hash);
+        assertEquals(hash, again);
+        assertArrayEquals(CONTENT, Files.readAllBytes(store.find(hash).orElseThrow()));
+        assertEquals(1, regularFiles());
+    }
+
+    @Test
+    void stagedFileIsInvisibleUntilPublished() throws Exception {
+        AvatarStore store = new AvatarStore(root.toString());
+
+        AvatarStore.Staged staged = store.stage(new ByteArrayInputStream(CONTENT));
+        assertTrue(store.find(staged.hash()).isEmpty());
+
+        Path published = store.publish(staged);
+        store.discard(staged);
+
+        assertEquals(published, store.find(staged.hash()).orElseThrow());
+        assertFalse(Files.exists(staged.file()));
+        assertEquals(1, regularFiles());
+    }
+
+    @Test
+    void discardedFileLeavesNothingBehind() throws Exception {
+        AvatarStore store = new AvatarStore(root.toString());
+
+        AvatarStore.Staged staged = store.stage(new ByteArrayInputStream(CONTENT));
+        store.discard(staged);
+
+        assertTrue(store.find(staged.hash()).isEmpty());
+        assertEquals(0, regularFiles());
+    }
+
+    @Test
+    void deleteRemovesOriginalWithVariants() throws Exception {
+        AvatarStore store = new AvatarStore(root.toString());
+        String hash = store.store(new ByteArrayInputStream(CONTENT));
+        store.storeVariant(hash, 32, "png", out -> out.write(1));
+        store.storeVariant(hash, 64, "png", out -> out.write(2));
+
+        assertTrue(store.findVariant(hash, 32, "png").isPresent());
+        store.delete(hash);
+
+        assertTrue(store.find(hash).isEmpty());
+        assertTrue(store.findVariant(hash, 32, "png").isEmpty());
+        assertEquals(0, regularFiles());
+    }
+
+    @Test
+    void rejectsMalformedHashes() {
+        AvatarStore store = new AvatarStore(root.toString());
+
+        assertTrue(store.find(null).isEmpty());
+        assertTrue(store.find("../../etc/passwd").isEmpty());
+        assertTrue(store.find("ABCDEF").isEmpty());
+    }
+
+    private long regularFiles() throws IOException {
+        try (var files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
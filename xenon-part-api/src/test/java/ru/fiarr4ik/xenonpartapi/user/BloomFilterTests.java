@@ -0,0 +1,51 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        List<String> tokenIds = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            tokenIds.add(tokenId);
+            filter.add(tokenId);
+        }
+
+        for (String tokenId : tokenIds) {
+            assertTrue(filter.mightContain(tokenId), "Ложноотрицательный ответ для " + tokenId);
+        }
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        List<String> tokenIds = IntStream.range(0, 50_000).mapToObj(i -> "token-" + i).toList();
+
+        tokenIds.parallelStream().forEach(filter::add);
+
+        assertTrue(tokenIds.stream().allMatch(filter::mightContain));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("revoked-" + i);
+        }
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("valid-" + i))
+                .count();
+        assertTrue(falsePositives < 2_000, "Ложных срабатываний: " + falsePositives);
+    }
+}
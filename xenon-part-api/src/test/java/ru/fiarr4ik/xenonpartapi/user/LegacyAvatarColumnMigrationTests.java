@@ -0,0 +1,85 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Перенос аватарок из столбца прежней версии в файлы миграцией Flyway V4.
+ */
+class LegacyAvatarColumnMigrationTests {
+
+    private static final String AVATAR_COLUMNS = "SELECT count(*) FROM information_schema.columns " +
+            "WHERE table_name = 'users' AND column_name = 'avatar'";
+
+    @TempDir
+    private Path storageDir;
+
+    private EmbeddedPostgres postgres;
+    private JdbcTemplate jdbcTemplate;
+    private AvatarStore avatarStore;
+
+    @BeforeEach
+    void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        avatarStore = new AvatarStore(storageDir.toString());
+    }
+
+    @AfterEach
+    void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void movesLegacyAvatarsToFilesAndDropsColumn() throws IOException {
+        flyway("3").migrate();
+        byte[] image = "legacy-image".getBytes(StandardCharsets.UTF_8);
+        jdbcTemplate.execute("ALTER TABLE users ADD COLUMN avatar bytea");
+        jdbcTemplate.update("INSERT INTO users (id, username, avatar) VALUES (1, 'ivan', ?), (2, 'petr', NULL)",
+                (Object) image);
+
+        flyway(null).migrate();
+
+        assertEquals(0, jdbcTemplate.queryForObject(AVATAR_COLUMNS, Integer.class));
+        String hash = jdbcTemplate.queryForObject("SELECT avatar_hash FROM users WHERE id = 1", String.class);
+        assertArrayEquals(image, Files.readAllBytes(avatarStore.find(hash).orElseThrow()));
+        assertNull(jdbcTemplate.queryForObject("SELECT avatar_content_type FROM users WHERE id = 1", String.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT avatar_hash FROM users WHERE id = 2", String.class));
+    }
+
+    @Test
+    void freshDatabaseGetsVersionFourWithoutColumn() {
+        flyway(null).migrate();
+
+        assertEquals(0, jdbcTemplate.queryForObject(AVATAR_COLUMNS, Integer.class));
+        assertEquals("4", jdbcTemplate.queryForObject(
+                "SELECT version FROM flyway_schema_history ORDER BY installed_rank DESC LIMIT 1", String.class));
+    }
+
+    private Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .javaMigrations(new LegacyAvatarColumnMigration(avatarStore));
+        if (target != null) {
+            configuration.target(target);
+        }
+        return configuration.load();
+    }
+}
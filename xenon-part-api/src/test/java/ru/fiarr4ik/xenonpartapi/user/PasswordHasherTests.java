@@ -0,0 +1,104 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.fiarr4ik.xenonpartapi.exception.ServiceUnavailableException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTests {
+
+    private final List<PasswordHasher> hashers = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        hashers.forEach(PasswordHasher::shutdown);
+    }
+
+    @Test
+    void hashesWithBcryptAndVerifies() {
+        PasswordHasher hasher = hasher(4, 1, 4);
+
+        String hash = hasher.hash("secret").join();
+
+        assertTrue(hash.startsWith("$2"));
+        assertTrue(hasher.verify("secret", hash).join().matches());
+        assertFalse(hasher.verify("wrong", hash).join().matches());
+    }
+
+    @Test
+    void currentBcryptHashIsNotUpgraded() {
+        PasswordHasher hasher = hasher(4, 1, 4);
+
+        PasswordHasher.Verification verification = hasher.verify("secret", hasher.hash("secret").join()).join();
+
+        assertTrue(verification.matches());
+        assertNull(verification.upgradedHash());
+    }
+
+    @Test
+    void weakerBcryptHashIsUpgraded() {
+        PasswordHasher hasher = hasher(5, 1, 4);
+
+        PasswordHasher.Verification verification =
+                hasher.verify("secret", new BCryptPasswordEncoder(4).encode("secret")).join();
+
+        assertTrue(verification.matches());
+        assertTrue(verification.upgradedHash().startsWith("$2a$05$"));
+    }
+
+    @Test
+    void legacyHashIsUpgradedOnlyWhenPasswordMatches() throws Exception {
+        PasswordHasher hasher = hasher(4, 1, 4);
+        String legacy = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest("secret".getBytes(StandardCharsets.UTF_8)));
+
+        PasswordHasher.Verification matched = hasher.verify("secret", legacy).join();
+        PasswordHasher.Verification rejected = hasher.verify("wrong", legacy).join();
+
+        assertTrue(matched.matches());
+        assertNotNull(matched.upgradedHash());
+        assertTrue(hasher.verify("secret", matched.upgradedHash()).join().matches());
+        assertFalse(rejected.matches());
+        assertNull(rejected.upgradedHash());
+    }
+
+    @Test
+    void unknownUserNeverMatches() {
+        PasswordHasher hasher = hasher(4, 1, 4);
+
+        PasswordHasher.Verification verification = hasher.verify("secret", null).join();
+
+        assertFalse(verification.matches());
+        assertNull(verification.upgradedHash());
+    }
+
+    @Test
+    void rejectsTasksWhenQueueIsFull() {
+        // Дорогой хэш занимает единственный поток, пока очередь заполняется
+        PasswordHasher hasher = hasher(13, 1, 1);
+
+        hasher.hash("first");
+        hasher.hash("second");
+
+        assertThrows(ServiceUnavailableException.class, () -> hasher.hash("third"));
+    }
+
+    private PasswordHasher hasher(int strength, int threads, int queueCapacity) {
+        PasswordHasher hasher = new PasswordHasher(new SimpleMeterRegistry(), strength, threads, queueCapacity);
+        hashers.add(hasher);
+        return hasher;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.fiarr4ik.xenonpartapi.config.JwtPrincipal;
+import ru.fiarr4ik.xenonpartapi.config.JwtUtil;
+import ru.fiarr4ik.xenonpartapi.support.EmbeddedDatabase;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Распространение отзывов токенов между экземплярами приложения.
+ *
+ * <p>Второй экземпляр представлен отдельным списком отзывов поверх той же базы.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+class TokenRevocationListTests {
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private TokenRevocationList otherInstance;
+    private final List<String> tokenIds = new ArrayList<>();
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        otherInstance = new TokenRevocationList(revokedTokenRepository, userRepository, jwtUtil, 1_000, 0.01);
+        otherInstance.sync();
+        userId = jdbcTemplate.queryForObject("INSERT INTO users (username, password) VALUES (?, 'hash') RETURNING id",
+                Long.class, "revocation-" + UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenIds.forEach(revokedTokenRepository::deleteById);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void revocationReachesOtherInstanceOnSync() {
+        JwtPrincipal principal = principal(Instant.now());
+
+        tokenRevocationList.revoke(principal);
+
+        assertTrue(tokenRevocationList.isRevoked(principal));
+        assertFalse(otherInstance.isRevoked(principal));
+        otherInstance.sync();
+        assertTrue(otherInstance.isRevoked(principal));
+    }
+
+    @Test
+    void lateCommittedRevocationIsNotSkipped() throws Exception {
+        JwtPrincipal slow = principal(Instant.now());
+        JwtPrincipal fast = principal(Instant.now());
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        // Отзыв записан раньше, но его транзакция фиксируется после следующей синхронизации
+        CompletableFuture<Void> slowRevocation = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    insertRevocation(slow, Instant.now().minus(1, ChronoUnit.MINUTES));
+                    inserted.countDown();
+                    await(commit);
+                }));
+        assertTrue(inserted.await(10, TimeUnit.SECONDS));
+        tokenRevocationList.revoke(fast);
+
+        otherInstance.sync();
+        assertTrue(otherInstance.isRevoked(fast));
+        assertFalse(otherInstance.isRevoked(slow));
+
+        commit.countDown();
+        slowRevocation.get(10, TimeUnit.SECONDS);
+        otherInstance.sync();
+        assertTrue(otherInstance.isRevoked(slow));
+    }
+
+    @Test
+    void passwordChangeReachesOtherInstanceOnSync() {
+        JwtPrincipal beforeChange = principal(Instant.now().minus(1, ChronoUnit.MINUTES));
+        Instant cutoff = TokenRevocationList.currentCutoff();
+
+        jdbcTemplate.update("UPDATE users SET tokens_valid_from = ? WHERE id = ?", Timestamp.from(cutoff), userId);
+        assertFalse(otherInstance.isRevoked(beforeChange));
+        otherInstance.sync();
+
+        assertTrue(otherInstance.isRevoked(beforeChange));
+        assertFalse(otherInstance.isRevoked(principal(cutoff.plusSeconds(1))));
+    }
+
+    private JwtPrincipal principal(Instant issuedAt) {
+        String tokenId = UUID.randomUUID().toString();
+        tokenIds.add(tokenId);
+        return new JwtPrincipal("user", userId, tokenId, issuedAt, issuedAt.plus(1, ChronoUnit.HOURS));
+    }
+
+    private void insertRevocation(JwtPrincipal principal, Instant revokedAt) {
+        jdbcTemplate.update("INSERT INTO revoked_token (token_id, user_id, expires_at, revoked_at) VALUES (?, ?, ?, ?)",
+                principal.tokenId(), principal.userId(), Timestamp.from(principal.expiresAt()),
+                Timestamp.from(revokedAt));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
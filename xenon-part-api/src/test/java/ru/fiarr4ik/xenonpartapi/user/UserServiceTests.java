@@ -0,0 +1,175 @@
+package ru.fiarr4ik.xenonpartapi.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenRevocationList tokenRevocationList = mock(TokenRevocationList.class);
+    private final Queue<Runnable> persistenceTasks = new ConcurrentLinkedQueue<>();
+    private final Executor persistenceExecutor = persistenceTasks::add;
+
+    private PasswordHasher passwordHasher;
+    private UserService userService;
+    private String savedOnThread;
+
+    @BeforeEach
+    void setUp() {
+        passwordHasher = new PasswordHasher(new SimpleMeterRegistry(), 4, 1, 4);
+        userService = new UserService(userRepository, passwordHasher, mock(AvatarStore.class),
+                mock(AvatarProcessor.class), tokenRevocationList, persistenceExecutor,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        when(userRepository.findByUsername(any())).thenReturn(Optional.empty());
+        when(userRepository.save(any())).thenAnswer(invocation -> {
+            savedOnThread = Thread.currentThread().getName();
+            User user = invocation.getArgument(0);
+            if (user.getId() == null) {
+                user.setId(1L);
+            }
+            return user;
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void registrationSavesOutsideHashingPool() {
+        CompletableFuture<User> registered = userService.registerNewUser("ivan", "secret");
+
+        User user = runPersistence(registered);
+
+        assertEquals("test-persistence", savedOnThread);
+        assertEquals("ivan", user.getUsername());
+        assertTrue(passwordHasher.verify("secret", user.getPassword()).join().matches());
+    }
+
+    @Test
+    void registrationOfTakenNameFailsBeforeHashing() {
+        when(userRepository.findByUsername("ivan")).thenReturn(Optional.of(user("ivan", "hash")));
+
+        assertThrows(RuntimeException.class, () -> userService.registerNewUser("ivan", "secret"));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void loginUpgradesLegacyHashOutsideHashingPool() throws Exception {
+        User stored = user("ivan", Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest("secret".getBytes(StandardCharsets.UTF_8))));
+        when(userRepository.findByUsername("ivan")).thenReturn(Optional.of(stored));
+
+        Optional<User> user = runPersistence(userService.authenticateUser("ivan", "secret"));
+
+        assertTrue(user.isPresent());
+        assertEquals("test-persistence", savedOnThread);
+        assertTrue(user.get().getPassword().startsWith("$2"));
+    }
+
+    @Test
+    void loginWithCurrentHashDoesNotSave() {
+        User stored = user("ivan", passwordHasher.hash("secret").join());
+        when(userRepository.findByUsername("ivan")).thenReturn(Optional.of(stored));
+
+        assertTrue(userService.authenticateUser("ivan", "secret").join().isPresent());
+        assertFalse(userService.authenticateUser("ivan", "wrong").join().isPresent());
+        assertTrue(persistenceTasks.isEmpty());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void passwordChangeSavesOutsideHashingPoolAndRevokesTokens() {
+        User stored = user("ivan", passwordHasher.hash("secret").join());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        User updated = runPersistence(userService.updateUser(1L, null, "secret", "changed"));
+
+        assertEquals("test-persistence", savedOnThread);
+        assertTrue(passwordHasher.verify("changed", updated.getPassword()).join().matches());
+        assertNotNull(updated.getTokensValidFrom());
+        verify(tokenRevocationList).revokeAllBefore(eq(1L), eq(updated.getTokensValidFrom()));
+    }
+
+    @Test
+    void wrongCurrentPasswordFailsWithoutSaving() {
+        User stored = user("ivan", passwordHasher.hash("secret").join());
+        String storedHash = stored.getPassword();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> userService.updateUser(1L, null, "wrong", "changed").join());
+
+        assertInstanceOf(RuntimeException.class, error.getCause());
+        assertEquals("Неверный текущий пароль", error.getCause().getMessage());
+        assertEquals(storedHash, stored.getPassword());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void renameWithoutPasswordChangeSavesWithoutHashing() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user("ivan", "hash")));
+
+        User updated = userService.updateUser(1L, "petr", null, null).join();
+
+        assertEquals("petr", updated.getUsername());
+        assertNotEquals("test-persistence", savedOnThread);
+        assertTrue(persistenceTasks.isEmpty());
+    }
+
+    /**
+     * Дожидается завершения хэширования и выполняет отложенное сохранение в отдельном потоке.
+     */
+    private <T> T runPersistence(CompletableFuture<T> result) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (persistenceTasks.isEmpty() && !result.isDone() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertFalse(result.isDone(), "Результат готов до сохранения");
+        Thread thread = new Thread(persistenceTasks.remove(), "test-persistence");
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return result.join();
+    }
+
+    private static User user(String username, String password) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(username);
+        user.setPassword(password);
+        return user;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Запуск бенчмарков с сохранением результатов в JSON.
+ *
+ * <p>Принимает обычные аргументы JMH, например {@code java -jar target/benchmarks.jar Jwt -f 1}.
+ * Если файл результатов не задан ключами {@code -rf}/{@code -rff}, результаты пишутся в
+ * {@code target/jmh/result-<метка>.json}, где метка берется из свойства {@code benchmarks.label}
+ * (например, хэш коммита). Два таких файла сравниваются любым JMH-визуализатором.
+ *
+ * <p>Если профилировщики не заданы ключом {@code -prof}, подключается профилировщик GC:
+ * в результатах появляется {@code gc.alloc.rate.norm} - байты, выделенные на операцию.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResult().hasValue() && !commandLine.getResultFormat().hasValue()) {
+            Path directory = Path.of("target", "jmh");
+            Files.createDirectories(directory);
+            String label = System.getProperty("benchmarks.label", "local");
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(directory.resolve("result-" + label + ".json").toString());
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
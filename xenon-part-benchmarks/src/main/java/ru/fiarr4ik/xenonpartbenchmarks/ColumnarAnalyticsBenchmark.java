@@ -0,0 +1,143 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.fiarr4ik.xenonpartapi.XenonPartApiApplication;
+import ru.fiarr4ik.xenonpartapi.analytics.ColumnarAnalyticsEngine;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.repository.InventoryRepository;
+import ru.fiarr4ik.xenonpartapi.repository.PartRepository;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Агрегации метрик по колоночному снимку в памяти против тех же JPQL-запросов к PostgreSQL.
+ *
+ * <p>Поднимает встроенный PostgreSQL, заполняет его запчастями и записями инвентаря
+ * (по {@code rows} строк каждой таблицы, 200 категорий и 500 поставщиков) и запускает
+ * контекст приложения без веб-сервера и задач по расписанию с включенным
+ * {@code metrics.columnar.enabled}. Замеры ждут, пока движок загрузит снимок.
+ *
+ * <p>Заполнение 5 млн строк занимает несколько минут и требует нескольких гигабайт на
+ * диске; для быстрой проверки можно уменьшить размер ключом {@code -p rows=500000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ColumnarAnalyticsBenchmark {
+
+    private static final int LOW_THRESHOLD = 10;
+    private static final int MEDIUM_THRESHOLD = 50;
+
+    @Param({"5000000"})
+    private int rows;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private PartRepository partRepository;
+    private InventoryRepository inventoryRepository;
+    private ColumnarAnalyticsEngine engine;
+
+    @Setup
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        seed();
+        context = new SpringApplicationBuilder(XenonPartApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--metrics.columnar.enabled=true",
+                        "--scheduling.enabled=false",
+                        "--access-log.enabled=false",
+                        "--logging.level.root=WARN");
+        partRepository = context.getBean(PartRepository.class);
+        inventoryRepository = context.getBean(InventoryRepository.class);
+        engine = context.getBean(ColumnarAnalyticsEngine.class);
+        while (!engine.isReady()) {
+            Thread.sleep(100);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public List<CategoryValue> valueByCategoryJpql() {
+        return partRepository.calculateValueByCategory();
+    }
+
+    @Benchmark
+    public List<CategoryValue> valueByCategoryColumnar() {
+        return engine.valueByCategory();
+    }
+
+    @Benchmark
+    public List<StockLevelCount> stockDistributionJpql() {
+        return inventoryRepository.getStockLevelDistribution(LOW_THRESHOLD, MEDIUM_THRESHOLD);
+    }
+
+    @Benchmark
+    public List<StockLevelCount> stockDistributionColumnar() {
+        return engine.stockLevelDistribution(LOW_THRESHOLD, MEDIUM_THRESHOLD);
+    }
+
+    @Benchmark
+    public InventoryOverview inventoryOverviewJpql() {
+        return inventoryRepository.getInventoryOverview();
+    }
+
+    @Benchmark
+    public InventoryOverview inventoryOverviewColumnar() {
+        return engine.inventoryOverview();
+    }
+
+    /**
+     * Создает схему миграциями и заполняет таблицы. Java-миграции приложения применит
+     * Flyway самого контекста при запуске.
+     */
+    private void seed() {
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .mixed(true)
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+        jdbcTemplate.update("INSERT INTO categories (name) SELECT 'Категория ' || i FROM generate_series(1, 200) i");
+        jdbcTemplate.update("INSERT INTO suppliers (name) SELECT 'Поставщик ' || i FROM generate_series(1, 500) i");
+        jdbcTemplate.update("INSERT INTO part (name, category_id, supplier_id, unit_price) " +
+                "SELECT 'Запчасть ' || i, 1 + i % 200, 1 + i % 500, 10 + i::bigint * 7919 % 100000 / 100.0 " +
+                "FROM generate_series(1, ?) i", rows);
+        jdbcTemplate.update("INSERT INTO inventory (part_id, quantity_in_stock, last_restock_date) " +
+                "SELECT i, i::bigint * 104729 % 500, localtimestamp FROM generate_series(1, ?) i", rows);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+    }
+}
@@ -0,0 +1,54 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fiarr4ik.xenonpartapi.exception.GlobalExceptionHandler;
+import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
+import ru.fiarr4ik.xenonpartapi.exception.ValidationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирование и сериализация тела ответа об ошибке в {@link GlobalExceptionHandler},
+ * включая создание исключения с заполнением стека, как при реальной ошибке.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalExceptionHandler();
+        writer = new ObjectMapper().findAndRegisterModules().writer();
+    }
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        return writer.writeValueAsBytes(handler.handleResourceNotFoundException(
+                new ResourceNotFoundException("Запчасть с ID 42 не найдена")).getBody());
+    }
+
+    @Benchmark
+    public byte[] validationError() throws JsonProcessingException {
+        return writer.writeValueAsBytes(handler.handleValidationException(
+                new ValidationException("Недостаточно товара на складе")).getBody());
+    }
+}
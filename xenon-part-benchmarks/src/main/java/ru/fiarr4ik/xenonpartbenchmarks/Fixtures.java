@@ -0,0 +1,180 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.CategoryValue;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.DashboardDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.InventoryOverview;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.LowStockPart;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.OverallMetrics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.StockLevelCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierPartCount;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierStatistics;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.SupplierValue;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Детерминированные тестовые данные для бенчмарков.
+ */
+final class Fixtures {
+
+    private static final int CATEGORIES = 20;
+    private static final int SUPPLIERS = 50;
+
+    /**
+     * Уровни остатка в том порядке, в каком их возвращает распределение остатков.
+     */
+    static final List<String> STOCK_LEVELS = List.of("Нет в наличии", "Низкий запас", "Средний запас", "Высокий запас");
+
+    private Fixtures() {
+    }
+
+    static List<Part> parts(int count) {
+        Random random = new Random(42);
+        List<Category> categories = new ArrayList<>();
+        for (long i = 1; i <= CATEGORIES; i++) {
+            categories.add(new Category(i, "Категория " + i, "Описание категории " + i));
+        }
+        List<Supplier> suppliers = new ArrayList<>();
+        for (long i = 1; i <= SUPPLIERS; i++) {
+            suppliers.add(new Supplier(i, "Поставщик " + i, "Контакт " + i, "+79000000000",
+                    "supplier" + i + "@example.com", "Адрес " + i, 7));
+        }
+        List<Part> parts = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            parts.add(new Part(i, "Запчасть " + i, "Описание запчасти " + i,
+                    categories.get(random.nextInt(CATEGORIES)), suppliers.get(random.nextInt(SUPPLIERS)),
+                    Math.round(Math.exp(6 + random.nextGaussian()) * 100) / 100.0,
+                    AbcClass.values()[random.nextInt(3)], XyzClass.values()[random.nextInt(3)]));
+        }
+        return parts;
+    }
+
+    static List<PartResponseDTO> partResponses(int count) {
+        List<PartResponseDTO> responses = new ArrayList<>(count);
+        for (Part part : parts(count)) {
+            PartResponseDTO dto = new PartResponseDTO();
+            dto.setPartId(part.getPartId());
+            dto.setName(part.getName());
+            dto.setDescription(part.getDescription());
+            dto.setCategoryId(part.getCategory().getCategoryId());
+            dto.setCategoryName(part.getCategory().getName());
+            dto.setSupplierId(part.getSupplier().getSupplierId());
+            dto.setSupplierName(part.getSupplier().getName());
+            dto.setUnitPrice(part.getUnitPrice());
+            dto.setAbcClass(part.getAbcClass());
+            dto.setXyzClass(part.getXyzClass());
+            responses.add(dto);
+        }
+        return responses;
+    }
+
+    static DashboardDTO dashboard() {
+        Random random = new Random(7);
+        List<CategoryPartCount> partsByCategory = new ArrayList<>();
+        List<CategoryValue> valueByCategory = new ArrayList<>();
+        List<CategoryStatistics> categoryStats = new ArrayList<>();
+        for (int i = 1; i <= CATEGORIES; i++) {
+            String name = "Категория " + i;
+            long count = 100 + random.nextInt(1000);
+            double value = count * 800.0;
+            partsByCategory.add(new CategoryPartCount(name, count));
+            valueByCategory.add(new CategoryValue(name, value));
+            categoryStats.add(new CategoryStatistics(name, count, value, 800.0));
+        }
+        List<SupplierPartCount> partsBySupplier = new ArrayList<>();
+        List<SupplierValue> valueBySupplier = new ArrayList<>();
+        List<SupplierStatistics> supplierStats = new ArrayList<>();
+        for (int i = 1; i <= SUPPLIERS; i++) {
+            String name = "Поставщик " + i;
+            long count = 10 + random.nextInt(500);
+            double value = count * 650.0;
+            partsBySupplier.add(new SupplierPartCount(name, count));
+            valueBySupplier.add(new SupplierValue(name, value));
+            supplierStats.add(new SupplierStatistics(name, count, value, 650.0));
+        }
+        List<LowStockPart> lowStock = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            lowStock.add(new LowStockPart("Запчасть " + i, random.nextInt(10)));
+        }
+        return new DashboardDTO(new OverallMetrics(12_000, 9_600_000.0, 800.0),
+                partsByCategory, partsBySupplier, valueByCategory, valueBySupplier, lowStock,
+                categoryStats, supplierStats, new InventoryOverview(3_500_000L, 12_000, 291.6),
+                List.of(new StockLevelCount(STOCK_LEVELS.get(0), 120), new StockLevelCount(STOCK_LEVELS.get(1), 800),
+                        new StockLevelCount(STOCK_LEVELS.get(2), 3_400), new StockLevelCount(STOCK_LEVELS.get(3), 7_680)));
+    }
+
+    /**
+     * Та же сводка в виде вложенных {@code Map<String, Object>}, как ее отдавали
+     * эндпоинты метрик до перехода на типизированные записи: каждая строка выборки -
+     * отдельная изменяемая {@link HashMap}, а числа в ней упакованы в объекты.
+     */
+    static Map<String, Object> dashboardAsMaps(DashboardDTO dashboard) {
+        Map<String, Object> result = new HashMap<>();
+        Map<String, Object> overall = new HashMap<>();
+        overall.put("totalParts", dashboard.overall().totalParts());
+        overall.put("totalValue", dashboard.overall().totalValue());
+        overall.put("averagePrice", dashboard.overall().averagePrice());
+        result.put("overall", overall);
+        result.put("partsByCategory", dashboard.partsByCategory().stream()
+                .map(row -> row("categoryName", row.categoryName(), "partCount", row.partCount()))
+                .toList());
+        result.put("partsBySupplier", dashboard.partsBySupplier().stream()
+                .map(row -> row("supplierName", row.supplierName(), "partCount", row.partCount()))
+                .toList());
+        result.put("valueByCategory", dashboard.valueByCategory().stream()
+                .map(row -> row("categoryName", row.categoryName(), "totalValue", row.totalValue()))
+                .toList());
+        result.put("valueBySupplier", dashboard.valueBySupplier().stream()
+                .map(row -> row("supplierName", row.supplierName(), "totalValue", row.totalValue()))
+                .toList());
+        result.put("lowStock", dashboard.lowStock().stream()
+                .map(row -> row("partName", row.partName(), "quantity", row.quantity()))
+                .toList());
+        result.put("categoryStats", dashboard.categoryStats().stream()
+                .map(row -> statistics("categoryName", row.categoryName(), row.partCount(), row.totalValue(),
+                        row.averagePrice()))
+                .toList());
+        result.put("supplierStats", dashboard.supplierStats().stream()
+                .map(row -> statistics("supplierName", row.supplierName(), row.partCount(), row.totalValue(),
+                        row.averagePrice()))
+                .toList());
+        Map<String, Object> overview = new HashMap<>();
+        overview.put("totalQuantity", dashboard.inventoryOverview().totalQuantity());
+        overview.put("uniqueParts", dashboard.inventoryOverview().uniqueParts());
+        overview.put("averageQuantity", dashboard.inventoryOverview().averageQuantity());
+        result.put("inventoryOverview", overview);
+        result.put("stockDistribution", dashboard.stockDistribution().stream()
+                .map(row -> row("stockLevel", row.stockLevel(), "count", row.count()))
+                .toList());
+        return result;
+    }
+
+    private static Map<String, Object> row(String firstKey, Object first, String secondKey, Object second) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(firstKey, first);
+        row.put(secondKey, second);
+        return row;
+    }
+
+    private static Map<String, Object> statistics(String nameKey, String name, Object partCount, Object totalValue,
+                                                  Object averagePrice) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(nameKey, name);
+        row.put("partCount", partCount);
+        row.put("totalValue", totalValue);
+        row.put("averagePrice", averagePrice);
+        return row;
+    }
+}
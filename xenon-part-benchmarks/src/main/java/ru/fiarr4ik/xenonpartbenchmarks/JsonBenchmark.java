@@ -0,0 +1,84 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.metrics.DashboardDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов в JSON: список запчастей и сводка главной панели.
+ *
+ * <p>Сводка измеряется в виде записей и в виде вложенных {@code Map<String, Object>}, которые
+ * эндпоинты метрик строили на каждый запрос до перехода на записи; поэтому в
+ * {@link #dashboardMaps()} входит и построение карт, а сериализуются они без Blackbird,
+ * как было до его подключения. Список измеряется с модулем Blackbird,
+ * как в приложении, и без него. Blackbird не меняет ни формат, ни порядок записи JSON: он
+ * лишь заменяет рефлексивные вызовы геттеров и конструкторов лямбдами, сгенерированными
+ * через {@code LambdaMetafactory}.
+ *
+ * <p>Выделенная память на операцию ({@code gc.alloc.rate.norm}, байт на запрос) выводится
+ * профилировщиком GC, который {@link BenchmarkRunner} подключает по умолчанию; при запуске
+ * через {@code org.openjdk.jmh.Main} его нужно указать ключом {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"100", "1000"})
+    private int listSize;
+
+    private ObjectWriter plainWriter;
+    private ObjectWriter blackbirdWriter;
+    private List<PartResponseDTO> parts;
+    private DashboardDTO dashboard;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper plain = new ObjectMapper().findAndRegisterModules();
+        ObjectMapper blackbird = new ObjectMapper().findAndRegisterModules().registerModule(new BlackbirdModule());
+        plainWriter = plain.writer();
+        blackbirdWriter = blackbird.writer();
+        parts = Fixtures.partResponses(listSize);
+        dashboard = Fixtures.dashboard();
+    }
+
+    @Benchmark
+    public byte[] partListPlain() throws JsonProcessingException {
+        return plainWriter.writeValueAsBytes(parts);
+    }
+
+    @Benchmark
+    public byte[] partListBlackbird() throws JsonProcessingException {
+        return blackbirdWriter.writeValueAsBytes(parts);
+    }
+
+    @Benchmark
+    public byte[] dashboardRecords() throws JsonProcessingException {
+        return blackbirdWriter.writeValueAsBytes(dashboard);
+    }
+
+    @Benchmark
+    public byte[] dashboardMaps() throws JsonProcessingException {
+        return plainWriter.writeValueAsBytes(Fixtures.dashboardAsMaps(dashboard));
+    }
+}
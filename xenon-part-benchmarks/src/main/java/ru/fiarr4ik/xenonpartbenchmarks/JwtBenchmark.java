@@ -0,0 +1,56 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fiarr4ik.xenonpartapi.config.JwtPrincipal;
+import ru.fiarr4ik.xenonpartapi.config.JwtUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выпуск и проверка JWT. Проверка измеряется дважды: с кэшем проверенных токенов,
+ * как при повторных запросах одного клиента, и без кэша, как при первом предъявлении токена.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = new JwtUtil(10_000);
+        uncachedJwtUtil = new JwtUtil(0);
+        token = cachingJwtUtil.generateToken("benchmark", 42L);
+        cachingJwtUtil.parse(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken("benchmark", 42L);
+    }
+
+    @Benchmark
+    public boolean validateTokenCached() {
+        return cachingJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public JwtPrincipal parseTokenUncached() {
+        return uncachedJwtUtil.parse(token);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование сущностей в DTO через {@link GlobalMapper}: одна запчасть
+ * (ответ {@code GET /api/parts/{id}}) и список (ответ {@code GET /api/parts}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"100", "1000"})
+    private int listSize;
+
+    private GlobalMapper mapper;
+    private Part part;
+    private List<Part> parts;
+
+    @Setup
+    public void setUp() {
+        mapper = new GlobalMapper(new ModelMapper());
+        parts = Fixtures.parts(listSize);
+        part = parts.get(0);
+    }
+
+    @Benchmark
+    public PartResponseDTO partToDto() {
+        return mapper.toPartResponseDto(part);
+    }
+
+    @Benchmark
+    public List<PartResponseDTO> partListToDtos() {
+        return mapper.toPartResponseList(parts);
+    }
+}
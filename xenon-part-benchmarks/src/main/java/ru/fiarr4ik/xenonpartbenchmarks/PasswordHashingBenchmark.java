@@ -0,0 +1,71 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.fiarr4ik.xenonpartapi.user.PasswordHasher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хэширование и проверка паролей в {@link PasswordHasher}, через которые проходят
+ * регистрация, вход и смена пароля.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    private int strength;
+
+    private PasswordHasher hasher;
+    private String bcryptHash;
+    private String legacyHash;
+
+    @Setup
+    public void setUp() {
+        hasher = new PasswordHasher(new SimpleMeterRegistry(), strength, 1, 16);
+        bcryptHash = hasher.hash(PASSWORD).join();
+        // Несоленый SHA-256 в Base64 - формат хэшей до перехода на bcrypt
+        legacyHash = "xLvLH77JnWW/WdhcjLYu4tuWPw/hBvSD2a+nO9Tjmoo=";
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash(PASSWORD).join();
+    }
+
+    @Benchmark
+    public PasswordHasher.Verification verifyBcrypt() {
+        return hasher.verify(PASSWORD, bcryptHash).join();
+    }
+
+    /**
+     * Первый вход с хэшем прежнего формата: проверка SHA-256 и построение bcrypt-хэша для замены.
+     */
+    @Benchmark
+    public PasswordHasher.Verification verifyLegacyWithUpgrade() {
+        return hasher.verify(PASSWORD, legacyHash).join();
+    }
+}
@@ -0,0 +1,165 @@
+package ru.fiarr4ik.xenonpartbenchmarks;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.fiarr4ik.xenonpartapi.ratelimit.RateLimitFilter;
+import ru.fiarr4ik.xenonpartapi.ratelimit.RateLimitProperties;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы {@link RateLimitFilter} на один запрос целиком: поиск группы маршрута,
+ * определение клиента, списание из его корзины и заголовки ответа. Группы те же,
+ * что в {@code application.properties} приложения.
+ *
+ * <p>Запросы и ответы создаются заранее в состоянии потока, поэтому в измерение
+ * не попадают ни их построение, ни выбор клиента. Ответ отбрасывает тело, чтобы
+ * отклоненные запросы не накапливали его в памяти.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    /**
+     * Степень двойки, чтобы перебирать клиентов маской.
+     */
+    private static final int CLIENTS = 8192;
+
+    /**
+     * Фильтры, общие для всех потоков, как единственный экземпляр в приложении.
+     */
+    @State(Scope.Benchmark)
+    public static class Filters {
+
+        private RateLimitFilter filter;
+        private RateLimitFilter exhaustedFilter;
+
+        @Setup
+        public void setUp() {
+            // Частота заведомо выше измеряемой, чтобы запросы не отклонялись
+            filter = new RateLimitFilter(properties(1e9, 1_000));
+            // Минимальная частота: после первого запроса клиента все отклоняются
+            exhaustedFilter = new RateLimitFilter(properties(1e-6, 1));
+        }
+
+        private static RateLimitProperties properties(double permitsPerSecond, int burst) {
+            RateLimitProperties properties = new RateLimitProperties();
+            properties.setMaxClientsPerGroup(CLIENTS * 2);
+            properties.getGroups().put("auth",
+                    group(List.of("POST /api/auth/login", "POST /api/auth/register"), permitsPerSecond, burst));
+            properties.getGroups().put("stock-writes",
+                    group(List.of("POST /api/inventory/{id}/add", "POST /api/inventory/{id}/remove"), permitsPerSecond, burst));
+            return properties;
+        }
+
+        private static RateLimitProperties.Group group(List<String> routes, double permitsPerSecond, int burst) {
+            RateLimitProperties.Group group = new RateLimitProperties.Group();
+            group.setRoutes(routes);
+            group.setPermitsPerSecond(permitsPerSecond);
+            group.setBurst(burst);
+            return group;
+        }
+    }
+
+    /**
+     * Запросы и ответ одного потока.
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+
+        private MockHttpServletRequest[] clients;
+        private MockHttpServletRequest sameClient;
+        private MockHttpServletRequest unlimited;
+        private HttpServletResponse response;
+        private FilterChain chain;
+        private int next;
+
+        @Setup
+        public void setUp() {
+            clients = new MockHttpServletRequest[CLIENTS];
+            for (int i = 0; i < CLIENTS; i++) {
+                clients[i] = request("POST", "/api/inventory/" + (i + 1) + "/remove", "10.0." + (i >> 8) + "." + (i & 0xFF));
+            }
+            sameClient = request("POST", "/api/inventory/12345/remove", "10.255.0.1");
+            unlimited = request("GET", "/api/parts/12345", "10.255.0.1");
+            response = new DiscardingResponse();
+            chain = (request, response) -> { };
+        }
+
+        private MockHttpServletRequest nextClient() {
+            MockHttpServletRequest request = clients[next];
+            next = (next + 1) & (CLIENTS - 1);
+            return request;
+        }
+
+        private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+            MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public HttpServletResponse unlimitedRoute(Filters filters, Requests requests) throws ServletException, IOException {
+        filters.filter.doFilter(requests.unlimited, requests.response, requests.chain);
+        return requests.response;
+    }
+
+    @Benchmark
+    public HttpServletResponse allowedManyClients(Filters filters, Requests requests) throws ServletException, IOException {
+        filters.filter.doFilter(requests.nextClient(), requests.response, requests.chain);
+        return requests.response;
+    }
+
+    @Benchmark
+    public HttpServletResponse rejectedManyClients(Filters filters, Requests requests) throws ServletException, IOException {
+        filters.exhaustedFilter.doFilter(requests.nextClient(), requests.response, requests.chain);
+        return requests.response;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public HttpServletResponse allowedContendedClient(Filters filters, Requests requests) throws ServletException, IOException {
+        filters.filter.doFilter(requests.sameClient, requests.response, requests.chain);
+        return requests.response;
+    }
+
+    /**
+     * Ответ, отбрасывающий тело.
+     */
+    private static final class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private final PrintWriter writer = new PrintWriter(Writer.nullWriter());
+
+        private DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Заполняет базу каталогом, похожим на настоящий: цены распределены логнормально,
+ * остатки и расход сильно различаются между запчастями, у поставщиков разные сроки поставки.
+ * Генератор детерминирован, поэтому прогоны разных сборок работают с одинаковыми данными.
+ */
+final class CatalogueSeeder {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestSettings settings;
+    private final Random random = new Random(42);
+
+    CatalogueSeeder(JdbcTemplate jdbcTemplate, LoadTestSettings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+    }
+
+    /**
+     * Заполняет каталог.
+     *
+     * @return идентификаторы созданных запчастей и записей инвентаря
+     */
+    Catalogue seed() {
+        List<Long> categoryIds = new ArrayList<>();
+        for (int i = 1; i <= settings.categories(); i++) {
+            categoryIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO categories (name, description) VALUES (?, ?) RETURNING category_id",
+                    Long.class, "Категория " + i, "Описание категории " + i));
+        }
+        List<Long> supplierIds = new ArrayList<>();
+        for (int i = 1; i <= settings.suppliers(); i++) {
+            supplierIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO suppliers (name, contact_person, phone, email, address, lead_time_days) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) RETURNING supplier_id",
+                    Long.class, "Поставщик " + i, "Контакт " + i, "+7900" + String.format("%07d", i),
+                    "supplier" + i + "@example.com", "Адрес " + i, 3 + random.nextInt(25)));
+        }
+
+        List<Object[]> parts = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= settings.parts(); i++) {
+            double price = Math.round(Math.exp(6 + random.nextGaussian() * 1.2) * 100) / 100.0;
+            parts.add(new Object[] {"Запчасть " + i, "Описание запчасти " + i,
+                    categoryIds.get(random.nextInt(categoryIds.size())),
+                    supplierIds.get(random.nextInt(supplierIds.size())), price});
+            if (parts.size() == BATCH_SIZE) {
+                insertParts(parts);
+            }
+        }
+        insertParts(parts);
+
+        long[] partIds = jdbcTemplate.queryForList("SELECT part_id FROM part ORDER BY part_id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        List<Object[]> inventory = new ArrayList<>(BATCH_SIZE);
+        for (long partId : partIds) {
+            int stock = 1_000 + (int) Math.abs(random.nextGaussian() * 5_000);
+            inventory.add(new Object[] {partId, stock, Timestamp.valueOf(LocalDateTime.now().minusDays(random.nextInt(60)))});
+            if (inventory.size() == BATCH_SIZE) {
+                insertInventory(inventory);
+            }
+        }
+        insertInventory(inventory);
+
+        List<long[]> inventoryRows = jdbcTemplate.query("SELECT inventory_id, part_id FROM inventory ORDER BY inventory_id",
+                (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)});
+        seedMovements(inventoryRows);
+
+        long[] inventoryIds = inventoryRows.stream().mapToLong(row -> row[0]).toArray();
+        return new Catalogue(partIds, inventoryIds);
+    }
+
+    private void seedMovements(List<long[]> inventoryRows) {
+        List<Object[]> movements = new ArrayList<>(BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (long[] row : inventoryRows) {
+            // Средний расход запчасти различается на порядки, как в реальном каталоге
+            double demand = Math.exp(random.nextGaussian() * 1.5);
+            for (int i = 0; i < settings.movementsPerPart(); i++) {
+                int quantity = 1 + (int) (demand * random.nextDouble() * 10);
+                boolean restock = random.nextInt(5) == 0;
+                movements.add(new Object[] {row[1], row[0], restock ? quantity * 5 : -quantity,
+                        Timestamp.valueOf(now.minusMinutes(random.nextInt(90 * 24 * 60)))});
+                if (movements.size() == BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate("INSERT INTO stock_movement (part_id, inventory_id, quantity, moved_at) " +
+                            "VALUES (?, ?, ?, ?)", movements);
+                    movements.clear();
+                }
+            }
+        }
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO stock_movement (part_id, inventory_id, quantity, moved_at) " +
+                    "VALUES (?, ?, ?, ?)", movements);
+        }
+    }
+
+    private void insertParts(List<Object[]> parts) {
+        if (!parts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO part (name, description, category_id, supplier_id, unit_price) " +
+                    "VALUES (?, ?, ?, ?, ?)", parts);
+            parts.clear();
+        }
+    }
+
+    private void insertInventory(List<Object[]> inventory) {
+        if (!inventory.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO inventory (part_id, quantity_in_stock, last_restock_date) " +
+                    "VALUES (?, ?, ?)", inventory);
+            inventory.clear();
+        }
+    }
+
+    /**
+     * Идентификаторы заполненного каталога, из которых нагрузка выбирает адреса запросов.
+     */
+    record Catalogue(long[] partIds, long[] inventoryIds) {
+    }
+}
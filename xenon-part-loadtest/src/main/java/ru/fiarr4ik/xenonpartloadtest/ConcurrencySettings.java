@@ -0,0 +1,36 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Параметры сравнения предела одновременных клиентов. Задаются системными свойствами
+ * с префиксом {@code concurrency.}, например {@code -Dconcurrency.levels=100,400,1000}.
+ * Размер каталога берется из {@link LoadTestSettings}.
+ *
+ * @param levels количества одновременных медленных клиентов, проверяемые по очереди
+ * @param levelDuration сколько держится каждый уровень
+ * @param probeRate частота контрольных запросов в секунду на фоне медленных клиентов
+ * @param probeTimeout ожидание ответа на контрольный запрос, после которого он считается ошибкой
+ * @param slowReadBytes сколько байт медленный клиент читает за раз
+ * @param slowReadInterval пауза медленного клиента между чтениями
+ * @param label метка прогона в отчете
+ * @param reportDirectory каталог для JSON-отчетов
+ */
+record ConcurrencySettings(int[] levels, Duration levelDuration, int probeRate, Duration probeTimeout,
+                           int slowReadBytes, Duration slowReadInterval, String label, Path reportDirectory) {
+
+    static ConcurrencySettings fromSystemProperties() {
+        return new ConcurrencySettings(
+                Arrays.stream(System.getProperty("concurrency.levels", "50,200,400,1000").split(","))
+                        .map(String::trim).mapToInt(Integer::parseInt).toArray(),
+                Duration.ofSeconds(Integer.getInteger("concurrency.level-seconds", 20)),
+                Integer.getInteger("concurrency.probe-rate", 50),
+                Duration.ofSeconds(Integer.getInteger("concurrency.probe-timeout-seconds", 5)),
+                Integer.getInteger("concurrency.slow-read-bytes", 1024),
+                Duration.ofMillis(Integer.getInteger("concurrency.slow-read-interval-ms", 100)),
+                System.getProperty("loadtest.label", "local"),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+}
@@ -0,0 +1,257 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.fiarr4ik.xenonpartreactive.XenonPartReactiveApplication;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сравнение предела одновременных клиентов у сервлетного и реактивного API чтения.
+ *
+ * <p>Оба приложения запускаются на одной встроенной базе. На каждом уровне открывается
+ * заданное число медленных клиентов, которые запрашивают полный список запчастей и
+ * читают ответ маленькими порциями, а на их фоне с постоянной частотой отправляются
+ * короткие контрольные запросы. Сервлетный стек занимает поток на каждого медленного
+ * клиента, и после исчерпания пула контрольные запросы ждут в очереди; реактивный
+ * стек продолжает отвечать. Для каждого уровня фиксируется, сколько медленных клиентов
+ * начали получать ответ, и задержки контрольных запросов.
+ *
+ * <p>Запуск: {@code mvn -pl xenon-part-loadtest -am install -DskipTests} и затем
+ * {@code mvn -pl xenon-part-loadtest exec:java -Dloadtest.main=ru.fiarr4ik.xenonpartloadtest.ConcurrencyTest
+ * -Dconcurrency.levels=100,400,1000}. На каждый медленный клиент приходится по сокету
+ * с обеих сторон, поэтому для больших уровней нужно поднять {@code ulimit -n}.
+ */
+public final class ConcurrencyTest {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private ConcurrencyTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings loadSettings = LoadTestSettings.fromSystemProperties();
+        ConcurrencySettings settings = ConcurrencySettings.fromSystemProperties();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext servlet = LoadTest.startApplication(postgres)) {
+            System.out.println("Заполнение каталога...");
+            CatalogueSeeder.Catalogue catalogue =
+                    new CatalogueSeeder(servlet.getBean(JdbcTemplate.class), loadSettings).seed();
+
+            try (ConfigurableApplicationContext reactive = startReactive(postgres)) {
+                Map<String, Integer> targets = new LinkedHashMap<>();
+                targets.put("mvc", port(servlet));
+                targets.put("reactive", port(reactive));
+
+                List<LevelResult> results = new ArrayList<>();
+                for (Map.Entry<String, Integer> target : targets.entrySet()) {
+                    for (int level : settings.levels()) {
+                        System.out.printf("%s: %d медленных клиентов...%n", target.getKey(), level);
+                        results.add(measure(target.getKey(), target.getValue(), level, catalogue, settings));
+                    }
+                }
+                Path file = publish(results, settings);
+                System.out.println("Отчет: " + file.toAbsolutePath());
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startReactive(EmbeddedPostgres postgres) {
+        SpringApplication application = new SpringApplication(XenonPartReactiveApplication.class);
+        // В classpath нагрузочного модуля есть и сервлетный стек, поэтому тип приложения
+        // и Netty задаются явно, а JDBC и JPA основного API отключаются
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.addInitializers(context -> ((GenericApplicationContext) context)
+                .registerBean(NettyReactiveWebServerFactory.class));
+        return application.run(
+                "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=postgres",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+    }
+
+    private static LevelResult measure(String target, int port, int level, CatalogueSeeder.Catalogue catalogue,
+                                       ConcurrencySettings settings) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder receiving = new LongAdder();
+        LongAdder failed = new LongAdder();
+        Recorder probes = new Recorder(TimeUnit.MICROSECONDS.toNanos(1), MAX_LATENCY_NANOS, 3);
+        LongAdder probeErrors = new LongAdder();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < level; i++) {
+                clients.execute(() -> slowClient(port, settings, running, receiving, failed));
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(settings.probeTimeout())
+                    .build();
+            URI base = URI.create("http://localhost:" + port);
+            long interval = TimeUnit.SECONDS.toNanos(1) / settings.probeRate();
+            long start = System.nanoTime();
+            long end = start + settings.levelDuration().toNanos();
+            for (long intended = start; intended < end; intended += interval) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long partId = catalogue.partIds()[ThreadLocalRandom.current().nextInt(catalogue.partIds().length)];
+                HttpRequest request = HttpRequest.newBuilder(base.resolve("/api/parts/" + partId))
+                        .timeout(settings.probeTimeout())
+                        .build();
+                long plannedAt = intended;
+                clients.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            probeErrors.increment();
+                        }
+                    } catch (Exception e) {
+                        probeErrors.increment();
+                    }
+                    probes.recordValue(Math.min(System.nanoTime() - plannedAt, MAX_LATENCY_NANOS));
+                });
+            }
+            running.set(false);
+        }
+
+        Histogram histogram = probes.getIntervalHistogram();
+        return new LevelResult(target, level, receiving.intValue(), failed.intValue(),
+                histogram.getTotalCount(), probeErrors.longValue(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue()));
+    }
+
+    /**
+     * Запрашивает полный список запчастей и читает ответ порциями с паузами,
+     * пока уровень не закончится.
+     */
+    private static void slowClient(int port, ConcurrencySettings settings, AtomicBoolean running,
+                                   LongAdder receiving, LongAdder failed) {
+        try (Socket socket = new Socket()) {
+            // Маленький буфер приема, чтобы сервер быстро упирался в медленное чтение
+            socket.setReceiveBufferSize(4096);
+            // Ожидание ответа прерывается, чтобы клиент заметил окончание уровня
+            socket.setSoTimeout(1000);
+            socket.connect(new InetSocketAddress("localhost", port), (int) settings.probeTimeout().toMillis());
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /api/parts HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n" +
+                    "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[settings.slowReadBytes()];
+            boolean counted = false;
+            while (running.get()) {
+                int read;
+                try {
+                    read = in.read(buffer);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                if (read < 0) {
+                    return;
+                }
+                if (!counted) {
+                    receiving.increment();
+                    counted = true;
+                }
+                Thread.sleep(settings.slowReadInterval());
+            }
+        } catch (IOException e) {
+            failed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Path publish(List<LevelResult> results, ConcurrencySettings settings) throws IOException {
+        System.out.printf("%n%-9s %8s %10s %7s %8s %8s %9s %9s %9s%n",
+                "target", "clients", "receiving", "failed", "probes", "errors", "p50 ms", "p99 ms", "max ms");
+        for (LevelResult result : results) {
+            System.out.printf("%-9s %8d %10d %7d %8d %8d %9.2f %9.2f %9.2f%n",
+                    result.target(), result.slowClients(), result.receiving(), result.failed(),
+                    result.probes(), result.probeErrors(), result.probeP50Ms(), result.probeP99Ms(),
+                    result.probeMaxMs());
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", settings.label());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("levels", results);
+
+        Files.createDirectories(settings.reportDirectory());
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now());
+        Path file = settings.reportDirectory().resolve("concurrency-" + settings.label() + "-" + timestamp + ".json");
+        new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Итог одного уровня.
+     *
+     * @param target проверяемый стек
+     * @param slowClients число медленных клиентов
+     * @param receiving сколько из них начали получать ответ
+     * @param failed сколько не смогли подключиться или получили разрыв соединения
+     * @param probes число контрольных запросов
+     * @param probeErrors контрольные запросы с ошибкой или без ответа за отведенное время
+     * @param probeP50Ms медианная задержка контрольного запроса
+     * @param probeP99Ms 99-й процентиль задержки контрольного запроса
+     * @param probeMaxMs наибольшая задержка контрольного запроса
+     */
+    record LevelResult(String target, int slowClients, int receiving, int failed, long probes, long probeErrors,
+                       double probeP50Ms, double probeP99Ms, double probeMaxMs) {
+    }
+}
@@ -0,0 +1,155 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки по эндпоинтам. Задержка отсчитывается от запланированного
+ * момента отправки, а не от фактического, поэтому очередь перед перегруженным
+ * сервером не скрывается (coordinated omission).
+ */
+final class LatencyReport {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        stats.recorder.recordValue(Math.min(latencyNanos, MAX_LATENCY_NANOS));
+        if (!success) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * Сбрасывает накопленные значения, например после прогрева.
+     */
+    void reset() {
+        endpoints.values().forEach(Endpoint::reset);
+    }
+
+    /**
+     * Печатает итоги фазы и возвращает их для отчета. Накопленные значения при этом сбрасываются.
+     *
+     * @param phase название фазы для заголовка таблицы
+     * @param elapsed фактическая длительность измерения
+     * @return итоги по эндпоинтам
+     */
+    Map<String, EndpointResult> summarize(String phase, Duration elapsed) {
+        double seconds = elapsed.toNanos() / 1e9;
+        Map<String, EndpointResult> results = new TreeMap<>();
+        endpoints.forEach((name, stats) -> {
+            Histogram histogram = stats.snapshot();
+            results.put(name, new EndpointResult(histogram.getTotalCount(), stats.errors.sum(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        });
+
+        System.out.printf("%n%s, %.0f с%n", phase, seconds);
+        System.out.printf("%-18s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        results.forEach((name, result) -> System.out.printf("%-18s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, result.requests(), result.errors(), result.throughput(), result.p50Ms(), result.p90Ms(),
+                result.p99Ms(), result.p999Ms(), result.maxMs()));
+        return results;
+    }
+
+    /**
+     * Сравнивает p99 одних и тех же эндпоинтов в двух фазах, печатает сравнение
+     * и сохраняет итоги всех фаз в JSON.
+     *
+     * @param settings параметры прогона
+     * @param phases итоги фаз по названиям, в порядке выполнения
+     * @param baseline название фазы, с которой сравниваются остальные
+     * @param excluded эндпоинты, которых нет в базовой фазе по построению, например логины
+     * @return путь к JSON-отчету
+     * @throws IOException если отчет не удалось записать
+     */
+    static Path publish(LoadTestSettings settings, Map<String, Map<String, EndpointResult>> phases,
+                        String baseline, Set<String> excluded) throws IOException {
+        Map<String, EndpointResult> base = phases.get(baseline);
+        Map<String, Object> comparisons = new LinkedHashMap<>();
+        phases.forEach((phase, results) -> {
+            if (phase.equals(baseline)) {
+                return;
+            }
+            System.out.printf("%n%-18s %12s %12s %9s%n", "p99: " + phase, baseline + " ms", phase + " ms", "рост");
+            Map<String, Object> comparison = new LinkedHashMap<>();
+            results.forEach((name, result) -> {
+                EndpointResult reference = base.get(name);
+                if (reference == null || excluded.contains(name)) {
+                    return;
+                }
+                double ratio = reference.p99Ms() > 0 ? result.p99Ms() / reference.p99Ms() : Double.NaN;
+                System.out.printf("%-18s %12.2f %12.2f %8.2fx%n", name, reference.p99Ms(), result.p99Ms(), ratio);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("baselineP99Ms", reference.p99Ms());
+                entry.put("p99Ms", result.p99Ms());
+                entry.put("ratio", ratio);
+                comparison.put(name, entry);
+            });
+            comparisons.put(phase, comparison);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", settings.label());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("phases", phases);
+        report.put("p99Comparison", comparisons);
+
+        Files.createDirectories(settings.reportDirectory());
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now());
+        Path file = settings.reportDirectory().resolve("report-" + settings.label() + "-" + timestamp + ".json");
+        new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Итоги эндпоинта за фазу, задержки в миллисекундах.
+     */
+    record EndpointResult(long requests, long errors, double throughput,
+                          double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+    }
+
+    private static final class Endpoint {
+        private final Recorder recorder = new Recorder(TimeUnit.MICROSECONDS.toNanos(1), MAX_LATENCY_NANOS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        private Histogram snapshot() {
+            return recorder.getIntervalHistogram();
+        }
+
+        private void reset() {
+            recorder.reset();
+            errors.reset();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.fiarr4ik.xenonpartapi.XenonPartApiApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Нагрузочный тест REST API.
+ *
+ * <p>Поднимает встроенный PostgreSQL, запускает приложение на случайном порту,
+ * заполняет каталог и подает смешанную нагрузку с постоянной частотой (открытая
+ * модель: запросы отправляются по расписанию, не дожидаясь ответов на предыдущие).
+ * Если задана частота логинов, после базового измерения без логинов выполняется
+ * второе с той же смешанной нагрузкой и волной логинов отдельным потоком, и p99
+ * остальных эндпоинтов в двух фазах сравнивается: так видно, ухудшает ли хэширование
+ * паролей задержки CRUD-запросов. Итоги печатаются таблицами и сохраняются в JSON
+ * для сравнения сборок.
+ *
+ * <p>Запуск: {@code mvn -pl xenon-part-loadtest -am install -DskipTests} и затем
+ * {@code mvn -pl xenon-part-loadtest exec:java -Dloadtest.rate=800 -Dloadtest.login-rate=200}.
+ * Генератор нагрузки работает в одном процессе с приложением, поэтому результаты
+ * пригодны для сравнения сборок на одной машине, а не как абсолютные цифры.
+ */
+public final class LoadTest {
+
+    private static final String LOGIN_USERNAME = "loadtest";
+    private static final String LOGIN_PASSWORD = "loadtest-password";
+    private static final String LOGIN_ENDPOINT = "LOGIN";
+
+    private static final String BASELINE_PHASE = "baseline";
+    private static final String LOGIN_STORM_PHASE = "loginStorm";
+
+    private static final String R2DBC_AUTO_CONFIGURATION =
+            "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = startApplication(postgres)) {
+            System.out.println("Заполнение каталога...");
+            CatalogueSeeder.Catalogue catalogue = new CatalogueSeeder(context.getBean(JdbcTemplate.class), settings).seed();
+
+            int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+            URI base = URI.create("http://localhost:" + port);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            if (settings.loginRate() > 0) {
+                register(client, base);
+            }
+
+            LatencyReport report = new LatencyReport();
+            System.out.printf("Прогрев %d с...%n", settings.warmup().toSeconds());
+            run(client, base, catalogue, settings.rate(), settings.loginRate(), settings.warmup(), report);
+            report.reset();
+
+            Map<String, Map<String, LatencyReport.EndpointResult>> phases = new LinkedHashMap<>();
+            System.out.printf("Базовое измерение %d с: %d запросов/с без логинов%n",
+                    settings.duration().toSeconds(), settings.rate());
+            phases.put(BASELINE_PHASE, measure(client, base, catalogue, settings, 0, report));
+            if (settings.loginRate() > 0) {
+                System.out.printf("Измерение %d с: %d запросов/с, логинов %d/с%n",
+                        settings.duration().toSeconds(), settings.rate(), settings.loginRate());
+                phases.put(LOGIN_STORM_PHASE, measure(client, base, catalogue, settings, settings.loginRate(), report));
+            }
+            Path file = LatencyReport.publish(settings, phases, BASELINE_PHASE, Set.of(LOGIN_ENDPOINT));
+            System.out.println("Отчет: " + file.toAbsolutePath());
+        }
+    }
+
+    static ConfigurableApplicationContext startApplication(EmbeddedPostgres postgres) {
+        SpringApplication application = new SpringApplication(XenonPartApiApplication.class);
+        // Аргументы командной строки перекрывают application.properties приложения.
+        // R2DBC попадает в classpath вместе с реактивным модулем и основному API не нужен
+        return application.run(
+                "--spring.autoconfigure.exclude=" + R2DBC_AUTO_CONFIGURATION,
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.boot=WARN",
+                "--rate-limit.enabled=false",
+                "--avatars.storage-dir=target/loadtest/avatars");
+    }
+
+    private static Map<String, LatencyReport.EndpointResult> measure(
+            HttpClient client, URI base, CatalogueSeeder.Catalogue catalogue, LoadTestSettings settings,
+            int loginRate, LatencyReport report) throws InterruptedException {
+        long started = System.nanoTime();
+        run(client, base, catalogue, settings.rate(), loginRate, settings.duration(), report);
+        String phase = loginRate > 0 ? LOGIN_STORM_PHASE : BASELINE_PHASE;
+        return report.summarize(phase, Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    /**
+     * Подает нагрузку в течение заданного времени. Для каждого запроса заранее
+     * вычисляется момент отправки, задержка отсчитывается от него.
+     */
+    private static void run(HttpClient client, URI base, CatalogueSeeder.Catalogue catalogue,
+                            int rate, int loginRate, Duration length, LatencyReport report) throws InterruptedException {
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long end = start + length.toNanos();
+            Thread mixed = Thread.ofPlatform().name("loadtest-mixed").start(() -> schedule(rate, start, end,
+                    () -> {
+                        Operation operation = Operation.next(ThreadLocalRandom.current());
+                        HttpRequest request = operation.request(base, catalogue, ThreadLocalRandom.current())
+                                .timeout(Duration.ofSeconds(30)).build();
+                        return new Scheduled(operation.name(), request);
+                    }, client, workers, report));
+            Thread logins = null;
+            if (loginRate > 0) {
+                logins = Thread.ofPlatform().name("loadtest-login").start(() -> schedule(loginRate, start, end,
+                        () -> new Scheduled(LOGIN_ENDPOINT, loginRequest(base)), client, workers, report));
+            }
+            mixed.join();
+            if (logins != null) {
+                logins.join();
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static void schedule(int rate, long start, long end, Supplier<Scheduled> next,
+                                 HttpClient client, ExecutorService workers, LatencyReport report) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long intended = start; intended < end; intended += interval) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scheduled scheduled = next.get();
+            long plannedAt = intended;
+            workers.execute(() -> {
+                boolean success;
+                try {
+                    HttpResponse<Void> response = client.send(scheduled.request(), HttpResponse.BodyHandlers.discarding());
+                    success = response.statusCode() < 400;
+                } catch (Exception e) {
+                    success = false;
+                }
+                report.record(scheduled.endpoint(), System.nanoTime() - plannedAt, success);
+            });
+        }
+    }
+
+    private static void register(HttpClient client, URI base) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials()))
+                .build();
+        client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static HttpRequest loginRequest(URI base) {
+        return HttpRequest.newBuilder(base.resolve("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(credentials()))
+                .build();
+    }
+
+    private static String credentials() {
+        return "{\"username\":\"" + LOGIN_USERNAME + "\",\"password\":\"" + LOGIN_PASSWORD + "\"}";
+    }
+
+    private record Scheduled(String endpoint, HttpRequest request) {
+    }
+}
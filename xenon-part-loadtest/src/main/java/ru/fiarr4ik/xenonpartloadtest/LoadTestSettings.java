@@ -0,0 +1,39 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Параметры нагрузочного теста. Задаются системными свойствами с префиксом {@code loadtest.},
+ * например {@code -Dloadtest.rate=800 -Dloadtest.login-rate=200}.
+ *
+ * @param rate целевая частота запросов смешанной нагрузки в секунду
+ * @param loginRate частота логинов в секунду поверх смешанной нагрузки во второй фазе измерения,
+ *                  0 - только базовое измерение без логинов
+ * @param warmup длительность прогрева, результаты которого не учитываются
+ * @param duration длительность каждой фазы измерения
+ * @param categories количество категорий в каталоге
+ * @param suppliers количество поставщиков
+ * @param parts количество запчастей, у каждой одна запись инвентаря
+ * @param movementsPerPart количество исторических движений остатка на запчасть
+ * @param label метка прогона в отчете, например хэш коммита
+ * @param reportDirectory каталог для JSON-отчетов
+ */
+record LoadTestSettings(int rate, int loginRate, Duration warmup, Duration duration,
+                        int categories, int suppliers, int parts, int movementsPerPart,
+                        String label, Path reportDirectory) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.rate", 500),
+                Integer.getInteger("loadtest.login-rate", 0),
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 20)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 60)),
+                Integer.getInteger("loadtest.categories", 40),
+                Integer.getInteger("loadtest.suppliers", 150),
+                Integer.getInteger("loadtest.parts", 20_000),
+                Integer.getInteger("loadtest.movements-per-part", 20),
+                System.getProperty("loadtest.label", "local"),
+                Path.of(System.getProperty("loadtest.report-dir", "target/loadtest")));
+    }
+}
@@ -0,0 +1,83 @@
+package ru.fiarr4ik.xenonpartloadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Операции смешанной нагрузки и их доли в ней.
+ */
+enum Operation {
+    PART_BY_ID(40) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/parts/" + pick(catalogue.partIds(), random))).GET();
+        }
+    },
+    INVENTORY_BY_ID(20) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/inventory/" + pick(catalogue.inventoryIds(), random))).GET();
+        }
+    },
+    PARTS_LIST(2) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/parts")).GET();
+        }
+    },
+    DASHBOARD(8) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/metrics/dashboard")).GET();
+        }
+    },
+    STOCK_ADD(15) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/inventory/" + pick(catalogue.inventoryIds(), random)
+                    + "/add?quantity=" + (1 + random.nextInt(10)))).POST(HttpRequest.BodyPublishers.noBody());
+        }
+    },
+    STOCK_REMOVE(15) {
+        @Override
+        HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/inventory/" + pick(catalogue.inventoryIds(), random)
+                    + "/remove?quantity=" + (1 + random.nextInt(3)))).POST(HttpRequest.BodyPublishers.noBody());
+        }
+    };
+
+    private static final int TOTAL_WEIGHT = Arrays.stream(values()).mapToInt(operation -> operation.weight).sum();
+
+    private final int weight;
+
+    Operation(int weight) {
+        this.weight = weight;
+    }
+
+    abstract HttpRequest.Builder request(URI base, CatalogueSeeder.Catalogue catalogue, ThreadLocalRandom random);
+
+    /**
+     * Выбирает операцию с вероятностью, пропорциональной ее доле.
+     */
+    static Operation next(ThreadLocalRandom random) {
+        int point = random.nextInt(TOTAL_WEIGHT);
+        for (Operation operation : values()) {
+            point -= operation.weight;
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Выбирает идентификатор со смещением к началу массива: небольшая часть каталога
+     * получает большую часть обращений, как популярные товары.
+     */
+    private static long pick(long[] ids, ThreadLocalRandom random) {
+        double skewed = Math.pow(random.nextDouble(), 3);
+        return ids[(int) (skewed * ids.length)];
+    }
+}
@@ -0,0 +1,93 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.fiarr4ik.xenonpartapi.dto.CategoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.InventoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.SupplierResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+
+/**
+ * Эндпоинты чтения каталога с теми же путями и ответами, что и в основном API.
+ *
+ * <p>Списки отдаются JSON-массивом, который пишется по мере чтения строк, или,
+ * при {@code Accept: application/x-ndjson}, по одному объекту в строке с отправкой
+ * каждого объекта сразу после чтения.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class CatalogueController {
+
+    private final CatalogueReader catalogueReader;
+
+    @GetMapping(value = "/parts", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PartResponseDTO> findParts(@RequestParam(required = false) AbcClass abcClass,
+                                           @RequestParam(required = false) XyzClass xyzClass) {
+        return catalogueReader.parts(abcClass, xyzClass);
+    }
+
+    @GetMapping("/parts/{id}")
+    public Mono<PartResponseDTO> findPart(@PathVariable Long id) {
+        return catalogueReader.part(id);
+    }
+
+    @GetMapping("/parts/count")
+    public Mono<Long> countParts() {
+        return catalogueReader.count("part");
+    }
+
+    @GetMapping(value = "/categories", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CategoryResponseDTO> findCategories() {
+        return catalogueReader.categories();
+    }
+
+    @GetMapping("/categories/{id}")
+    public Mono<CategoryResponseDTO> findCategory(@PathVariable Long id) {
+        return catalogueReader.category(id);
+    }
+
+    @GetMapping("/categories/count")
+    public Mono<Long> countCategories() {
+        return catalogueReader.count("categories");
+    }
+
+    @GetMapping(value = "/suppliers", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<SupplierResponseDTO> findSuppliers() {
+        return catalogueReader.suppliers();
+    }
+
+    @GetMapping("/suppliers/{id}")
+    public Mono<SupplierResponseDTO> findSupplier(@PathVariable Long id) {
+        return catalogueReader.supplier(id);
+    }
+
+    @GetMapping("/suppliers/count")
+    public Mono<Long> countSuppliers() {
+        return catalogueReader.count("suppliers");
+    }
+
+    @GetMapping(value = "/inventory", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<InventoryResponseDTO> findInventory() {
+        return catalogueReader.inventory();
+    }
+
+    @GetMapping("/inventory/{id}")
+    public Mono<InventoryResponseDTO> findInventory(@PathVariable Long id) {
+        return catalogueReader.inventory(id);
+    }
+
+    @GetMapping("/inventory/count")
+    public Mono<Long> countInventory() {
+        return catalogueReader.count("inventory");
+    }
+}
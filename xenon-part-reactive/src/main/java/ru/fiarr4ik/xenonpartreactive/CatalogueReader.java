@@ -0,0 +1,221 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.fiarr4ik.xenonpartapi.dto.CategoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.InventoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.SupplierResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.Category;
+import ru.fiarr4ik.xenonpartapi.entity.Inventory;
+import ru.fiarr4ik.xenonpartapi.entity.Part;
+import ru.fiarr4ik.xenonpartapi.entity.Supplier;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
+import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Чтение каталога через R2DBC.
+ *
+ * <p>Строки собираются в те же сущности, что читает JPA в основном API, и переводятся
+ * в DTO тем же {@link GlobalMapper}. Списки читаются курсором порциями по
+ * {@code catalogue.fetch-size} строк: следующая порция запрашивается у базы, только когда
+ * клиент принял предыдущие, поэтому медленный клиент не держит ни поток, ни весь
+ * результат в памяти.
+ */
+@Component
+public class CatalogueReader {
+
+    private static final String PARTS =
+            "SELECT p.part_id, p.name, p.description, p.unit_price, p.abc_class, p.xyz_class, " +
+            "c.category_id, c.name AS category_name, s.supplier_id, s.name AS supplier_name " +
+            "FROM part p " +
+            "JOIN categories c ON c.category_id = p.category_id " +
+            "JOIN suppliers s ON s.supplier_id = p.supplier_id";
+
+    private static final String CATEGORIES =
+            "SELECT category_id, name, description FROM categories";
+
+    private static final String SUPPLIERS =
+            "SELECT supplier_id, name, contact_person, phone, email, address, lead_time_days FROM suppliers";
+
+    private static final String INVENTORY =
+            "SELECT inventory_id, part_id, quantity_in_stock, last_restock_date FROM inventory";
+
+    /**
+     * Таблицы, которые можно пересчитать: имя таблицы подставляется в текст запроса.
+     */
+    static final Set<String> COUNTED_TABLES = Set.of("part", "categories", "suppliers", "inventory");
+
+    private final DatabaseClient databaseClient;
+    private final GlobalMapper mapper;
+    private final int fetchSize;
+
+    public CatalogueReader(DatabaseClient databaseClient,
+                           GlobalMapper mapper,
+                           @Value("${catalogue.fetch-size:256}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.mapper = mapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Запчасти, при необходимости отфильтрованные по классам.
+     *
+     * @param abcClass класс по вкладу в стоимость запасов или {@code null} для любого
+     * @param xyzClass класс по стабильности расхода или {@code null} для любого
+     * @return поток запчастей
+     */
+    public Flux<PartResponseDTO> parts(AbcClass abcClass, XyzClass xyzClass) {
+        List<String> conditions = new ArrayList<>();
+        if (abcClass != null) {
+            conditions.add("p.abc_class = :abcClass");
+        }
+        if (xyzClass != null) {
+            conditions.add("p.xyz_class = :xyzClass");
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(PARTS + where + " ORDER BY p.part_id");
+        if (abcClass != null) {
+            spec = spec.bind("abcClass", abcClass.name());
+        }
+        if (xyzClass != null) {
+            spec = spec.bind("xyzClass", xyzClass.name());
+        }
+        return streamed(spec).map(CatalogueReader::toPart).all().map(mapper::toPartResponseDto);
+    }
+
+    public Mono<PartResponseDTO> part(Long id) {
+        return databaseClient.sql(PARTS + " WHERE p.part_id = :id")
+                .bind("id", id)
+                .map(CatalogueReader::toPart)
+                .one()
+                .map(mapper::toPartResponseDto)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Запчасть не найдена: " + id)));
+    }
+
+    public Flux<CategoryResponseDTO> categories() {
+        return streamed(databaseClient.sql(CATEGORIES + " ORDER BY category_id"))
+                .map(CatalogueReader::toCategory).all().map(mapper::toCategoryResponseDto);
+    }
+
+    public Mono<CategoryResponseDTO> category(Long id) {
+        return databaseClient.sql(CATEGORIES + " WHERE category_id = :id")
+                .bind("id", id)
+                .map(CatalogueReader::toCategory)
+                .one()
+                .map(mapper::toCategoryResponseDto)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Категория не найдена: " + id)));
+    }
+
+    public Flux<SupplierResponseDTO> suppliers() {
+        return streamed(databaseClient.sql(SUPPLIERS + " ORDER BY supplier_id"))
+                .map(CatalogueReader::toSupplier).all().map(mapper::toSupplierResponseDto);
+    }
+
+    public Mono<SupplierResponseDTO> supplier(Long id) {
+        return databaseClient.sql(SUPPLIERS + " WHERE supplier_id = :id")
+                .bind("id", id)
+                .map(CatalogueReader::toSupplier)
+                .one()
+                .map(mapper::toSupplierResponseDto)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Поставщик не найден: " + id)));
+    }
+
+    public Flux<InventoryResponseDTO> inventory() {
+        return streamed(databaseClient.sql(INVENTORY + " ORDER BY inventory_id"))
+                .map(CatalogueReader::toInventory).all().map(mapper::toInventoryResponseDto);
+    }
+
+    public Mono<InventoryResponseDTO> inventory(Long id) {
+        return databaseClient.sql(INVENTORY + " WHERE inventory_id = :id")
+                .bind("id", id)
+                .map(CatalogueReader::toInventory)
+                .one()
+                .map(mapper::toInventoryResponseDto)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Запись инвентаря не найдена")));
+    }
+
+    /**
+     * Количество строк таблицы каталога.
+     *
+     * @param table одна из таблиц {@code part}, {@code categories}, {@code suppliers}, {@code inventory}
+     * @return количество строк
+     * @throws IllegalArgumentException если таблица не входит в каталог
+     */
+    public Mono<Long> count(String table) {
+        if (!COUNTED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Таблица не входит в каталог: " + table);
+        }
+        return databaseClient.sql("SELECT COUNT(*) FROM " + table)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private DatabaseClient.GenericExecuteSpec streamed(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.filter(statement -> statement.fetchSize(fetchSize));
+    }
+
+    private static Part toPart(Readable row) {
+        Category category = new Category();
+        category.setCategoryId(row.get("category_id", Long.class));
+        category.setName(row.get("category_name", String.class));
+        Supplier supplier = new Supplier();
+        supplier.setSupplierId(row.get("supplier_id", Long.class));
+        supplier.setName(row.get("supplier_name", String.class));
+
+        Part part = new Part();
+        part.setPartId(row.get("part_id", Long.class));
+        part.setName(row.get("name", String.class));
+        part.setDescription(row.get("description", String.class));
+        part.setUnitPrice(row.get("unit_price", Double.class));
+        part.setCategory(category);
+        part.setSupplier(supplier);
+        String abcClass = row.get("abc_class", String.class);
+        part.setAbcClass(abcClass != null ? AbcClass.valueOf(abcClass) : null);
+        String xyzClass = row.get("xyz_class", String.class);
+        part.setXyzClass(xyzClass != null ? XyzClass.valueOf(xyzClass) : null);
+        return part;
+    }
+
+    private static Category toCategory(Readable row) {
+        Category category = new Category();
+        category.setCategoryId(row.get("category_id", Long.class));
+        category.setName(row.get("name", String.class));
+        category.setDescription(row.get("description", String.class));
+        return category;
+    }
+
+    private static Supplier toSupplier(Readable row) {
+        Supplier supplier = new Supplier();
+        supplier.setSupplierId(row.get("supplier_id", Long.class));
+        supplier.setName(row.get("name", String.class));
+        supplier.setContactPerson(row.get("contact_person", String.class));
+        supplier.setPhone(row.get("phone", String.class));
+        supplier.setEmail(row.get("email", String.class));
+        supplier.setAddress(row.get("address", String.class));
+        supplier.setLeadTimeDays(row.get("lead_time_days", Integer.class));
+        return supplier;
+    }
+
+    private static Inventory toInventory(Readable row) {
+        Part part = new Part();
+        part.setPartId(row.get("part_id", Long.class));
+        Inventory inventory = new Inventory();
+        inventory.setInventoryId(row.get("inventory_id", Long.class));
+        inventory.setPart(part);
+        inventory.setQuantityInStock(row.get("quantity_in_stock", Integer.class));
+        inventory.setLastRestockDate(row.get("last_restock_date", LocalDateTime.class));
+        return inventory;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+import ru.fiarr4ik.xenonpartapi.config.ModelMapperConfig;
+import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
+
+/**
+ * Неблокирующее API чтения каталога. Работает отдельным приложением рядом с основным
+ * сервлетным API и использует его DTO и {@link GlobalMapper}, поэтому ответы совпадают.
+ */
+@SpringBootApplication
+@Import({ModelMapperConfig.class, GlobalMapper.class})
+public class XenonPartReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(XenonPartReactiveApplication.class, args);
+    }
+}
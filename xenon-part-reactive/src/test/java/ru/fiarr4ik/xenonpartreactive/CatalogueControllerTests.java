@@ -0,0 +1,85 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Эндпоинты каталога: пути, форматы списков и ответы об ошибках.
+ */
+@WebFluxTest(CatalogueController.class)
+class CatalogueControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockitoBean
+    private CatalogueReader catalogueReader;
+
+    @Test
+    void partsAreWrittenAsJsonArray() {
+        when(catalogueReader.parts(AbcClass.A, null)).thenReturn(Flux.just(part(1L, "Колодки"), part(2L, "Диски")));
+
+        webTestClient.get().uri("/api/parts?abcClass=A")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].name").isEqualTo("Колодки")
+                .jsonPath("$[1].partId").isEqualTo(2);
+    }
+
+    @Test
+    void partsAreStreamedAsNdjson() {
+        when(catalogueReader.parts(null, null)).thenReturn(Flux.just(part(1L, "Колодки"), part(2L, "Диски")));
+
+        webTestClient.get().uri("/api/parts")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(PartResponseDTO.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void missingPartIsNotFound() {
+        when(catalogueReader.part(5L)).thenReturn(Mono.error(new ResourceNotFoundException("Запчасть не найдена: 5")));
+
+        webTestClient.get().uri("/api/parts/5")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Запчасть не найдена: 5");
+    }
+
+    @Test
+    void countsUseCatalogueTables() {
+        when(catalogueReader.count("part")).thenReturn(Mono.just(3L));
+        when(catalogueReader.count("suppliers")).thenReturn(Mono.just(4L));
+
+        webTestClient.get().uri("/api/parts/count").exchange()
+                .expectStatus().isOk().expectBody(Long.class).isEqualTo(3L);
+        webTestClient.get().uri("/api/suppliers/count").exchange()
+                .expectStatus().isOk().expectBody(Long.class).isEqualTo(4L);
+    }
+
+    private static PartResponseDTO part(Long id, String name) {
+        PartResponseDTO part = new PartResponseDTO();
+        part.setPartId(id);
+        part.setName(name);
+        return part;
+    }
+}
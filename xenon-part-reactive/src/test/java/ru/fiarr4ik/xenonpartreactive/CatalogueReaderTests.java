@@ -0,0 +1,108 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ContextConfiguration;
+import ru.fiarr4ik.xenonpartapi.config.ModelMapperConfig;
+import ru.fiarr4ik.xenonpartapi.dto.InventoryResponseDTO;
+import ru.fiarr4ik.xenonpartapi.dto.PartResponseDTO;
+import ru.fiarr4ik.xenonpartapi.entity.AbcClass;
+import ru.fiarr4ik.xenonpartapi.entity.XyzClass;
+import ru.fiarr4ik.xenonpartapi.exception.ResourceNotFoundException;
+import ru.fiarr4ik.xenonpartapi.mapper.GlobalMapper;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Чтение каталога через R2DBC на встроенном PostgreSQL.
+ */
+@DataR2dbcTest
+@Import({CatalogueReader.class, ModelMapperConfig.class, GlobalMapper.class})
+@ContextConfiguration(initializers = EmbeddedDatabase.class)
+class CatalogueReaderTests {
+
+    @Autowired
+    private CatalogueReader catalogueReader;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private Long categoryId;
+    private Long supplierId;
+    private Long brakePadsId;
+    private Long filterId;
+    private Long inventoryId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = insert("INSERT INTO categories (name) VALUES ('Тормоза') RETURNING category_id");
+        supplierId = insert("INSERT INTO suppliers (name, lead_time_days) VALUES ('Поставщик', 5) RETURNING supplier_id");
+        brakePadsId = insert("INSERT INTO part (name, category_id, supplier_id, unit_price, abc_class, xyz_class) " +
+                "VALUES ('Колодки', " + categoryId + ", " + supplierId + ", 1500, 'A', 'X') RETURNING part_id");
+        filterId = insert("INSERT INTO part (name, category_id, supplier_id, unit_price, abc_class) " +
+                "VALUES ('Фильтр', " + categoryId + ", " + supplierId + ", 300, 'C') RETURNING part_id");
+        inventoryId = insert("INSERT INTO inventory (part_id, quantity_in_stock) VALUES (" + brakePadsId + ", 7) " +
+                "RETURNING inventory_id");
+    }
+
+    @AfterEach
+    void tearDown() {
+        execute("DELETE FROM inventory WHERE inventory_id = " + inventoryId);
+        execute("DELETE FROM part WHERE part_id IN (" + brakePadsId + ", " + filterId + ")");
+        execute("DELETE FROM suppliers WHERE supplier_id = " + supplierId);
+        execute("DELETE FROM categories WHERE category_id = " + categoryId);
+    }
+
+    @Test
+    void partsAreFilteredByClassesAndJoinedWithNames() {
+        List<PartResponseDTO> all = catalogueReader.parts(null, null).collectList().block();
+        assertEquals(List.of(brakePadsId, filterId), all.stream().map(PartResponseDTO::getPartId).toList());
+
+        List<PartResponseDTO> stable = catalogueReader.parts(AbcClass.A, XyzClass.X).collectList().block();
+        assertEquals(1, stable.size());
+        PartResponseDTO part = stable.get(0);
+        assertEquals("Колодки", part.getName());
+        assertEquals("Тормоза", part.getCategoryName());
+        assertEquals("Поставщик", part.getSupplierName());
+
+        assertEquals(List.of(), catalogueReader.parts(AbcClass.B, null).collectList().block());
+    }
+
+    @Test
+    void missingRowsAreReportedAsNotFound() {
+        assertEquals("Колодки", catalogueReader.part(brakePadsId).block().getName());
+        assertThrows(ResourceNotFoundException.class, () -> catalogueReader.part(-1L).block());
+        assertThrows(ResourceNotFoundException.class, () -> catalogueReader.category(-1L).block());
+    }
+
+    @Test
+    void inventoryCarriesPartId() {
+        InventoryResponseDTO inventory = catalogueReader.inventory(inventoryId).block();
+        assertEquals(brakePadsId, inventory.getPartId());
+        assertEquals(7, inventory.getQuantityInStock());
+    }
+
+    @Test
+    void countsOnlyCatalogueTables() {
+        assertEquals(2L, catalogueReader.count("part").block());
+        assertEquals(1L, catalogueReader.count("categories").block());
+        assertThrows(IllegalArgumentException.class, () -> catalogueReader.count("users"));
+        assertThrows(IllegalArgumentException.class, () -> catalogueReader.count("part; DROP TABLE part"));
+    }
+
+    private Long insert(String sql) {
+        return databaseClient.sql(sql).map(row -> row.get(0, Long.class)).one().block();
+    }
+
+    private void execute(String sql) {
+        databaseClient.sql(sql).then().block();
+    }
+}
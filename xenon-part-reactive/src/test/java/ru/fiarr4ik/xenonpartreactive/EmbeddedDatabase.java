@@ -0,0 +1,55 @@
+package ru.fiarr4ik.xenonpartreactive;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Встроенный PostgreSQL для тестов чтения через R2DBC.
+ *
+ * <p>Схему создают миграции основного API с теми же настройками Flyway, что и в нем.
+ * Все тесты получают одну базу на запуск, данные, созданные тестом, он удаляет сам.
+ */
+class EmbeddedDatabase implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static EmbeddedPostgres shared;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        TestPropertyValues.of(
+                "spring.r2dbc.url=r2dbc:postgresql://localhost:" + shared().getPort() + "/postgres",
+                "spring.r2dbc.username=postgres",
+                "spring.r2dbc.password=postgres").applyTo(context);
+    }
+
+    private static synchronized EmbeddedPostgres shared() {
+        if (shared == null) {
+            try {
+                shared = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Flyway.configure()
+                    .dataSource(shared.getPostgresDatabase())
+                    .mixed(true)
+                    .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                    .load()
+                    .migrate();
+            EmbeddedPostgres postgres = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // База все равно останавливается вместе с JVM
+                }
+            }));
+        }
+        return shared;
+    }
+}